@@ -16,6 +16,15 @@
  */
 package org.flossware.collections.cache;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.flossware.collections.cache.negative.NegativeCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.removal.RemovalListener;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
 /**
  * Abstract base class for caches.
  *
@@ -32,6 +41,60 @@ public abstract class AbstractCache<K, V> extends AbstractParamCache<K, V, K> im
     protected AbstractCache() {
     }
 
+    /**
+     * Sets the policy deciding which entries to keep.
+     *
+     * @param policy decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if policy is null.
+     */
+    protected AbstractCache(final CachePolicy<K, V> policy) {
+        super(policy);
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep and what records our
+     * statistics.
+     *
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if policy or statsCounter is null.
+     */
+    protected AbstractCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        super(policy, statsCounter);
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep, what records our
+     * statistics and what remembers failed creates.
+     *
+     * @param policy        decides which entries to keep.
+     * @param statsCounter  records our statistics.
+     * @param negativeCache remembers failed creates.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter, final NegativeCache<K> negativeCache) {
+        super(policy, statsCounter, negativeCache);
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep, what records our
+     * statistics, what remembers failed creates and what is told when entries
+     * leave.
+     *
+     * @param policy          decides which entries to keep.
+     * @param statsCounter    records our statistics.
+     * @param negativeCache   remembers failed creates.
+     * @param removalListener told when entries leave.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter, final NegativeCache<K> negativeCache, final RemovalListener<K, V> removalListener) {
+        super(policy, statsCounter, negativeCache, removalListener);
+    }
+
     /**
      * Based upon key, create a value.
      *
@@ -49,6 +112,26 @@ public abstract class AbstractCache<K, V> extends AbstractParamCache<K, V, K> im
         return create(key);
     }
 
+    /**
+     * Based upon keys, create values. Override when values can be created in
+     * one round trip - by default each is created in turn.
+     *
+     * @param keys the keys to use when creating values.
+     *
+     * @return the values created.
+     */
+    protected Map<K, V> createAll(final Set<K> keys) {
+        return super.createAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> createAll(final Set<K> keys, final K param) {
+        return createAll(keys);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -56,4 +139,14 @@ public abstract class AbstractCache<K, V> extends AbstractParamCache<K, V, K> im
     public V get(final K key) {
         return get(key, key);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        return loadAll(keys, null);
+    }
 }
@@ -16,9 +16,30 @@
  */
 package org.flossware.collections.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
+import org.flossware.collections.cache.negative.NegativeCache;
+import org.flossware.collections.cache.negative.NullNegativeCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.Evictor;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.removal.NullRemovalListener;
+import org.flossware.collections.cache.removal.RemovalCause;
+import org.flossware.collections.cache.removal.RemovalListener;
+import org.flossware.collections.cache.removal.RemovalNotification;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
 import org.flossware.common.AbstractCommonBase;
 import org.flossware.common.IntegrityUtil;
 
@@ -33,16 +54,146 @@ import org.flossware.common.IntegrityUtil;
  */
 public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T> {
 
+    /**
+     * A load completed by a batch rather than run.
+     *
+     * @param <V> the type being loaded.
+     */
+    static final class BatchLoader<V> extends FutureTask<V> {
+
+        BatchLoader() {
+            super(new Callable<V>() {
+                @Override
+                public V call() {
+                    throw new IllegalStateException("Completed by its batch!");
+                }
+            });
+        }
+
+        void complete(final V value) {
+            set(value);
+        }
+
+        void fail(final Throwable throwable) {
+            setException(throwable);
+        }
+    }
+
     /**
      * This is our actual cache.
      */
     private final ConcurrentMap<K, V> map;
 
     /**
-     * Default constructor.
+     * The loads currently in flight - at most one per key.
      */
-    protected AbstractParamCache() {
+    private final ConcurrentMap<K, FutureTask<V>> loaders;
+
+    /**
+     * Decides which entries we keep.
+     */
+    private final CachePolicy<K, V> policy;
+
+    /**
+     * Lets our policy discard entries.
+     */
+    private final Evictor<K, V> evictor;
+
+    /**
+     * Records our statistics.
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * Remembers failed creates.
+     */
+    private final NegativeCache<K> negativeCache;
+
+    /**
+     * Told when entries leave.
+     */
+    private final RemovalListener<K, V> removalListener;
+
+    /**
+     * Sets the policy deciding which entries to keep - for example a
+     * TinyLfuCachePolicy to bound the cache - what records our statistics -
+     * for example a ConcurrentStatsCounter - what remembers failed creates -
+     * for example an ExpiringNegativeCache so bad keys fail fast rather than
+     * being created again - and what is told when entries leave - for example
+     * an AsyncRemovalListener so slow clean ups do not hold up callers.
+     *
+     * @param policy          decides which entries to keep.
+     * @param statsCounter    records our statistics.
+     * @param negativeCache   remembers failed creates.
+     * @param removalListener told when entries leave.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractParamCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter, final NegativeCache<K> negativeCache, final RemovalListener<K, V> removalListener) {
         this.map = new ConcurrentHashMap<>();
+        this.loaders = new ConcurrentHashMap<>();
+        this.policy = IntegrityUtil.ensure(policy, "Must have a cache policy!");
+        this.statsCounter = IntegrityUtil.ensure(statsCounter, "Must have a stats counter!");
+        this.negativeCache = IntegrityUtil.ensure(negativeCache, "Must have a negative cache!");
+        this.removalListener = IntegrityUtil.ensure(removalListener, "Must have a removal listener!");
+        this.evictor = new Evictor<K, V>() {
+            @Override
+            public boolean evict(final K key, final V value) {
+                return AbstractParamCache.this.evict(key, value);
+            }
+
+            @Override
+            public boolean expire(final K key, final V value) {
+                return AbstractParamCache.this.expire(key, value);
+            }
+        };
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep, what records our
+     * statistics and what remembers failed creates - nothing is told when
+     * entries leave.
+     *
+     * @param policy        decides which entries to keep.
+     * @param statsCounter  records our statistics.
+     * @param negativeCache remembers failed creates.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractParamCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter, final NegativeCache<K> negativeCache) {
+        this(policy, statsCounter, negativeCache, new NullRemovalListener<K, V>());
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep and what records our
+     * statistics - failed creates are not remembered.
+     *
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if policy or statsCounter is null.
+     */
+    protected AbstractParamCache(final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        this(policy, statsCounter, new NullNegativeCache<K>());
+    }
+
+    /**
+     * Sets the policy deciding which entries to keep - no statistics are
+     * recorded.
+     *
+     * @param policy decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if policy is null.
+     */
+    protected AbstractParamCache(final CachePolicy<K, V> policy) {
+        this(policy, new NullStatsCounter());
+    }
+
+    /**
+     * Default constructor - nothing is evicted.
+     */
+    protected AbstractParamCache() {
+        this(new NullCachePolicy<K, V>());
     }
 
     /**
@@ -54,6 +205,51 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
         return map;
     }
 
+    /**
+     * Return the policy deciding which entries we keep.
+     *
+     * @return the policy.
+     */
+    protected CachePolicy<K, V> getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Return what our policy uses to discard entries.
+     *
+     * @return the evictor.
+     */
+    protected Evictor<K, V> getEvictor() {
+        return evictor;
+    }
+
+    /**
+     * Return what records our statistics.
+     *
+     * @return the stats counter.
+     */
+    protected StatsCounter getStatsCounter() {
+        return statsCounter;
+    }
+
+    /**
+     * Return what remembers failed creates.
+     *
+     * @return the negative cache.
+     */
+    protected NegativeCache<K> getNegativeCache() {
+        return negativeCache;
+    }
+
+    /**
+     * Return what is told when entries leave.
+     *
+     * @return the removal listener.
+     */
+    protected RemovalListener<K, V> getRemovalListener() {
+        return removalListener;
+    }
+
     /**
      * Debug the key and parameters.
      *
@@ -78,6 +274,39 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
      */
     protected abstract V create(K key, T param);
 
+    /**
+     * Create values for many keys at once. Override when values can be created
+     * in one round trip - by default each is created in turn. Keys missing from
+     * the result are then created individually and values for keys not asked
+     * for are ignored.
+     *
+     * @param keys  the keys to create values for.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the created values.
+     */
+    protected Map<K, V> createAll(final Set<K> keys, final T param) {
+        final Map<K, V> retVal = new HashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, create(key, param));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return a value for key kept outside our map - for example by a second
+     * tier - to cache rather than creating one. By default there is none.
+     *
+     * @param key the key whose value to find.
+     *
+     * @return the value found or null if none.
+     */
+    protected V lookup(final K key) {
+        return null;
+    }
+
     /**
      * Will destroy a value. Most implementations likely do not need this level
      * of functionality. Override to do the needful.
@@ -89,6 +318,117 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
         getLogger().log(Level.FINE, "Requested to destroy [{0}] -> [{1}] - nothing to do", new Object[] {key, value});
     }
 
+    /**
+     * Tell our removal listener an entry left. Should the listener fail, the
+     * failure is logged rather than raised.
+     *
+     * @param key   the key that left.
+     * @param value the value that left.
+     * @param cause why it left.
+     */
+    protected void notifyRemoval(final K key, final V value, final RemovalCause cause) {
+        try {
+            getRemovalListener().onRemoval(new RemovalNotification<>(key, value, cause));
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Removal listener failed for [" + key + "]", runtimeException);
+        }
+    }
+
+    /**
+     * Discard key provided it is still mapped to value, destroying the value.
+     * Our policy is not notified.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    protected boolean evict(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to evict [{0}]", key);
+
+        if (!getMap().remove(key, value)) {
+            return false;
+        }
+
+        getStatsCounter().recordEviction();
+        destroy(key, value);
+        notifyRemoval(key, value, RemovalCause.EVICTED);
+
+        return true;
+    }
+
+    /**
+     * Discard key, as it has expired, provided it is still mapped to value,
+     * destroying the value. Our policy is not notified.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    protected boolean expire(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to expire [{0}]", key);
+
+        if (!getMap().remove(key, value)) {
+            return false;
+        }
+
+        getStatsCounter().recordEviction();
+        destroy(key, value);
+        notifyRemoval(key, value, RemovalCause.EXPIRED);
+
+        return true;
+    }
+
+    /**
+     * Remove key provided it is still mapped to value, destroying the value.
+     * Unlike evict(), our policy is notified.
+     *
+     * @param key   the key to remove.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if removed or false if key no longer mapped to value.
+     */
+    protected boolean remove(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to remove [{0}] -> [{1}]", new Object[] {key, value});
+
+        if (!getMap().remove(key, value)) {
+            return false;
+        }
+
+        getPolicy().recordRemoval(key, value);
+        destroy(key, value);
+        notifyRemoval(key, value, RemovalCause.EXPLICIT);
+
+        return true;
+    }
+
+    /**
+     * Replace key's value provided it is still mapped to oldValue. Our policy
+     * sees a write of newValue and, once swapped, oldValue is destroyed.
+     *
+     * @param key      the key whose value to replace.
+     * @param oldValue the value key should be mapped to.
+     * @param newValue the replacement value.
+     *
+     * @return true if replaced or false if key no longer mapped to oldValue.
+     */
+    protected boolean replace(final K key, final V oldValue, final V newValue) {
+        getLogger().log(Level.FINE, "Requested to replace [{0}] -> [{1}] with [{2}]", new Object[] {key, oldValue, newValue});
+
+        IntegrityUtil.ensure(newValue, "Must have a value to add!");
+
+        if (!getMap().replace(key, oldValue, newValue)) {
+            return false;
+        }
+
+        getPolicy().recordWrite(key, newValue, getEvictor());
+        destroy(key, oldValue);
+        notifyRemoval(key, oldValue, RemovalCause.REPLACED);
+
+        return true;
+    }
+
     /**
      * If oldValue is not null, return it otherwise return the new value.
      *
@@ -101,6 +441,285 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
         return (null != oldValue ? oldValue : newValue);
     }
 
+    /**
+     * Return the value computed by a loader. Should the loader have failed,
+     * its failure is raised to the caller.
+     *
+     * @param key    the key being loaded.
+     * @param loader the loader computing the value.
+     *
+     * @return the value computed by the loader.
+     *
+     * @throws CacheException if interrupted while waiting or the loader raised
+     *                        a checked exception.
+     */
+    protected V getLoadedValue(final K key, final FutureTask<V> loader) {
+        return CacheUtil.getValue(key, loader);
+    }
+
+    /**
+     * Create a value, recording how long it took. Should creating key have
+     * failed recently, that failure is raised rather than creating again, and
+     * should creating fail now, the failure is remembered.
+     *
+     * @param key   the key to use when creating.
+     * @param param the seed data to use when creating a value.
+     *
+     * @return the created value.
+     */
+    V timedCreate(final K key, final T param) {
+        final RuntimeException failure = getNegativeCache().get(key);
+        if (null != failure) {
+            debug("recently failed", key, param);
+
+            throw failure;
+        }
+
+        final long start = System.nanoTime();
+        final V retVal;
+
+        try {
+            retVal = create(key, param);
+        } catch (final RuntimeException runtimeException) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+            getNegativeCache().put(key, runtimeException);
+
+            throw runtimeException;
+        } catch (final Error error) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+
+            throw error;
+        }
+
+        if (null == retVal) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+        } else {
+            getStatsCounter().recordLoadSuccess(System.nanoTime() - start);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Create values for many keys, recording how long it took as one load.
+     *
+     * @param keys  the keys to create values for.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the created values.
+     */
+    Map<K, V> timedCreateAll(final Set<K> keys, final T param) {
+        final long start = System.nanoTime();
+        final Map<K, V> retVal;
+
+        try {
+            retVal = createAll(Collections.unmodifiableSet(keys), param);
+        } catch (final RuntimeException | Error throwable) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+
+            throw throwable;
+        }
+
+        if (null == retVal) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+        } else {
+            getStatsCounter().recordLoadSuccess(System.nanoTime() - start);
+        }
+
+        return IntegrityUtil.ensure(retVal, 0, "Must have created values!");
+    }
+
+    /**
+     * Cache a created value unless another got there first, in which case the
+     * created value is destroyed and reported as replaced.
+     *
+     * @param key     the key to cache.
+     * @param created the created value.
+     *
+     * @return the cached value.
+     */
+    V install(final K key, final V created) {
+        final V retVal = put(key, created);
+
+        if (retVal != created) {
+            destroy(key, created);
+            notifyRemoval(key, created, RemovalCause.REPLACED);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Create and cache a value for key - unless lookup() finds one. Only one
+     * load per key is ever in flight: concurrent callers missing the same key
+     * wait on that load and share its value or failure.
+     *
+     * @param key   the key to load.
+     * @param param the seed data to use when creating a value.
+     *
+     * @return the cached value.
+     */
+    protected V load(final K key, final T param) {
+        final FutureTask<V> task = new FutureTask<>(new Callable<V>() {
+            @Override
+            public V call() {
+                final V current = getMap().get(key);
+                if (null != current) {
+                    return current;
+                }
+
+                final V found = lookup(key);
+
+                return install(key, null != found ? found : timedCreate(key, param));
+            }
+        });
+
+        final FutureTask<V> loader = loaders.putIfAbsent(key, task);
+        if (null != loader) {
+            debug("loading elsewhere", key, param);
+
+            return getLoadedValue(key, loader);
+        }
+
+        try {
+            task.run();
+        } finally {
+            loaders.remove(key, task);
+        }
+
+        return getLoadedValue(key, task);
+    }
+
+    /**
+     * Complete a batch of loads this thread owns: values cached meanwhile or
+     * found by lookup() are used as is, keys that recently failed fail again
+     * and the rest are created by one call to createAll(). A failing createAll()
+     * is not remembered against its keys as it cannot say which were bad.
+     * However the batch ends, its loaders are completed and released.
+     *
+     * @param batch the loads to complete.
+     * @param param the seed data to use when creating values.
+     */
+    void loadBatch(final Map<K, BatchLoader<V>> batch, final T param) {
+        try {
+            final Set<K> missing = new LinkedHashSet<>();
+
+            for (final Map.Entry<K, BatchLoader<V>> entry : batch.entrySet()) {
+                final V current = getMap().get(entry.getKey());
+                if (null != current) {
+                    entry.getValue().complete(current);
+
+                    continue;
+                }
+
+                final V found = lookup(entry.getKey());
+                if (null != found) {
+                    entry.getValue().complete(install(entry.getKey(), found));
+
+                    continue;
+                }
+
+                final RuntimeException failure = getNegativeCache().get(entry.getKey());
+                if (null != failure) {
+                    entry.getValue().fail(failure);
+                } else {
+                    missing.add(entry.getKey());
+                }
+            }
+
+            if (missing.isEmpty()) {
+                return;
+            }
+
+            final Map<K, V> created = timedCreateAll(missing, param);
+
+            for (final K key : missing) {
+                try {
+                    final V value = created.get(key);
+
+                    batch.get(key).complete(install(key, null != value ? value : timedCreate(key, param)));
+                } catch (final RuntimeException | Error throwable) {
+                    batch.get(key).fail(throwable);
+                }
+            }
+        } catch (final RuntimeException | Error throwable) {
+            for (final BatchLoader<V> loader : batch.values()) {
+                loader.fail(throwable);
+            }
+        } finally {
+            for (final Map.Entry<K, BatchLoader<V>> entry : batch.entrySet()) {
+                loaders.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Return values for keys, creating those neither cached nor found by
+     * lookup() with one call to createAll(). Keys already loading elsewhere
+     * are waited on rather than created again, and concurrent gets of keys in
+     * our batch wait on it.
+     *
+     * @param keys  the keys whose values to return.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the values in the order of keys.
+     */
+    protected Map<K, V> loadAll(final Collection<K> keys, final T param) {
+        for (final K key : keys) {
+            IntegrityUtil.ensure(key, "Cannot have a null key!");
+        }
+
+        final Map<K, V> found = new HashMap<>();
+        final Map<K, FutureTask<V>> loading = new HashMap<>();
+        final Map<K, BatchLoader<V>> batch = new LinkedHashMap<>();
+
+        int hits = 0;
+
+        for (final K key : keys) {
+            if (found.containsKey(key) || loading.containsKey(key)) {
+                continue;
+            }
+
+            final V value = getMap().get(key);
+            if (null != value) {
+                if (getPolicy().recordRead(key, value, getEvictor())) {
+                    found.put(key, value);
+                    hits++;
+
+                    continue;
+                }
+
+                expire(key, value);
+            }
+
+            final BatchLoader<V> task = new BatchLoader<>();
+            final FutureTask<V> loader = loaders.putIfAbsent(key, task);
+            if (null != loader) {
+                debug("loading elsewhere", key, param);
+
+                loading.put(key, loader);
+            } else {
+                loading.put(key, task);
+                batch.put(key, task);
+            }
+        }
+
+        getStatsCounter().recordHits(hits);
+        getStatsCounter().recordMisses(loading.size());
+
+        if (!batch.isEmpty()) {
+            loadBatch(batch, param);
+        }
+
+        final Map<K, V> retVal = new LinkedHashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, found.containsKey(key) ? found.get(key) : getLoadedValue(key, loading.get(key)));
+        }
+
+        return retVal;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -111,7 +730,13 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
         IntegrityUtil.ensure(key, "Cannot have a null key!");
         IntegrityUtil.ensure(value, "Must have a value to add!");
 
-        return getNonNull(getMap().putIfAbsent(key, value), value);
+        final V current = getMap().putIfAbsent(key, value);
+        if (null == current) {
+            getPolicy().recordWrite(key, value, getEvictor());
+            getNegativeCache().invalidate(key);
+        }
+
+        return getNonNull(current, value);
     }
 
     /**
@@ -126,12 +751,44 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
 
         final V retVal = getMap().get(key);
         if (null != retVal) {
-            debug("cached", key, param);
+            if (getPolicy().recordRead(key, retVal, getEvictor())) {
+                getStatsCounter().recordHits(1);
+                debug("cached", key, param);
+
+                return retVal;
+            }
+
+            expire(key, retVal);
+        }
 
-            return retVal;
+        getStatsCounter().recordMisses(1);
+
+        return load(key, param);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        IntegrityUtil.ensure(values, 0, "Must have values to add!");
+
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
         }
+    }
 
-        return put(key, create(key, param));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T param) {
+        getLogger().log(Level.FINE, "Attempting to retrieve [{0}]", keys);
+
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+        IntegrityUtil.ensure(param, "Must have parameters!");
+
+        return loadAll(keys, param);
     }
 
     /**
@@ -141,6 +798,37 @@ public abstract class AbstractParamCache<K, V, T> extends AbstractCommonBase imp
     public void remove(final K key) {
         getLogger().log(Level.FINE, "Requested to remove [{0}]", key);
 
-        destroy(IntegrityUtil.ensure(key, "Cannot have a null key!"), getMap().remove(key));
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        final V value = getMap().remove(key);
+        if (null != value) {
+            getPolicy().recordRemoval(key, value);
+        }
+
+        getNegativeCache().invalidate(key);
+        destroy(key, value);
+
+        if (null != value) {
+            notifyRemoval(key, value, RemovalCause.EXPLICIT);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        getLogger().log(Level.FINE, "Cleaning up");
+
+        getPolicy().cleanUp(getEvictor());
+        getNegativeCache().cleanUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return getStatsCounter().snapshot();
     }
 }
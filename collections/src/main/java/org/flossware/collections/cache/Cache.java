@@ -16,6 +16,9 @@
  */
 package org.flossware.collections.cache;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * API for caching things.
  *
@@ -35,4 +38,14 @@ public interface Cache<K, V> extends ParamCache<K, V, K> {
      * @return the cached value.
      */
     V get(K key);
+
+    /**
+     * Return items from the cache. Those not there are created together - in
+     * one round trip where the cache supports it.
+     *
+     * @param keys the keys.
+     *
+     * @return the cached values in the order of keys.
+     */
+    Map<K, V> getAll(Collection<K> keys);
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Periodically cleans up caches - for example so expired entries are
+ * destroyed even when a cache is idle. One cleaner may be shared by any number
+ * of caches.
+ *
+ * @author Scot P. Floess
+ */
+public class CacheCleaner extends AbstractCommonBase {
+
+    /**
+     * Runs our clean ups.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Return a scheduler using a single daemon thread.
+     */
+    static ScheduledExecutorService createScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread retVal = new Thread(runnable, "CacheCleaner");
+                retVal.setDaemon(true);
+
+                return retVal;
+            }
+        });
+    }
+
+    /**
+     * Sets the scheduler to use.
+     *
+     * @param scheduler runs our clean ups.
+     *
+     * @throws IllegalArgumentException if scheduler is null.
+     */
+    public CacheCleaner(final ScheduledExecutorService scheduler) {
+        this.scheduler = IntegrityUtil.ensure(scheduler, "Must have a scheduler!");
+    }
+
+    /**
+     * Default constructor - uses a single daemon thread.
+     */
+    public CacheCleaner() {
+        this(createScheduler());
+    }
+
+    /**
+     * Return our scheduler.
+     *
+     * @return the scheduler.
+     */
+    protected ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Clean up cache every period.
+     *
+     * @param cache  the cache to clean up.
+     * @param period time between clean ups.
+     * @param unit   the unit of period.
+     *
+     * @return can be used to stop cleaning up.
+     *
+     * @throws IllegalArgumentException if cache or unit is null or period is
+     *                                  less than one.
+     */
+    public ScheduledFuture<?> schedule(final ParamCache<?, ?, ?> cache, final long period, final TimeUnit unit) {
+        IntegrityUtil.ensure(cache, "Must have a cache!");
+        IntegrityUtil.ensure(period, 1, "Period must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        return getScheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    cache.cleanUp();
+                } catch (final RuntimeException runtimeException) {
+                    getLogger().log(Level.WARNING, "Could not clean up cache", runtimeException);
+                }
+            }
+        }, period, period, unit);
+    }
+}
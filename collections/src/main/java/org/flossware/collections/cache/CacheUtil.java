@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Utility class for caches.
+ *
+ * @author Scot P. Floess
+ */
+public final class CacheUtil {
+
+    /**
+     * Default constructor not allowed.
+     */
+    private CacheUtil() {
+    }
+
+    /**
+     * Wait for and return the value a future computes for key. Should the
+     * future have failed, its failure is raised to the caller.
+     *
+     * @param <V>    the type computed.
+     *
+     * @param key    the key being computed.
+     * @param future computes the value.
+     *
+     * @return the value computed.
+     *
+     * @throws CacheException if interrupted while waiting, the future was
+     *                        cancelled or raised a checked exception.
+     */
+    public static <V> V getValue(final Object key, final Future<V> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            throw new CacheException("Interrupted while waiting for key [" + key + "] to load", interruptedException);
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new CacheException("Could not load key [" + key + "]", cause);
+        } catch (final CancellationException cancellationException) {
+            throw new CacheException("Load of key [" + key + "] was cancelled", cancellationException);
+        }
+    }
+
+    /**
+     * Return an executor using virtual threads where available or else a pool
+     * of daemon threads.
+     *
+     * @param threadName the name of pooled threads.
+     *
+     * @return an executor.
+     */
+    public static Executor createDefaultExecutor(final String threadName) {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException exception) {
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread retVal = new Thread(runnable, threadName);
+                    retVal.setDaemon(true);
+
+                    return retVal;
+                }
+            });
+        }
+    }
+}
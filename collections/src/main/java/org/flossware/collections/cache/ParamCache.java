@@ -16,6 +16,10 @@
  */
 package org.flossware.collections.cache;
 
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.stats.CacheStats;
+
 /**
  * API for caching things.
  *
@@ -48,10 +52,41 @@ public interface ParamCache<K, V, T> {
      */
     V get(K key, T parameter);
 
+    /**
+     * Put each value in cache if not there.
+     *
+     * @param values the keys and values to cache.
+     */
+    void putAll(Map<K, V> values);
+
+    /**
+     * Return items from the cache. Those not there are created together - in
+     * one round trip where the cache supports it.
+     *
+     * @param keys      the keys.
+     * @param parameter value(s) used to create those not found.
+     *
+     * @return the cached values in the order of keys.
+     */
+    Map<K, V> getAll(Collection<K> keys, T parameter);
+
     /**
      * Remove the key from the cache.
      *
      * @param key the thing to remove.
      */
     void remove(K key);
+
+    /**
+     * Perform any pending maintenance - for example discarding expired entries.
+     */
+    void cleanUp();
+
+    /**
+     * Return a snapshot of our statistics - all zero unless statistics are
+     * recorded.
+     *
+     * @return the statistics.
+     */
+    CacheStats stats();
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for asynchronous caches.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public abstract class AbstractAsyncCache<K, V> extends AbstractAsyncParamCache<K, V, K> implements AsyncCache<K, V> {
+
+    /**
+     * Sets the executor creating values, the policy deciding which entries to
+     * keep and what records our statistics.
+     *
+     * @param executor     creates values.
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractAsyncCache(final Executor executor, final CachePolicy<K, CacheFuture<V>> policy, final StatsCounter statsCounter) {
+        super(executor, policy, statsCounter);
+    }
+
+    /**
+     * Sets the executor creating values and the policy deciding which entries
+     * to keep.
+     *
+     * @param executor creates values.
+     * @param policy   decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if executor or policy is null.
+     */
+    protected AbstractAsyncCache(final Executor executor, final CachePolicy<K, CacheFuture<V>> policy) {
+        super(executor, policy);
+    }
+
+    /**
+     * Sets the executor creating values - nothing is evicted.
+     *
+     * @param executor creates values.
+     *
+     * @throws IllegalArgumentException if executor is null.
+     */
+    protected AbstractAsyncCache(final Executor executor) {
+        super(executor);
+    }
+
+    /**
+     * Default constructor - values are created on virtual threads where
+     * available and nothing is evicted.
+     */
+    protected AbstractAsyncCache() {
+    }
+
+    /**
+     * Based upon key, create a value - called on our executor.
+     *
+     * @param key the key to use when creating a value
+     *
+     * @return the value created
+     */
+    protected abstract V create(K key);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected V create(final K key, final K param) {
+        return create(key);
+    }
+
+    /**
+     * Based upon keys, create values - called on our executor. Override when
+     * values can be created in one round trip - by default each is created in
+     * turn.
+     *
+     * @param keys the keys to use when creating values.
+     *
+     * @return the values created.
+     */
+    protected Map<K, V> createAll(final Set<K> keys) {
+        return super.createAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> createAll(final Set<K> keys, final K param) {
+        return createAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheFuture<V> get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, CacheFuture<V>> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        return loadAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cache<K, V> synchronous() {
+        return new SynchronousCache<>(this);
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for asynchronous caches. Futures are stored in an
+ * AbstractParamCache, so loads are single-flight per key and any cache policy
+ * applies. Failed or cancelled futures are removed as soon as they complete
+ * (or, should a get beat that, by the get) so the next get tries again.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public abstract class AbstractAsyncParamCache<K, V, T> extends AbstractCommonBase implements AsyncParamCache<K, V, T> {
+
+    /**
+     * Stores our futures.
+     */
+    final class FutureCache extends AbstractParamCache<K, CacheFuture<V>, T> {
+
+        FutureCache(final CachePolicy<K, CacheFuture<V>> policy, final StatsCounter statsCounter) {
+            super(policy, new FutureStatsCounter(statsCounter));
+        }
+
+        boolean discard(final K key, final CacheFuture<V> future) {
+            return remove(key, future);
+        }
+
+        CacheFuture<V> loadFuture(final K key, final T param) {
+            return load(key, param);
+        }
+
+        Map<K, CacheFuture<V>> getAllFutures(final Collection<K> keys, final T param) {
+            return loadAll(keys, param);
+        }
+
+        /**
+         * Remove the future should it fail, so the next get tries again.
+         */
+        CacheFuture<V> discardOnFailure(final K key, final CacheFuture<V> future) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isFailed()) {
+                        getLogger().log(Level.FINE, "Removing failed load of [{0}]", key);
+
+                        discard(key, future);
+                    }
+                }
+            });
+
+            return future;
+        }
+
+        @Override
+        protected CacheFuture<V> create(final K key, final T param) {
+            return discardOnFailure(key, new CacheFuture<>(new Callable<V>() {
+                @Override
+                public V call() {
+                    return timedCreate(key, param);
+                }
+            }));
+        }
+
+        /**
+         * One future computes the batch on our executor - once done, it
+         * completes each key's future.
+         */
+        @Override
+        protected Map<K, CacheFuture<V>> createAll(final Set<K> keys, final T param) {
+            final Set<K> toCreate = new LinkedHashSet<>(keys);
+            final CacheFuture<Map<K, V>> batch = new CacheFuture<>(new Callable<Map<K, V>>() {
+                @Override
+                public Map<K, V> call() {
+                    return timedCreateAll(toCreate, param);
+                }
+            });
+
+            final Map<K, CacheFuture<V>> retVal = new HashMap<>();
+
+            for (final K key : toCreate) {
+                final CacheFuture<V> future = discardOnFailure(key, new CacheFuture<>(new Callable<V>() {
+                    @Override
+                    public V call() {
+                        final V value = CacheUtil.getValue(key, batch).get(key);
+
+                        return null != value ? value : timedCreate(key, param);
+                    }
+                }));
+
+                future.claim();
+                batch.addListener(future);
+                retVal.put(key, future);
+            }
+
+            batch.start(getExecutor());
+
+            return retVal;
+        }
+
+        @Override
+        protected void destroy(final K key, final CacheFuture<V> future) {
+            if (null == future) {
+                return;
+            }
+
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (!future.isFailed()) {
+                        AbstractAsyncParamCache.this.destroy(key, CacheUtil.getValue(key, future));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates our values.
+     */
+    private final Executor executor;
+
+    /**
+     * Records our statistics.
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * Stores our futures.
+     */
+    private final FutureCache cache;
+
+    /**
+     * Sets the executor creating values, the policy deciding which entries to
+     * keep and what records our statistics. Load times cover the computation
+     * on our executor.
+     *
+     * @param executor     creates values.
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractAsyncParamCache(final Executor executor, final CachePolicy<K, CacheFuture<V>> policy, final StatsCounter statsCounter) {
+        this.executor = IntegrityUtil.ensure(executor, "Must have an executor!");
+        this.statsCounter = IntegrityUtil.ensure(statsCounter, "Must have a stats counter!");
+        this.cache = new FutureCache(policy, statsCounter);
+    }
+
+    /**
+     * Sets the executor creating values and the policy deciding which entries
+     * to keep - no statistics are recorded.
+     *
+     * @param executor creates values.
+     * @param policy   decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if executor or policy is null.
+     */
+    protected AbstractAsyncParamCache(final Executor executor, final CachePolicy<K, CacheFuture<V>> policy) {
+        this(executor, policy, new NullStatsCounter());
+    }
+
+    /**
+     * Sets the executor creating values - nothing is evicted.
+     *
+     * @param executor creates values.
+     *
+     * @throws IllegalArgumentException if executor is null.
+     */
+    protected AbstractAsyncParamCache(final Executor executor) {
+        this(executor, new NullCachePolicy<K, CacheFuture<V>>());
+    }
+
+    /**
+     * Default constructor - values are created on virtual threads where
+     * available and nothing is evicted.
+     */
+    protected AbstractAsyncParamCache() {
+        this(CacheUtil.createDefaultExecutor("AsyncCache"));
+    }
+
+    /**
+     * Return the executor creating values.
+     *
+     * @return the executor.
+     */
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Return the cache storing our futures.
+     *
+     * @return the cache of futures.
+     */
+    protected ParamCache<K, CacheFuture<V>, T> getCache() {
+        return cache;
+    }
+
+    /**
+     * Create a value based on parameters - called on our executor.
+     *
+     * @param key   the key to use when creating.
+     * @param param the seed data to use when creating a value.
+     *
+     * @return the created value - null fails the load.
+     */
+    protected abstract V create(K key, T param);
+
+    /**
+     * Create values for many keys at once - called on our executor. Override
+     * when values can be created in one round trip - by default each is
+     * created in turn. Keys missing from the result are then created
+     * individually and values for keys not asked for are ignored.
+     *
+     * @param keys  the keys to create values for.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the created values.
+     */
+    protected Map<K, V> createAll(final Set<K> keys, final T param) {
+        final Map<K, V> retVal = new HashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, create(key, param));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Create a value, recording how long it took. A null value fails, so its
+     * future is discarded rather than cached.
+     */
+    V timedCreate(final K key, final T param) {
+        final long start = System.nanoTime();
+        final V retVal;
+
+        try {
+            retVal = create(key, param);
+        } catch (final RuntimeException | Error throwable) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+
+            throw throwable;
+        }
+
+        if (null == retVal) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+
+            throw new IllegalArgumentException("Must have a value to add!");
+        }
+
+        statsCounter.recordLoadSuccess(System.nanoTime() - start);
+
+        return retVal;
+    }
+
+    /**
+     * Create values for many keys, recording how long it took as one load.
+     */
+    Map<K, V> timedCreateAll(final Set<K> keys, final T param) {
+        final long start = System.nanoTime();
+        final Map<K, V> retVal;
+
+        try {
+            retVal = createAll(Collections.unmodifiableSet(keys), param);
+        } catch (final RuntimeException | Error throwable) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+
+            throw throwable;
+        }
+
+        if (null == retVal) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+        } else {
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+        }
+
+        return IntegrityUtil.ensure(retVal, 0, "Must have created values!");
+    }
+
+    /**
+     * Should future have failed, discard it and get again until one has not,
+     * then make sure it is started.
+     *
+     * @param key    the key of future.
+     * @param param  the seed data to use when creating a value.
+     * @param future the future returned by our cache.
+     *
+     * @return a started future that has not failed.
+     */
+    CacheFuture<V> start(final K key, final T param, final CacheFuture<V> future) {
+        CacheFuture<V> retVal = future;
+
+        while (retVal.isFailed()) {
+            cache.discard(key, retVal);
+
+            retVal = cache.loadFuture(key, param);
+        }
+
+        return retVal.start(getExecutor());
+    }
+
+    /**
+     * Return futures for keys, creating those not cached with one call to
+     * createAll() on our executor. Should any have already failed, they are
+     * discarded and created again together - once, as batches start as soon as
+     * they are created and so may fail before we return.
+     *
+     * @param keys  the keys whose futures to return.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the futures in the order of keys.
+     */
+    protected Map<K, CacheFuture<V>> loadAll(final Collection<K> keys, final T param) {
+        final Map<K, CacheFuture<V>> retVal = new LinkedHashMap<>(cache.getAllFutures(keys, param));
+
+        final Set<K> failed = getFailed(retVal);
+        if (!failed.isEmpty()) {
+            for (final K key : failed) {
+                cache.discard(key, retVal.get(key));
+            }
+
+            retVal.putAll(cache.getAllFutures(failed, param));
+        }
+
+        for (final CacheFuture<V> future : retVal.values()) {
+            future.start(getExecutor());
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the keys whose futures have failed.
+     */
+    Set<K> getFailed(final Map<K, CacheFuture<V>> futures) {
+        final Set<K> retVal = new LinkedHashSet<>();
+
+        for (final Map.Entry<K, CacheFuture<V>> entry : futures.entrySet()) {
+            if (entry.getValue().isFailed()) {
+                retVal.add(entry.getKey());
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Will destroy a value once it is removed and computed. Override to do the
+     * needful.
+     *
+     * @param key   the key that refers to value.
+     * @param value the value to destroy.
+     */
+    protected void destroy(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to destroy [{0}] -> [{1}] - nothing to do", new Object[] {key, value});
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheFuture<V> put(final K key, final V value) {
+        return getCache().put(key, new CacheFuture<>(IntegrityUtil.ensure(value, "Must have a value to add!")));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheFuture<V> get(final K key, final T param) {
+        return start(key, param, getCache().get(key, param));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        IntegrityUtil.ensure(values, 0, "Must have values to add!");
+
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, CacheFuture<V>> getAll(final Collection<K> keys, final T param) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+        IntegrityUtil.ensure(param, "Must have parameters!");
+
+        return loadAll(keys, param);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        getCache().remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        getCache().cleanUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return getCache().stats();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ParamCache<K, V, T> synchronous() {
+        return new SynchronousParamCache<>(this);
+    }
+}
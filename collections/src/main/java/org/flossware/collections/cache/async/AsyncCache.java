@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.Cache;
+
+/**
+ * API for caching things without blocking.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public interface AsyncCache<K, V> extends AsyncParamCache<K, V, K> {
+
+    /**
+     * Return an item from the cache. If not there, it will be created on our
+     * executor - this never waits for the value.
+     *
+     * @param key the key.
+     *
+     * @return the future of the cached value.
+     */
+    CacheFuture<V> get(K key);
+
+    /**
+     * Return items from the cache. Those not there are created together on our
+     * executor - this never waits for the values.
+     *
+     * @param keys the keys.
+     *
+     * @return the futures of the cached values in the order of keys.
+     */
+    Map<K, CacheFuture<V>> getAll(Collection<K> keys);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Cache<K, V> synchronous();
+}
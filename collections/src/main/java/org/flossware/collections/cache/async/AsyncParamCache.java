@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.stats.CacheStats;
+
+/**
+ * API for caching things without blocking. Values are created on an executor
+ * and returned as futures so callers can compose them with other asynchronous
+ * work.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public interface AsyncParamCache<K, V, T> {
+
+    /**
+     * Put the value in cache if not there.
+     *
+     * @param key   the key for the value.
+     * @param value the actual value.
+     *
+     * @return the future currently cached, or a completed future of
+     *         <code>value</code> as it is now cached.
+     */
+    CacheFuture<V> put(K key, V value);
+
+    /**
+     * Return an item from the cache. If not there, it will be created on our
+     * executor - this never waits for the value.
+     *
+     * @param key       the key.
+     * @param parameter value(s) used to create if not found.
+     *
+     * @return the future of the cached value.
+     */
+    CacheFuture<V> get(K key, T parameter);
+
+    /**
+     * Put each value in cache if not there.
+     *
+     * @param values the keys and values to cache.
+     */
+    void putAll(Map<K, V> values);
+
+    /**
+     * Return items from the cache. Those not there are created together on our
+     * executor - this never waits for the values.
+     *
+     * @param keys      the keys.
+     * @param parameter value(s) used to create those not found.
+     *
+     * @return the futures of the cached values in the order of keys.
+     */
+    Map<K, CacheFuture<V>> getAll(Collection<K> keys, T parameter);
+
+    /**
+     * Remove the key from the cache.
+     *
+     * @param key the thing to remove.
+     */
+    void remove(K key);
+
+    /**
+     * Perform any pending maintenance - for example discarding expired entries.
+     */
+    void cleanUp();
+
+    /**
+     * Return a snapshot of our statistics - all zero unless statistics are
+     * recorded.
+     *
+     * @return the statistics.
+     */
+    CacheStats stats();
+
+    /**
+     * Return a view of self that waits for values. The view shares our
+     * storage.
+     *
+     * @return a synchronous view.
+     */
+    ParamCache<K, V, T> synchronous();
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A future for a cached value. Listeners may be added so callers can react to
+ * the value being computed instead of blocking on it.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type computed.
+ */
+public class CacheFuture<V> extends FutureTask<V> {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger logger = Logger.getLogger(CacheFuture.class.getName());
+
+    /**
+     * Runs a listener on the thread completing the future.
+     */
+    static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(final Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    /**
+     * A listener and where to run it.
+     */
+    static final class Listener {
+
+        final Runnable runnable;
+        final Executor executor;
+
+        Listener(final Runnable runnable, final Executor executor) {
+            this.runnable = runnable;
+            this.executor = executor;
+        }
+
+        void execute() {
+            try {
+                executor.execute(runnable);
+            } catch (final RuntimeException runtimeException) {
+                logger.log(Level.WARNING, "Listener [" + runnable + "] failed", runtimeException);
+            }
+        }
+    }
+
+    /**
+     * Listeners waiting on completion - null once complete.
+     */
+    private List<Listener> listeners;
+
+    /**
+     * Set once we are handed to an executor.
+     */
+    private final AtomicBoolean started;
+
+    /**
+     * Set if the computation failed.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Sets the computation.
+     *
+     * @param callable computes the value.
+     */
+    public CacheFuture(final Callable<V> callable) {
+        super(callable);
+
+        this.listeners = new ArrayList<>();
+        this.started = new AtomicBoolean();
+    }
+
+    /**
+     * Sets an already computed value.
+     *
+     * @param value the value.
+     */
+    public CacheFuture(final V value) {
+        this(new Callable<V>() {
+            @Override
+            public V call() {
+                return value;
+            }
+        });
+
+        started.set(true);
+        run();
+    }
+
+    /**
+     * Hand self to executor unless already started.
+     *
+     * @param executor will compute the value.
+     *
+     * @return self.
+     */
+    public CacheFuture<V> start(final Executor executor) {
+        if (claim()) {
+            executor.execute(this);
+        }
+
+        return this;
+    }
+
+    /**
+     * Mark self started without running - whoever claims us must run us.
+     *
+     * @return true if claimed or false if already started.
+     */
+    boolean claim() {
+        return started.compareAndSet(false, true);
+    }
+
+    /**
+     * Run listener using executor once the value is computed, failed or
+     * cancelled. If that has already happened, listener is run now.
+     *
+     * @param listener the listener to run.
+     * @param executor runs the listener.
+     */
+    public void addListener(final Runnable listener, final Executor executor) {
+        final Listener toAdd = new Listener(listener, executor);
+
+        synchronized (this) {
+            if (null != listeners) {
+                listeners.add(toAdd);
+
+                return;
+            }
+        }
+
+        toAdd.execute();
+    }
+
+    /**
+     * Run listener on the thread completing self.
+     *
+     * @param listener the listener to run.
+     */
+    public void addListener(final Runnable listener) {
+        addListener(listener, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Return true if cancelled or the computation raised an exception.
+     *
+     * @return true if failed.
+     */
+    public boolean isFailed() {
+        return isCancelled() || null != failure;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setException(final Throwable throwable) {
+        failure = throwable;
+
+        super.setException(throwable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done() {
+        final List<Listener> toNotify;
+
+        synchronized (this) {
+            toNotify = listeners;
+            listeners = null;
+        }
+
+        for (final Listener listener : toNotify) {
+            listener.execute();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Used by our cache of futures: creating a future takes no time, so loads are
+ * not recorded here but when the future's computation completes. Everything
+ * else is passed along.
+ *
+ * @author Scot P. Floess
+ */
+final class FutureStatsCounter implements StatsCounter {
+
+    /**
+     * Where we pass along hits, misses and evictions.
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * Sets where we pass along hits, misses and evictions.
+     *
+     * @param statsCounter the stats counter to pass along to.
+     *
+     * @throws IllegalArgumentException if statsCounter is null.
+     */
+    FutureStatsCounter(final StatsCounter statsCounter) {
+        this.statsCounter = IntegrityUtil.ensure(statsCounter, "Must have a stats counter!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordHits(final int count) {
+        statsCounter.recordHits(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordMisses(final int count) {
+        statsCounter.recordMisses(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadSuccess(final long loadTime) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadFailure(final long loadTime) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordEviction() {
+        statsCounter.recordEviction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats snapshot() {
+        return statsCounter.snapshot();
+    }
+}
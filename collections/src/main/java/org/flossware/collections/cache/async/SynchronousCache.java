@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.CacheUtil;
+
+/**
+ * A view of an asynchronous cache that waits for values.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public class SynchronousCache<K, V> extends SynchronousParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets the cache to view.
+     *
+     * @param asyncCache the cache to view.
+     *
+     * @throws IllegalArgumentException if asyncCache is null.
+     */
+    public SynchronousCache(final AsyncCache<K, V> asyncCache) {
+        super(asyncCache);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected AsyncCache<K, V> getAsyncCache() {
+        return (AsyncCache<K, V>) super.getAsyncCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return CacheUtil.getValue(key, getAsyncCache().get(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        return getValues(getAsyncCache().getAll(keys));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A view of an asynchronous cache that waits for values.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public class SynchronousParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T> {
+
+    /**
+     * The cache we view.
+     */
+    private final AsyncParamCache<K, V, T> asyncCache;
+
+    /**
+     * Sets the cache to view.
+     *
+     * @param asyncCache the cache to view.
+     *
+     * @throws IllegalArgumentException if asyncCache is null.
+     */
+    public SynchronousParamCache(final AsyncParamCache<K, V, T> asyncCache) {
+        this.asyncCache = IntegrityUtil.ensure(asyncCache, "Must have an async cache!");
+    }
+
+    /**
+     * Return the cache we view.
+     *
+     * @return the cache we view.
+     */
+    protected AsyncParamCache<K, V, T> getAsyncCache() {
+        return asyncCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        return CacheUtil.getValue(key, getAsyncCache().put(key, value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T parameter) {
+        return CacheUtil.getValue(key, getAsyncCache().get(key, parameter));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        getAsyncCache().putAll(values);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T parameter) {
+        return getValues(getAsyncCache().getAll(keys, parameter));
+    }
+
+    /**
+     * Wait for each future.
+     *
+     * @param futures the futures to wait for.
+     *
+     * @return the values in the order of futures.
+     */
+    protected Map<K, V> getValues(final Map<K, CacheFuture<V>> futures) {
+        final Map<K, V> retVal = new LinkedHashMap<>();
+
+        for (final Map.Entry<K, CacheFuture<V>> entry : futures.entrySet()) {
+            retVal.put(entry.getKey(), CacheUtil.getValue(entry.getKey(), entry.getValue()));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        getAsyncCache().remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        getAsyncCache().cleanUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return getAsyncCache().stats();
+    }
+}
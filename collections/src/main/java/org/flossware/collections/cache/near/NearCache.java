@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.near;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.policy.Ticker;
+
+/**
+ * Puts a small per thread cache in front of a shared cache.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public class NearCache<K, V> extends NearParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets the cache to front, how many entries each thread keeps, for how
+     * long and our source of time.
+     *
+     * @param cache  the cache to front.
+     * @param size   how many entries each thread keeps - rounded up to a power
+     *               of two.
+     * @param maxAge how long an entry is kept.
+     * @param unit   the unit of maxAge.
+     * @param ticker our source of time.
+     *
+     * @throws IllegalArgumentException if cache, unit or ticker is null, size
+     *                                  is less than two or maxAge is less than
+     *                                  one.
+     */
+    public NearCache(final Cache<K, V> cache, final int size, final long maxAge, final TimeUnit unit, final Ticker ticker) {
+        super(cache, size, maxAge, unit, ticker);
+    }
+
+    /**
+     * Sets the cache to front, how many entries each thread keeps and for how
+     * long.
+     *
+     * @param cache  the cache to front.
+     * @param size   how many entries each thread keeps - rounded up to a power
+     *               of two.
+     * @param maxAge how long an entry is kept.
+     * @param unit   the unit of maxAge.
+     *
+     * @throws IllegalArgumentException if cache or unit is null, size is less
+     *                                  than two or maxAge is less than one.
+     */
+    public NearCache(final Cache<K, V> cache, final int size, final long maxAge, final TimeUnit unit) {
+        super(cache, size, maxAge, unit);
+    }
+
+    /**
+     * Sets the cache to front and how many entries each thread keeps - each is
+     * kept DEFAULT_MAX_AGE milliseconds.
+     *
+     * @param cache the cache to front.
+     * @param size  how many entries each thread keeps - rounded up to a power
+     *              of two.
+     *
+     * @throws IllegalArgumentException if cache is null or size is less than
+     *                                  two.
+     */
+    public NearCache(final Cache<K, V> cache, final int size) {
+        super(cache, size);
+    }
+
+    /**
+     * Sets the cache to front - each thread keeps DEFAULT_SIZE entries for
+     * DEFAULT_MAX_AGE milliseconds.
+     *
+     * @param cache the cache to front.
+     *
+     * @throws IllegalArgumentException if cache is null.
+     */
+    public NearCache(final Cache<K, V> cache) {
+        super(cache);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Cache<K, V> getCache() {
+        return (Cache<K, V>) super.getCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        return getCache().getAll(keys);
+    }
+}
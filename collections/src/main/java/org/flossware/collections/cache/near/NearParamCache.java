@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.near;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.policy.DefaultTicker;
+import org.flossware.collections.cache.policy.Ticker;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Puts a small per thread cache in front of a shared cache so the hottest keys
+ * are served without touching the shared cache's map. Each thread keeps a
+ * direct mapped array of recently read entries, each stamped with our epoch
+ * when read. Any put(), putAll(), remove() or cleanUp() through us bumps the
+ * epoch, invalidating every thread's entries at once, and clears them.
+ *
+ * Entries the shared cache evicts, expires or destroys on its own are not seen
+ * by us, so each entry is only kept for a maximum age - once older it is read
+ * again from the shared cache. Hits served here are not seen by the shared
+ * cache's policy or statistics.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public class NearParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T> {
+
+    /**
+     * Default number of entries each thread keeps.
+     */
+    public static final int DEFAULT_SIZE = 32;
+
+    /**
+     * Default milliseconds an entry is kept.
+     */
+    public static final long DEFAULT_MAX_AGE = 1000;
+
+    /**
+     * An entry a thread keeps.
+     */
+    static final class Entry {
+
+        final Object key;
+        final Object value;
+        final long epoch;
+        final long expires;
+
+        Entry(final Object key, final Object value, final long epoch, final long expires) {
+            this.key = key;
+            this.value = value;
+            this.epoch = epoch;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * The cache we front.
+     */
+    private final ParamCache<K, V, T> cache;
+
+    /**
+     * Bumped whenever entries may have changed.
+     */
+    private final AtomicLong epoch;
+
+    /**
+     * Mask selecting an entry's slot - one less than the number of slots.
+     */
+    private final int mask;
+
+    /**
+     * Each thread's entries.
+     */
+    private final ThreadLocal<Entry[]> entries;
+
+    /**
+     * Every thread's entries - weakly, so threads that end are forgotten.
+     */
+    private final Queue<WeakReference<Entry[]>> allEntries;
+
+    /**
+     * How long, in nanoseconds, an entry is kept.
+     */
+    private final long maxAge;
+
+    /**
+     * Our source of time.
+     */
+    private final Ticker ticker;
+
+    /**
+     * Return size rounded up to a power of two.
+     */
+    static int toSlots(final int size) {
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Return the slot for key.
+     */
+    static int toSlot(final Object key, final int mask) {
+        final int hash = key.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Sets the cache to front, how many entries each thread keeps, for how
+     * long and our source of time.
+     *
+     * @param cache  the cache to front.
+     * @param size   how many entries each thread keeps - rounded up to a power
+     *               of two.
+     * @param maxAge how long an entry is kept.
+     * @param unit   the unit of maxAge.
+     * @param ticker our source of time.
+     *
+     * @throws IllegalArgumentException if cache, unit or ticker is null, size
+     *                                  is less than two or maxAge is less than
+     *                                  one.
+     */
+    public NearParamCache(final ParamCache<K, V, T> cache, final int size, final long maxAge, final TimeUnit unit, final Ticker ticker) {
+        IntegrityUtil.ensure(size, 2, "Size must be at least two!");
+        IntegrityUtil.ensure(maxAge, 1, "Max age must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        final int slots = toSlots(size);
+
+        this.cache = IntegrityUtil.ensure(cache, "Must have a cache!");
+        this.epoch = new AtomicLong();
+        this.mask = slots - 1;
+        this.allEntries = new ConcurrentLinkedQueue<>();
+        this.entries = new ThreadLocal<Entry[]>() {
+            @Override
+            protected Entry[] initialValue() {
+                final Entry[] retVal = new Entry[slots];
+
+                allEntries.add(new WeakReference<>(retVal));
+
+                return retVal;
+            }
+        };
+        this.maxAge = unit.toNanos(maxAge);
+        this.ticker = IntegrityUtil.ensure(ticker, "Must have a ticker!");
+    }
+
+    /**
+     * Sets the cache to front, how many entries each thread keeps and for how
+     * long.
+     *
+     * @param cache  the cache to front.
+     * @param size   how many entries each thread keeps - rounded up to a power
+     *               of two.
+     * @param maxAge how long an entry is kept.
+     * @param unit   the unit of maxAge.
+     *
+     * @throws IllegalArgumentException if cache or unit is null, size is less
+     *                                  than two or maxAge is less than one.
+     */
+    public NearParamCache(final ParamCache<K, V, T> cache, final int size, final long maxAge, final TimeUnit unit) {
+        this(cache, size, maxAge, unit, new DefaultTicker());
+    }
+
+    /**
+     * Sets the cache to front and how many entries each thread keeps - each is
+     * kept DEFAULT_MAX_AGE milliseconds.
+     *
+     * @param cache the cache to front.
+     * @param size  how many entries each thread keeps - rounded up to a power
+     *              of two.
+     *
+     * @throws IllegalArgumentException if cache is null or size is less than
+     *                                  two.
+     */
+    public NearParamCache(final ParamCache<K, V, T> cache, final int size) {
+        this(cache, size, DEFAULT_MAX_AGE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the cache to front - each thread keeps DEFAULT_SIZE entries for
+     * DEFAULT_MAX_AGE milliseconds.
+     *
+     * @param cache the cache to front.
+     *
+     * @throws IllegalArgumentException if cache is null.
+     */
+    public NearParamCache(final ParamCache<K, V, T> cache) {
+        this(cache, DEFAULT_SIZE);
+    }
+
+    /**
+     * Return the cache we front.
+     *
+     * @return the cache we front.
+     */
+    protected ParamCache<K, V, T> getCache() {
+        return cache;
+    }
+
+    /**
+     * Invalidate and clear every thread's entries. An entry a thread stores
+     * while we clear carries the old epoch, so is never served.
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+
+        final Iterator<WeakReference<Entry[]>> iter = allEntries.iterator();
+
+        while (iter.hasNext()) {
+            final Entry[] threadEntries = iter.next().get();
+
+            if (null == threadEntries) {
+                iter.remove();
+            } else {
+                Arrays.fill(threadEntries, null);
+            }
+        }
+    }
+
+    /**
+     * Return the value the current thread keeps for key - an invalidated or
+     * too old entry is cleared.
+     *
+     * @param key     the key.
+     * @param current our current epoch.
+     *
+     * @return the value or null if none, invalidated or too old.
+     */
+    @SuppressWarnings("unchecked")
+    V getNear(final K key, final long current) {
+        final Entry[] threadEntries = entries.get();
+        final int slot = toSlot(key, mask);
+        final Entry entry = threadEntries[slot];
+
+        if (null == entry) {
+            return null;
+        }
+
+        if (current != entry.epoch || entry.expires - ticker.read() <= 0) {
+            threadEntries[slot] = null;
+
+            return null;
+        }
+
+        return key.equals(entry.key) ? (V) entry.value : null;
+    }
+
+    /**
+     * Have the current thread keep value for key - read at stamp.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @param stamp our epoch before value was read.
+     *
+     * @return value.
+     */
+    V putNear(final K key, final V value, final long stamp) {
+        entries.get()[toSlot(key, mask)] = new Entry(key, value, stamp, ticker.read() + maxAge);
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        try {
+            return getCache().put(key, value);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T parameter) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        final long current = epoch.get();
+        final V retVal = getNear(key, current);
+
+        return null != retVal ? retVal : putNear(key, getCache().get(key, parameter), current);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        try {
+            getCache().putAll(values);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T parameter) {
+        return getCache().getAll(keys, parameter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        try {
+            getCache().remove(key);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        try {
+            getCache().cleanUp();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return getCache().stats();
+    }
+}
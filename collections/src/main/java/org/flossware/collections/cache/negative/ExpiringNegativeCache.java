@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.negative;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.collections.cache.policy.DefaultTicker;
+import org.flossware.collections.cache.policy.Ticker;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Remembers each failure for a fixed time. So a flood of bad keys cannot
+ * exhaust memory, at most a maximum number of failures are remembered - once
+ * full, expired failures are dropped and, failing that, new ones are not
+ * remembered.
+ *
+ * Every failure lives as long, so failures expire in the order remembered -
+ * they are also queued in that order, and expired ones are dropped from the
+ * head of the queue as failures are put, without scanning them all.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+public class ExpiringNegativeCache<K> extends AbstractCommonBase implements NegativeCache<K> {
+
+    /**
+     * Default most failures remembered.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    /**
+     * A remembered failure and when it expires.
+     */
+    static final class Failure<K> {
+
+        final K key;
+        final RuntimeException exception;
+        final long expires;
+
+        Failure(final K key, final RuntimeException exception, final long expires) {
+            this.key = key;
+            this.exception = exception;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Our failures.
+     */
+    private final ConcurrentMap<K, Failure<K>> failures;
+
+    /**
+     * Our failures in the order remembered - so in the order they expire. May
+     * still hold failures since forgotten or replaced.
+     */
+    private final Queue<Failure<K>> expiryQueue;
+
+    /**
+     * How long, in nanoseconds, failures are remembered.
+     */
+    private final long timeToLive;
+
+    /**
+     * The most failures remembered.
+     */
+    private final int maximumSize;
+
+    /**
+     * Our source of time.
+     */
+    private final Ticker ticker;
+
+    /**
+     * Sets how long failures are remembered, how many at most and our source of
+     * time.
+     *
+     * @param timeToLive  how long failures are remembered.
+     * @param unit        the unit of timeToLive.
+     * @param maximumSize the most failures remembered.
+     * @param ticker      our source of time.
+     *
+     * @throws IllegalArgumentException if unit or ticker is null or timeToLive
+     *                                  or maximumSize is less than one.
+     */
+    public ExpiringNegativeCache(final long timeToLive, final TimeUnit unit, final int maximumSize, final Ticker ticker) {
+        IntegrityUtil.ensure(timeToLive, 1, "Time to live must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        this.failures = new ConcurrentHashMap<>();
+        this.expiryQueue = new ConcurrentLinkedQueue<>();
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.maximumSize = IntegrityUtil.ensure(maximumSize, 1, "Maximum size must be positive!");
+        this.ticker = IntegrityUtil.ensure(ticker, "Must have a ticker!");
+    }
+
+    /**
+     * Sets how long failures are remembered and how many at most.
+     *
+     * @param timeToLive  how long failures are remembered.
+     * @param unit        the unit of timeToLive.
+     * @param maximumSize the most failures remembered.
+     *
+     * @throws IllegalArgumentException if unit is null or timeToLive or
+     *                                  maximumSize is less than one.
+     */
+    public ExpiringNegativeCache(final long timeToLive, final TimeUnit unit, final int maximumSize) {
+        this(timeToLive, unit, maximumSize, new DefaultTicker());
+    }
+
+    /**
+     * Sets how long failures are remembered - at most DEFAULT_MAXIMUM_SIZE
+     * are.
+     *
+     * @param timeToLive how long failures are remembered.
+     * @param unit       the unit of timeToLive.
+     *
+     * @throws IllegalArgumentException if unit is null or timeToLive is less
+     *                                  than one.
+     */
+    public ExpiringNegativeCache(final long timeToLive, final TimeUnit unit) {
+        this(timeToLive, unit, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Return our failures.
+     *
+     * @return the failures.
+     */
+    ConcurrentMap<K, Failure<K>> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Return how long, in nanoseconds, failures are remembered.
+     *
+     * @return the time to live.
+     */
+    protected long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Return the most failures remembered.
+     *
+     * @return the maximum size.
+     */
+    protected int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Return our source of time.
+     *
+     * @return the ticker.
+     */
+    protected Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * Return true if failure has expired at now.
+     */
+    static boolean isExpired(final Failure<?> failure, final long now) {
+        return now - failure.expires >= 0;
+    }
+
+    /**
+     * Drop failures from the head of our expiry queue while expired, or no
+     * longer remembered, at now.
+     */
+    void expire(final long now) {
+        for (Failure<K> failure = expiryQueue.peek(); null != failure; failure = expiryQueue.peek()) {
+            final boolean isRemembered = failure == getFailures().get(failure.key);
+
+            if (isRemembered && !isExpired(failure, now)) {
+                return;
+            }
+
+            if (expiryQueue.remove(failure) && isRemembered) {
+                getFailures().remove(failure.key, failure);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RuntimeException get(final K key) {
+        final Failure<K> failure = getFailures().get(key);
+        if (null == failure) {
+            return null;
+        }
+
+        if (isExpired(failure, getTicker().read())) {
+            getFailures().remove(key, failure);
+
+            return null;
+        }
+
+        return failure.exception;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final K key, final RuntimeException failure) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+        IntegrityUtil.ensure(failure, "Must have a failure!");
+
+        final long now = getTicker().read();
+
+        expire(now);
+
+        if (getFailures().size() >= getMaximumSize() && !getFailures().containsKey(key)) {
+            getLogger().log(Level.FINE, "Full - not remembering failure of [{0}]", key);
+
+            return;
+        }
+
+        final Failure<K> remembered = new Failure<>(key, failure, now + getTimeToLive());
+
+        getFailures().put(key, remembered);
+        expiryQueue.offer(remembered);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean invalidate(final K key) {
+        return null != getFailures().remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateAll() {
+        // Queue first - a failure put meanwhile is then either cleared or
+        // still queued.
+        expiryQueue.clear();
+        getFailures().clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        expire(getTicker().read());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return getFailures().size();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.negative;
+
+/**
+ * Remembers failed creates so a cache can fail fast rather than create again.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+public interface NegativeCache<K> {
+
+    /**
+     * Return the failure remembered for key.
+     *
+     * @param key the key.
+     *
+     * @return the failure or null if none.
+     */
+    RuntimeException get(K key);
+
+    /**
+     * Remember creating key's value failed.
+     *
+     * @param key     the key.
+     * @param failure why creating failed.
+     */
+    void put(K key, RuntimeException failure);
+
+    /**
+     * Forget the failure for key.
+     *
+     * @param key the key.
+     *
+     * @return true if forgotten or false if none.
+     */
+    boolean invalidate(K key);
+
+    /**
+     * Forget all failures.
+     */
+    void invalidateAll();
+
+    /**
+     * Forget failures that have expired.
+     */
+    void cleanUp();
+
+    /**
+     * Return how many failures are remembered.
+     *
+     * @return the number of failures.
+     */
+    int size();
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.negative;
+
+/**
+ * Remembers no failures - every create is attempted.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+public class NullNegativeCache<K> implements NegativeCache<K> {
+
+    /**
+     * Default constructor.
+     */
+    public NullNegativeCache() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RuntimeException get(final K key) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final K key, final RuntimeException failure) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean invalidate(final K key) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateAll() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return 0;
+    }
+}
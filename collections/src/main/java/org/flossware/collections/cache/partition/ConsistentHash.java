@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Maps keys to nodes on a hash ring. Each node is placed on the ring many
+ * times so keys spread evenly, and adding or removing a node only moves the
+ * keys it gains or loses. Keys are placed by their hashCode() so, to agree
+ * across JVMs, keys must hash the same in each - as strings and numbers do.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <N> the type of node.
+ */
+public class ConsistentHash<N> {
+
+    /**
+     * Default number of times each node is placed on the ring.
+     */
+    public static final int DEFAULT_REPLICAS = 128;
+
+    /**
+     * Our nodes.
+     */
+    private final Set<N> nodes;
+
+    /**
+     * Ring position to node.
+     */
+    private final NavigableMap<Integer, N> ring;
+
+    /**
+     * Spread the bits of hash - the murmur3 finalizer.
+     */
+    static int spread(final int hash) {
+        int retVal = hash;
+
+        retVal ^= retVal >>> 16;
+        retVal *= 0x85ebca6b;
+        retVal ^= retVal >>> 13;
+        retVal *= 0xc2b2ae35;
+        retVal ^= retVal >>> 16;
+
+        return retVal;
+    }
+
+    /**
+     * Sets our nodes and how many times each is placed on the ring.
+     *
+     * @param nodes    our nodes.
+     * @param replicas how many times each node is placed on the ring.
+     *
+     * @throws IllegalArgumentException if nodes is null or empty or replicas is
+     *                                  less than one.
+     */
+    public ConsistentHash(final Collection<N> nodes, final int replicas) {
+        IntegrityUtil.ensure(nodes, "Must have nodes!");
+        IntegrityUtil.ensure(replicas, 1, "Replicas must be positive!");
+
+        this.nodes = Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+        this.ring = new TreeMap<>();
+
+        for (final N node : this.nodes) {
+            IntegrityUtil.ensure(node, "Cannot have a null node!");
+
+            for (int replica = 0; replica < replicas; replica++) {
+                ring.put(spread((node + "#" + replica).hashCode()), node);
+            }
+        }
+    }
+
+    /**
+     * Sets our nodes - each is placed on the ring DEFAULT_REPLICAS times.
+     *
+     * @param nodes our nodes.
+     *
+     * @throws IllegalArgumentException if nodes is null or empty.
+     */
+    public ConsistentHash(final Collection<N> nodes) {
+        this(nodes, DEFAULT_REPLICAS);
+    }
+
+    /**
+     * Return our nodes.
+     *
+     * @return the nodes.
+     */
+    public Set<N> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Return the node owning key.
+     *
+     * @param key the key.
+     *
+     * @return the owning node.
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    public N get(final Object key) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        final Map.Entry<Integer, N> retVal = ring.ceilingEntry(spread(key.hashCode()));
+
+        return null != retVal ? retVal.getValue() : ring.firstEntry().getValue();
+    }
+}
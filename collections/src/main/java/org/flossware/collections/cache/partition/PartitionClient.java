@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Sends requests to peers, keeping idle connections to each for reuse.
+ *
+ * @author Scot P. Floess
+ */
+class PartitionClient extends AbstractCommonBase implements Closeable {
+
+    /**
+     * A connection to a peer.
+     */
+    static final class Connection implements Closeable {
+
+        final Socket socket;
+        final DataInputStream input;
+        final DataOutputStream output;
+
+        Connection(final InetSocketAddress peer, final int timeout) throws IOException {
+            this.socket = new Socket();
+
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(timeout);
+                socket.connect(peer, timeout);
+
+                this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (final IOException ioException) {
+                socket.close();
+
+                throw ioException;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (final IOException ioException) {
+                // Nothing more we can do...
+            }
+        }
+    }
+
+    /**
+     * Idle connections by peer.
+     */
+    private final ConcurrentMap<InetSocketAddress, Queue<Connection>> idle;
+
+    /**
+     * Milliseconds we wait to connect to a peer - and, unless told otherwise,
+     * to hear from it.
+     */
+    private final int timeout;
+
+    /**
+     * True once closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Sets how long we wait for peers.
+     *
+     * @param timeout milliseconds we wait to connect to a peer - and, unless
+     *                told otherwise, to hear from it.
+     *
+     * @throws IllegalArgumentException if timeout is less than 1.
+     */
+    PartitionClient(final int timeout) {
+        this.idle = new ConcurrentHashMap<>();
+        this.timeout = IntegrityUtil.ensure(timeout, 1, "Timeout must be positive!");
+    }
+
+    /**
+     * Return the idle connections to peer.
+     */
+    Queue<Connection> getIdle(final InetSocketAddress peer) {
+        final Queue<Connection> retVal = idle.get(peer);
+        if (null != retVal) {
+            return retVal;
+        }
+
+        final Queue<Connection> created = new ConcurrentLinkedQueue<>();
+        final Queue<Connection> current = idle.putIfAbsent(peer, created);
+
+        return null != current ? current : created;
+    }
+
+    /**
+     * Send a request on connection and return the response body.
+     */
+    static byte[] send(final Connection connection, final byte operation, final byte[] key, final byte[] argument) throws IOException {
+        connection.output.writeByte(operation);
+        PartitionProtocol.writeBytes(connection.output, key);
+        PartitionProtocol.writeBytes(connection.output, argument);
+        connection.output.flush();
+
+        final byte status = connection.input.readByte();
+        final byte[] retVal = PartitionProtocol.readBytes(connection.input);
+
+        if (PartitionProtocol.ERROR == status) {
+            throw new CacheException(new String(retVal, StandardCharsets.UTF_8));
+        }
+
+        return PartitionProtocol.OK == status ? retVal : null;
+    }
+
+    /**
+     * Send a request to peer and return the response body. A failure on a
+     * reused connection - for example one the peer has since closed - is
+     * retried once on a new connection. A peer that does not answer in time is
+     * not retried.
+     *
+     * @param peer        who to send to.
+     * @param operation   what to ask for.
+     * @param key         the encoded key.
+     * @param argument    the encoded argument or null if none.
+     * @param readTimeout milliseconds we wait for the answer - 0 to wait for
+     *                    as long as it takes.
+     *
+     * @return the response body or null if none.
+     *
+     * @throws CacheException if the peer cannot be reached, did not answer in
+     *                        time or failed.
+     */
+    byte[] call(final InetSocketAddress peer, final byte operation, final byte[] key, final byte[] argument, final int readTimeout) {
+        if (closed) {
+            throw new IllegalStateException("Client is closed!");
+        }
+
+        final Queue<Connection> connections = getIdle(peer);
+        Connection connection = connections.poll();
+
+        for (int attempt = 0;; attempt++) {
+            final boolean reused = null != connection;
+
+            try {
+                if (!reused) {
+                    connection = new Connection(peer, timeout);
+                }
+
+                connection.socket.setSoTimeout(readTimeout);
+
+                final byte[] retVal = send(connection, operation, key, argument);
+
+                connections.offer(connection);
+                if (closed) {
+                    connection.close();
+                }
+
+                return retVal;
+            } catch (final CacheException cacheException) {
+                connections.offer(connection);
+
+                throw cacheException;
+            } catch (final IOException ioException) {
+                if (null != connection) {
+                    connection.close();
+                }
+
+                if (!reused || attempt > 0 || ioException instanceof SocketTimeoutException) {
+                    throw new CacheException("Could not reach [" + peer + "]", ioException);
+                }
+
+                getLogger().log(Level.FINE, "Reconnecting to [{0}]", peer);
+
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * Send a request to peer and return the response body, waiting for it no
+     * longer than we wait to connect.
+     *
+     * @param peer      who to send to.
+     * @param operation what to ask for.
+     * @param key       the encoded key.
+     * @param argument  the encoded argument or null if none.
+     *
+     * @return the response body or null if none.
+     *
+     * @throws CacheException if the peer cannot be reached, did not answer in
+     *                        time or failed.
+     */
+    byte[] call(final InetSocketAddress peer, final byte operation, final byte[] key, final byte[] argument) {
+        return call(peer, operation, key, argument, timeout);
+    }
+
+    /**
+     * Close all idle connections - later calls are refused.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (final Queue<Connection> connections : idle.values()) {
+            for (Connection connection = connections.poll(); null != connection; connection = connections.poll()) {
+                connection.close();
+            }
+        }
+    }
+}
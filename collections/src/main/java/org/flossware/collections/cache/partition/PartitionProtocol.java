@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Our wire format. A request is an operation byte, then the length prefixed
+ * key, then a length prefixed argument - a length of -1 meaning none. A
+ * response is a status byte then a length prefixed body.
+ *
+ * @author Scot P. Floess
+ */
+final class PartitionProtocol {
+
+    /**
+     * Return the value for a key, creating it if needed - the argument is the
+     * parameter.
+     */
+    static final byte GET = 1;
+
+    /**
+     * Put the value for a key if absent - the argument is the value.
+     */
+    static final byte PUT = 2;
+
+    /**
+     * Remove a key.
+     */
+    static final byte REMOVE = 3;
+
+    /**
+     * Forget any near copy of a key.
+     */
+    static final byte INVALIDATE = 4;
+
+    /**
+     * The body is a value.
+     */
+    static final byte OK = 0;
+
+    /**
+     * There is no body.
+     */
+    static final byte NONE = 1;
+
+    /**
+     * The body is an error message.
+     */
+    static final byte ERROR = 2;
+
+    /**
+     * The longest key, argument or body we read - anything longer is refused
+     * rather than allocated.
+     */
+    static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Default constructor not allowed.
+     */
+    private PartitionProtocol() {
+    }
+
+    /**
+     * Write bytes prefixed by their length - null is written as -1.
+     */
+    static void writeBytes(final DataOutputStream output, final byte[] bytes) throws IOException {
+        if (null == bytes) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Read bytes written by writeBytes().
+     *
+     * @throws IOException if the length prefix exceeds MAX_LENGTH - the stream
+     *                     can no longer be trusted and should be closed.
+     */
+    static byte[] readBytes(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        if (length > MAX_LENGTH) {
+            throw new IOException("Length [" + length + "] exceeds the maximum of [" + MAX_LENGTH + "]");
+        }
+
+        final byte[] retVal = new byte[length];
+        input.readFully(retVal);
+
+        return retVal;
+    }
+}
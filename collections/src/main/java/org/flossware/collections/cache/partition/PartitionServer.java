@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Accepts connections from peers and answers their requests, each connection
+ * on its own task. That task lasts as long as the connection, so the executor
+ * must be able to run one per connected peer connection at once - a bounded
+ * executor stops us serving new peers. Connections idle for IDLE_TIMEOUT are
+ * closed to free their task.
+ *
+ * @author Scot P. Floess
+ */
+class PartitionServer extends AbstractCommonBase implements Closeable {
+
+    /**
+     * Milliseconds a connection may wait between requests before we close it.
+     */
+    static final int IDLE_TIMEOUT = 60_000;
+
+    /**
+     * Where we accept connections.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * Answers requests.
+     */
+    private final PartitionHandler handler;
+
+    /**
+     * Serves our connections.
+     */
+    private final Executor executor;
+
+    /**
+     * Our open connections.
+     */
+    private final Set<Socket> sockets;
+
+    /**
+     * Accepts connections.
+     */
+    private final Thread acceptor;
+
+    /**
+     * Sets where we accept connections, what answers requests and what serves
+     * connections - then starts accepting.
+     *
+     * @param serverSocket where we accept connections.
+     * @param handler      answers requests.
+     * @param executor     serves connections.
+     */
+    PartitionServer(final ServerSocket serverSocket, final PartitionHandler handler, final Executor executor) {
+        this.serverSocket = IntegrityUtil.ensure(serverSocket, "Must have a server socket!");
+        this.handler = IntegrityUtil.ensure(handler, "Must have a handler!");
+        this.executor = IntegrityUtil.ensure(executor, "Must have an executor!");
+        this.sockets = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+        this.acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "PartitionServer-" + serverSocket.getLocalPort());
+
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accept connections until closed.
+     */
+    void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(IDLE_TIMEOUT);
+                sockets.add(socket);
+
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (final IOException ioException) {
+                if (!serverSocket.isClosed()) {
+                    getLogger().log(Level.WARNING, "Could not accept", ioException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer requests on socket until the peer closes it, leaves it idle or
+     * sends one we refuse to read - then close it.
+     */
+    void serve(final Socket socket) {
+        try {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            while (true) {
+                final byte operation;
+
+                try {
+                    operation = input.readByte();
+                } catch (final EOFException eofException) {
+                    return;
+                } catch (final SocketTimeoutException socketTimeoutException) {
+                    getLogger().log(Level.FINE, "Closing idle connection");
+
+                    return;
+                }
+
+                final byte[] key = PartitionProtocol.readBytes(input);
+                final byte[] argument = PartitionProtocol.readBytes(input);
+
+                try {
+                    final byte[] answer = handler.handle(operation, key, argument);
+
+                    output.writeByte(null != answer ? PartitionProtocol.OK : PartitionProtocol.NONE);
+                    PartitionProtocol.writeBytes(output, answer);
+                } catch (final RuntimeException runtimeException) {
+                    getLogger().log(Level.FINE, "Request failed", runtimeException);
+
+                    output.writeByte(PartitionProtocol.ERROR);
+                    PartitionProtocol.writeBytes(output, String.valueOf(runtimeException).getBytes(StandardCharsets.UTF_8));
+                }
+
+                output.flush();
+            }
+        } catch (final IOException ioException) {
+            if (!serverSocket.isClosed()) {
+                getLogger().log(Level.FINE, "Connection lost", ioException);
+            }
+        } finally {
+            sockets.remove(socket);
+
+            try {
+                socket.close();
+            } catch (final IOException ioException) {
+                getLogger().log(Level.FINE, "Could not close", ioException);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting and close all connections.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (final IOException ioException) {
+            getLogger().log(Level.FINE, "Could not close", ioException);
+        }
+
+        for (final Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (final IOException ioException) {
+                getLogger().log(Level.FINE, "Could not close", ioException);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Shares one cache across a set of nodes.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public class PartitionedCache<K, V> extends PartitionedParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets the cache holding keys we own, where other nodes reach us, all the
+     * nodes and how keys and values are encoded.
+     *
+     * @param local        holds values for keys we own.
+     * @param serverSocket where other nodes reach us - its address must be
+     *                     one of nodes.
+     * @param nodes        all the nodes - including us.
+     * @param keyCodec     encodes keys.
+     * @param valueCodec   encodes values.
+     *
+     * @throws IllegalArgumentException if any parameter is null, nodes is
+     *                                  empty or we are not one of nodes.
+     */
+    public PartitionedCache(final Cache<K, V> local, final ServerSocket serverSocket, final Collection<InetSocketAddress> nodes, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+        super(local, serverSocket, nodes, keyCodec, valueCodec, keyCodec);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * Return items from the cache - each is fetched in turn.
+     *
+     * @param keys the keys.
+     *
+     * @return the cached values in the order of keys.
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        final Map<K, V> retVal = new LinkedHashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, get(key));
+        }
+
+        return retVal;
+    }
+}
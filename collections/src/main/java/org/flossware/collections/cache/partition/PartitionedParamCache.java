@@ -0,0 +1,562 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.TinyLfuCachePolicy;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Shares one cache across a set of nodes - typically JVMs on one host - so each
+ * value is created once rather than once per node. Keys are spread across the
+ * nodes with a ConsistentHash: a node serves keys it owns from its local cache
+ * and asks the owner for the rest over a socket, keeping copies of their
+ * values in a bounded near cache. Puts and removes go to the owner, which then
+ * tells every other node to forget its near copy. Peers are told in parallel
+ * and waited on for no longer than the timeout; a peer that does not hear in
+ * time keeps its near copy until its near policy evicts it. The timeout also
+ * bounds connecting to a node, but not waiting for an owner to answer a get,
+ * put or remove - an owner may take as long as creating the value does, so
+ * that wait has its own load timeout, by default none.
+ *
+ * Each connection another node keeps to us holds a task of our executor while
+ * open, so the executor must not be bounded.
+ *
+ * Every node must be given the same nodes. A near copy still being fetched
+ * when its key is invalidated is dropped rather than cached.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public class PartitionedParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T>, Closeable {
+
+    /**
+     * Default most near copies kept.
+     */
+    public static final int DEFAULT_NEAR_SIZE = 1000;
+
+    /**
+     * Default milliseconds we wait to connect to, or hear from, another node.
+     */
+    public static final int DEFAULT_TIMEOUT = 5000;
+
+    /**
+     * Default milliseconds we wait for an owner to answer - 0 waits for as
+     * long as it takes.
+     */
+    public static final int DEFAULT_LOAD_TIMEOUT = 0;
+
+    /**
+     * Keeps copies of values other nodes own - created by asking the owner.
+     */
+    final class NearCache extends AbstractParamCache<K, V, T> {
+
+        NearCache(final CachePolicy<K, V> policy) {
+            super(policy);
+        }
+
+        @Override
+        protected V create(final K key, final T param) {
+            return getRemote(key, param);
+        }
+
+        /**
+         * Load as usual but drop the copy should a key be invalidated while it
+         * was fetched - it may predate the change.
+         */
+        @Override
+        protected V load(final K key, final T param) {
+            final long loadEpoch = epoch.get();
+            final V retVal = super.load(key, param);
+
+            if (loadEpoch != epoch.get()) {
+                remove(key, retVal);
+            }
+
+            return retVal;
+        }
+    }
+
+    /**
+     * Values for keys we own.
+     */
+    private final ParamCache<K, V, T> local;
+
+    /**
+     * Copies of values other nodes own.
+     */
+    private final NearCache near;
+
+    /**
+     * Bumped on every near invalidation so loads in flight can tell.
+     */
+    private final AtomicLong epoch;
+
+    /**
+     * Our address.
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * Which node owns which keys.
+     */
+    private final ConsistentHash<InetSocketAddress> ring;
+
+    /**
+     * Encodes our keys.
+     */
+    private final Codec<K> keyCodec;
+
+    /**
+     * Encodes our values.
+     */
+    private final Codec<V> valueCodec;
+
+    /**
+     * Encodes our parameters.
+     */
+    private final Codec<T> paramCodec;
+
+    /**
+     * Asks other nodes.
+     */
+    private final PartitionClient client;
+
+    /**
+     * Answers other nodes.
+     */
+    private final PartitionServer server;
+
+    /**
+     * Tells other nodes to forget near copies.
+     */
+    private final Executor executor;
+
+    /**
+     * Milliseconds we wait to connect to another node, or for it to forget a
+     * near copy.
+     */
+    private final int timeout;
+
+    /**
+     * Milliseconds we wait for an owner to answer - 0 waits for as long as it
+     * takes.
+     */
+    private final int loadTimeout;
+
+    /**
+     * Sets the cache holding keys we own, where other nodes reach us, all the
+     * nodes, how keys, values and parameters are encoded, the policy bounding
+     * our near copies, what serves other nodes' connections and how long we
+     * wait for other nodes.
+     *
+     * @param local        holds values for keys we own.
+     * @param serverSocket where other nodes reach us - its address must be
+     *                     one of nodes.
+     * @param nodes        all the nodes - including us.
+     * @param keyCodec     encodes keys.
+     * @param valueCodec   encodes values.
+     * @param paramCodec   encodes parameters.
+     * @param nearPolicy   decides which near copies to keep.
+     * @param executor     serves other nodes' connections and tells them to
+     *                     forget near copies - must not be bounded.
+     * @param timeout      milliseconds we wait to connect to another node, or
+     *                     for it to forget a near copy.
+     * @param loadTimeout  milliseconds we wait for an owner to answer - 0 waits
+     *                     for as long as it takes.
+     *
+     * @throws IllegalArgumentException if any parameter is null, nodes is
+     *                                  empty, we are not one of nodes, timeout
+     *                                  is less than 1 or loadTimeout is
+     *                                  negative.
+     */
+    public PartitionedParamCache(final ParamCache<K, V, T> local, final ServerSocket serverSocket, final Collection<InetSocketAddress> nodes, final Codec<K> keyCodec, final Codec<V> valueCodec, final Codec<T> paramCodec, final CachePolicy<K, V> nearPolicy, final Executor executor, final int timeout, final int loadTimeout) {
+        IntegrityUtil.ensure(serverSocket, "Must have a server socket!");
+
+        this.local = IntegrityUtil.ensure(local, "Must have a local cache!");
+        this.near = new NearCache(IntegrityUtil.ensure(nearPolicy, "Must have a near policy!"));
+        this.epoch = new AtomicLong();
+        this.address = new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        this.ring = new ConsistentHash<>(nodes);
+        this.keyCodec = IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+        this.valueCodec = IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+        this.paramCodec = IntegrityUtil.ensure(paramCodec, "Must have a param codec!");
+
+        if (!ring.getNodes().contains(address)) {
+            throw new IllegalArgumentException("[" + address + "] is not one of " + ring.getNodes());
+        }
+
+        this.executor = IntegrityUtil.ensure(executor, "Must have an executor!");
+        this.timeout = IntegrityUtil.ensure(timeout, 1, "Timeout must be positive!");
+        this.loadTimeout = IntegrityUtil.ensure(loadTimeout, 0, "Load timeout cannot be negative!");
+        this.client = new PartitionClient(timeout);
+        this.server = new PartitionServer(serverSocket, new PartitionHandler() {
+            @Override
+            public byte[] handle(final byte operation, final byte[] key, final byte[] argument) {
+                return handleRequest(operation, key, argument);
+            }
+        }, executor);
+    }
+
+    /**
+     * Sets the cache holding keys we own, where other nodes reach us, all the
+     * nodes, how keys, values and parameters are encoded, the policy bounding
+     * our near copies, what serves other nodes' connections and how long we
+     * wait to connect to other nodes. We wait DEFAULT_LOAD_TIMEOUT for owners
+     * to answer.
+     *
+     * @param local        holds values for keys we own.
+     * @param serverSocket where other nodes reach us - its address must be
+     *                     one of nodes.
+     * @param nodes        all the nodes - including us.
+     * @param keyCodec     encodes keys.
+     * @param valueCodec   encodes values.
+     * @param paramCodec   encodes parameters.
+     * @param nearPolicy   decides which near copies to keep.
+     * @param executor     serves other nodes' connections and tells them to
+     *                     forget near copies - must not be bounded.
+     * @param timeout      milliseconds we wait to connect to another node, or
+     *                     for it to forget a near copy.
+     *
+     * @throws IllegalArgumentException if any parameter is null, nodes is
+     *                                  empty, we are not one of nodes or
+     *                                  timeout is less than 1.
+     */
+    public PartitionedParamCache(final ParamCache<K, V, T> local, final ServerSocket serverSocket, final Collection<InetSocketAddress> nodes, final Codec<K> keyCodec, final Codec<V> valueCodec, final Codec<T> paramCodec, final CachePolicy<K, V> nearPolicy, final Executor executor, final int timeout) {
+        this(local, serverSocket, nodes, keyCodec, valueCodec, paramCodec, nearPolicy, executor, timeout, DEFAULT_LOAD_TIMEOUT);
+    }
+
+    /**
+     * Sets the cache holding keys we own, where other nodes reach us, all the
+     * nodes, how keys, values and parameters are encoded, the policy bounding
+     * our near copies and what serves other nodes' connections. We wait
+     * DEFAULT_TIMEOUT to connect to other nodes and DEFAULT_LOAD_TIMEOUT for
+     * owners to answer.
+     *
+     * @param local        holds values for keys we own.
+     * @param serverSocket where other nodes reach us - its address must be
+     *                     one of nodes.
+     * @param nodes        all the nodes - including us.
+     * @param keyCodec     encodes keys.
+     * @param valueCodec   encodes values.
+     * @param paramCodec   encodes parameters.
+     * @param nearPolicy   decides which near copies to keep.
+     * @param executor     serves other nodes' connections and tells them to
+     *                     forget near copies - must not be bounded.
+     *
+     * @throws IllegalArgumentException if any parameter is null, nodes is
+     *                                  empty or we are not one of nodes.
+     */
+    public PartitionedParamCache(final ParamCache<K, V, T> local, final ServerSocket serverSocket, final Collection<InetSocketAddress> nodes, final Codec<K> keyCodec, final Codec<V> valueCodec, final Codec<T> paramCodec, final CachePolicy<K, V> nearPolicy, final Executor executor) {
+        this(local, serverSocket, nodes, keyCodec, valueCodec, paramCodec, nearPolicy, executor, DEFAULT_TIMEOUT, DEFAULT_LOAD_TIMEOUT);
+    }
+
+    /**
+     * Sets the cache holding keys we own, where other nodes reach us, all the
+     * nodes and how keys, values and parameters are encoded. At most
+     * DEFAULT_NEAR_SIZE near copies are kept.
+     *
+     * @param local        holds values for keys we own.
+     * @param serverSocket where other nodes reach us - its address must be
+     *                     one of nodes.
+     * @param nodes        all the nodes - including us.
+     * @param keyCodec     encodes keys.
+     * @param valueCodec   encodes values.
+     * @param paramCodec   encodes parameters.
+     *
+     * @throws IllegalArgumentException if any parameter is null, nodes is
+     *                                  empty or we are not one of nodes.
+     */
+    public PartitionedParamCache(final ParamCache<K, V, T> local, final ServerSocket serverSocket, final Collection<InetSocketAddress> nodes, final Codec<K> keyCodec, final Codec<V> valueCodec, final Codec<T> paramCodec) {
+        this(local, serverSocket, nodes, keyCodec, valueCodec, paramCodec, new TinyLfuCachePolicy<K, V>(DEFAULT_NEAR_SIZE), CacheUtil.createDefaultExecutor("PartitionServer"));
+    }
+
+    /**
+     * Return the cache holding keys we own.
+     *
+     * @return the local cache.
+     */
+    protected ParamCache<K, V, T> getLocal() {
+        return local;
+    }
+
+    /**
+     * Return our address.
+     *
+     * @return the address.
+     */
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Return the node owning key.
+     *
+     * @param key the key.
+     *
+     * @return the owner.
+     */
+    public InetSocketAddress getOwner(final K key) {
+        return ring.get(key);
+    }
+
+    /**
+     * Return true if we own key.
+     */
+    boolean isLocal(final K key) {
+        return address.equals(getOwner(key));
+    }
+
+    /**
+     * Return current - or value itself if equal, so callers can tell value was
+     * cached.
+     */
+    V toCurrent(final V value, final V current) {
+        return value.equals(current) ? value : current;
+    }
+
+    /**
+     * Ask key's owner for its value.
+     */
+    V getRemote(final K key, final T param) {
+        final byte[] retVal = client.call(getOwner(key), PartitionProtocol.GET, keyCodec.encode(key), null != param ? paramCodec.encode(param) : null, loadTimeout);
+        if (null == retVal) {
+            throw new CacheException("No value for [" + key + "]");
+        }
+
+        return valueCodec.decode(retVal);
+    }
+
+    /**
+     * Forget our near copy of key - and any copy being fetched.
+     */
+    void invalidateNear(final K key) {
+        epoch.incrementAndGet();
+        near.remove(key);
+    }
+
+    /**
+     * Tell every other node, in parallel, to forget its near copy of key -
+     * waiting at most timeout for them to hear.
+     */
+    void invalidatePeers(final K key) {
+        final byte[] encoded = keyCodec.encode(key);
+        final CountDownLatch latch = new CountDownLatch(ring.getNodes().size() - 1);
+
+        for (final InetSocketAddress node : ring.getNodes()) {
+            if (address.equals(node)) {
+                continue;
+            }
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        client.call(node, PartitionProtocol.INVALIDATE, encoded, null);
+                    } catch (final RuntimeException runtimeException) {
+                        getLogger().log(Level.WARNING, "Could not invalidate [" + key + "] on [" + node + "]", runtimeException);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                getLogger().log(Level.WARNING, "Not every node heard to invalidate [{0}] in time", key);
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Put value for key we own, telling other nodes when cached.
+     */
+    V putLocal(final K key, final V value) {
+        final V retVal = getLocal().put(key, value);
+
+        if (retVal == value) {
+            invalidatePeers(key);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Remove key we own, telling other nodes.
+     */
+    void removeLocal(final K key) {
+        getLocal().remove(key);
+
+        invalidatePeers(key);
+    }
+
+    /**
+     * Answer another node's request.
+     */
+    byte[] handleRequest(final byte operation, final byte[] encodedKey, final byte[] argument) {
+        final K key = keyCodec.decode(encodedKey);
+
+        switch (operation) {
+            case PartitionProtocol.GET:
+                return valueCodec.encode(getLocal().get(key, null != argument ? paramCodec.decode(argument) : null));
+
+            case PartitionProtocol.PUT:
+                return valueCodec.encode(putLocal(key, valueCodec.decode(argument)));
+
+            case PartitionProtocol.REMOVE:
+                removeLocal(key);
+
+                return null;
+
+            case PartitionProtocol.INVALIDATE:
+                invalidateNear(key);
+
+                return null;
+
+            default:
+                throw new IllegalArgumentException("Unknown operation [" + operation + "]");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+        IntegrityUtil.ensure(value, "Must have a value to add!");
+
+        if (isLocal(key)) {
+            return putLocal(key, value);
+        }
+
+        final byte[] current = client.call(getOwner(key), PartitionProtocol.PUT, keyCodec.encode(key), valueCodec.encode(value), loadTimeout);
+        invalidateNear(key);
+
+        return toCurrent(value, valueCodec.decode(current));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T parameter) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        return isLocal(key) ? getLocal().get(key, parameter) : near.get(key, parameter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        IntegrityUtil.ensure(values, 0, "Must have values to add!");
+
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Return items from the cache - each is fetched in turn.
+     *
+     * @param keys      the keys.
+     * @param parameter value(s) used to create those not found.
+     *
+     * @return the cached values in the order of keys.
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T parameter) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        final Map<K, V> retVal = new LinkedHashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, get(key, parameter));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        if (isLocal(key)) {
+            removeLocal(key);
+        } else {
+            client.call(getOwner(key), PartitionProtocol.REMOVE, keyCodec.encode(key), null, loadTimeout);
+            invalidateNear(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        getLocal().cleanUp();
+        near.cleanUp();
+    }
+
+    /**
+     * Return the statistics of the cache holding keys we own.
+     *
+     * @return the statistics.
+     */
+    @Override
+    public CacheStats stats() {
+        return getLocal().stats();
+    }
+
+    /**
+     * Stop answering other nodes and close our connections.
+     */
+    @Override
+    public void close() {
+        server.close();
+        client.close();
+    }
+}
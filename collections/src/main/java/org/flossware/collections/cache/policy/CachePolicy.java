@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+/**
+ * API for deciding which entries a cache should keep. A cache tells its policy
+ * about every read, write and removal and the policy, in turn, uses an evictor
+ * to discard the entries it no longer wants.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public interface CachePolicy<K, V> {
+
+    /**
+     * A cached value was found for key.
+     *
+     * @param key     the key read.
+     * @param value   the value found.
+     * @param evictor used to discard any entries the policy no longer wants.
+     *
+     * @return true if value may be returned or false if it should be treated as
+     *         absent - the cache will then evict it.
+     */
+    boolean recordRead(K key, V value, Evictor<K, V> evictor);
+
+    /**
+     * A value was added to the cache.
+     *
+     * @param key     the key written.
+     * @param value   the value added.
+     * @param evictor used to discard any entries the policy no longer wants.
+     */
+    void recordWrite(K key, V value, Evictor<K, V> evictor);
+
+    /**
+     * A value was removed from the cache by something other than the policy.
+     *
+     * @param key   the key removed.
+     * @param value the value removed.
+     */
+    void recordRemoval(K key, V value);
+
+    /**
+     * Perform any pending maintenance - for example discarding expired entries.
+     *
+     * @param evictor used to discard any entries the policy no longer wants.
+     */
+    void cleanUp(Evictor<K, V> evictor);
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Defines a collection of cache policies - for example to both bound and
+ * expire a cache. An entry is kept only while every policy wants it, and when
+ * one policy discards an entry the others are told it was removed.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class CachePolicyComposite<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * The evictors handed to our policies on behalf of one evictor.
+     */
+    static final class Evictors<K, V> {
+
+        /**
+         * The evictor we were given.
+         */
+        final Evictor<K, V> evictor;
+
+        /**
+         * One evictor per policy, in policy order.
+         */
+        final List<Evictor<K, V>> policyEvictors;
+
+        Evictors(final Evictor<K, V> evictor, final List<Evictor<K, V>> policyEvictors) {
+            this.evictor = evictor;
+            this.policyEvictors = policyEvictors;
+        }
+    }
+
+    /**
+     * Our collection of policies.
+     */
+    private final List<CachePolicy<K, V>> cachePolicyList;
+
+    /**
+     * The evictors for the evictor we were last given - a cache always gives
+     * us the same one, so they are only created once.
+     */
+    private volatile Evictors<K, V> evictors;
+
+    /**
+     * Return the list of policies.
+     *
+     * @return the list of policies.
+     */
+    protected List<CachePolicy<K, V>> getCachePolicyList() {
+        return cachePolicyList;
+    }
+
+    /**
+     * Tell every policy but source that key was removed.
+     */
+    void notifyRemoval(final CachePolicy<K, V> source, final K key, final V value) {
+        for (final CachePolicy<K, V> cachePolicy : getCachePolicyList()) {
+            if (cachePolicy != source) {
+                cachePolicy.recordRemoval(key, value);
+            }
+        }
+    }
+
+    /**
+     * Return an evictor that, on behalf of source, evicts and then tells the
+     * other policies.
+     */
+    Evictor<K, V> createEvictor(final CachePolicy<K, V> source, final Evictor<K, V> evictor) {
+        return new Evictor<K, V>() {
+            @Override
+            public boolean evict(final K key, final V value) {
+                if (!evictor.evict(key, value)) {
+                    return false;
+                }
+
+                notifyRemoval(source, key, value);
+
+                return true;
+            }
+
+            @Override
+            public boolean expire(final K key, final V value) {
+                if (!evictor.expire(key, value)) {
+                    return false;
+                }
+
+                notifyRemoval(source, key, value);
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Return the evictors to hand our policies on behalf of evictor.
+     */
+    List<Evictor<K, V>> getEvictors(final Evictor<K, V> evictor) {
+        Evictors<K, V> retVal = evictors;
+
+        if (null == retVal || retVal.evictor != evictor) {
+            final List<Evictor<K, V>> policyEvictors = new ArrayList<>(getCachePolicyList().size());
+
+            for (final CachePolicy<K, V> cachePolicy : getCachePolicyList()) {
+                policyEvictors.add(createEvictor(cachePolicy, evictor));
+            }
+
+            retVal = new Evictors<>(evictor, policyEvictors);
+            evictors = retVal;
+        }
+
+        return retVal.policyEvictors;
+    }
+
+    /**
+     * Return a copy of cachePolicies, ensuring none are null.
+     */
+    static <K, V> List<CachePolicy<K, V>> copy(final Collection<CachePolicy<K, V>> cachePolicies) {
+        final List<CachePolicy<K, V>> retVal = new ArrayList<>(cachePolicies.size());
+
+        for (final CachePolicy<K, V> cachePolicy : cachePolicies) {
+            retVal.add(IntegrityUtil.ensure(cachePolicy, "Cannot have a null policy!"));
+        }
+
+        return Collections.unmodifiableList(retVal);
+    }
+
+    /**
+     * Sets a list of policies.
+     *
+     * @param cachePolicyList the list of policies.
+     *
+     * @throws IllegalArgumentException if cachePolicyList is null, empty or
+     *                                  contains null.
+     */
+    public CachePolicyComposite(final List<CachePolicy<K, V>> cachePolicyList) {
+        this.cachePolicyList = copy(IntegrityUtil.ensure(cachePolicyList, 1, "The list is empty or null!"));
+    }
+
+    /**
+     * Sets an array of policies.
+     *
+     * @param cachePolicies the array of policies.
+     *
+     * @throws IllegalArgumentException if cachePolicies is null, empty or
+     *                                  contains null.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public CachePolicyComposite(final CachePolicy<K, V>... cachePolicies) {
+        this(Arrays.asList(IntegrityUtil.ensure(cachePolicies, 1, "The array is empty or null!")));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        final List<Evictor<K, V>> policyEvictors = getEvictors(evictor);
+
+        for (int index = 0; index < getCachePolicyList().size(); index++) {
+            final CachePolicy<K, V> cachePolicy = getCachePolicyList().get(index);
+
+            if (!cachePolicy.recordRead(key, value, policyEvictors.get(index))) {
+                getLogger().log(Level.FINEST, "Policy [{0}] no longer wants [{1}]", new Object[]{cachePolicy, key});
+
+                notifyRemoval(cachePolicy, key, value);
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        final List<Evictor<K, V>> policyEvictors = getEvictors(evictor);
+
+        for (int index = 0; index < getCachePolicyList().size(); index++) {
+            getCachePolicyList().get(index).recordWrite(key, value, policyEvictors.get(index));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        notifyRemoval(null, key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        final List<Evictor<K, V>> policyEvictors = getEvictors(evictor);
+
+        for (int index = 0; index < getCachePolicyList().size(); index++) {
+            getCachePolicyList().get(index).cleanUp(policyEvictors.get(index));
+        }
+    }
+}
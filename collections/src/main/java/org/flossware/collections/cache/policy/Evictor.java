@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+/**
+ * Discards entries from a cache on behalf of a cache policy.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public interface Evictor<K, V> {
+
+    /**
+     * Discard key from the cache provided it still maps to value. The policy is
+     * not notified of the removal - it asked for it.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    boolean evict(K key, V value);
+
+    /**
+     * Discard key from the cache, as it has expired, provided it still maps to
+     * value. The policy is not notified of the removal - it asked for it.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    boolean expire(K key, V value);
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A cache policy expiring entries a fixed time after they were written and/or
+ * last read. Expired entries are discarded by a timing wheel advanced on writes,
+ * on reads once per wheel tick, and on cleanUp() - which may be scheduled
+ * using a CacheCleaner so idle caches are purged too.
+ *
+ * Reads never block: they check the entry's own timestamps, so an expired entry
+ * is never returned even if the wheel has not caught up, and only try the lock
+ * when the wheel is due to advance.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class ExpiryCachePolicy<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * Denotes a kind of expiry is not used.
+     */
+    public static final long NEVER = -1;
+
+    /**
+     * Longest supported expiry - avoids overflow when computing deadlines.
+     */
+    static final long MAXIMUM_EXPIRY = Long.MAX_VALUE >> 1;
+
+    /**
+     * Reads closer together than this do not update the access time - spares
+     * hot entries a volatile write on every read.
+     */
+    static final long ACCESS_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * An entry tracked by the policy.
+     */
+    final class Node extends TimerWheel.Timer {
+
+        final K key;
+        final V value;
+        final long writeTime;
+        volatile long accessTime;
+        volatile boolean retired;
+
+        Node(final K key, final V value, final long now) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+
+        boolean isExpired(final long now) {
+            return (NEVER != expireAfterWrite && now - writeTime >= expireAfterWrite) || (NEVER != expireAfterAccess && now - accessTime >= expireAfterAccess);
+        }
+
+        @Override
+        public long getDeadline() {
+            if (NEVER == expireAfterAccess) {
+                return writeTime + expireAfterWrite;
+            }
+
+            final long accessDeadline = accessTime + expireAfterAccess;
+            if (NEVER == expireAfterWrite) {
+                return accessDeadline;
+            }
+
+            final long writeDeadline = writeTime + expireAfterWrite;
+
+            return (writeDeadline - accessDeadline < 0 ? writeDeadline : accessDeadline);
+        }
+    }
+
+    /**
+     * Nanoseconds after a write an entry expires.
+     */
+    private final long expireAfterWrite;
+
+    /**
+     * Nanoseconds after the last read or write an entry expires.
+     */
+    private final long expireAfterAccess;
+
+    /**
+     * Our source of time.
+     */
+    private final Ticker ticker;
+
+    /**
+     * All entries we track.
+     */
+    private final ConcurrentMap<K, Node> nodes;
+
+    /**
+     * Guards the wheel.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Schedules the expiry of entries.
+     */
+    private final TimerWheel<Node> wheel;
+
+    /**
+     * The time the wheel was last advanced to - lets reads cheaply decide if
+     * the wheel is due.
+     */
+    private volatile long wheelTime;
+
+    /**
+     * Convert duration to nanoseconds.
+     */
+    static long toNanos(final long duration, final TimeUnit unit) {
+        if (NEVER == duration) {
+            return NEVER;
+        }
+
+        return Math.min(unit.toNanos(IntegrityUtil.ensure(duration, 0, "Expiry cannot be negative!")), MAXIMUM_EXPIRY);
+    }
+
+    /**
+     * Stop tracking node.
+     */
+    void retire(final Node node) {
+        node.retired = true;
+        nodes.remove(node.key, node);
+    }
+
+    /**
+     * Advance the wheel to now - the caller must hold the lock.
+     *
+     * @return the entries expired.
+     */
+    List<Node> advance(final long now) {
+        final List<Node> retVal = new ArrayList<>();
+
+        if (now - wheel.getTime() <= 0) {
+            return retVal;
+        }
+
+        for (final Node node : wheel.advance(now)) {
+            if (!node.retired) {
+                retire(node);
+                retVal.add(node);
+            }
+        }
+
+        wheelTime = now;
+
+        return retVal;
+    }
+
+    /**
+     * Discard the entries expired.
+     */
+    void evict(final List<Node> expired, final Evictor<K, V> evictor) {
+        for (final Node node : expired) {
+            getLogger().log(Level.FINE, "Expiring [{0}]", node.key);
+
+            evictor.expire(node.key, node.value);
+        }
+    }
+
+    /**
+     * Advance the wheel unless another thread is busy with it.
+     */
+    void tryAdvance(final long now, final Evictor<K, V> evictor) {
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        final List<Node> expired;
+        try {
+            expired = advance(now);
+        } finally {
+            lock.unlock();
+        }
+
+        evict(expired, evictor);
+    }
+
+    /**
+     * Sets how long entries live.
+     *
+     * @param expireAfterWrite  how long after a write an entry expires or
+     *                          NEVER.
+     * @param expireAfterAccess how long after the last read or write an entry
+     *                          expires or NEVER.
+     * @param unit              the unit of both durations.
+     * @param ticker            our source of time.
+     *
+     * @throws IllegalArgumentException if both durations are NEVER, a duration
+     *                                  is negative, or unit or ticker is null.
+     */
+    public ExpiryCachePolicy(final long expireAfterWrite, final long expireAfterAccess, final TimeUnit unit, final Ticker ticker) {
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        if (NEVER == expireAfterWrite && NEVER == expireAfterAccess) {
+            throw new IllegalArgumentException("Must expire after write and/or access!");
+        }
+
+        this.expireAfterWrite = toNanos(expireAfterWrite, unit);
+        this.expireAfterAccess = toNanos(expireAfterAccess, unit);
+        this.ticker = IntegrityUtil.ensure(ticker, "Must have a ticker!");
+        this.nodes = new ConcurrentHashMap<>();
+        this.lock = new ReentrantLock();
+        this.wheelTime = ticker.read();
+        this.wheel = new TimerWheel<>(wheelTime);
+    }
+
+    /**
+     * Sets how long entries live using the system clock.
+     *
+     * @param expireAfterWrite  how long after a write an entry expires or
+     *                          NEVER.
+     * @param expireAfterAccess how long after the last read or write an entry
+     *                          expires or NEVER.
+     * @param unit              the unit of both durations.
+     *
+     * @throws IllegalArgumentException if both durations are NEVER, a duration
+     *                                  is negative, or unit is null.
+     */
+    public ExpiryCachePolicy(final long expireAfterWrite, final long expireAfterAccess, final TimeUnit unit) {
+        this(expireAfterWrite, expireAfterAccess, unit, new DefaultTicker());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        final Node node = nodes.get(key);
+        if (null == node || node.value != value) {
+            return true;
+        }
+
+        final long now = ticker.read();
+        if (node.isExpired(now)) {
+            retire(node);
+
+            return false;
+        }
+
+        if (NEVER != expireAfterAccess && now - node.accessTime > ACCESS_TOLERANCE) {
+            node.accessTime = now;
+        }
+
+        if ((now >>> TimerWheel.SHIFT[0]) != (wheelTime >>> TimerWheel.SHIFT[0])) {
+            tryAdvance(now, evictor);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        final long now = ticker.read();
+        final Node node = new Node(key, value, now);
+        final Node old = nodes.put(key, node);
+
+        if (null != old) {
+            old.retired = true;
+        }
+
+        final List<Node> expired;
+
+        lock.lock();
+        try {
+            if (null != old) {
+                wheel.deschedule(old);
+            }
+
+            if (!node.retired) {
+                wheel.schedule(node);
+            }
+
+            expired = advance(now);
+        } finally {
+            lock.unlock();
+        }
+
+        evict(expired, evictor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        final Node node = nodes.get(key);
+        if (null == node || node.value != value) {
+            return;
+        }
+
+        retire(node);
+
+        if (lock.tryLock()) {
+            try {
+                wheel.deschedule(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        final List<Node> expired;
+
+        lock.lock();
+        try {
+            expired = advance(ticker.read());
+        } finally {
+            lock.unlock();
+        }
+
+        evict(expired, evictor);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+/**
+ * A count-min sketch estimating how often keys have been seen. Each counter is
+ * four bits wide and sixteen of them are packed into a long. Once enough
+ * increments have been sampled every counter is halved so that the history
+ * ages and a formerly popular key can eventually be displaced.
+ *
+ * Not thread safe - callers must synchronize.
+ *
+ * @author Scot P. Floess
+ */
+public class FrequencySketch {
+
+    /**
+     * Seeds used to pick a counter per hash function.
+     */
+    static final long[] SEED = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * Halves every counter when shifted right by one.
+     */
+    static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * The low bit of every counter.
+     */
+    static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * The largest table we will allocate.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Our counters.
+     */
+    private long[] table;
+
+    /**
+     * Used to turn a hash into a table index.
+     */
+    private int tableMask;
+
+    /**
+     * Number of increments after which we age all counters.
+     */
+    private int sampleSize;
+
+    /**
+     * Number of increments since the last aging.
+     */
+    private int size;
+
+    /**
+     * Return a power of two at least as large as value.
+     */
+    static int ceilingPowerOfTwo(final long value) {
+        final long capped = Math.max(1, Math.min(value, MAXIMUM_CAPACITY));
+
+        return 1 << -Integer.numberOfLeadingZeros((int) capped - 1);
+    }
+
+    /**
+     * Spread the bits of a hash code.
+     */
+    static int spread(final int hashCode) {
+        int retVal = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+        retVal = ((retVal >>> 16) ^ retVal) * 0x45d9f3b;
+
+        return (retVal >>> 16) ^ retVal;
+    }
+
+    /**
+     * Return the table index for hash and the ith hash function.
+     */
+    int indexOf(final int hash, final int i) {
+        long retVal = SEED[i] * hash;
+        retVal += retVal >>> 32;
+
+        return ((int) retVal) & tableMask;
+    }
+
+    /**
+     * Increment the counter at index/offset unless it is already at its
+     * maximum.
+     *
+     * @return true if incremented.
+     */
+    boolean incrementAt(final int index, final int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Halve every counter.
+     */
+    void reset() {
+        int odd = 0;
+
+        for (int index = 0; index < table.length; index++) {
+            odd += Long.bitCount(table[index] & ONE_MASK);
+            table[index] = (table[index] >>> 1) & RESET_MASK;
+        }
+
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    /**
+     * Sets the number of distinct keys we expect to track.
+     *
+     * @param maximumSize the number of keys expected.
+     */
+    public FrequencySketch(final long maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Grow the sketch to comfortably track maximumSize keys. Growing discards
+     * the history gathered so far.
+     *
+     * @param maximumSize the number of keys expected.
+     */
+    public void ensureCapacity(final long maximumSize) {
+        final int capacity = ceilingPowerOfTwo(maximumSize);
+
+        if (null != table && table.length >= capacity) {
+            return;
+        }
+
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+        size = 0;
+    }
+
+    /**
+     * Return the estimated number of times key has been seen - at most 15.
+     *
+     * @param key the key.
+     *
+     * @return the estimated frequency.
+     */
+    public int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+
+        int retVal = Integer.MAX_VALUE;
+        for (int i = 0; i < SEED.length; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+
+            retVal = Math.min(retVal, count);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Record that key has been seen.
+     *
+     * @param key the key.
+     */
+    public void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for (int i = 0; i < SEED.length; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+}
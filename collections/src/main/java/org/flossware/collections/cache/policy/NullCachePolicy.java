@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.logging.Level;
+
+/**
+ * A cache policy that keeps everything.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class NullCachePolicy<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * Default constructor.
+     */
+    public NullCachePolicy() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        getLogger().log(Level.FINEST, "Keeping [{0}]", key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        getLogger().log(Level.FINEST, "Removed [{0}]", key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        getLogger().log(Level.FINEST, "Nothing to clean up");
+    }
+}
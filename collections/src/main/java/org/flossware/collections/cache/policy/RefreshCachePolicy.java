@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Tracks when entries were written so a cache can tell when an entry is old
+ * enough to be refreshed. Never evicts anything itself.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class RefreshCachePolicy<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * When a value was written.
+     */
+    static final class Stamp<V> {
+
+        final V value;
+        final long writeTime;
+
+        Stamp(final V value, final long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Nanoseconds after a write an entry is due for refresh.
+     */
+    private final long refreshAfter;
+
+    /**
+     * Our source of time.
+     */
+    private final Ticker ticker;
+
+    /**
+     * When each entry was written.
+     */
+    private final ConcurrentMap<K, Stamp<V>> stamps;
+
+    /**
+     * Sets how old an entry must be before it is due for refresh.
+     *
+     * @param refreshAfter how long after a write an entry is due.
+     * @param unit         the unit of refreshAfter.
+     * @param ticker       our source of time.
+     *
+     * @throws IllegalArgumentException if refreshAfter is negative or unit or
+     *                                  ticker is null.
+     */
+    public RefreshCachePolicy(final long refreshAfter, final TimeUnit unit, final Ticker ticker) {
+        this.refreshAfter = IntegrityUtil.ensure(unit, "Must have a time unit!").toNanos(IntegrityUtil.ensure(refreshAfter, 0, "Refresh cannot be negative!"));
+        this.ticker = IntegrityUtil.ensure(ticker, "Must have a ticker!");
+        this.stamps = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets how old an entry must be before it is due for refresh using the
+     * system clock.
+     *
+     * @param refreshAfter how long after a write an entry is due.
+     * @param unit         the unit of refreshAfter.
+     *
+     * @throws IllegalArgumentException if refreshAfter is negative or unit is
+     *                                  null.
+     */
+    public RefreshCachePolicy(final long refreshAfter, final TimeUnit unit) {
+        this(refreshAfter, unit, new DefaultTicker());
+    }
+
+    /**
+     * Return true if key is still mapped to value and was written long enough
+     * ago to be refreshed.
+     *
+     * @param key   the key.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if due for refresh.
+     */
+    public boolean isRefreshDue(final K key, final V value) {
+        final Stamp<V> stamp = stamps.get(key);
+
+        return null != stamp && stamp.value == value && ticker.read() - stamp.writeTime >= refreshAfter;
+    }
+
+    /**
+     * Restart the clock on key provided it is still mapped to value - for
+     * example after a failed refresh so the next attempt waits a full period.
+     *
+     * @param key   the key.
+     * @param value the value key should be mapped to.
+     */
+    public void restart(final K key, final V value) {
+        final Stamp<V> stamp = stamps.get(key);
+
+        if (null != stamp && stamp.value == value) {
+            stamps.replace(key, stamp, new Stamp<>(value, ticker.read()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        stamps.put(key, new Stamp<>(value, ticker.read()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        final Stamp<V> stamp = stamps.get(key);
+
+        if (null != stamp && stamp.value == value) {
+            stamps.remove(key, stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        getLogger().log(Level.FINEST, "Refreshes happen on read - nothing to clean up");
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hierarchical timing wheel. Timers are hashed into buckets whose span grows
+ * from about a second to about a week, so scheduling, descheduling and
+ * advancing are amortized O(1) no matter how many timers there are. When the
+ * wheel advances, the buckets passed over are emptied: timers that are due
+ * are returned and the rest cascade into finer buckets.
+ *
+ * Not thread safe - callers must synchronize.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <T> the type of timer scheduled.
+ */
+public class TimerWheel<T extends TimerWheel.Timer> {
+
+    /**
+     * Something scheduled on the wheel.
+     */
+    public abstract static class Timer {
+
+        /**
+         * Previous timer in our bucket.
+         */
+        Timer prev;
+
+        /**
+         * Next timer in our bucket.
+         */
+        Timer next;
+
+        /**
+         * Return when the timer is due, in nanoseconds. May move later after
+         * being scheduled - the wheel will reschedule it when its bucket is
+         * reached.
+         *
+         * @return when due.
+         */
+        public abstract long getDeadline();
+
+        /**
+         * Return true if currently on a wheel.
+         *
+         * @return true if scheduled.
+         */
+        public boolean isScheduled() {
+            return null != next;
+        }
+    }
+
+    /**
+     * The head of each bucket.
+     */
+    static final class Sentinel extends Timer {
+
+        Sentinel() {
+            prev = this;
+            next = this;
+        }
+
+        @Override
+        public long getDeadline() {
+            return 0;
+        }
+    }
+
+    /**
+     * Number of buckets per wheel.
+     */
+    static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /**
+     * The span of a bucket per wheel - the final entry bounds the last wheel.
+     */
+    static final long[] SPANS = {
+        ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+        ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1))
+    };
+
+    /**
+     * Shift converting nanoseconds to ticks per wheel.
+     */
+    static final long[] SHIFT = {
+        Long.numberOfTrailingZeros(SPANS[0]),
+        Long.numberOfTrailingZeros(SPANS[1]),
+        Long.numberOfTrailingZeros(SPANS[2]),
+        Long.numberOfTrailingZeros(SPANS[3]),
+        Long.numberOfTrailingZeros(SPANS[4])
+    };
+
+    /**
+     * Return a power of two at least as large as value.
+     */
+    static long ceilingPowerOfTwo(final long value) {
+        return 1L << -Long.numberOfLeadingZeros(value - 1);
+    }
+
+    /**
+     * Our wheels of buckets.
+     */
+    private final Sentinel[][] wheels;
+
+    /**
+     * The time the wheel was last advanced to.
+     */
+    private long time;
+
+    /**
+     * Link timer into the bucket at index of wheel.
+     */
+    void link(final int wheel, final int index, final Timer timer) {
+        final Sentinel sentinel = wheels[wheel][index];
+
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    /**
+     * Empty the buckets of wheel passed over going from previousTicks to
+     * currentTicks.
+     */
+    void expire(final int wheel, final long previousTicks, final long currentTicks, final List<T> expired) {
+        final Sentinel[] buckets = wheels[wheel];
+        final int mask = buckets.length - 1;
+        final int steps = (int) Math.min(1 + currentTicks - previousTicks, buckets.length);
+        final int start = (int) (previousTicks & mask);
+
+        for (int step = start; step < start + steps; step++) {
+            final Sentinel sentinel = buckets[step & mask];
+
+            Timer timer = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+
+            while (timer != sentinel) {
+                final Timer next = timer.next;
+
+                timer.prev = null;
+                timer.next = null;
+
+                // Only timers of type T are ever scheduled.
+                @SuppressWarnings("unchecked")
+                final T scheduled = (T) timer;
+
+                if (scheduled.getDeadline() - time <= 0) {
+                    expired.add(scheduled);
+                } else {
+                    schedule(scheduled);
+                }
+
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * Sets the current time.
+     *
+     * @param time the current time in nanoseconds.
+     */
+    public TimerWheel(final long time) {
+        this.time = time;
+        this.wheels = new Sentinel[BUCKETS.length][];
+
+        for (int wheel = 0; wheel < BUCKETS.length; wheel++) {
+            wheels[wheel] = new Sentinel[BUCKETS[wheel]];
+
+            for (int index = 0; index < BUCKETS[wheel]; index++) {
+                wheels[wheel][index] = new Sentinel();
+            }
+        }
+    }
+
+    /**
+     * Return the time the wheel was last advanced to.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Schedule timer - if already scheduled it is moved.
+     *
+     * @param timer the timer to schedule.
+     */
+    public void schedule(final T timer) {
+        deschedule(timer);
+
+        final long deadline = timer.getDeadline();
+        final long duration = deadline - time;
+
+        for (int wheel = 0; wheel < BUCKETS.length - 1; wheel++) {
+            if (duration < SPANS[wheel + 1]) {
+                link(wheel, (int) ((deadline >>> SHIFT[wheel]) & (BUCKETS[wheel] - 1)), timer);
+
+                return;
+            }
+        }
+
+        link(BUCKETS.length - 1, 0, timer);
+    }
+
+    /**
+     * Remove timer from the wheel if scheduled.
+     *
+     * @param timer the timer to remove.
+     */
+    public void deschedule(final T timer) {
+        if (timer.isScheduled()) {
+            timer.next.prev = timer.prev;
+            timer.prev.next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+        }
+    }
+
+    /**
+     * Advance the wheel to now.
+     *
+     * @param now the current time in nanoseconds.
+     *
+     * @return the timers that are now due - they are no longer scheduled.
+     */
+    public List<T> advance(final long now) {
+        final List<T> retVal = new ArrayList<>();
+        final long previous = time;
+
+        time = now;
+
+        for (int wheel = 0; wheel < SHIFT.length; wheel++) {
+            final long previousTicks = previous >>> SHIFT[wheel];
+            final long currentTicks = now >>> SHIFT[wheel];
+
+            if (currentTicks - previousTicks <= 0) {
+                break;
+            }
+
+            expire(wheel, previousTicks, currentTicks, retVal);
+        }
+
+        return retVal;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A size or weight bounded cache policy using Window TinyLFU. New entries land
+ * in a small LRU window. Entries falling out of the window must then win a
+ * frequency contest against the least recently used entry of the main space
+ * (a segmented LRU of probation and protected entries) in order to stay.
+ * Since one time keys - for example from a scan - rarely beat a frequently
+ * used key, the hot set survives scans that would flush a plain LRU.
+ *
+ * Writes take a lock. Reads only try the lock and skip bookkeeping when it is
+ * contended so they never block.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class TinyLfuCachePolicy<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * Default entries our frequency sketch is first sized for when bounded by
+     * weight.
+     */
+    public static final int DEFAULT_EXPECTED_SIZE = 1024;
+
+    /**
+     * Percentage of the maximum given to the main space - the remainder is the
+     * window.
+     */
+    static final int PERCENT_MAIN = 99;
+
+    /**
+     * Percentage of the main space given to protected entries.
+     */
+    static final int PERCENT_MAIN_PROTECTED = 80;
+
+    /**
+     * The queues a node can be in.
+     */
+    enum Queue {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * An entry tracked by the policy.
+     */
+    static final class Node<K, V> {
+
+        final K key;
+        V value;
+        long weight;
+        Queue queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(final K key, final V value, final long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked list ordered from least to most recently used.
+     */
+    static final class AccessQueue<K, V> {
+
+        final Node<K, V> sentinel;
+        long weight;
+
+        AccessQueue() {
+            sentinel = new Node<>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        Node<K, V> first() {
+            return sentinel.next != sentinel ? sentinel.next : null;
+        }
+
+        Node<K, V> last() {
+            return sentinel.prev != sentinel ? sentinel.prev : null;
+        }
+
+        void addLast(final Node<K, V> node) {
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+
+            weight += node.weight;
+        }
+
+        void remove(final Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+
+            weight -= node.weight;
+        }
+
+        void moveToLast(final Node<K, V> node) {
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    /**
+     * Guards all bookkeeping.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * All entries we track.
+     */
+    private final Map<K, Node<K, V>> nodes;
+
+    /**
+     * Estimates how popular a key is.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Recently added entries.
+     */
+    private final AccessQueue<K, V> window;
+
+    /**
+     * Main space entries seen once since leaving the window.
+     */
+    private final AccessQueue<K, V> probation;
+
+    /**
+     * Main space entries seen more than once.
+     */
+    private final AccessQueue<K, V> protectedQueue;
+
+    /**
+     * Computes the weight of entries.
+     */
+    private final Weigher<? super K, ? super V> weigher;
+
+    /**
+     * The maximum weight of all entries.
+     */
+    private final long maximum;
+
+    /**
+     * The maximum weight of the window.
+     */
+    private final long maximumWindow;
+
+    /**
+     * The maximum weight of protected entries.
+     */
+    private final long maximumProtected;
+
+    /**
+     * Return the queue a node is in.
+     */
+    AccessQueue<K, V> getQueue(final Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+
+            case PROBATION:
+                return probation;
+
+            default:
+                return protectedQueue;
+        }
+    }
+
+    /**
+     * Move node to queue.
+     */
+    void moveTo(final Node<K, V> node, final Queue queue) {
+        getQueue(node).remove(node);
+        node.queue = queue;
+        getQueue(node).addLast(node);
+    }
+
+    /**
+     * Stop tracking node and add it to victims.
+     */
+    void discard(final Node<K, V> node, final List<Node<K, V>> victims) {
+        getQueue(node).remove(node);
+        nodes.remove(node.key);
+        victims.add(node);
+    }
+
+    /**
+     * Node was used - promote it.
+     */
+    void onAccess(final Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+
+            case PROBATION:
+                moveTo(node, Queue.PROTECTED);
+
+                while (protectedQueue.weight > maximumProtected) {
+                    moveTo(protectedQueue.first(), Queue.PROBATION);
+                }
+                break;
+
+            default:
+                protectedQueue.moveToLast(node);
+        }
+    }
+
+    /**
+     * Overflow from the window becomes candidates for the main space. While
+     * over the maximum, the least recently used probation entry (the victim)
+     * competes against the newest candidate and the less frequently used of
+     * the two is discarded.
+     *
+     * @return the entries discarded.
+     */
+    List<Node<K, V>> evict() {
+        final List<Node<K, V>> retVal = new ArrayList<>();
+
+        int candidates = 0;
+        while (window.weight > maximumWindow) {
+            moveTo(window.first(), Queue.PROBATION);
+            candidates++;
+        }
+
+        while (getWeightedSizeUnlocked() > maximum) {
+            Node<K, V> victim = probation.first();
+            if (null == victim) {
+                victim = (null != protectedQueue.first() ? protectedQueue.first() : window.first());
+            }
+
+            final Node<K, V> candidate = (candidates > 0 ? probation.last() : null);
+
+            if (null == candidate || candidate == victim || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                if (candidate == victim) {
+                    candidates--;
+                }
+
+                discard(victim, retVal);
+            } else {
+                candidates--;
+
+                discard(candidate, retVal);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the total weight - the caller must hold the lock.
+     */
+    long getWeightedSizeUnlocked() {
+        return window.weight + probation.weight + protectedQueue.weight;
+    }
+
+    /**
+     * Bound the cache by weight, sizing our frequency sketch for the number of
+     * entries expected - it grows should more be held.
+     *
+     * @param maximumWeight the maximum total weight of all entries.
+     * @param weigher       computes the weight of each entry.
+     * @param expectedSize  the number of entries expected.
+     *
+     * @throws IllegalArgumentException if maximumWeight or expectedSize is
+     *                                  negative or weigher is null.
+     */
+    public TinyLfuCachePolicy(final long maximumWeight, final Weigher<? super K, ? super V> weigher, final long expectedSize) {
+        IntegrityUtil.ensure(expectedSize, 0, "Expected size cannot be negative!");
+
+        this.maximum = IntegrityUtil.ensure(maximumWeight, 0, "Maximum cannot be negative!");
+        this.weigher = IntegrityUtil.ensure(weigher, "Must have a weigher!");
+
+        final long maximumMain = maximumWeight * PERCENT_MAIN / 100;
+
+        this.maximumWindow = maximumWeight - maximumMain;
+        this.maximumProtected = maximumMain * PERCENT_MAIN_PROTECTED / 100;
+
+        this.lock = new ReentrantLock();
+        this.nodes = new HashMap<>();
+        this.sketch = new FrequencySketch(expectedSize);
+        this.window = new AccessQueue<>();
+        this.probation = new AccessQueue<>();
+        this.protectedQueue = new AccessQueue<>();
+    }
+
+    /**
+     * Bound the cache by weight. As weights say nothing of how many entries
+     * are held, our frequency sketch starts small and grows with them.
+     *
+     * @param maximumWeight the maximum total weight of all entries.
+     * @param weigher       computes the weight of each entry.
+     *
+     * @throws IllegalArgumentException if maximumWeight is negative or weigher
+     *                                  is null.
+     */
+    public TinyLfuCachePolicy(final long maximumWeight, final Weigher<? super K, ? super V> weigher) {
+        this(maximumWeight, weigher, DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Bound the cache by number of entries.
+     *
+     * @param maximumSize the maximum number of entries.
+     *
+     * @throws IllegalArgumentException if maximumSize is negative.
+     */
+    public TinyLfuCachePolicy(final long maximumSize) {
+        this(maximumSize, new DefaultWeigher<K, V>(), maximumSize);
+    }
+
+    /**
+     * Return the maximum weight.
+     *
+     * @return the maximum weight.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Return the total weight of all entries.
+     *
+     * @return the total weight.
+     */
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return getWeightedSizeUnlocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(key);
+
+                final Node<K, V> node = nodes.get(key);
+                if (null != node) {
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        final long weight = IntegrityUtil.ensure(weigher.weigh(key, value), 0, "Weight cannot be negative!");
+        final List<Node<K, V>> victims;
+
+        lock.lock();
+        try {
+            sketch.increment(key);
+
+            Node<K, V> node = nodes.get(key);
+            if (null != node) {
+                getQueue(node).weight += weight - node.weight;
+                node.weight = weight;
+                node.value = value;
+
+                onAccess(node);
+            } else {
+                node = new Node<>(key, value, weight);
+                node.queue = Queue.WINDOW;
+
+                nodes.put(key, node);
+                window.addLast(node);
+
+                sketch.ensureCapacity(nodes.size());
+            }
+
+            victims = evict();
+        } finally {
+            lock.unlock();
+        }
+
+        for (final Node<K, V> victim : victims) {
+            getLogger().log(Level.FINE, "Evicting [{0}]", victim.key);
+
+            evictor.evict(victim.key, victim.value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        lock.lock();
+        try {
+            final Node<K, V> node = nodes.get(key);
+            if (null != node && node.value == value) {
+                getQueue(node).remove(node);
+                nodes.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        getLogger().log(Level.FINEST, "Evictions happen on write - nothing to clean up");
+    }
+}
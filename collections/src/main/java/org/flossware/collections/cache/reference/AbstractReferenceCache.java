@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for caches holding keys and/or values by reference.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public abstract class AbstractReferenceCache<K, V> extends AbstractReferenceParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets how strongly keys and values are held and what records our
+     * statistics - collected entries count as evictions.
+     *
+     * @param keyStrength   how strongly keys are held.
+     * @param valueStrength how strongly values are held.
+     * @param statsCounter  records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractReferenceCache(final ReferenceStrength keyStrength, final ReferenceStrength valueStrength, final StatsCounter statsCounter) {
+        super(keyStrength, valueStrength, statsCounter);
+    }
+
+    /**
+     * Sets how strongly keys and values are held.
+     *
+     * @param keyStrength   how strongly keys are held.
+     * @param valueStrength how strongly values are held.
+     *
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    protected AbstractReferenceCache(final ReferenceStrength keyStrength, final ReferenceStrength valueStrength) {
+        super(keyStrength, valueStrength);
+    }
+
+    /**
+     * Based upon key, create a value.
+     *
+     * @param key the key to use when creating a value
+     *
+     * @return the value created
+     */
+    protected abstract V create(K key);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected V create(final K key, final K param) {
+        return create(key);
+    }
+
+    /**
+     * Based upon keys, create values. Override when values can be created in
+     * one round trip - by default each is created in turn.
+     *
+     * @param keys the keys to use when creating values.
+     *
+     * @return the values created.
+     */
+    protected Map<K, V> createAll(final Set<K> keys) {
+        return super.createAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> createAll(final Set<K> keys, final K param) {
+        return createAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        return loadAll(keys, null);
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for caches holding keys and/or values by reference -
+ * for example weak keys, compared by identity, so caching metadata keyed by
+ * Class does not pin class loaders. Entries whose key or value is collected
+ * are removed as our queue is drained, which happens on every access.
+ * Collected values cannot be destroyed.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public abstract class AbstractReferenceParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T> {
+
+    /**
+     * Stores our held values by held key.
+     */
+    final class ReferenceCache extends AbstractParamCache<CacheKey<K>, CacheValue<K, V>, T> {
+
+        ReferenceCache(final StatsCounter statsCounter) {
+            super(new NullCachePolicy<CacheKey<K>, CacheValue<K, V>>(), statsCounter);
+        }
+
+        boolean collect(final CacheKey<K> key, final CacheValue<K, V> value) {
+            return evict(key, value);
+        }
+
+        void collect(final CacheKey<K> key) {
+            final CacheValue<K, V> value = getMap().get(key);
+            if (null != value) {
+                evict(key, value);
+            }
+        }
+
+        Map<CacheKey<K>, CacheValue<K, V>> getAllValues(final List<CacheKey<K>> keys, final T param) {
+            return loadAll(keys, param);
+        }
+
+        int size() {
+            return getMap().size();
+        }
+
+        CacheValue<K, V> getIfPresent(final CacheKey<K> key) {
+            final CacheValue<K, V> retVal = getMap().get(key);
+            if (null != retVal) {
+                getStatsCounter().recordHits(1);
+            }
+
+            return retVal;
+        }
+
+        @Override
+        protected CacheValue<K, V> create(final CacheKey<K> key, final T param) {
+            return createValue(key, AbstractReferenceParamCache.this.create(key.get(), param));
+        }
+
+        @Override
+        protected Map<CacheKey<K>, CacheValue<K, V>> createAll(final Set<CacheKey<K>> keys, final T param) {
+            final Map<K, CacheKey<K>> byKey = new LinkedHashMap<>();
+            for (final CacheKey<K> key : keys) {
+                byKey.put(key.get(), key);
+            }
+
+            final Map<CacheKey<K>, CacheValue<K, V>> retVal = new LinkedHashMap<>();
+            for (final Map.Entry<K, V> entry : AbstractReferenceParamCache.this.createAll(byKey.keySet(), param).entrySet()) {
+                final CacheKey<K> key = byKey.get(entry.getKey());
+                if (null != key && null != entry.getValue()) {
+                    retVal.put(key, createValue(key, entry.getValue()));
+                }
+            }
+
+            return retVal;
+        }
+
+        @Override
+        protected void destroy(final CacheKey<K> key, final CacheValue<K, V> value) {
+            if (null == key || null == value) {
+                return;
+            }
+
+            final K toDestroyKey = key.get();
+            final V toDestroy = value.get();
+
+            if (null != toDestroyKey && null != toDestroy) {
+                AbstractReferenceParamCache.this.destroy(toDestroyKey, toDestroy);
+            }
+        }
+    }
+
+    /**
+     * How strongly we hold keys.
+     */
+    private final ReferenceStrength keyStrength;
+
+    /**
+     * How strongly we hold values.
+     */
+    private final ReferenceStrength valueStrength;
+
+    /**
+     * Told when keys or values are collected.
+     */
+    private final ReferenceQueue<Object> queue;
+
+    /**
+     * Stores our held values by held key.
+     */
+    private final ReferenceCache cache;
+
+    /**
+     * Sets how strongly keys and values are held and what records our
+     * statistics - collected entries count as evictions.
+     *
+     * @param keyStrength   how strongly keys are held.
+     * @param valueStrength how strongly values are held.
+     * @param statsCounter  records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractReferenceParamCache(final ReferenceStrength keyStrength, final ReferenceStrength valueStrength, final StatsCounter statsCounter) {
+        this.keyStrength = IntegrityUtil.ensure(keyStrength, "Must have a key strength!");
+        this.valueStrength = IntegrityUtil.ensure(valueStrength, "Must have a value strength!");
+        this.queue = new ReferenceQueue<>();
+        this.cache = new ReferenceCache(statsCounter);
+    }
+
+    /**
+     * Sets how strongly keys and values are held - no statistics are recorded.
+     *
+     * @param keyStrength   how strongly keys are held.
+     * @param valueStrength how strongly values are held.
+     *
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    protected AbstractReferenceParamCache(final ReferenceStrength keyStrength, final ReferenceStrength valueStrength) {
+        this(keyStrength, valueStrength, new NullStatsCounter());
+    }
+
+    /**
+     * Return how strongly we hold keys.
+     *
+     * @return the key strength.
+     */
+    protected ReferenceStrength getKeyStrength() {
+        return keyStrength;
+    }
+
+    /**
+     * Return how strongly we hold values.
+     *
+     * @return the value strength.
+     */
+    protected ReferenceStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    /**
+     * Return how many entries we hold - some may have been collected but not
+     * yet removed.
+     *
+     * @return the number of entries.
+     */
+    protected int size() {
+        return cache.size();
+    }
+
+    /**
+     * Hold key.
+     */
+    CacheKey<K> createKey(final K key) {
+        return getKeyStrength().createKey(IntegrityUtil.ensure(key, "Cannot have a null key!"), queue);
+    }
+
+    /**
+     * Return a key finding key's entry - never queued, so cheap to create.
+     */
+    CacheKey<K> createLookupKey(final K key) {
+        return getKeyStrength().createLookupKey(IntegrityUtil.ensure(key, "Cannot have a null key!"));
+    }
+
+    /**
+     * Hold value for key.
+     */
+    CacheValue<K, V> createValue(final CacheKey<K> key, final V value) {
+        return getValueStrength().createValue(key, IntegrityUtil.ensure(value, "Must have a value!"), queue);
+    }
+
+    /**
+     * Remove entries whose key or value was collected.
+     */
+    @SuppressWarnings("unchecked")
+    protected void drain() {
+        for (Reference<?> reference = queue.poll(); null != reference; reference = queue.poll()) {
+            if (reference instanceof CacheValue) {
+                final CacheValue<K, V> value = (CacheValue<K, V>) reference;
+
+                getLogger().log(Level.FINE, "Value for [{0}] was collected", value.getKey());
+
+                cache.collect(value.getKey(), value);
+            } else {
+                getLogger().log(Level.FINE, "Key was collected");
+
+                cache.collect((CacheKey<K>) reference);
+            }
+        }
+    }
+
+    /**
+     * Create a value based on parameters.
+     *
+     * @param key   the key to use when creating.
+     * @param param the seed data to use when creating a value.
+     *
+     * @return the created value.
+     */
+    protected abstract V create(K key, T param);
+
+    /**
+     * Create values for many keys at once. Override when values can be created
+     * in one round trip - by default each is created in turn.
+     *
+     * @param keys  the keys to create values for.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the created values.
+     */
+    protected Map<K, V> createAll(final Set<K> keys, final T param) {
+        final Map<K, V> retVal = new LinkedHashMap<>();
+
+        for (final K key : keys) {
+            retVal.put(key, create(key, param));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Will destroy a value removed while neither it nor its key was collected.
+     * Override to do the needful.
+     *
+     * @param key   the key that refers to value.
+     * @param value the value to destroy.
+     */
+    protected void destroy(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to destroy [{0}] -> [{1}] - nothing to do", new Object[] {key, value});
+    }
+
+    /**
+     * Return values for keys, creating those not cached together. Should a
+     * value be collected before we return it, it is loaded again.
+     *
+     * @param keys  the keys whose values to return.
+     * @param param the seed data to use when creating values.
+     *
+     * @return the values in the order of keys.
+     */
+    protected Map<K, V> loadAll(final Collection<K> keys, final T param) {
+        drain();
+
+        final List<CacheKey<K>> held = new ArrayList<>();
+        for (final K key : keys) {
+            held.add(createKey(key));
+        }
+
+        final Map<CacheKey<K>, V> found = new HashMap<>();
+
+        List<CacheKey<K>> toLoad = held;
+        while (!toLoad.isEmpty()) {
+            final List<CacheKey<K>> collected = new ArrayList<>();
+
+            for (final Map.Entry<CacheKey<K>, CacheValue<K, V>> entry : cache.getAllValues(toLoad, param).entrySet()) {
+                final V value = entry.getValue().get();
+
+                if (null != value) {
+                    found.put(entry.getKey(), value);
+                } else {
+                    cache.collect(entry.getValue().getKey(), entry.getValue());
+                    collected.add(entry.getKey());
+                }
+            }
+
+            toLoad = collected;
+        }
+
+        final Map<K, V> retVal = new LinkedHashMap<>();
+        for (final CacheKey<K> key : held) {
+            retVal.put(key.get(), found.get(key));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the value for key, loading it if need be. A cached value is found
+     * with a lookup key - a held key is only created to cache a loaded value.
+     */
+    V load(final K key, final T param) {
+        final CacheValue<K, V> cached = cache.getIfPresent(createLookupKey(key));
+        if (null != cached) {
+            final V retVal = cached.get();
+
+            if (null != retVal) {
+                return retVal;
+            }
+        }
+
+        while (true) {
+            final CacheValue<K, V> value = cache.get(createKey(key), param);
+            final V retVal = value.get();
+
+            if (null != retVal) {
+                return retVal;
+            }
+
+            cache.collect(value.getKey(), value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        drain();
+
+        IntegrityUtil.ensure(value, "Must have a value to add!");
+
+        while (true) {
+            final CacheKey<K> held = createKey(key);
+            final CacheValue<K, V> current = cache.put(held, createValue(held, value));
+            final V retVal = current.get();
+
+            if (null != retVal) {
+                return retVal;
+            }
+
+            cache.collect(current.getKey(), current);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T param) {
+        drain();
+
+        IntegrityUtil.ensure(param, "Must have parameters!");
+
+        return load(key, param);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        IntegrityUtil.ensure(values, 0, "Must have values to add!");
+
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T param) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+        IntegrityUtil.ensure(param, "Must have parameters!");
+
+        return loadAll(keys, param);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        drain();
+
+        cache.remove(createLookupKey(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        drain();
+
+        cache.cleanUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
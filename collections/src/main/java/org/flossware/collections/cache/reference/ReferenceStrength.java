@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * How strongly a reference cache holds its keys or values.
+ *
+ * @author Scot P. Floess
+ */
+public enum ReferenceStrength {
+
+    /**
+     * Held until removed - keys are compared using equals().
+     */
+    STRONG {
+        @Override
+        <K> CacheKey<K> createKey(final K key, final ReferenceQueue<Object> queue) {
+            return new StrongKey<>(key);
+        }
+
+        @Override
+        <K> CacheKey<K> createLookupKey(final K key) {
+            return new StrongKey<>(key);
+        }
+
+        @Override
+        <K, V> CacheValue<K, V> createValue(final CacheKey<K> key, final V value, final ReferenceQueue<Object> queue) {
+            return new StrongValue<>(key, value);
+        }
+    },
+
+    /**
+     * Collected when memory runs low - keys are compared by identity.
+     */
+    SOFT {
+        @Override
+        <K> CacheKey<K> createKey(final K key, final ReferenceQueue<Object> queue) {
+            return new SoftKey<>(key, queue);
+        }
+
+        @Override
+        <K> CacheKey<K> createLookupKey(final K key) {
+            return new LookupKey<>(key);
+        }
+
+        @Override
+        <K, V> CacheValue<K, V> createValue(final CacheKey<K> key, final V value, final ReferenceQueue<Object> queue) {
+            return new SoftValue<>(key, value, queue);
+        }
+    },
+
+    /**
+     * Collected once nothing else refers to it - keys are compared by
+     * identity.
+     */
+    WEAK {
+        @Override
+        <K> CacheKey<K> createKey(final K key, final ReferenceQueue<Object> queue) {
+            return new WeakKey<>(key, queue);
+        }
+
+        @Override
+        <K> CacheKey<K> createLookupKey(final K key) {
+            return new LookupKey<>(key);
+        }
+
+        @Override
+        <K, V> CacheValue<K, V> createValue(final CacheKey<K> key, final V value, final ReferenceQueue<Object> queue) {
+            return new WeakValue<>(key, value, queue);
+        }
+    };
+
+    /**
+     * Hold a key.
+     *
+     * @param key   the key.
+     * @param queue told once key is collected.
+     *
+     * @return the held key.
+     */
+    abstract <K> CacheKey<K> createKey(K key, ReferenceQueue<Object> queue);
+
+    /**
+     * Return a key equal to the one createKey() holds for key, only to look it
+     * up - it is never queued.
+     *
+     * @param key the key.
+     *
+     * @return the lookup key.
+     */
+    abstract <K> CacheKey<K> createLookupKey(K key);
+
+    /**
+     * Hold a value.
+     *
+     * @param key   the key holding the value.
+     * @param value the value.
+     * @param queue told once value is collected.
+     *
+     * @return the held value.
+     */
+    abstract <K, V> CacheValue<K, V> createValue(CacheKey<K> key, V value, ReferenceQueue<Object> queue);
+}
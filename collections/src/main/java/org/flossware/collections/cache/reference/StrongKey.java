@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Strongly holds a key - compared using equals().
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+final class StrongKey<K> implements CacheKey<K> {
+
+    /**
+     * The key.
+     */
+    private final K key;
+
+    /**
+     * Sets the key.
+     *
+     * @param key the key.
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    StrongKey(final K key) {
+        this.key = IntegrityUtil.ensure(key, "Cannot have a null key!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K get() {
+        return key;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof StrongKey && key.equals(((StrongKey<?>) object).key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Strongly holds a value.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+final class StrongValue<K, V> implements CacheValue<K, V> {
+
+    /**
+     * The key holding us.
+     */
+    private final CacheKey<K> key;
+
+    /**
+     * The value.
+     */
+    private final V value;
+
+    /**
+     * Sets the key holding us and the value.
+     *
+     * @param key   the key holding us.
+     * @param value the value.
+     *
+     * @throws IllegalArgumentException if key or value is null.
+     */
+    StrongValue(final CacheKey<K> key, final V value) {
+        this.key = IntegrityUtil.ensure(key, "Must have a key!");
+        this.value = IntegrityUtil.ensure(value, "Must have a value!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get() {
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheKey<K> getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Weakly holds a key - compared by identity. Once collected, it is only equal
+ * to itself so it can still be removed.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+final class WeakKey<K> extends WeakReference<K> implements IdentityKey<K> {
+
+    /**
+     * The identity hash code of our key - kept as our key may be collected.
+     */
+    private final int hashCode;
+
+    /**
+     * Sets the key and the queue told once it is collected.
+     *
+     * @param key   the key.
+     * @param queue told once key is collected.
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    WeakKey(final K key, final ReferenceQueue<Object> queue) {
+        super(IntegrityUtil.ensure(key, "Cannot have a null key!"), queue);
+
+        this.hashCode = System.identityHashCode(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (!(object instanceof IdentityKey)) {
+            return false;
+        }
+
+        final Object key = get();
+
+        return null != key && key == ((IdentityKey<?>) object).get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Weakly holds a value.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+final class WeakValue<K, V> extends WeakReference<V> implements CacheValue<K, V> {
+
+    /**
+     * The key holding us.
+     */
+    private final CacheKey<K> key;
+
+    /**
+     * Sets the key holding us, the value and the queue told once the value is
+     * collected.
+     *
+     * @param key   the key holding us.
+     * @param value the value.
+     * @param queue told once value is collected.
+     *
+     * @throws IllegalArgumentException if key or value is null.
+     */
+    WeakValue(final CacheKey<K> key, final V value, final ReferenceQueue<Object> queue) {
+        super(IntegrityUtil.ensure(value, "Must have a value!"), queue);
+
+        this.key = IntegrityUtil.ensure(key, "Must have a key!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheKey<K> getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.refresh;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.CachePolicyComposite;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.policy.RefreshCachePolicy;
+import org.flossware.collections.cache.removal.RemovalCause;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for caches that refresh entries ahead of time. Once an
+ * entry is older than the refresh period, the next read schedules a reload on
+ * our executor and returns the current value without waiting. Reloads are
+ * coalesced per key. When a reload succeeds the new value is swapped in and
+ * only then is the old value destroyed; when it fails the old value keeps
+ * being served and the next reload waits a full period.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public abstract class AbstractRefreshParamCache<K, V, T> extends AbstractParamCache<K, V, T> {
+
+    /**
+     * Tracks when entries are due for refresh.
+     */
+    private final RefreshCachePolicy<K, V> refreshPolicy;
+
+    /**
+     * Runs our reloads.
+     */
+    private final Executor executor;
+
+    /**
+     * Keys currently being reloaded.
+     */
+    private final Set<K> refreshing;
+
+    /**
+     * Sets the policy tracking refreshes, the executor running reloads, the
+     * policy deciding which entries to keep and what records our statistics.
+     * Reloads are recorded as loads.
+     *
+     * @param refreshPolicy tracks when entries are due for refresh.
+     * @param executor      runs reloads.
+     * @param policy        decides which entries to keep.
+     * @param statsCounter  records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractRefreshParamCache(final RefreshCachePolicy<K, V> refreshPolicy, final Executor executor, final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        super(new CachePolicyComposite<>(IntegrityUtil.ensure(policy, "Must have a cache policy!"), IntegrityUtil.ensure(refreshPolicy, "Must have a refresh policy!")), statsCounter);
+
+        this.refreshPolicy = refreshPolicy;
+        this.executor = IntegrityUtil.ensure(executor, "Must have an executor!");
+        this.refreshing = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+    }
+
+    /**
+     * Sets the policy tracking refreshes, the executor running reloads and the
+     * policy deciding which entries to keep - no statistics are recorded.
+     *
+     * @param refreshPolicy tracks when entries are due for refresh.
+     * @param executor      runs reloads.
+     * @param policy        decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractRefreshParamCache(final RefreshCachePolicy<K, V> refreshPolicy, final Executor executor, final CachePolicy<K, V> policy) {
+        this(refreshPolicy, executor, policy, new NullStatsCounter());
+    }
+
+    /**
+     * Sets the refresh period, the executor running reloads and the policy
+     * deciding which entries to keep.
+     *
+     * @param refreshAfter how long after a write an entry is refreshed.
+     * @param unit         the unit of refreshAfter.
+     * @param executor     runs reloads.
+     * @param policy       decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if refreshAfter is negative or any other
+     *                                  parameter is null.
+     */
+    protected AbstractRefreshParamCache(final long refreshAfter, final TimeUnit unit, final Executor executor, final CachePolicy<K, V> policy) {
+        this(new RefreshCachePolicy<K, V>(refreshAfter, unit), executor, policy);
+    }
+
+    /**
+     * Sets the refresh period - reloads run on virtual threads where available
+     * and nothing is evicted.
+     *
+     * @param refreshAfter how long after a write an entry is refreshed.
+     * @param unit         the unit of refreshAfter.
+     *
+     * @throws IllegalArgumentException if refreshAfter is negative or unit is
+     *                                  null.
+     */
+    protected AbstractRefreshParamCache(final long refreshAfter, final TimeUnit unit) {
+        this(refreshAfter, unit, CacheUtil.createDefaultExecutor("RefreshCache"), new NullCachePolicy<K, V>());
+    }
+
+    /**
+     * Return the policy tracking refreshes.
+     *
+     * @return the refresh policy.
+     */
+    protected RefreshCachePolicy<K, V> getRefreshPolicy() {
+        return refreshPolicy;
+    }
+
+    /**
+     * Return the executor running reloads.
+     *
+     * @return the executor.
+     */
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Compute a replacement for a value due for refresh - called on our
+     * executor. By default simply creates a new value. Return oldValue if
+     * nothing changed.
+     *
+     * @param key      the key to reload.
+     * @param param    the seed data to use when creating a value.
+     * @param oldValue the value currently cached.
+     *
+     * @return the replacement value - null fails the refresh.
+     */
+    protected V reload(final K key, final T param, final V oldValue) {
+        return create(key, param);
+    }
+
+    /**
+     * Reload key and swap the result in for oldValue.
+     */
+    void doRefresh(final K key, final T param, final V oldValue) {
+        final long start = System.nanoTime();
+
+        try {
+            final V newValue = IntegrityUtil.ensure(reload(key, param, oldValue), "Must have a value to add!");
+
+            getStatsCounter().recordLoadSuccess(System.nanoTime() - start);
+
+            if (newValue == oldValue) {
+                getRefreshPolicy().restart(key, oldValue);
+            } else if (!replace(key, oldValue, newValue)) {
+                getLogger().log(Level.FINE, "Key [{0}] changed while refreshing - discarding reloaded value", key);
+
+                destroy(key, newValue);
+                notifyRemoval(key, newValue, RemovalCause.REPLACED);
+            }
+        } catch (final RuntimeException runtimeException) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+            getLogger().log(Level.WARNING, "Could not refresh key [" + key + "] - keeping current value", runtimeException);
+
+            getRefreshPolicy().restart(key, oldValue);
+        }
+    }
+
+    /**
+     * Schedule a reload of key unless one is already in flight.
+     *
+     * @param key      the key to reload.
+     * @param param    the seed data to use when creating a value.
+     * @param oldValue the value currently cached.
+     */
+    protected void refresh(final K key, final T param, final V oldValue) {
+        if (!refreshing.add(key)) {
+            debug("already refreshing", key, param);
+
+            return;
+        }
+
+        try {
+            getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doRefresh(key, param, oldValue);
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            getLogger().log(Level.WARNING, "Could not schedule refresh of key [" + key + "]", rejectedExecutionException);
+
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T param) {
+        final V retVal = super.get(key, param);
+
+        if (getRefreshPolicy().isRefreshDue(key, retVal)) {
+            refresh(key, param, retVal);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> loadAll(final Collection<K> keys, final T param) {
+        final Map<K, V> retVal = super.loadAll(keys, param);
+
+        for (final Map.Entry<K, V> entry : retVal.entrySet()) {
+            if (getRefreshPolicy().isRefreshDue(entry.getKey(), entry.getValue())) {
+                refresh(entry.getKey(), param, entry.getValue());
+            }
+        }
+
+        return retVal;
+    }
+}
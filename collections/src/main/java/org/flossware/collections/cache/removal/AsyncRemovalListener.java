@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.removal;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Tells a listener of removals in the background so slow clean ups do not
+ * hold up callers. Removals are queued without locking and delivered in
+ * batches, one batch per task on our executor, in the order they were queued.
+ * At most one batch is in flight at a time.
+ *
+ * At most maxPending removals wait - once full, or once closed, removals are
+ * delivered on the caller's thread, ahead of any still waiting. Should our
+ * executor refuse a batch, the caller delivers every waiting removal instead.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class AsyncRemovalListener<K, V> extends AbstractCommonBase implements RemovalListener<K, V>, Closeable {
+
+    /**
+     * Default most removals delivered per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * Default most removals waiting to be delivered.
+     */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    /**
+     * The listener we tell.
+     */
+    private final RemovalListener<K, V> listener;
+
+    /**
+     * Delivers our batches.
+     */
+    private final Executor executor;
+
+    /**
+     * The most removals delivered per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The most removals waiting to be delivered.
+     */
+    private final int maxPending;
+
+    /**
+     * Removals not yet delivered.
+     */
+    private final Queue<RemovalNotification<K, V>> queue;
+
+    /**
+     * How many removals are in queue - counted as the queue cannot cheaply.
+     */
+    private final AtomicInteger pending;
+
+    /**
+     * Held while delivering, so batches are delivered one at a time and in
+     * order.
+     */
+    private final ReentrantLock delivering;
+
+    /**
+     * True while a batch is scheduled or being delivered.
+     */
+    private final AtomicBoolean draining;
+
+    /**
+     * Delivers one batch.
+     */
+    private final Runnable drainer;
+
+    /**
+     * Set once closed - removals are then delivered on the caller's thread.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Sets the listener to tell, the executor delivering batches, how big
+     * batches may be and how many removals may wait.
+     *
+     * @param listener   the listener to tell.
+     * @param executor   delivers batches.
+     * @param batchSize  the most removals delivered per batch.
+     * @param maxPending the most removals waiting to be delivered.
+     *
+     * @throws IllegalArgumentException if listener or executor is null,
+     *                                  batchSize is less than one or
+     *                                  maxPending is less than batchSize.
+     */
+    public AsyncRemovalListener(final RemovalListener<K, V> listener, final Executor executor, final int batchSize, final int maxPending) {
+        this.listener = IntegrityUtil.ensure(listener, "Must have a listener!");
+        this.executor = IntegrityUtil.ensure(executor, "Must have an executor!");
+        this.batchSize = IntegrityUtil.ensure(batchSize, 1, "Batch size must be positive!");
+        this.maxPending = IntegrityUtil.ensure(maxPending, batchSize, "Max pending must be at least the batch size!");
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+        this.delivering = new ReentrantLock();
+        this.draining = new AtomicBoolean();
+        this.drainer = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Sets the listener to tell, the executor delivering batches and how big
+     * batches may be - at most DEFAULT_MAX_PENDING removals may wait.
+     *
+     * @param listener  the listener to tell.
+     * @param executor  delivers batches.
+     * @param batchSize the most removals delivered per batch.
+     *
+     * @throws IllegalArgumentException if listener or executor is null or
+     *                                  batchSize is not between one and
+     *                                  DEFAULT_MAX_PENDING.
+     */
+    public AsyncRemovalListener(final RemovalListener<K, V> listener, final Executor executor, final int batchSize) {
+        this(listener, executor, batchSize, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * Sets the listener to tell and the executor delivering batches of at most
+     * DEFAULT_BATCH_SIZE.
+     *
+     * @param listener the listener to tell.
+     * @param executor delivers batches.
+     *
+     * @throws IllegalArgumentException if listener or executor is null.
+     */
+    public AsyncRemovalListener(final RemovalListener<K, V> listener, final Executor executor) {
+        this(listener, executor, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Sets the listener to tell - batches are delivered on virtual threads
+     * where available.
+     *
+     * @param listener the listener to tell.
+     *
+     * @throws IllegalArgumentException if listener is null.
+     */
+    public AsyncRemovalListener(final RemovalListener<K, V> listener) {
+        this(listener, CacheUtil.createDefaultExecutor("AsyncRemovalListener"));
+    }
+
+    /**
+     * Return the listener we tell.
+     *
+     * @return the listener.
+     */
+    protected RemovalListener<K, V> getListener() {
+        return listener;
+    }
+
+    /**
+     * Return what delivers our batches.
+     *
+     * @return the executor.
+     */
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Return the most removals delivered per batch.
+     *
+     * @return the batch size.
+     */
+    protected int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Return the most removals waiting to be delivered.
+     *
+     * @return the most removals waiting.
+     */
+    protected int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Return how many removals are waiting to be delivered.
+     *
+     * @return the number of removals waiting.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Schedule a batch unless one is already in flight. Should our executor
+     * refuse it, deliver everything waiting here.
+     */
+    void schedule() {
+        while (draining.compareAndSet(false, true)) {
+            try {
+                getExecutor().execute(drainer);
+
+                return;
+            } catch (final RejectedExecutionException rejectedExecutionException) {
+                getLogger().log(Level.WARNING, "Could not schedule removals - delivering [" + getPending() + "] here", rejectedExecutionException);
+
+                try {
+                    flush();
+                } finally {
+                    draining.set(false);
+                }
+            }
+
+            if (queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take up to a batch of removals from our queue.
+     */
+    List<RemovalNotification<K, V>> poll() {
+        final List<RemovalNotification<K, V>> retVal = new ArrayList<>();
+
+        for (RemovalNotification<K, V> notification = queue.poll(); null != notification; notification = queue.poll()) {
+            pending.decrementAndGet();
+            retVal.add(notification);
+
+            if (retVal.size() == getBatchSize()) {
+                break;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Tell our listener of notification - should it fail, the failure is
+     * logged.
+     */
+    void deliver(final RemovalNotification<K, V> notification) {
+        try {
+            getListener().onRemoval(notification);
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Listener failed for " + notification, runtimeException);
+        }
+    }
+
+    /**
+     * Deliver the next batch.
+     *
+     * @return true if there was one or false if nothing was waiting.
+     */
+    boolean deliverBatch() {
+        delivering.lock();
+        try {
+            final List<RemovalNotification<K, V>> batch = poll();
+
+            for (final RemovalNotification<K, V> notification : batch) {
+                deliver(notification);
+            }
+
+            return !batch.isEmpty();
+        } finally {
+            delivering.unlock();
+        }
+    }
+
+    /**
+     * Deliver a batch then, should more be waiting, schedule another.
+     */
+    void drain() {
+        try {
+            deliverBatch();
+        } finally {
+            draining.set(false);
+        }
+
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Deliver every removal waiting, on the calling thread.
+     */
+    public void flush() {
+        while (deliverBatch()) {
+            getLogger().log(Level.FINEST, "Delivered a batch - [{0}] waiting", getPending());
+        }
+    }
+
+    /**
+     * Deliver every removal waiting - later removals are delivered on the
+     * caller's thread. Our executor is not shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRemoval(final RemovalNotification<K, V> notification) {
+        IntegrityUtil.ensure(notification, "Must have a notification!");
+
+        if (closed || getPending() >= getMaxPending()) {
+            deliver(notification);
+
+            return;
+        }
+
+        pending.incrementAndGet();
+        queue.offer(notification);
+
+        schedule();
+    }
+}
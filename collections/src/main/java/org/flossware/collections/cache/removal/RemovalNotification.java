@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.removal;
+
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * An entry that left a cache and why.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class RemovalNotification<K, V> {
+
+    /**
+     * The entry's key.
+     */
+    private final K key;
+
+    /**
+     * The entry's value.
+     */
+    private final V value;
+
+    /**
+     * Why the entry left.
+     */
+    private final RemovalCause cause;
+
+    /**
+     * Sets the entry and why it left.
+     *
+     * @param key   the entry's key.
+     * @param value the entry's value.
+     * @param cause why the entry left.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    public RemovalNotification(final K key, final V value, final RemovalCause cause) {
+        this.key = IntegrityUtil.ensure(key, "Cannot have a null key!");
+        this.value = IntegrityUtil.ensure(value, "Must have a value!");
+        this.cause = IntegrityUtil.ensure(cause, "Must have a cause!");
+    }
+
+    /**
+     * Return the entry's key.
+     *
+     * @return the key.
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Return the entry's value.
+     *
+     * @return the value.
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Return why the entry left.
+     *
+     * @return the cause.
+     */
+    public RemovalCause getCause() {
+        return cause;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[" + key + "] -> [" + value + "] " + cause;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for caches that survive restarts.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public abstract class AbstractSnapshotCache<K, V> extends AbstractSnapshotParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets where we save our entries, how they are encoded, how long restored
+     * values may be used, the policy deciding which entries to keep and what
+     * records our statistics.
+     *
+     * @param file         where we save our entries.
+     * @param keyCodec     encodes our keys.
+     * @param valueCodec   encodes our values.
+     * @param maxAge       how long restored values may be used.
+     * @param unit         the unit of maxAge.
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null or maxAge is
+     *                                  less than one.
+     */
+    protected AbstractSnapshotCache(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final long maxAge, final TimeUnit unit, final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        super(file, keyCodec, valueCodec, maxAge, unit, policy, statsCounter);
+    }
+
+    /**
+     * Sets where we save our entries, how they are encoded, how long restored
+     * values may be used and the policy deciding which entries to keep.
+     *
+     * @param file       where we save our entries.
+     * @param keyCodec   encodes our keys.
+     * @param valueCodec encodes our values.
+     * @param maxAge     how long restored values may be used.
+     * @param unit       the unit of maxAge.
+     * @param policy     decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if any parameter is null or maxAge is
+     *                                  less than one.
+     */
+    protected AbstractSnapshotCache(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final long maxAge, final TimeUnit unit, final CachePolicy<K, V> policy) {
+        super(file, keyCodec, valueCodec, maxAge, unit, policy);
+    }
+
+    /**
+     * Based upon key, create a value.
+     *
+     * @param key the key to use when creating a value
+     *
+     * @return the value created
+     */
+    protected abstract V create(K key);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected V create(final K key, final K param) {
+        return create(key);
+    }
+
+    /**
+     * Based upon keys, create values. Override when values can be created in
+     * one round trip - by default each is created in turn.
+     *
+     * @param keys the keys to use when creating values.
+     *
+     * @return the values created.
+     */
+    protected Map<K, V> createAll(final Set<K> keys) {
+        return super.createAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> createAll(final Set<K> keys, final K param) {
+        return createAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        return loadAll(keys, null);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for caches that survive restarts. snapshot() saves our
+ * entries to a CacheSnapshot file and restore() reads it back. Restored
+ * entries are not put in our map up front: a miss takes its value from the
+ * snapshot before creating, so only what is asked for is ever decoded.
+ * Restored values older than our maximum age are ignored, revalidate() may
+ * reject any that are no longer good, and those used expire once their
+ * snapshot reaches our maximum age - whatever our policy.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public abstract class AbstractSnapshotParamCache<K, V, T> extends AbstractParamCache<K, V, T> implements SnapshotParamCache<K, V, T> {
+
+    /**
+     * Where we save our entries.
+     */
+    private final File file;
+
+    /**
+     * Encodes our keys.
+     */
+    private final Codec<K> keyCodec;
+
+    /**
+     * Encodes our values.
+     */
+    private final Codec<V> valueCodec;
+
+    /**
+     * How long, in milliseconds, restored values may be used.
+     */
+    private final long maxAge;
+
+    /**
+     * The restored entries not yet asked for - null if none.
+     */
+    private volatile CacheSnapshot<K, V> restored;
+
+    /**
+     * Expires restored values on behalf of our policy.
+     */
+    private final RestoredCachePolicy<K, V> restoredPolicy;
+
+    /**
+     * Sets where we save our entries, how they are encoded, how long restored
+     * values may be used, the policy expiring restored values and what records
+     * our statistics.
+     */
+    private AbstractSnapshotParamCache(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final long maxAge, final TimeUnit unit, final RestoredCachePolicy<K, V> restoredPolicy, final StatsCounter statsCounter) {
+        super(restoredPolicy, statsCounter);
+
+        IntegrityUtil.ensure(maxAge, 1, "Max age must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        this.file = IntegrityUtil.ensure(file, "Must have a file!");
+        this.keyCodec = IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+        this.valueCodec = IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+        this.maxAge = unit.toMillis(maxAge);
+        this.restoredPolicy = restoredPolicy;
+    }
+
+    /**
+     * Sets where we save our entries, how they are encoded, how long restored
+     * values may be used, the policy deciding which entries to keep and what
+     * records our statistics.
+     *
+     * @param file         where we save our entries.
+     * @param keyCodec     encodes our keys.
+     * @param valueCodec   encodes our values.
+     * @param maxAge       how long restored values may be used.
+     * @param unit         the unit of maxAge.
+     * @param policy       decides which entries to keep.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null or maxAge is
+     *                                  less than one.
+     */
+    protected AbstractSnapshotParamCache(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final long maxAge, final TimeUnit unit, final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        this(file, keyCodec, valueCodec, maxAge, unit, new RestoredCachePolicy<>(policy), statsCounter);
+    }
+
+    /**
+     * Sets where we save our entries, how they are encoded, how long restored
+     * values may be used and the policy deciding which entries to keep - no
+     * statistics are recorded.
+     *
+     * @param file       where we save our entries.
+     * @param keyCodec   encodes our keys.
+     * @param valueCodec encodes our values.
+     * @param maxAge     how long restored values may be used.
+     * @param unit       the unit of maxAge.
+     * @param policy     decides which entries to keep.
+     *
+     * @throws IllegalArgumentException if any parameter is null or maxAge is
+     *                                  less than one.
+     */
+    protected AbstractSnapshotParamCache(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final long maxAge, final TimeUnit unit, final CachePolicy<K, V> policy) {
+        this(file, keyCodec, valueCodec, maxAge, unit, policy, new NullStatsCounter());
+    }
+
+    /**
+     * Return where we save our entries.
+     *
+     * @return the file.
+     */
+    protected File getFile() {
+        return file;
+    }
+
+    /**
+     * Return what encodes our keys.
+     *
+     * @return the key codec.
+     */
+    protected Codec<K> getKeyCodec() {
+        return keyCodec;
+    }
+
+    /**
+     * Return what encodes our values.
+     *
+     * @return the value codec.
+     */
+    protected Codec<V> getValueCodec() {
+        return valueCodec;
+    }
+
+    /**
+     * Return how long, in milliseconds, restored values may be used.
+     *
+     * @return the maximum age.
+     */
+    protected long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Return true if snapshot is older than our maximum age.
+     */
+    boolean isExpired(final CacheSnapshot<K, V> snapshot) {
+        return System.currentTimeMillis() - snapshot.getCreated() > getMaxAge();
+    }
+
+    /**
+     * Decide if a restored value may still be used - by default all are.
+     * Override to check values against their source.
+     *
+     * @param key   the key.
+     * @param value the restored value.
+     *
+     * @return true if value may be used or false if it should be created anew.
+     */
+    protected boolean revalidate(final K key, final V value) {
+        return true;
+    }
+
+    /**
+     * Take the value for key from our restored entries - it expires once its
+     * snapshot reaches our maximum age.
+     *
+     * @param key the key whose value to find.
+     *
+     * @return the value or null if not restored, too old or no longer valid.
+     */
+    @Override
+    protected V lookup(final K key) {
+        final CacheSnapshot<K, V> snapshot = restored;
+        if (null == snapshot) {
+            return null;
+        }
+
+        if (isExpired(snapshot)) {
+            getLogger().log(Level.FINE, "Restored entries from [{0}] have expired", getFile());
+
+            restored = null;
+
+            return null;
+        }
+
+        try {
+            final V retVal = snapshot.remove(key);
+            if (null == retVal || !revalidate(key, retVal)) {
+                return null;
+            }
+
+            restoredPolicy.restored(key, retVal, snapshot.getCreated() + getMaxAge());
+
+            return retVal;
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Could not restore [" + key + "]", runtimeException);
+
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        final V retVal = super.put(key, value);
+        final CacheSnapshot<K, V> snapshot = restored;
+
+        if (retVal == value && null != snapshot) {
+            snapshot.discard(key);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        super.remove(key);
+
+        final CacheSnapshot<K, V> snapshot = restored;
+        if (null != snapshot) {
+            snapshot.discard(key);
+        }
+    }
+
+    /**
+     * Save the entries in our map. Restored entries not yet asked for are not
+     * saved - they keep the age of the snapshot they came from.
+     *
+     * @return the number of entries saved.
+     *
+     * @throws CacheException if our file cannot be written.
+     */
+    @Override
+    public int snapshot() {
+        final int retVal = CacheSnapshot.write(getFile(), getMap(), getKeyCodec(), getValueCodec());
+
+        getLogger().log(Level.FINE, "Saved [{0}] entries to [{1}]", new Object[]{retVal, getFile()});
+
+        return retVal;
+    }
+
+    /**
+     * Restore from our file. A missing, corrupt, other version or too old file
+     * restores nothing.
+     *
+     * @return the number of entries restored.
+     */
+    @Override
+    public int restore() {
+        restored = null;
+
+        if (!getFile().exists()) {
+            return 0;
+        }
+
+        final CacheSnapshot<K, V> snapshot;
+
+        try {
+            snapshot = new CacheSnapshot<>(getFile(), getKeyCodec(), getValueCodec());
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Could not restore from [" + getFile() + "]", runtimeException);
+
+            return 0;
+        }
+
+        if (isExpired(snapshot)) {
+            getLogger().log(Level.FINE, "Ignoring [{0}] - older than our maximum age", getFile());
+
+            return 0;
+        }
+
+        restored = snapshot;
+
+        return snapshot.size();
+    }
+}
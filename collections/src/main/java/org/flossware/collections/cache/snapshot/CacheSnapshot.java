@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A cache's entries saved to a file. The file holds a magic number, a version
+ * and when it was written, then each entry as a length prefixed encoded key
+ * and value, then a CRC32 of everything before it. Reading memory maps the
+ * file, verifies it and decodes only the keys - values are decoded as they are
+ * taken.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class CacheSnapshot<K, V> {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger logger = Logger.getLogger(CacheSnapshot.class.getName());
+
+    /**
+     * Identifies our files.
+     */
+    public static final int MAGIC = 0x464C5353;
+
+    /**
+     * The version of our file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes before the first entry: magic, version and when written.
+     */
+    static final int HEADER_SIZE = 4 + 4 + 8;
+
+    /**
+     * Bytes after the last entry: the checksum.
+     */
+    static final int TRAILER_SIZE = 8;
+
+    /**
+     * Size of the chunks used when computing the checksum.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Decodes our values.
+     */
+    private final Codec<V> valueCodec;
+
+    /**
+     * Holds the file's contents.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * When the file was written - milliseconds since the epoch.
+     */
+    private final long created;
+
+    /**
+     * Key to packed offset and length of its encoded value.
+     */
+    private final Map<K, Long> index;
+
+    /**
+     * Return our logger.
+     */
+    private static Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Write entries to file. The file is written beside and then moved over
+     * file, so readers never see part of one. Entries that cannot be encoded
+     * are skipped.
+     *
+     * @param <K>        the key.
+     * @param <V>        the type cached.
+     * @param file       the file to write.
+     * @param entries    the entries to write.
+     * @param keyCodec   encodes keys.
+     * @param valueCodec encodes values.
+     *
+     * @return the number of entries written.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     * @throws CacheException           if the file cannot be written.
+     */
+    public static <K, V> int write(final File file, final Map<K, V> entries, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+        IntegrityUtil.ensure(file, "Must have a file!");
+        IntegrityUtil.ensure(entries, 0, "Must have entries!");
+        IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+        IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+
+        final File toWrite = new File(file.getPath() + ".tmp");
+        int retVal = 0;
+
+        try {
+            try (final CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(toWrite)), new CRC32());
+                    final DataOutputStream output = new DataOutputStream(checked)) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(System.currentTimeMillis());
+
+                for (final Map.Entry<K, V> entry : entries.entrySet()) {
+                    final byte[] key;
+                    final byte[] value;
+
+                    try {
+                        key = keyCodec.encode(entry.getKey());
+                        value = valueCodec.encode(entry.getValue());
+                    } catch (final RuntimeException runtimeException) {
+                        getLogger().log(Level.FINE, "Skipping [" + entry.getKey() + "] - cannot encode", runtimeException);
+
+                        continue;
+                    }
+
+                    output.writeInt(key.length);
+                    output.write(key);
+                    output.writeInt(value.length);
+                    output.write(value);
+
+                    retVal++;
+                }
+
+                output.flush();
+                output.writeLong(checked.getChecksum().getValue());
+            }
+
+            Files.move(toWrite.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException ioException) {
+            throw new CacheException("Could not write snapshot [" + file + "]", ioException);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Memory map file.
+     */
+    static ByteBuffer map(final File file) {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        } catch (final IOException ioException) {
+            throw new CacheException("Could not read snapshot [" + file + "]", ioException);
+        }
+    }
+
+    /**
+     * Compute the CRC32 of buffer's first length bytes.
+     */
+    static long checksum(final ByteBuffer buffer, final int length) {
+        final CRC32 retVal = new CRC32();
+        final byte[] chunk = new byte[CHUNK_SIZE];
+
+        buffer.position(0);
+        for (int done = 0; done < length; done += chunk.length) {
+            final int count = Math.min(chunk.length, length - done);
+
+            buffer.get(chunk, 0, count);
+            retVal.update(chunk, 0, count);
+        }
+
+        return retVal.getValue();
+    }
+
+    /**
+     * Read and verify a snapshot written by write().
+     *
+     * @param file       the file to read.
+     * @param keyCodec   decodes keys.
+     * @param valueCodec decodes values.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     * @throws CacheException           if the file cannot be read, is not a
+     *                                  snapshot, is of another version or is
+     *                                  corrupt.
+     */
+    public CacheSnapshot(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+        IntegrityUtil.ensure(file, "Must have a file!");
+        IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+
+        this.valueCodec = IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+        this.buffer = map(file);
+        this.index = new HashMap<>();
+
+        final int length = buffer.capacity();
+        if (length < HEADER_SIZE + TRAILER_SIZE || MAGIC != buffer.getInt(0)) {
+            throw new CacheException("[" + file + "] is not a snapshot");
+        }
+
+        if (VERSION != buffer.getInt(4)) {
+            throw new CacheException("[" + file + "] is version [" + buffer.getInt(4) + "] - expected [" + VERSION + "]");
+        }
+
+        final int end = length - TRAILER_SIZE;
+        if (checksum(buffer, end) != buffer.getLong(end)) {
+            throw new CacheException("[" + file + "] is corrupt");
+        }
+
+        this.created = buffer.getLong(8);
+
+        try {
+            buffer.position(HEADER_SIZE);
+            while (buffer.position() < end) {
+                final byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+
+                final int valueLength = buffer.getInt();
+                index.put(keyCodec.decode(key), ((long) buffer.position() << 32) | valueLength);
+
+                buffer.position(buffer.position() + valueLength);
+            }
+        } catch (final RuntimeException runtimeException) {
+            throw new CacheException("[" + file + "] is corrupt", runtimeException);
+        }
+    }
+
+    /**
+     * Return when our file was written.
+     *
+     * @return milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Return how many entries are left to take.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Take the value for key - it is decoded now and never returned again.
+     *
+     * @param key the key.
+     *
+     * @return the value or null if none.
+     *
+     * @throws CacheException if the value cannot be decoded.
+     */
+    public V remove(final K key) {
+        final byte[] bytes;
+
+        synchronized (this) {
+            final Long slot = index.remove(key);
+            if (null == slot) {
+                return null;
+            }
+
+            bytes = new byte[(int) slot.longValue()];
+
+            buffer.position((int) (slot >>> 32));
+            buffer.get(bytes);
+        }
+
+        return valueCodec.decode(bytes);
+    }
+
+    /**
+     * Forget the value for key.
+     *
+     * @param key the key.
+     *
+     * @return true if forgotten or false if none.
+     */
+    public synchronized boolean discard(final K key) {
+        return null != index.remove(key);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Saves caches periodically and when the JVM shuts down. One snapshotter may
+ * be shared by any number of caches.
+ *
+ * @author Scot P. Floess
+ */
+public class CacheSnapshotter extends AbstractCommonBase {
+
+    /**
+     * Runs our snapshots.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Return a scheduler using a single daemon thread.
+     */
+    static ScheduledExecutorService createScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread retVal = new Thread(runnable, "CacheSnapshotter");
+                retVal.setDaemon(true);
+
+                return retVal;
+            }
+        });
+    }
+
+    /**
+     * Sets the scheduler to use.
+     *
+     * @param scheduler runs our snapshots.
+     *
+     * @throws IllegalArgumentException if scheduler is null.
+     */
+    public CacheSnapshotter(final ScheduledExecutorService scheduler) {
+        this.scheduler = IntegrityUtil.ensure(scheduler, "Must have a scheduler!");
+    }
+
+    /**
+     * Default constructor - uses a single daemon thread.
+     */
+    public CacheSnapshotter() {
+        this(createScheduler());
+    }
+
+    /**
+     * Return our scheduler.
+     *
+     * @return the scheduler.
+     */
+    protected ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Return a task saving cache, logging any failure.
+     */
+    Runnable createTask(final SnapshotParamCache<?, ?, ?> cache) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    cache.snapshot();
+                } catch (final RuntimeException runtimeException) {
+                    getLogger().log(Level.WARNING, "Could not snapshot cache", runtimeException);
+                }
+            }
+        };
+    }
+
+    /**
+     * Save cache every period.
+     *
+     * @param cache  the cache to save.
+     * @param period time between snapshots.
+     * @param unit   the unit of period.
+     *
+     * @return can be used to stop saving.
+     *
+     * @throws IllegalArgumentException if cache or unit is null or period is
+     *                                  less than one.
+     */
+    public ScheduledFuture<?> schedule(final SnapshotParamCache<?, ?, ?> cache, final long period, final TimeUnit unit) {
+        IntegrityUtil.ensure(cache, "Must have a cache!");
+        IntegrityUtil.ensure(period, 1, "Period must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+
+        return getScheduler().scheduleWithFixedDelay(createTask(cache), period, period, unit);
+    }
+
+    /**
+     * Save cache when the JVM shuts down.
+     *
+     * @param cache the cache to save.
+     *
+     * @return the hook - can be removed from the runtime to stop saving.
+     *
+     * @throws IllegalArgumentException if cache is null.
+     */
+    public Thread addShutdownHook(final SnapshotParamCache<?, ?, ?> cache) {
+        IntegrityUtil.ensure(cache, "Must have a cache!");
+
+        final Thread retVal = new Thread(createTask(cache), "CacheSnapshotter-shutdown");
+        Runtime.getRuntime().addShutdownHook(retVal);
+
+        return retVal;
+    }
+}
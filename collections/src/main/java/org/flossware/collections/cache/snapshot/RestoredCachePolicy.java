@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.flossware.collections.cache.policy.AbstractCachePolicy;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.Evictor;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Expires restored values once their snapshot reaches its maximum age, and
+ * otherwise defers to the policy it wraps. Values created or put anew are left
+ * entirely to that policy.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+final class RestoredCachePolicy<K, V> extends AbstractCachePolicy<K, V> {
+
+    /**
+     * A restored value and when it expires.
+     */
+    static final class Restored<V> {
+
+        final V value;
+        final long deadline;
+
+        Restored(final V value, final long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Return true if this is value and has expired by now.
+         */
+        boolean isExpired(final Object value, final long now) {
+            return this.value == value && now > deadline;
+        }
+    }
+
+    /**
+     * The policy we defer to.
+     */
+    private final CachePolicy<K, V> policy;
+
+    /**
+     * The restored values we hold and when they expire.
+     */
+    private final ConcurrentMap<K, Restored<V>> restored;
+
+    /**
+     * Sets the policy we defer to.
+     *
+     * @param policy the policy we defer to.
+     *
+     * @throws IllegalArgumentException if policy is null.
+     */
+    RestoredCachePolicy(final CachePolicy<K, V> policy) {
+        this.policy = IntegrityUtil.ensure(policy, "Must have a policy!");
+        this.restored = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Note that value, about to be cached for key, was restored and expires at
+     * deadline - milliseconds since the epoch.
+     */
+    void restored(final K key, final V value, final long deadline) {
+        restored.put(key, new Restored<>(value, deadline));
+    }
+
+    /**
+     * Forget key should it still be restored as value.
+     */
+    void forget(final K key, final V value) {
+        final Restored<V> entry = restored.get(key);
+
+        if (null != entry && entry.value == value) {
+            restored.remove(key, entry);
+        }
+    }
+
+    /**
+     * Return an evictor that, on behalf of the policy we defer to, also forgets
+     * what it discards.
+     */
+    Evictor<K, V> createEvictor(final Evictor<K, V> evictor) {
+        return new Evictor<K, V>() {
+            @Override
+            public boolean evict(final K key, final V value) {
+                if (!evictor.evict(key, value)) {
+                    return false;
+                }
+
+                forget(key, value);
+
+                return true;
+            }
+
+            @Override
+            public boolean expire(final K key, final V value) {
+                if (!evictor.expire(key, value)) {
+                    return false;
+                }
+
+                forget(key, value);
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean recordRead(final K key, final V value, final Evictor<K, V> evictor) {
+        final Restored<V> entry = restored.get(key);
+
+        if (null != entry && entry.isExpired(value, System.currentTimeMillis())) {
+            restored.remove(key, entry);
+            policy.recordRemoval(key, value);
+
+            return false;
+        }
+
+        return policy.recordRead(key, value, createEvictor(evictor));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordWrite(final K key, final V value, final Evictor<K, V> evictor) {
+        final Restored<V> entry = restored.get(key);
+
+        if (null != entry && entry.value != value) {
+            restored.remove(key, entry);
+        }
+
+        policy.recordWrite(key, value, createEvictor(evictor));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRemoval(final K key, final V value) {
+        forget(key, value);
+
+        policy.recordRemoval(key, value);
+    }
+
+    /**
+     * Expire restored values past their deadline, then let the policy we defer
+     * to clean up.
+     *
+     * @param evictor used to discard expired entries.
+     */
+    @Override
+    public void cleanUp(final Evictor<K, V> evictor) {
+        final long now = System.currentTimeMillis();
+
+        for (final Map.Entry<K, Restored<V>> entry : restored.entrySet()) {
+            final Restored<V> value = entry.getValue();
+
+            if (value.isExpired(value.value, now) && restored.remove(entry.getKey(), value) && evictor.expire(entry.getKey(), value.value)) {
+                policy.recordRemoval(entry.getKey(), value.value);
+            }
+        }
+
+        policy.cleanUp(createEvictor(evictor));
+    }
+}
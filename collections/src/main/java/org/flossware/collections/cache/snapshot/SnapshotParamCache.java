@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import org.flossware.collections.cache.ParamCache;
+
+/**
+ * API for caches that can save their entries to a file and restore them after
+ * a restart.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public interface SnapshotParamCache<K, V, T> extends ParamCache<K, V, T> {
+
+    /**
+     * Save our entries to our file.
+     *
+     * @return the number of entries saved.
+     */
+    int snapshot();
+
+    /**
+     * Restore entries from our file - they are served as they are asked for.
+     *
+     * @return the number of entries restored.
+     */
+    int restore();
+}
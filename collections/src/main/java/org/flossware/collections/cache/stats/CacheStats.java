@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+/**
+ * An immutable snapshot of cache statistics.
+ *
+ * @author Scot P. Floess
+ */
+public class CacheStats {
+
+    /**
+     * Number of reads that found a value.
+     */
+    private final long hitCount;
+
+    /**
+     * Number of reads that had to load a value.
+     */
+    private final long missCount;
+
+    /**
+     * Number of values successfully created.
+     */
+    private final long loadSuccessCount;
+
+    /**
+     * Number of creates that failed.
+     */
+    private final long loadFailureCount;
+
+    /**
+     * Nanoseconds spent creating values.
+     */
+    private final long totalLoadTime;
+
+    /**
+     * Number of entries discarded by a cache policy.
+     */
+    private final long evictionCount;
+
+    /**
+     * Return numerator / denominator or defaultValue if denominator is zero.
+     */
+    static double ratio(final long numerator, final long denominator, final double defaultValue) {
+        return (0 == denominator ? defaultValue : (double) numerator / denominator);
+    }
+
+    /**
+     * Sets all statistics.
+     *
+     * @param hitCount         number of reads that found a value.
+     * @param missCount        number of reads that had to load a value.
+     * @param loadSuccessCount number of values successfully created.
+     * @param loadFailureCount number of creates that failed.
+     * @param totalLoadTime    nanoseconds spent creating values.
+     * @param evictionCount    number of entries discarded by a cache policy.
+     */
+    public CacheStats(final long hitCount, final long missCount, final long loadSuccessCount, final long loadFailureCount, final long totalLoadTime, final long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * Default constructor - all statistics are zero.
+     */
+    public CacheStats() {
+        this(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Return the number of reads that found a value.
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Return the number of reads that had to load a value.
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Return the number of reads.
+     *
+     * @return hits plus misses.
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Return the ratio of reads that found a value - one if there were no
+     * reads.
+     *
+     * @return the hit rate.
+     */
+    public double getHitRate() {
+        return ratio(hitCount, getRequestCount(), 1.0);
+    }
+
+    /**
+     * Return the ratio of reads that had to load a value - zero if there were
+     * no reads.
+     *
+     * @return the miss rate.
+     */
+    public double getMissRate() {
+        return ratio(missCount, getRequestCount(), 0.0);
+    }
+
+    /**
+     * Return the number of values successfully created.
+     *
+     * @return the load success count.
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * Return the number of creates that failed.
+     *
+     * @return the load failure count.
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Return the number of creates.
+     *
+     * @return successful plus failed loads.
+     */
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Return the nanoseconds spent creating values.
+     *
+     * @return the total load time.
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Return the average nanoseconds spent per create - zero if there were
+     * none.
+     *
+     * @return the average load penalty.
+     */
+    public double getAverageLoadPenalty() {
+        return ratio(totalLoadTime, getLoadCount(), 0.0);
+    }
+
+    /**
+     * Return the number of entries discarded by a cache policy.
+     *
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Return the statistics gathered since other was taken.
+     *
+     * @param other an earlier snapshot.
+     *
+     * @return the difference - never negative.
+     */
+    public CacheStats minus(final CacheStats other) {
+        return new CacheStats(
+                Math.max(0, hitCount - other.hitCount),
+                Math.max(0, missCount - other.missCount),
+                Math.max(0, loadSuccessCount - other.loadSuccessCount),
+                Math.max(0, loadFailureCount - other.loadFailureCount),
+                Math.max(0, totalLoadTime - other.totalLoadTime),
+                Math.max(0, evictionCount - other.evictionCount));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "CacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount + ", totalLoadTime=" + totalLoadTime + ", evictionCount=" + evictionCount + "]";
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+/**
+ * JMX view of a cache's statistics.
+ *
+ * @author Scot P. Floess
+ */
+public interface CacheStatsMXBean {
+
+    /**
+     * Return the number of reads that found a value.
+     *
+     * @return the hit count.
+     */
+    long getHitCount();
+
+    /**
+     * Return the number of reads that had to load a value.
+     *
+     * @return the miss count.
+     */
+    long getMissCount();
+
+    /**
+     * Return the number of reads.
+     *
+     * @return the request count.
+     */
+    long getRequestCount();
+
+    /**
+     * Return the ratio of reads that found a value.
+     *
+     * @return the hit rate.
+     */
+    double getHitRate();
+
+    /**
+     * Return the number of values successfully created.
+     *
+     * @return the load success count.
+     */
+    long getLoadSuccessCount();
+
+    /**
+     * Return the number of creates that failed.
+     *
+     * @return the load failure count.
+     */
+    long getLoadFailureCount();
+
+    /**
+     * Return the nanoseconds spent creating values.
+     *
+     * @return the total load time.
+     */
+    long getTotalLoadTime();
+
+    /**
+     * Return the average nanoseconds spent per create.
+     *
+     * @return the average load penalty.
+     */
+    double getAverageLoadPenalty();
+
+    /**
+     * Return the number of entries discarded by a cache policy.
+     *
+     * @return the eviction count.
+     */
+    long getEvictionCount();
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+/**
+ * Records statistics using striped counters so that recording from many
+ * threads does not contend.
+ *
+ * @author Scot P. Floess
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+    /**
+     * Number of reads that found a value.
+     */
+    private final StripedCounter hitCount;
+
+    /**
+     * Number of reads that had to load a value.
+     */
+    private final StripedCounter missCount;
+
+    /**
+     * Number of values successfully created.
+     */
+    private final StripedCounter loadSuccessCount;
+
+    /**
+     * Number of creates that failed.
+     */
+    private final StripedCounter loadFailureCount;
+
+    /**
+     * Nanoseconds spent creating values.
+     */
+    private final StripedCounter totalLoadTime;
+
+    /**
+     * Number of entries discarded by a cache policy.
+     */
+    private final StripedCounter evictionCount;
+
+    /**
+     * Default constructor.
+     */
+    public ConcurrentStatsCounter() {
+        this.hitCount = new StripedCounter();
+        this.missCount = new StripedCounter();
+        this.loadSuccessCount = new StripedCounter();
+        this.loadFailureCount = new StripedCounter();
+        this.totalLoadTime = new StripedCounter();
+        this.evictionCount = new StripedCounter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordHits(final int count) {
+        hitCount.add(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordMisses(final int count) {
+        missCount.add(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadSuccess(final long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadFailure(final long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(), evictionCount.sum());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Exposes the statistics of a named cache over JMX. Every attribute read takes
+ * a fresh snapshot from the cache.
+ *
+ * @author Scot P. Floess
+ */
+public class DefaultCacheStatsMXBean extends AbstractCommonBase implements CacheStatsMXBean {
+
+    /**
+     * The domain of our object names.
+     */
+    public static final String DOMAIN = "org.flossware.collections.cache";
+
+    /**
+     * The cache whose statistics we expose.
+     */
+    private final ParamCache<?, ?, ?> cache;
+
+    /**
+     * Our JMX name.
+     */
+    private final ObjectName objectName;
+
+    /**
+     * Return the JMX name for a cache called name.
+     *
+     * @param name the name of the cache.
+     *
+     * @return the JMX name.
+     *
+     * @throws CacheException if name makes for an invalid JMX name.
+     */
+    public static ObjectName createObjectName(final String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=CacheStats,name=" + ObjectName.quote(IntegrityUtil.ensure(name, "Must have a name!")));
+        } catch (final JMException jmException) {
+            throw new CacheException("Invalid cache name [" + name + "]", jmException);
+        }
+    }
+
+    /**
+     * Sets the name and cache whose statistics we expose.
+     *
+     * @param name  the name of the cache.
+     * @param cache the cache.
+     *
+     * @throws IllegalArgumentException if name or cache is null.
+     */
+    public DefaultCacheStatsMXBean(final String name, final ParamCache<?, ?, ?> cache) {
+        this.cache = IntegrityUtil.ensure(cache, "Must have a cache!");
+        this.objectName = createObjectName(name);
+    }
+
+    /**
+     * Return the snapshot to use for an attribute.
+     *
+     * @return the current statistics.
+     */
+    protected CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Return our JMX name.
+     *
+     * @return the JMX name.
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Register self with the platform MBean server.
+     *
+     * @return self.
+     *
+     * @throws CacheException if registration fails - for example the name is
+     *                        already registered.
+     */
+    public DefaultCacheStatsMXBean register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, getObjectName());
+        } catch (final JMException jmException) {
+            throw new CacheException("Could not register [" + getObjectName() + "]", jmException);
+        }
+
+        return this;
+    }
+
+    /**
+     * Unregister self from the platform MBean server if registered.
+     */
+    public void unregister() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            if (mBeanServer.isRegistered(getObjectName())) {
+                mBeanServer.unregisterMBean(getObjectName());
+            }
+        } catch (final JMException jmException) {
+            throw new CacheException("Could not unregister [" + getObjectName() + "]", jmException);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getHitCount() {
+        return getStats().getHitCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMissCount() {
+        return getStats().getMissCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRequestCount() {
+        return getStats().getRequestCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getHitRate() {
+        return getStats().getHitRate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLoadSuccessCount() {
+        return getStats().getLoadSuccessCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLoadFailureCount() {
+        return getStats().getLoadFailureCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTotalLoadTime() {
+        return getStats().getTotalLoadTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getAverageLoadPenalty() {
+        return getStats().getAverageLoadPenalty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEvictionCount() {
+        return getStats().getEvictionCount();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+/**
+ * Records nothing - all statistics stay zero.
+ *
+ * @author Scot P. Floess
+ */
+public class NullStatsCounter implements StatsCounter {
+
+    /**
+     * Returned for every snapshot.
+     */
+    static final CacheStats EMPTY_STATS = new CacheStats();
+
+    /**
+     * Default constructor.
+     */
+    public NullStatsCounter() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordHits(final int count) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordMisses(final int count) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadSuccess(final long loadTime) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoadFailure(final long loadTime) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordEviction() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats snapshot() {
+        return EMPTY_STATS;
+    }
+}
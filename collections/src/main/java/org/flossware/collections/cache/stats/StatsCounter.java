@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+/**
+ * Records cache statistics.
+ *
+ * @author Scot P. Floess
+ */
+public interface StatsCounter {
+
+    /**
+     * Reads found a value.
+     *
+     * @param count the number of reads.
+     */
+    void recordHits(int count);
+
+    /**
+     * Reads had to load a value.
+     *
+     * @param count the number of reads.
+     */
+    void recordMisses(int count);
+
+    /**
+     * A value was created.
+     *
+     * @param loadTime nanoseconds spent creating.
+     */
+    void recordLoadSuccess(long loadTime);
+
+    /**
+     * A create failed.
+     *
+     * @param loadTime nanoseconds spent before failing.
+     */
+    void recordLoadFailure(long loadTime);
+
+    /**
+     * A cache policy discarded an entry.
+     */
+    void recordEviction();
+
+    /**
+     * Return a snapshot of the statistics recorded.
+     *
+     * @return the statistics.
+     */
+    CacheStats snapshot();
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter spread over several cells so concurrent threads rarely update the
+ * same cache line. Each thread adds to the cell picked by its id and reading
+ * the counter sums every cell.
+ *
+ * @author Scot P. Floess
+ */
+public class StripedCounter {
+
+    /**
+     * Longs between cells - 128 bytes keeps cells on separate cache lines even
+     * with adjacent line prefetching.
+     */
+    static final int PADDING = 16;
+
+    /**
+     * Our cells - only every PADDING'th long is used.
+     */
+    private final AtomicLongArray cells;
+
+    /**
+     * Used to turn a thread's id into a cell.
+     */
+    private final int mask;
+
+    /**
+     * Return the index of the current thread's cell.
+     */
+    int index() {
+        long hash = Thread.currentThread().getId() * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 32;
+
+        return ((int) hash & mask) * PADDING;
+    }
+
+    /**
+     * Default constructor - uses a cell per processor.
+     */
+    public StripedCounter() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int stripes = Integer.highestOneBit(Math.max(1, processors - 1)) << 1;
+
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * Add to the counter.
+     *
+     * @param value the amount to add.
+     */
+    public void add(final long value) {
+        cells.getAndAdd(index(), value);
+    }
+
+    /**
+     * Add one to the counter.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Return the sum of all cells. Not an atomic snapshot if updates are
+     * concurrent.
+     *
+     * @return the current value.
+     */
+    public long sum() {
+        long retVal = 0;
+
+        for (int index = 0; index < cells.length(); index += PADDING) {
+            retVal += cells.get(index);
+        }
+
+        return retVal;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.flossware.collections.cache.Cache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.removal.RemovalListener;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for two tier caches.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public abstract class AbstractTieredCache<K, V> extends AbstractTieredParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets our second tier, the policy bounding our first tier, what records
+     * our statistics and what is told when entries leave our first tier.
+     *
+     * @param store           the second tier.
+     * @param policy          decides which entries stay in the first tier.
+     * @param statsCounter    records our statistics.
+     * @param removalListener told when entries leave our first tier.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractTieredCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy, final StatsCounter statsCounter, final RemovalListener<K, V> removalListener) {
+        super(store, policy, statsCounter, removalListener);
+    }
+
+    /**
+     * Sets our second tier, the policy bounding our first tier and what
+     * records our statistics.
+     *
+     * @param store        the second tier.
+     * @param policy       decides which entries stay in the first tier.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractTieredCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        super(store, policy, statsCounter);
+    }
+
+    /**
+     * Sets our second tier and the policy bounding our first tier.
+     *
+     * @param store  the second tier.
+     * @param policy decides which entries stay in the first tier.
+     *
+     * @throws IllegalArgumentException if store or policy is null.
+     */
+    protected AbstractTieredCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy) {
+        super(store, policy);
+    }
+
+    /**
+     * Based upon key, create a value.
+     *
+     * @param key the key to use when creating a value
+     *
+     * @return the value created
+     */
+    protected abstract V create(K key);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected V create(final K key, final K param) {
+        return create(key);
+    }
+
+    /**
+     * Based upon keys, create values. Override when values can be created in
+     * one round trip - by default each is created in turn.
+     *
+     * @param keys the keys to use when creating values.
+     *
+     * @return the values created.
+     */
+    protected Map<K, V> createAll(final Set<K> keys) {
+        return super.createAll(keys, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<K, V> createAll(final Set<K> keys, final K param) {
+        return createAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return get(key, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        IntegrityUtil.ensure(keys, 0, "Must have keys!");
+
+        return loadAll(keys, null);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.util.logging.Level;
+import org.flossware.collections.cache.AbstractParamCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.negative.NullNegativeCache;
+import org.flossware.collections.cache.removal.NullRemovalListener;
+import org.flossware.collections.cache.removal.RemovalCause;
+import org.flossware.collections.cache.removal.RemovalListener;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.flossware.collections.cache.stats.StatsCounter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for two tier caches. Our map is the hot first tier:
+ * entries our policy evicts are not destroyed but encoded into an
+ * OffHeapStore, the cold second tier. A miss checks the second tier before
+ * creating and, when found there, moves the entry back into our map. Use a
+ * policy bounding the first tier - for example a TinyLfuCachePolicy - or
+ * nothing ever reaches the second tier.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public abstract class AbstractTieredParamCache<K, V, T> extends AbstractParamCache<K, V, T> {
+
+    /**
+     * Our second tier.
+     */
+    private final OffHeapStore<K, V> store;
+
+    /**
+     * Sets our second tier, the policy bounding our first tier, what records
+     * our statistics and what is told when entries leave our first tier.
+     *
+     * @param store           the second tier.
+     * @param policy          decides which entries stay in the first tier.
+     * @param statsCounter    records our statistics.
+     * @param removalListener told when entries leave our first tier.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractTieredParamCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy, final StatsCounter statsCounter, final RemovalListener<K, V> removalListener) {
+        super(policy, statsCounter, new NullNegativeCache<K>(), removalListener);
+
+        this.store = IntegrityUtil.ensure(store, "Must have a store!");
+    }
+
+    /**
+     * Sets our second tier, the policy bounding our first tier and what
+     * records our statistics - nothing is told when entries leave.
+     *
+     * @param store        the second tier.
+     * @param policy       decides which entries stay in the first tier.
+     * @param statsCounter records our statistics.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     */
+    protected AbstractTieredParamCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy, final StatsCounter statsCounter) {
+        this(store, policy, statsCounter, new NullRemovalListener<K, V>());
+    }
+
+    /**
+     * Sets our second tier and the policy bounding our first tier - no
+     * statistics are recorded.
+     *
+     * @param store  the second tier.
+     * @param policy decides which entries stay in the first tier.
+     *
+     * @throws IllegalArgumentException if store or policy is null.
+     */
+    protected AbstractTieredParamCache(final OffHeapStore<K, V> store, final CachePolicy<K, V> policy) {
+        this(store, policy, new NullStatsCounter());
+    }
+
+    /**
+     * Return our second tier.
+     *
+     * @return the second tier.
+     */
+    protected OffHeapStore<K, V> getStore() {
+        return store;
+    }
+
+    /**
+     * Move an evicted entry to our second tier. It is written there before
+     * leaving our first tier, so a concurrent get finds it in one or the other;
+     * should key meanwhile be remapped, the copy is discarded. Should it not
+     * encode or be too large to store, it is destroyed instead. Either way our
+     * removal listener is told it was EVICTED from the heap. Entries our
+     * second tier drops to make room are counted as evictions.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    @Override
+    protected boolean evict(final K key, final V value) {
+        getLogger().log(Level.FINE, "Requested to evict [{0}] to our second tier", key);
+
+        int dropped = 0;
+        boolean isStored = true;
+
+        try {
+            dropped = getStore().put(key, value);
+
+            if (OffHeapStore.NOT_STORED == dropped) {
+                dropped = 0;
+                isStored = false;
+            }
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Could not move [" + key + "] to our second tier", runtimeException);
+
+            isStored = false;
+        }
+
+        for (int count = 0; count < dropped; count++) {
+            getStatsCounter().recordEviction();
+        }
+
+        if (!getMap().remove(key, value)) {
+            if (isStored) {
+                getStore().discard(key);
+            }
+
+            return false;
+        }
+
+        if (!isStored) {
+            getStatsCounter().recordEviction();
+            destroy(key, value);
+        }
+
+        notifyRemoval(key, value, RemovalCause.EVICTED);
+
+        return true;
+    }
+
+    /**
+     * Expire key from our first tier and discard any copy in our second tier.
+     *
+     * @param key   the key to discard.
+     * @param value the value key should be mapped to.
+     *
+     * @return true if discarded or false if key no longer mapped to value.
+     */
+    @Override
+    protected boolean expire(final K key, final V value) {
+        if (!super.expire(key, value)) {
+            return false;
+        }
+
+        getStore().discard(key);
+
+        return true;
+    }
+
+    /**
+     * Move the entry for key from our second tier back to our first tier.
+     *
+     * @param key the key whose value to find.
+     *
+     * @return the value or null if not in our second tier.
+     */
+    @Override
+    protected V lookup(final K key) {
+        try {
+            return getStore().remove(key);
+        } catch (final RuntimeException runtimeException) {
+            getLogger().log(Level.WARNING, "Could not read [" + key + "] from our second tier", runtimeException);
+
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final K key, final V value) {
+        final V retVal = super.put(key, value);
+
+        if (retVal == value) {
+            getStore().discard(key);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(final K key) {
+        super.remove(key);
+
+        getStore().discard(key);
+    }
+}
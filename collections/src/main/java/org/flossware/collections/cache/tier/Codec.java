@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+/**
+ * Turns values into bytes and back so they can be kept outside the heap.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type to encode.
+ */
+public interface Codec<V> {
+
+    /**
+     * Encode value.
+     *
+     * @param value the value to encode.
+     *
+     * @return the encoded value.
+     */
+    byte[] encode(V value);
+
+    /**
+     * Decode a value encoded by encode().
+     *
+     * @param bytes the encoded value.
+     *
+     * @return the decoded value.
+     */
+    V decode(byte[] bytes);
+}
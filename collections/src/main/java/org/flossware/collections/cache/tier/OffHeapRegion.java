@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A log of encoded values in one buffer - direct or memory mapped. Values are
+ * appended, leaving their previous copy behind as garbage. When the end of the
+ * buffer is reached, live values are slid down over the garbage; should that
+ * not free a quarter of the buffer, the oldest values are dropped first so
+ * compaction stays rare. The index lives on the heap but, being an open
+ * addressing table of keys and packed offset/lengths, costs only a reference
+ * and a long per value beyond the key itself.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+final class OffHeapRegion<K> extends AbstractCommonBase {
+
+    /**
+     * Compaction leaves at least 1/FREE_FRACTION of the buffer free.
+     */
+    static final int FREE_FRACTION = 4;
+
+    /**
+     * Returned by put() for values too large to store.
+     */
+    static final int NOT_STORED = OffHeapStore.NOT_STORED;
+
+    /**
+     * Size of the chunks used when sliding values down.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The initial size of our index.
+     */
+    static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Holds the encoded values.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Guards everything.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Our index's keys - null where empty.
+     */
+    private Object[] keys;
+
+    /**
+     * Our index's packed offset and length for each key.
+     */
+    private long[] slots;
+
+    /**
+     * How many keys are indexed.
+     */
+    private int size;
+
+    /**
+     * Where the next value is appended.
+     */
+    private int position;
+
+    /**
+     * Bytes held by values still indexed.
+     */
+    private long liveBytes;
+
+    /**
+     * Sets the buffer to hold encoded values.
+     *
+     * @param buffer holds encoded values.
+     *
+     * @throws IllegalArgumentException if buffer is null.
+     */
+    OffHeapRegion(final ByteBuffer buffer) {
+        this.buffer = IntegrityUtil.ensure(buffer, "Must have a buffer!");
+        this.lock = new ReentrantLock();
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.slots = new long[INITIAL_CAPACITY];
+    }
+
+    static long slot(final int offset, final int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    static int offset(final long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    static int length(final long slot) {
+        return (int) slot;
+    }
+
+    /**
+     * Where key would ideally sit in our index.
+     */
+    int home(final Object key) {
+        final int hash = key.hashCode() * 0x9E3779B9;
+
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Return where key sits in our index or -1 if not indexed.
+     */
+    int indexOf(final Object key) {
+        for (int index = home(key);; index = (index + 1) & (keys.length - 1)) {
+            if (null == keys[index]) {
+                return -1;
+            }
+
+            if (keys[index].equals(key)) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Index a key known not to be indexed.
+     */
+    void insert(final Object key, final long slot) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize();
+        }
+
+        int index = home(key);
+        while (null != keys[index]) {
+            index = (index + 1) & (keys.length - 1);
+        }
+
+        keys[index] = key;
+        slots[index] = slot;
+        size++;
+    }
+
+    /**
+     * Double the size of our index.
+     */
+    void resize() {
+        final Object[] oldKeys = keys;
+        final long[] oldSlots = slots;
+
+        keys = new Object[oldKeys.length * 2];
+        slots = new long[oldKeys.length * 2];
+        size = 0;
+
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (null != oldKeys[index]) {
+                insert(oldKeys[index], oldSlots[index]);
+            }
+        }
+    }
+
+    /**
+     * Remove the key at index from our index, shifting back keys that probed
+     * past it so no tombstones are needed.
+     */
+    void delete(final int index) {
+        liveBytes -= length(slots[index]);
+        size--;
+
+        int hole = index;
+        keys[hole] = null;
+
+        for (int next = (hole + 1) & (keys.length - 1); null != keys[next]; next = (next + 1) & (keys.length - 1)) {
+            final int home = home(keys[next]);
+
+            if (((next - home) & (keys.length - 1)) >= ((next - hole) & (keys.length - 1))) {
+                keys[hole] = keys[next];
+                slots[hole] = slots[next];
+                keys[next] = null;
+                hole = next;
+            }
+        }
+    }
+
+    /**
+     * Copy the bytes a slot refers to.
+     */
+    byte[] read(final long slot) {
+        final byte[] retVal = new byte[length(slot)];
+
+        buffer.position(offset(slot));
+        buffer.get(retVal);
+
+        return retVal;
+    }
+
+    /**
+     * Drop the oldest values until no more than maxLive bytes are live, then
+     * slide the rest down over the garbage.
+     *
+     * @param maxLive the most bytes to keep.
+     *
+     * @return how many values were dropped.
+     */
+    int compact(final long maxLive) {
+        getLogger().log(Level.FINE, "Compacting [{0}] live bytes out of [{1}]", new Object[] {liveBytes, position});
+
+        final long[] byOffset = new long[size];
+        int count = 0;
+
+        for (int index = 0; index < keys.length; index++) {
+            if (null != keys[index]) {
+                byOffset[count++] = ((long) offset(slots[index]) << 32) | index;
+            }
+        }
+
+        Arrays.sort(byOffset);
+
+        final List<Object> dropped = new ArrayList<>();
+        long kept = liveBytes;
+        int first = 0;
+
+        while (kept > maxLive) {
+            final int index = (int) byOffset[first++];
+
+            kept -= length(slots[index]);
+            dropped.add(keys[index]);
+        }
+
+        final byte[] chunk = new byte[Math.min(CHUNK_SIZE, buffer.capacity())];
+        int writePosition = 0;
+
+        for (int entry = first; entry < byOffset.length; entry++) {
+            final int index = (int) byOffset[entry];
+            final int offset = offset(slots[index]);
+            final int length = length(slots[index]);
+
+            if (offset != writePosition) {
+                for (int done = 0; done < length; done += chunk.length) {
+                    final int toCopy = Math.min(chunk.length, length - done);
+
+                    buffer.position(offset + done);
+                    buffer.get(chunk, 0, toCopy);
+                    buffer.position(writePosition + done);
+                    buffer.put(chunk, 0, toCopy);
+                }
+
+                slots[index] = slot(writePosition, length);
+            }
+
+            writePosition += length;
+        }
+
+        for (final Object key : dropped) {
+            delete(indexOf(key));
+        }
+
+        position = writePosition;
+
+        return dropped.size();
+    }
+
+    /**
+     * Store bytes for key, replacing any already stored. Should bytes be too
+     * large to store, any value already stored is still removed.
+     *
+     * @param key   the key.
+     * @param bytes the encoded value.
+     *
+     * @return how many other values were dropped to make room, or NOT_STORED
+     *         if bytes are too large to store.
+     */
+    int put(final K key, final byte[] bytes) {
+        lock.lock();
+
+        try {
+            final int existing = indexOf(key);
+            if (-1 != existing) {
+                delete(existing);
+            }
+
+            if (bytes.length > buffer.capacity() / FREE_FRACTION) {
+                getLogger().log(Level.FINE, "Value for [{0}] is too large to store", key);
+
+                return NOT_STORED;
+            }
+
+            int retVal = 0;
+
+            if (position + bytes.length > buffer.capacity()) {
+                retVal = compact(buffer.capacity() - buffer.capacity() / FREE_FRACTION - bytes.length);
+            }
+
+            buffer.position(position);
+            buffer.put(bytes);
+
+            insert(key, slot(position, bytes.length));
+            position += bytes.length;
+            liveBytes += bytes.length;
+
+            return retVal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the bytes stored for key.
+     *
+     * @param key the key.
+     *
+     * @return the encoded value or null if none.
+     */
+    byte[] get(final K key) {
+        lock.lock();
+
+        try {
+            final int index = indexOf(key);
+
+            return -1 == index ? null : read(slots[index]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove and return the bytes stored for key.
+     *
+     * @param key the key.
+     *
+     * @return the encoded value or null if none.
+     */
+    byte[] remove(final K key) {
+        lock.lock();
+
+        try {
+            final int index = indexOf(key);
+            if (-1 == index) {
+                return null;
+            }
+
+            final byte[] retVal = read(slots[index]);
+            delete(index);
+
+            return retVal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the bytes stored for key.
+     *
+     * @param key the key.
+     *
+     * @return true if removed or false if none.
+     */
+    boolean discard(final K key) {
+        lock.lock();
+
+        try {
+            final int index = indexOf(key);
+            if (-1 == index) {
+                return false;
+            }
+
+            delete(index);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove everything.
+     */
+    void clear() {
+        lock.lock();
+
+        try {
+            keys = new Object[INITIAL_CAPACITY];
+            slots = new long[INITIAL_CAPACITY];
+            size = 0;
+            position = 0;
+            liveBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return how many values are stored.
+     *
+     * @return the number of values.
+     */
+    int size() {
+        lock.lock();
+
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the bytes held by values stored.
+     *
+     * @return the live bytes.
+     */
+    long getLiveBytes() {
+        lock.lock();
+
+        try {
+            return liveBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
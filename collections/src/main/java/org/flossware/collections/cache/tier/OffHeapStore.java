@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Keeps encoded values outside the heap - in direct buffers or memory mapped
+ * files. A buffer holds at most 2GB, so capacity is split evenly across
+ * regions, each with its own lock, index and compaction. Keys are spread over
+ * regions by hash.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to store.
+ */
+public class OffHeapStore<K, V> extends AbstractCommonBase {
+
+    /**
+     * The most a region may hold.
+     */
+    public static final int MAX_REGION_SIZE = 1 << 30;
+
+    /**
+     * Returned by put() for values too large to store.
+     */
+    public static final int NOT_STORED = -1;
+
+    /**
+     * Encodes and decodes our values.
+     */
+    private final Codec<V> codec;
+
+    /**
+     * Holds our values.
+     */
+    private final List<OffHeapRegion<K>> regions;
+
+    /**
+     * Map a file, creating it if need be.
+     *
+     * @param file     the file to map.
+     * @param capacity the bytes to map.
+     *
+     * @return the mapped buffer.
+     *
+     * @throws CacheException if the file cannot be mapped.
+     */
+    static ByteBuffer mapFile(final File file, final int capacity) {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (final IOException ioException) {
+            throw new CacheException("Could not map [" + file + "]", ioException);
+        }
+    }
+
+    /**
+     * Sets the codec and the buffers holding values - one region per buffer.
+     *
+     * @param codec   encodes and decodes values.
+     * @param buffers hold encoded values.
+     *
+     * @throws IllegalArgumentException if codec is null or there are no
+     *                                  buffers.
+     */
+    public OffHeapStore(final Codec<V> codec, final List<ByteBuffer> buffers) {
+        this.codec = IntegrityUtil.ensure(codec, "Must have a codec!");
+        this.regions = new ArrayList<>();
+
+        for (final ByteBuffer buffer : IntegrityUtil.ensure(buffers, "Must have buffers!")) {
+            regions.add(new OffHeapRegion<K>(buffer));
+        }
+    }
+
+    /**
+     * Sets the codec and how many bytes of direct memory hold values.
+     *
+     * @param codec    encodes and decodes values.
+     * @param capacity the bytes of direct memory to use.
+     *
+     * @throws IllegalArgumentException if codec is null or capacity is not
+     *                                  positive.
+     */
+    public OffHeapStore(final Codec<V> codec, final long capacity) {
+        this(codec, allocate(IntegrityUtil.ensure(capacity, 1, "Must have a capacity!")));
+    }
+
+    /**
+     * Sets the codec and how many bytes of memory mapped files hold values.
+     * One file per region is created in directory.
+     *
+     * @param codec     encodes and decodes values.
+     * @param directory where the files are created.
+     * @param capacity  the bytes to map.
+     *
+     * @throws IllegalArgumentException if codec or directory is null or
+     *                                  capacity is not positive.
+     * @throws CacheException           if a file cannot be mapped.
+     */
+    public OffHeapStore(final Codec<V> codec, final File directory, final long capacity) {
+        this(codec, map(IntegrityUtil.ensure(directory, "Must have a directory!"), IntegrityUtil.ensure(capacity, 1, "Must have a capacity!")));
+    }
+
+    /**
+     * Return the size of each region so capacity is split evenly - keys are.
+     *
+     * @param capacity the total bytes to hold.
+     *
+     * @return the size of each region.
+     */
+    static int getRegionSize(final long capacity) {
+        final long regions = (capacity + MAX_REGION_SIZE - 1) / MAX_REGION_SIZE;
+
+        return (int) ((capacity + regions - 1) / regions);
+    }
+
+    /**
+     * Allocate direct buffers totalling capacity.
+     */
+    static List<ByteBuffer> allocate(final long capacity) {
+        final List<ByteBuffer> retVal = new ArrayList<>();
+        final int regionSize = getRegionSize(capacity);
+
+        for (long remaining = capacity; remaining > 0; remaining -= regionSize) {
+            retVal.add(ByteBuffer.allocateDirect(regionSize));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Map files in directory totalling capacity.
+     */
+    static List<ByteBuffer> map(final File directory, final long capacity) {
+        final List<ByteBuffer> retVal = new ArrayList<>();
+        final int regionSize = getRegionSize(capacity);
+
+        long remaining = capacity;
+        for (int region = 0; remaining > 0; region++, remaining -= regionSize) {
+            retVal.add(mapFile(new File(directory, "region-" + region + ".dat"), regionSize));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the codec encoding and decoding our values.
+     *
+     * @return the codec.
+     */
+    protected Codec<V> getCodec() {
+        return codec;
+    }
+
+    /**
+     * Return the region holding key.
+     *
+     * @param key the key.
+     *
+     * @return the region for key.
+     */
+    OffHeapRegion<K> getRegion(final K key) {
+        return regions.get((key.hashCode() & Integer.MAX_VALUE) % regions.size());
+    }
+
+    /**
+     * Store value for key, replacing any already stored. Values too large for
+     * a region are not stored - but still replace any already stored.
+     *
+     * @param key   the key.
+     * @param value the value to store.
+     *
+     * @return how many other values were dropped to make room, or NOT_STORED
+     *         if value is too large to store.
+     *
+     * @throws IllegalArgumentException if key or value is null.
+     */
+    public int put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        return getRegion(key).put(key, getCodec().encode(IntegrityUtil.ensure(value, "Must have a value to store!")));
+    }
+
+    /**
+     * Return the value stored for key.
+     *
+     * @param key the key.
+     *
+     * @return a decoded copy of the value or null if none.
+     */
+    public V get(final K key) {
+        final byte[] bytes = getRegion(IntegrityUtil.ensure(key, "Cannot have a null key!")).get(key);
+
+        return null == bytes ? null : getCodec().decode(bytes);
+    }
+
+    /**
+     * Remove and return the value stored for key.
+     *
+     * @param key the key.
+     *
+     * @return a decoded copy of the value or null if none.
+     */
+    public V remove(final K key) {
+        final byte[] bytes = getRegion(IntegrityUtil.ensure(key, "Cannot have a null key!")).remove(key);
+
+        return null == bytes ? null : getCodec().decode(bytes);
+    }
+
+    /**
+     * Remove the value stored for key without decoding it.
+     *
+     * @param key the key.
+     *
+     * @return true if removed or false if none.
+     */
+    public boolean discard(final K key) {
+        return getRegion(IntegrityUtil.ensure(key, "Cannot have a null key!")).discard(key);
+    }
+
+    /**
+     * Remove everything.
+     */
+    public void clear() {
+        for (final OffHeapRegion<K> region : regions) {
+            region.clear();
+        }
+    }
+
+    /**
+     * Return how many values are stored.
+     *
+     * @return the number of values.
+     */
+    public long size() {
+        long retVal = 0;
+
+        for (final OffHeapRegion<K> region : regions) {
+            retVal += region.size();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the bytes held by values stored.
+     *
+     * @return the live bytes.
+     */
+    public long getLiveBytes() {
+        long retVal = 0;
+
+        for (final OffHeapRegion<K> region : regions) {
+            retVal += region.getLiveBytes();
+        }
+
+        return retVal;
+    }
+}
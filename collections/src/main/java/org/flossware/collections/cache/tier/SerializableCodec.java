@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Encodes values using Java serialization. Simple but neither compact nor
+ * fast - supply a dedicated codec for large tiers.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type to encode.
+ */
+public class SerializableCodec<V> implements Codec<V> {
+
+    /**
+     * Default constructor.
+     */
+    public SerializableCodec() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encode(final V value) {
+        IntegrityUtil.ensure(value, "Must have a value to encode!");
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        } catch (final IOException ioException) {
+            throw new CacheException("Could not encode [" + value + "]", ioException);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V decode(final byte[] bytes) {
+        IntegrityUtil.ensure(bytes, "Must have bytes to decode!");
+
+        try (final ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (V) input.readObject();
+        } catch (final IOException | ClassNotFoundException exception) {
+            throw new CacheException("Could not decode value", exception);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.common.AbstractCommonBase;
+
+/**
+ * Abstract base class for writers. Override writeAll() and deleteAll() when
+ * the store can take many changes in one round trip - by default each is
+ * made in turn.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public abstract class AbstractCacheWriter<K, V> extends AbstractCommonBase implements CacheWriter<K, V> {
+
+    /**
+     * Default constructor.
+     */
+    protected AbstractCacheWriter() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeAll(final Map<K, V> values) {
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll(final Collection<K> keys) {
+        for (final K key : keys) {
+            delete(key);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes cache changes to a backing store.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public interface CacheWriter<K, V> {
+
+    /**
+     * Write value for key.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    void write(K key, V value);
+
+    /**
+     * Write many values at once - in one round trip where the store supports
+     * it.
+     *
+     * @param values the keys and values to write.
+     */
+    void writeAll(Map<K, V> values);
+
+    /**
+     * Delete key.
+     *
+     * @param key the key.
+     */
+    void delete(K key);
+
+    /**
+     * Delete many keys at once - in one round trip where the store supports
+     * it.
+     *
+     * @param keys the keys to delete.
+     */
+    void deleteAll(Collection<K> keys);
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Writes changes to another writer in the background. Changes are held as
+ * dirty entries, one per key - a later change to a key still waiting replaces
+ * the earlier one, so repeated updates reach the store once. A single
+ * background thread hands them over in batches of at most a batch size once
+ * that many are waiting or the eldest has waited a maximum delay. Callers
+ * block while the maximum pending are waiting. close() writes everything still
+ * waiting before returning - changes not yet written are lost if it is never
+ * called. Should the other writer fail a batch, its changes are waited on again
+ * - unless since replaced by a later change - and retried after a delay that
+ * doubles with each consecutive failure. A change failing the maximum attempts
+ * is logged and dropped.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type cached.
+ */
+public class WriteBehindCacheWriter<K, V> extends AbstractCacheWriter<K, V> implements Closeable {
+
+    /**
+     * Default most changes written per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Default most changes waiting before callers block.
+     */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    /**
+     * Default longest, in milliseconds, a change waits.
+     */
+    public static final long DEFAULT_MAX_DELAY = 1000;
+
+    /**
+     * Default most times a change is attempted.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /**
+     * Default milliseconds waited after a failed batch.
+     */
+    public static final long DEFAULT_RETRY_DELAY = 100;
+
+    /**
+     * Consecutive failures beyond which the retry delay stops doubling.
+     */
+    static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * A change waiting to be written.
+     *
+     * @param <V> the type cached.
+     */
+    static final class Pending<V> {
+
+        /**
+         * When first dirtied - changes to a waiting key keep its place.
+         */
+        final long dirtied;
+
+        /**
+         * The value to write or null to delete.
+         */
+        V value;
+
+        /**
+         * How many times writing it failed.
+         */
+        int failures;
+
+        Pending(final V value, final long dirtied) {
+            this.value = value;
+            this.dirtied = dirtied;
+        }
+    }
+
+    /**
+     * The writer we write to.
+     */
+    private final CacheWriter<K, V> writer;
+
+    /**
+     * The most changes written per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The most changes waiting before callers block.
+     */
+    private final int maxPending;
+
+    /**
+     * The longest, in nanoseconds, a change waits.
+     */
+    private final long maxDelay;
+
+    /**
+     * The most times a change is attempted.
+     */
+    private final int maxAttempts;
+
+    /**
+     * The nanoseconds waited after a failed batch - doubled for each
+     * consecutive failure.
+     */
+    private final long retryDelay;
+
+    /**
+     * Changes waiting by key, eldest first.
+     */
+    private final Map<K, Pending<V>> dirty;
+
+    /**
+     * Guards our state.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signalled when there is something for our thread to do.
+     */
+    private final Condition changed;
+
+    /**
+     * Signalled when changes are taken, so blocked callers may continue.
+     */
+    private final Condition notFull;
+
+    /**
+     * Signalled when nothing is waiting or being written.
+     */
+    private final Condition idle;
+
+    /**
+     * Writes our batches.
+     */
+    private final Thread flusher;
+
+    /**
+     * True once closed.
+     */
+    private boolean closed;
+
+    /**
+     * Set once the flusher stops - nothing more can be written.
+     */
+    private boolean stopped;
+
+    /**
+     * True when asked to write everything now.
+     */
+    private boolean flushRequested;
+
+    /**
+     * True while a batch is being written.
+     */
+    private boolean writing;
+
+    /**
+     * How many batches in a row failed.
+     */
+    private int failures;
+
+    /**
+     * When, in nanoseconds, the next batch may be written after a failure.
+     */
+    private long retryAt;
+
+    /**
+     * Sets the writer to write to, how changes are batched and how failed
+     * batches are retried.
+     *
+     * @param writer      the writer to write to.
+     * @param batchSize   the most changes written per batch.
+     * @param maxPending  the most changes waiting before callers block.
+     * @param maxDelay    the longest a change waits.
+     * @param unit        the unit of maxDelay.
+     * @param maxAttempts the most times a change is attempted.
+     * @param retryDelay  how long to wait after a failed batch - doubled for
+     *                    each consecutive failure.
+     * @param retryUnit   the unit of retryDelay.
+     *
+     * @throws IllegalArgumentException if writer, unit or retryUnit is null,
+     *                                  batchSize, maxDelay, maxAttempts or
+     *                                  retryDelay is less than one or
+     *                                  maxPending is less than batchSize.
+     */
+    public WriteBehindCacheWriter(final CacheWriter<K, V> writer, final int batchSize, final int maxPending, final long maxDelay, final TimeUnit unit, final int maxAttempts, final long retryDelay, final TimeUnit retryUnit) {
+        IntegrityUtil.ensure(maxDelay, 1, "Max delay must be positive!");
+        IntegrityUtil.ensure(unit, "Must have a time unit!");
+        IntegrityUtil.ensure(retryDelay, 1, "Retry delay must be positive!");
+        IntegrityUtil.ensure(retryUnit, "Must have a retry time unit!");
+
+        this.writer = IntegrityUtil.ensure(writer, "Must have a writer!");
+        this.batchSize = IntegrityUtil.ensure(batchSize, 1, "Batch size must be positive!");
+        this.maxPending = IntegrityUtil.ensure(maxPending, batchSize, "Max pending must be at least the batch size!");
+        this.maxDelay = unit.toNanos(maxDelay);
+        this.maxAttempts = IntegrityUtil.ensure(maxAttempts, 1, "Max attempts must be positive!");
+        this.retryDelay = retryUnit.toNanos(retryDelay);
+        this.dirty = new LinkedHashMap<>();
+        this.lock = new ReentrantLock();
+        this.changed = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.idle = lock.newCondition();
+        this.flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushBehind();
+            }
+        }, "WriteBehindCacheWriter");
+
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Sets the writer to write to and how changes are batched - failed batches
+     * are retried using our defaults.
+     *
+     * @param writer     the writer to write to.
+     * @param batchSize  the most changes written per batch.
+     * @param maxPending the most changes waiting before callers block.
+     * @param maxDelay   the longest a change waits.
+     * @param unit       the unit of maxDelay.
+     *
+     * @throws IllegalArgumentException if writer or unit is null, batchSize or
+     *                                  maxDelay is less than one or maxPending
+     *                                  is less than batchSize.
+     */
+    public WriteBehindCacheWriter(final CacheWriter<K, V> writer, final int batchSize, final int maxPending, final long maxDelay, final TimeUnit unit) {
+        this(writer, batchSize, maxPending, maxDelay, unit, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the writer to write to - changes are batched using our defaults.
+     *
+     * @param writer the writer to write to.
+     *
+     * @throws IllegalArgumentException if writer is null.
+     */
+    public WriteBehindCacheWriter(final CacheWriter<K, V> writer) {
+        this(writer, DEFAULT_BATCH_SIZE, DEFAULT_MAX_PENDING, DEFAULT_MAX_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the writer we write to.
+     *
+     * @return the writer.
+     */
+    protected CacheWriter<K, V> getWriter() {
+        return writer;
+    }
+
+    /**
+     * Return how many changes are waiting.
+     *
+     * @return the number of changes waiting.
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return dirty.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait on condition, raising an interrupt as a CacheException.
+     */
+    static void await(final Condition condition) {
+        try {
+            condition.await();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            throw new CacheException("Interrupted while waiting to write", interruptedException);
+        }
+    }
+
+    /**
+     * Hold a change for key - value is null to delete. Blocks while the
+     * maximum pending are waiting, unless key is one of them.
+     */
+    void enqueue(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Writer is closed!");
+                }
+
+                if (stopped) {
+                    throw new IllegalStateException("Flusher has stopped!");
+                }
+
+                final Pending<V> pending = dirty.get(key);
+                if (null != pending) {
+                    pending.value = value;
+
+                    return;
+                }
+
+                if (dirty.size() < maxPending) {
+                    break;
+                }
+
+                await(notFull);
+            }
+
+            dirty.put(key, new Pending<>(value, System.nanoTime()));
+
+            if (1 == dirty.size() || batchSize == dirty.size()) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the nanoseconds until the eldest change must be written.
+     */
+    long getRemainingDelay() {
+        return dirty.values().iterator().next().dirtied + maxDelay - System.nanoTime();
+    }
+
+    /**
+     * Take up to a batch of the eldest changes.
+     */
+    Map<K, Pending<V>> take() {
+        final Map<K, Pending<V>> retVal = new LinkedHashMap<>();
+
+        for (final Iterator<Map.Entry<K, Pending<V>>> iter = dirty.entrySet().iterator(); iter.hasNext() && retVal.size() < batchSize;) {
+            final Map.Entry<K, Pending<V>> entry = iter.next();
+
+            retVal.put(entry.getKey(), entry.getValue());
+            iter.remove();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Wait until a batch is due and take it.
+     *
+     * @return the batch or null once closed and nothing is left.
+     */
+    Map<K, Pending<V>> awaitBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            writing = false;
+
+            while (true) {
+                if (dirty.isEmpty()) {
+                    flushRequested = false;
+                    idle.signalAll();
+
+                    if (closed) {
+                        return null;
+                    }
+
+                    changed.await();
+
+                    continue;
+                }
+
+                final long backoff = retryAt - System.nanoTime();
+                if (failures > 0 && backoff > 0) {
+                    changed.awaitNanos(backoff);
+
+                    continue;
+                }
+
+                final long remaining = getRemainingDelay();
+                if (closed || flushRequested || dirty.size() >= batchSize || remaining <= 0) {
+                    break;
+                }
+
+                changed.awaitNanos(remaining);
+            }
+
+            writing = true;
+            notFull.signalAll();
+
+            return take();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait on the changes of a failed batch again, ahead of those dirtied
+     * since, and back off. Changes since replaced by a later change are
+     * dropped, as are those that failed the maximum attempts.
+     */
+    void retry(final Map<K, Pending<V>> batch) {
+        lock.lock();
+        try {
+            final Map<K, Pending<V>> newer = new LinkedHashMap<>(dirty);
+            dirty.clear();
+
+            for (final Map.Entry<K, Pending<V>> entry : batch.entrySet()) {
+                final Pending<V> pending = entry.getValue();
+
+                if (newer.containsKey(entry.getKey())) {
+                    continue;
+                }
+
+                if (++pending.failures >= maxAttempts) {
+                    getLogger().log(Level.WARNING, "Dropping change to [{0}] after [{1}] attempts", new Object[]{entry.getKey(), pending.failures});
+
+                    continue;
+                }
+
+                dirty.put(entry.getKey(), pending);
+            }
+
+            dirty.putAll(newer);
+
+            retryAt = System.nanoTime() + (retryDelay << Math.min(failures, MAX_BACKOFF_SHIFT));
+            failures++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write a batch - should it fail in any way, its changes are retried so
+     * the flusher keeps running.
+     */
+    void write(final Map<K, Pending<V>> batch) {
+        final Map<K, V> values = new LinkedHashMap<>();
+        final List<K> deletes = new ArrayList<>();
+
+        for (final Map.Entry<K, Pending<V>> entry : batch.entrySet()) {
+            if (null == entry.getValue().value) {
+                deletes.add(entry.getKey());
+            } else {
+                values.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+
+        try {
+            if (!values.isEmpty()) {
+                getWriter().writeAll(values);
+            }
+
+            if (!deletes.isEmpty()) {
+                getWriter().deleteAll(deletes);
+            }
+
+            failures = 0;
+        } catch (final Throwable throwable) {
+            getLogger().log(Level.WARNING, "Could not write [" + batch.size() + "] changes - will retry", throwable);
+
+            retry(batch);
+        }
+    }
+
+    /**
+     * Write batches as they come due until closed.
+     */
+    void flushBehind() {
+        try {
+            while (true) {
+                final Map<K, Pending<V>> batch;
+
+                try {
+                    batch = awaitBatch();
+                } catch (final InterruptedException interruptedException) {
+                    getLogger().log(Level.FINE, "Interrupted - continuing until closed", interruptedException);
+
+                    continue;
+                }
+
+                if (null == batch) {
+                    return;
+                }
+
+                write(batch);
+            }
+        } finally {
+            lock.lock();
+            try {
+                stopped = true;
+                notFull.signalAll();
+                idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final K key, final V value) {
+        enqueue(key, IntegrityUtil.ensure(value, "Must have a value!"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(final K key) {
+        enqueue(key, null);
+    }
+
+    /**
+     * Write everything waiting now, returning once written.
+     *
+     * @throws CacheException if interrupted while waiting.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            flushRequested = true;
+            changed.signal();
+
+            while ((!dirty.isEmpty() || writing) && !stopped) {
+                await(idle);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write everything waiting and stop - returns once written. Later changes
+     * are refused.
+     *
+     * @throws CacheException if interrupted while waiting.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            throw new CacheException("Interrupted while closing", interruptedException);
+        }
+    }
+}
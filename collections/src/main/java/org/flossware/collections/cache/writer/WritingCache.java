@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.Cache;
+
+/**
+ * Writes changes made through a cache to a backing store.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ */
+public class WritingCache<K, V> extends WritingParamCache<K, V, K> implements Cache<K, V> {
+
+    /**
+     * Sets the cache to write for and what writes its changes.
+     *
+     * @param cache  the cache to write for.
+     * @param writer writes changes.
+     *
+     * @throws IllegalArgumentException if cache or writer is null.
+     */
+    public WritingCache(final Cache<K, V> cache, final CacheWriter<K, V> writer) {
+        super(cache, writer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Cache<K, V> getCache() {
+        return (Cache<K, V>) super.getCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key) {
+        return getCache().get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys) {
+        return getCache().getAll(keys);
+    }
+}
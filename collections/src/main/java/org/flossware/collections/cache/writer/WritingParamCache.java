@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.util.Collection;
+import java.util.Map;
+import org.flossware.collections.cache.ParamCache;
+import org.flossware.collections.cache.stats.CacheStats;
+import org.flossware.common.AbstractCommonBase;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Writes changes made through a cache to a backing store. Values put are
+ * written once cached and removed keys are deleted - values the cache creates
+ * on a miss were read from the store so are not written back. Use a
+ * WriteBehindCacheWriter to write in the background.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the type to cache.
+ * @param <T> the type(s) to use to create the value if not cached.
+ */
+public class WritingParamCache<K, V, T> extends AbstractCommonBase implements ParamCache<K, V, T> {
+
+    /**
+     * The cache we write for.
+     */
+    private final ParamCache<K, V, T> cache;
+
+    /**
+     * Writes our changes.
+     */
+    private final CacheWriter<K, V> writer;
+
+    /**
+     * Sets the cache to write for and what writes its changes.
+     *
+     * @param cache  the cache to write for.
+     * @param writer writes changes.
+     *
+     * @throws IllegalArgumentException if cache or writer is null.
+     */
+    public WritingParamCache(final ParamCache<K, V, T> cache, final CacheWriter<K, V> writer) {
+        this.cache = IntegrityUtil.ensure(cache, "Must have a cache!");
+        this.writer = IntegrityUtil.ensure(writer, "Must have a writer!");
+    }
+
+    /**
+     * Return the cache we write for.
+     *
+     * @return the cache.
+     */
+    protected ParamCache<K, V, T> getCache() {
+        return cache;
+    }
+
+    /**
+     * Return what writes our changes.
+     *
+     * @return the writer.
+     */
+    protected CacheWriter<K, V> getWriter() {
+        return writer;
+    }
+
+    /**
+     * Put the value in cache if not there, writing it if now cached.
+     *
+     * @param key   the key for the value.
+     * @param value the actual value.
+     *
+     * @return the value currently cached, or <code>value</code> as it is now
+     *         cached.
+     */
+    @Override
+    public V put(final K key, final V value) {
+        final V retVal = getCache().put(key, value);
+
+        if (retVal == value) {
+            getWriter().write(key, value);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final K key, final T parameter) {
+        return getCache().get(key, parameter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<K, V> values) {
+        IntegrityUtil.ensure(values, 0, "Must have values to add!");
+
+        for (final Map.Entry<K, V> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<K> keys, final T parameter) {
+        return getCache().getAll(keys, parameter);
+    }
+
+    /**
+     * Remove the key from the cache and delete it.
+     *
+     * @param key the thing to remove.
+     */
+    @Override
+    public void remove(final K key) {
+        getCache().remove(key);
+        getWriter().delete(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cleanUp() {
+        getCache().cleanUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStats stats() {
+        return getCache().stats();
+    }
+}
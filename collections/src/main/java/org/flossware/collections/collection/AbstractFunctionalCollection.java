@@ -18,6 +18,7 @@ package org.flossware.collections.collection;
 
 import java.util.Collection;
 import java.util.Iterator;
+import org.flossware.collections.collection.pipeline.Pipeline;
 import org.flossware.common.AbstractCommonBase;
 
 /**
@@ -70,6 +71,14 @@ public abstract class AbstractFunctionalCollection<V> extends AbstractCommonBase
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pipeline<V> pipeline() {
+        return Pipeline.of(this);
+    }
+
     /**
      * {@inheritDoc}
      */
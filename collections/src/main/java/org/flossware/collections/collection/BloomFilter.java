@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A scalable Bloom filter - a chain of fixed size filters, each twice the
+ * capacity and half the false positive rate of the last, so the chain's rate
+ * stays under the one asked for however many values are put. Values are
+ * hashed with hashCode(), so equal values always hit the same bits.
+ *
+ * @author Scot P. Floess
+ */
+final class BloomFilter {
+
+    /**
+     * Each filter holds this many times the values of the last.
+     */
+    static final int GROWTH = 2;
+
+    /**
+     * Each filter has this times the false positive rate of the last.
+     */
+    static final double TIGHTENING = 0.5;
+
+    /**
+     * One fixed size filter.
+     */
+    static final class Filter {
+
+        /**
+         * Our bits.
+         */
+        final long[] bits;
+
+        /**
+         * How many bits we have.
+         */
+        final long bitCount;
+
+        /**
+         * Bits set per value.
+         */
+        final int hashCount;
+
+        /**
+         * How many values we are sized for.
+         */
+        final long capacity;
+
+        /**
+         * How many values set a bit.
+         */
+        long count;
+
+        /**
+         * Sizes the filter for capacity values at falsePositiveRate.
+         */
+        Filter(final long capacity, final double falsePositiveRate) {
+            final double ln2 = Math.log(2);
+            final long wanted = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+
+            this.bits = new long[(int) Math.max(1, Math.min(Integer.MAX_VALUE, (wanted + 63) >>> 6))];
+            this.bitCount = 64L * bits.length;
+            this.hashCount = (int) Math.max(1, Math.round(-Math.log(falsePositiveRate) / ln2));
+            this.capacity = capacity;
+        }
+
+        /**
+         * Set the bits of a value - return true if any was clear.
+         */
+        boolean put(final long hash1, final long hash2) {
+            boolean retVal = false;
+            for (int hash = 0; hash < hashCount; hash++) {
+                final long bit = ((hash1 + hash * hash2) & Long.MAX_VALUE) % bitCount;
+                final long mask = 1L << bit;
+                final int word = (int) (bit >>> 6);
+
+                if (0 == (bits[word] & mask)) {
+                    bits[word] |= mask;
+                    retVal = true;
+                }
+            }
+
+            return retVal;
+        }
+
+        /**
+         * Return true if every bit of a value is set.
+         */
+        boolean mightContain(final long hash1, final long hash2) {
+            for (int hash = 0; hash < hashCount; hash++) {
+                final long bit = ((hash1 + hash * hash2) & Long.MAX_VALUE) % bitCount;
+
+                if (0 == (bits[(int) (bit >>> 6)] & (1L << bit))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Return the false positive rate expected for what we hold.
+         */
+        double falsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * count / bitCount), hashCount);
+        }
+    }
+
+    /**
+     * The false positive rate of our first filter.
+     */
+    private final double firstRate;
+
+    /**
+     * Our filters - values are put in the last.
+     */
+    private final List<Filter> filters;
+
+    /**
+     * Sizes the first filter for expectedSize values - the chain as a whole
+     * stays under falsePositiveRate.
+     */
+    BloomFilter(final long expectedSize, final double falsePositiveRate) {
+        this.firstRate = falsePositiveRate * (1 - TIGHTENING);
+        this.filters = new ArrayList<>();
+        this.filters.add(new Filter(Math.max(1, expectedSize), firstRate));
+    }
+
+    /**
+     * Return the first hash of value.
+     */
+    static long hash1(final Object value) {
+        return mix(null == value ? 0 : value.hashCode());
+    }
+
+    /**
+     * Return the second hash of value given its first - always odd.
+     */
+    static long hash2(final long hash1) {
+        return mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    /**
+     * Spread the bits of hash - the 64 bit finalizer of MurmurHash3.
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Add value.
+     */
+    void put(final Object value) {
+        Filter filter = filters.get(filters.size() - 1);
+        if (filter.count >= filter.capacity) {
+            filter = new Filter(filter.capacity * GROWTH, firstRate * Math.pow(TIGHTENING, filters.size()));
+            filters.add(filter);
+        }
+
+        final long hash1 = hash1(value);
+
+        if (filter.put(hash1, hash2(hash1))) {
+            filter.count++;
+        }
+    }
+
+    /**
+     * Return false if value was never put, true if it may have been.
+     */
+    boolean mightContain(final Object value) {
+        final long hash1 = hash1(value);
+        final long hash2 = hash2(hash1);
+
+        for (int index = filters.size() - 1; index >= 0; index--) {
+            if (filters.get(index).mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the false positive rate expected for what we hold.
+     */
+    double falsePositiveRate() {
+        double retVal = 1;
+        for (final Filter filter : filters) {
+            retVal *= 1 - filter.falsePositiveRate();
+        }
+
+        return 1 - retVal;
+    }
+
+    /**
+     * Return how many bits we use.
+     */
+    long bitCount() {
+        long retVal = 0;
+        for (final Filter filter : filters) {
+            retVal += filter.bitCount;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return how many filters we chain.
+     */
+    int filterCount() {
+        return filters.size();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.Collection;
+import java.util.Iterator;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional collection that keeps a Bloom filter of the values in the
+ * collection it decorates. contains answers misses for values never added from
+ * the filter alone, so large lists and other collections with slow lookups are
+ * only searched for values that may be present. The filter grows as values are
+ * added and, as removed values linger in it, is rebuilt the next time it is
+ * consulted once they number half the collection. stats() reports how well the
+ * filter is doing and what it costs.
+ *
+ * The filter hashes with hashCode(), so values must not change their hash
+ * while held. Not thread safe, unless wrapped.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value found in a collection.
+ */
+public class BloomFilterFunctionalCollection<V> extends AbstractFunctionalCollection<V> {
+
+    /**
+     * The number of values our filter is sized for unless told otherwise.
+     */
+    public static final long DEFAULT_EXPECTED_SIZE = 1024;
+
+    /**
+     * The false positive rate of our filter unless told otherwise.
+     */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * Our collection.
+     */
+    private final Collection<V> collection;
+
+    /**
+     * The number of values our filter is first sized for.
+     */
+    private final long expectedSize;
+
+    /**
+     * The false positive rate our filter stays under.
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Our filter.
+     */
+    private BloomFilter filter;
+
+    /**
+     * Values removed from the collection but not from the filter.
+     */
+    private long removals;
+
+    /**
+     * Number of contains calls.
+     */
+    private long lookupCount;
+
+    /**
+     * Number of contains calls the filter answered alone.
+     */
+    private long definiteMissCount;
+
+    /**
+     * Number of contains calls the filter passed that the collection missed.
+     */
+    private long falsePositiveCount;
+
+    /**
+     * Number of times the filter was rebuilt.
+     */
+    private long rebuildCount;
+
+    /**
+     * Sets the collection to decorate and sizes our filter.
+     *
+     * @param collection        the collection to decorate.
+     * @param expectedSize      the number of values the filter is first sized
+     *                          for - it grows past this as needed.
+     * @param falsePositiveRate the false positive rate the filter stays
+     *                          under.
+     *
+     * @throws IllegalArgumentException if collection is null, expectedSize is
+     *                                  negative or falsePositiveRate is not
+     *                                  between zero and one.
+     */
+    public BloomFilterFunctionalCollection(final Collection<V> collection, final long expectedSize, final double falsePositiveRate) {
+        IntegrityUtil.ensure((Object) collection, "Collection cannot be null!");
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between zero and one!");
+        }
+
+        this.collection = collection;
+        this.expectedSize = IntegrityUtil.ensure(expectedSize, 0, "Expected size cannot be negative!");
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = fill();
+    }
+
+    /**
+     * Sets the collection to decorate.
+     *
+     * @param collection the collection to decorate.
+     *
+     * @throws IllegalArgumentException if collection is null.
+     */
+    public BloomFilterFunctionalCollection(final Collection<V> collection) {
+        this(collection, DEFAULT_EXPECTED_SIZE, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Return a filter holding the values in our collection.
+     */
+    final BloomFilter fill() {
+        final BloomFilter retVal = new BloomFilter(Math.max(expectedSize, collection.size()), falsePositiveRate);
+        for (final V value : collection) {
+            retVal.put(value);
+        }
+
+        removals = 0;
+
+        return retVal;
+    }
+
+    /**
+     * Return our filter - rebuilt first if removed values have built up.
+     */
+    BloomFilter getFilter() {
+        if (removals > collection.size() / 2) {
+            filter = fill();
+            rebuildCount++;
+        }
+
+        return filter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Collection<V> getCollection() {
+        return collection;
+    }
+
+    /**
+     * Return a snapshot of how well our filter is doing.
+     *
+     * @return the statistics.
+     */
+    public BloomFilterStats stats() {
+        return new BloomFilterStats(lookupCount, definiteMissCount, falsePositiveCount, rebuildCount, filter.falsePositiveRate(), filter.bitCount(), filter.filterCount());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(final Object o) {
+        lookupCount++;
+
+        if (!getFilter().mightContain(o)) {
+            definiteMissCount++;
+
+            return false;
+        }
+
+        final boolean retVal = collection.contains(o);
+        if (!retVal) {
+            falsePositiveCount++;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsAll(final Collection<?> clctn) {
+        for (final Object value : clctn) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(final V e) {
+        final boolean retVal = collection.add(e);
+        if (retVal) {
+            filter.put(e);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(final Collection<? extends V> clctn) {
+        final boolean retVal = collection.addAll(clctn);
+        if (retVal) {
+            for (final V value : clctn) {
+                filter.put(value);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final Object o) {
+        final boolean retVal = collection.remove(o);
+        if (retVal) {
+            removals++;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(final Collection<?> clctn) {
+        final int size = collection.size();
+        final boolean retVal = collection.removeAll(clctn);
+
+        removals += size - collection.size();
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(final Collection<?> clctn) {
+        final int size = collection.size();
+        final boolean retVal = collection.retainAll(clctn);
+
+        removals += size - collection.size();
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        collection.clear();
+
+        filter = fill();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<V> iterator() {
+        final Iterator<V> iterator = collection.iterator();
+
+        return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                removals++;
+            }
+        };
+    }
+}
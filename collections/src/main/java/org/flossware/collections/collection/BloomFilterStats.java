@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+/**
+ * An immutable snapshot of how well a BloomFilterFunctionalCollection's
+ * filter is doing.
+ *
+ * @author Scot P. Floess
+ */
+public class BloomFilterStats {
+
+    /**
+     * Number of contains calls.
+     */
+    private final long lookupCount;
+
+    /**
+     * Number of contains calls the filter answered alone.
+     */
+    private final long definiteMissCount;
+
+    /**
+     * Number of contains calls the filter passed that the collection missed.
+     */
+    private final long falsePositiveCount;
+
+    /**
+     * Number of times the filter was rebuilt after removals.
+     */
+    private final long rebuildCount;
+
+    /**
+     * False positive rate expected for what the filter holds.
+     */
+    private final double expectedFalsePositiveRate;
+
+    /**
+     * Number of bits the filter uses.
+     */
+    private final long bitCount;
+
+    /**
+     * Number of filters chained.
+     */
+    private final int filterCount;
+
+    /**
+     * Sets all statistics.
+     *
+     * @param lookupCount               number of contains calls.
+     * @param definiteMissCount         number of contains calls the filter
+     *                                  answered alone.
+     * @param falsePositiveCount        number of contains calls the filter
+     *                                  passed that the collection missed.
+     * @param rebuildCount              number of times the filter was rebuilt.
+     * @param expectedFalsePositiveRate false positive rate expected for what
+     *                                  the filter holds.
+     * @param bitCount                  number of bits the filter uses.
+     * @param filterCount               number of filters chained.
+     */
+    public BloomFilterStats(final long lookupCount, final long definiteMissCount, final long falsePositiveCount, final long rebuildCount, final double expectedFalsePositiveRate, final long bitCount, final int filterCount) {
+        this.lookupCount = lookupCount;
+        this.definiteMissCount = definiteMissCount;
+        this.falsePositiveCount = falsePositiveCount;
+        this.rebuildCount = rebuildCount;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.bitCount = bitCount;
+        this.filterCount = filterCount;
+    }
+
+    /**
+     * Return the number of contains calls.
+     *
+     * @return the lookup count.
+     */
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Return the number of contains calls the filter answered without
+     * touching the collection.
+     *
+     * @return the definite miss count.
+     */
+    public long getDefiniteMissCount() {
+        return definiteMissCount;
+    }
+
+    /**
+     * Return the number of contains calls the filter passed on to the
+     * collection that the collection missed.
+     *
+     * @return the false positive count.
+     */
+    public long getFalsePositiveCount() {
+        return falsePositiveCount;
+    }
+
+    /**
+     * Return the ratio of lookups for absent values the filter passed on -
+     * zero if there were none.
+     *
+     * @return the observed false positive rate.
+     */
+    public double getFalsePositiveRate() {
+        final long misses = definiteMissCount + falsePositiveCount;
+
+        return 0 == misses ? 0.0 : (double) falsePositiveCount / misses;
+    }
+
+    /**
+     * Return the false positive rate expected for what the filter holds.
+     *
+     * @return the expected false positive rate.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+
+    /**
+     * Return the number of times the filter was rebuilt after removals.
+     *
+     * @return the rebuild count.
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Return the number of bits the filter uses.
+     *
+     * @return the bit count.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Return the bytes of heap the filter's bits use.
+     *
+     * @return the memory used.
+     */
+    public long getMemoryBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * Return the number of filters chained as values were added.
+     *
+     * @return the filter count.
+     */
+    public int getFilterCount() {
+        return filterCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "BloomFilterStats [lookupCount=" + lookupCount + ", definiteMissCount=" + definiteMissCount + ", falsePositiveCount=" + falsePositiveCount
+                + ", rebuildCount=" + rebuildCount + ", expectedFalsePositiveRate=" + expectedFalsePositiveRate + ", bitCount=" + bitCount + ", filterCount=" + filterCount + "]";
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional collection safe to share between threads without locking.
+ * By default it is a lock-free bag backed by a ConcurrentLinkedQueue, the
+ * Comparator constructor makes it a sorted skip list set and hashSet() a set
+ * backed by a ConcurrentHashMap. Iterators are weakly consistent - they never
+ * throw ConcurrentModificationException and reflect some, all or none of the
+ * changes made since they were created. Bulk operations are handed whole to
+ * the backing collection: adding to the bag links the new values privately
+ * and publishes them with a single compare and set.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value.
+ */
+public class ConcurrentFunctionalCollection<V> extends AbstractFunctionalCollection<V> {
+
+    /**
+     * Our collection.
+     */
+    private final Collection<V> collection;
+
+    /**
+     * Sets the concurrent collection to use.
+     *
+     * @param collection the concurrent collection to use.
+     *
+     * @throws IllegalArgumentException if collection is null.
+     */
+    ConcurrentFunctionalCollection(final Collection<V> collection) {
+        IntegrityUtil.ensure((Object) collection, "Collection cannot be null!");
+
+        this.collection = collection;
+    }
+
+    /**
+     * Makes a sorted set ordered by comparator.
+     *
+     * @param comparator orders our values.
+     *
+     * @throws IllegalArgumentException if comparator is null.
+     */
+    public ConcurrentFunctionalCollection(final Comparator<? super V> comparator) {
+        this(new ConcurrentSkipListSet<V>(IntegrityUtil.ensure(comparator, "Must have a comparator!")));
+    }
+
+    /**
+     * Default constructor - makes a lock-free bag.
+     */
+    public ConcurrentFunctionalCollection() {
+        this(new ConcurrentLinkedQueue<V>());
+    }
+
+    /**
+     * Return a set backed by a concurrent hash map.
+     *
+     * @param <V> the type of value.
+     *
+     * @return a set backed by a concurrent hash map.
+     */
+    public static <V> ConcurrentFunctionalCollection<V> hashSet() {
+        return new ConcurrentFunctionalCollection<>(Collections.newSetFromMap(new ConcurrentHashMap<V, Boolean>()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Collection<V> getCollection() {
+        return collection;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(final Collection<? extends V> toAdd) {
+        // The backing bag refuses to add itself - add what it holds now.
+        return super.addAll(this == toAdd || collection == toAdd ? new ArrayList<>(toAdd) : toAdd);
+    }
+}
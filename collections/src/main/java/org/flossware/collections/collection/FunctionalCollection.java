@@ -17,6 +17,7 @@
 package org.flossware.collections.collection;
 
 import java.util.Collection;
+import org.flossware.collections.collection.pipeline.Pipeline;
 
 /**
  * Represents a "functional" set which allows us to extend the core functions with values that return self so we can chain calls.
@@ -63,4 +64,12 @@ public interface FunctionalCollection<V> extends Collection<V> {
      * @return self.
      */
     FunctionalCollection<V> removeAllF(Collection<?> collection);
+
+    /**
+     * Return a lazy pipeline over our values - operations chained on it run
+     * in a single pass once a terminal operation is called.
+     *
+     * @return a lazy pipeline over our values.
+     */
+    Pipeline<V> pipeline();
 }
@@ -0,0 +1,448 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.flossware.collections.collection.pipeline.Chunked;
+import org.flossware.collections.collection.pipeline.Pipeline;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional collection for very large, append heavy workloads. Values are
+ * held in order in fixed size chunks, so appending never copies values or
+ * allocates more than one chunk - chunks stay small enough never to be
+ * humongous objects to G1, and only the array of chunks is ever regrown.
+ * clear() and removals hand whole chunks back to the collector. Parallel
+ * pipelines split it on chunk boundaries without copying it.
+ *
+ * Removing values shifts those after them, as ArrayList does. Iterators are
+ * fail-fast. Not thread safe.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value found in a collection.
+ */
+public class SegmentedFunctionalCollection<V> extends AbstractCollection<V> implements FunctionalCollection<V>, Chunked {
+
+    /**
+     * Log2 of the values per chunk unless told otherwise - 16K references, 64KB
+     * with compressed pointers.
+     */
+    public static final int DEFAULT_CHUNK_BITS = 14;
+
+    /**
+     * The most chunk bits we allow.
+     */
+    static final int MAX_CHUNK_BITS = 30;
+
+    /**
+     * How many chunks we make room for at first.
+     */
+    static final int INITIAL_CHUNKS = 8;
+
+    /**
+     * Log2 of the values per chunk.
+     */
+    private final int chunkBits;
+
+    /**
+     * Our chunks - null past the last in use.
+     */
+    private Object[][] chunks;
+
+    /**
+     * How many values we hold.
+     */
+    private int size;
+
+    /**
+     * Counts changes so iterators can fail fast.
+     */
+    private int modCount;
+
+    /**
+     * Sets how many values a chunk holds.
+     *
+     * @param chunkBits log2 of the values per chunk.
+     *
+     * @throws IllegalArgumentException if chunkBits is not between 1 and 30.
+     */
+    public SegmentedFunctionalCollection(final int chunkBits) {
+        if (IntegrityUtil.ensure(chunkBits, 1, "Chunk bits must be positive!") > MAX_CHUNK_BITS) {
+            throw new IllegalArgumentException("Chunk bits cannot exceed " + MAX_CHUNK_BITS + "!");
+        }
+
+        this.chunkBits = chunkBits;
+        this.chunks = new Object[INITIAL_CHUNKS][];
+    }
+
+    /**
+     * Default constructor.
+     */
+    public SegmentedFunctionalCollection() {
+        this(DEFAULT_CHUNK_BITS);
+    }
+
+    /**
+     * Sets the values we start with.
+     *
+     * @param collection the values we start with.
+     *
+     * @throws IllegalArgumentException if collection is null.
+     */
+    public SegmentedFunctionalCollection(final Collection<? extends V> collection) {
+        this(DEFAULT_CHUNK_BITS);
+
+        IntegrityUtil.ensure((Object) collection, "Collection cannot be null!");
+
+        addAll(collection);
+    }
+
+    /**
+     * Return the values a chunk holds.
+     */
+    int chunkSize() {
+        return 1 << chunkBits;
+    }
+
+    /**
+     * Return the number of chunks holding size values.
+     */
+    int chunkCount(final int size) {
+        return (int) ((size + (1L << chunkBits) - 1) >>> chunkBits);
+    }
+
+    /**
+     * Release the chunks past those holding our values.
+     */
+    void trim() {
+        for (int chunk = chunkCount(size); chunk < chunks.length && null != chunks[chunk]; chunk++) {
+            chunks[chunk] = null;
+        }
+    }
+
+    /**
+     * Remove the value at index, shifting those after it down one.
+     */
+    void removeAt(final int index) {
+        final int mask = chunkSize() - 1;
+
+        for (int chunk = index >>> chunkBits, offset = index & mask; ; chunk++, offset = 0) {
+            final Object[] values = chunks[chunk];
+            final int end = Math.min(chunkSize(), size - (chunk << chunkBits));
+
+            System.arraycopy(values, offset + 1, values, offset, end - offset - 1);
+
+            if (end < chunkSize() || chunk + 1 >= chunkCount(size)) {
+                values[end - 1] = null;
+
+                break;
+            }
+
+            values[end - 1] = chunks[chunk + 1][0];
+        }
+
+        size--;
+        modCount++;
+
+        trim();
+    }
+
+    /**
+     * Return the value at index.
+     *
+     * @param index the index of the value.
+     *
+     * @return the value at index.
+     *
+     * @throws IndexOutOfBoundsException if index is not less than size.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return (V) chunks[index >>> chunkBits][index & (chunkSize() - 1)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int chunkBits() {
+        return chunkBits;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[][] chunks() {
+        return chunks;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> addF(final V value) {
+        add(value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> removeF(final V value) {
+        remove(value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> addAllF(final Collection<? extends V> collection) {
+        addAll(collection);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> removeAllF(final Collection<?> collection) {
+        removeAll(collection);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pipeline<V> pipeline() {
+        return Pipeline.of(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if we already hold Integer.MAX_VALUE
+     *                               values.
+     */
+    @Override
+    public boolean add(final V value) {
+        if (Integer.MAX_VALUE == size) {
+            throw new IllegalStateException("Cannot hold more than " + Integer.MAX_VALUE + " values!");
+        }
+
+        final int chunk = size >>> chunkBits;
+
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+
+        if (null == chunks[chunk]) {
+            chunks[chunk] = new Object[chunkSize()];
+        }
+
+        chunks[chunk][size & (chunkSize() - 1)] = value;
+        size++;
+        modCount++;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(final Collection<? extends V> collection) {
+        // Copy first - collection may be self.
+        final Object[] values = collection.toArray();
+
+        for (final Object value : values) {
+            add((V) value);
+        }
+
+        return values.length > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        IntegrityUtil.ensure((Object) collection, "Collection cannot be null!");
+
+        return compact(collection, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        IntegrityUtil.ensure((Object) collection, "Collection cannot be null!");
+
+        return compact(collection, true);
+    }
+
+    /**
+     * Keep the values in collection if retain is true, those not in it if
+     * false - in one pass, moving each kept value once.
+     */
+    boolean compact(final Collection<?> collection, final boolean retain) {
+        final int mask = chunkSize() - 1;
+        int kept = 0;
+
+        for (int index = 0; index < size; index++) {
+            final Object value = chunks[index >>> chunkBits][index & mask];
+
+            if (collection.contains(value) == retain) {
+                chunks[kept >>> chunkBits][kept & mask] = value;
+                kept++;
+            }
+        }
+
+        if (kept == size) {
+            return false;
+        }
+
+        // Chunks past the one holding the last kept value are released whole.
+        for (int index = kept; index < size && 0 != (index & mask); index++) {
+            chunks[index >>> chunkBits][index & mask] = null;
+        }
+
+        size = kept;
+        modCount++;
+
+        trim();
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        chunks = new Object[INITIAL_CHUNKS][];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[] toArray() {
+        return toArray(new Object[size]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(final T[] array) {
+        final T[] retVal = array.length >= size ? array : (T[]) Array.newInstance(array.getClass().getComponentType(), size);
+
+        for (int chunk = 0, copied = 0; copied < size; chunk++) {
+            final int length = Math.min(chunkSize(), size - copied);
+
+            System.arraycopy(chunks[chunk], 0, retVal, copied, length);
+            copied += length;
+        }
+
+        if (retVal.length > size) {
+            retVal[size] = null;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            int next;
+            int last = -1;
+            int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public V next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                last = next++;
+
+                return get(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                removeAt(last);
+
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+}
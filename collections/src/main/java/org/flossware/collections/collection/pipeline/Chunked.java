@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection.pipeline;
+
+/**
+ * A collection holding its values in chunks - arrays of 2^chunkBits() values,
+ * every one full but the last. Parallel pipelines split such a source on chunk
+ * boundaries and read the chunks where they are, rather than copying the
+ * whole source to one array first.
+ *
+ * @author Scot P. Floess
+ */
+public interface Chunked {
+
+    /**
+     * Return how many values we hold.
+     *
+     * @return how many values we hold.
+     */
+    int size();
+
+    /**
+     * Return log2 of the values held per chunk.
+     *
+     * @return log2 of the values held per chunk.
+     */
+    int chunkBits();
+
+    /**
+     * Return our chunks - the value at index is in chunk index &gt;&gt;&gt;
+     * chunkBits(). Callers only read them, and only the first size() values.
+     *
+     * @return our chunks.
+     */
+    Object[][] chunks();
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection.pipeline;
+
+/**
+ * Maps a value to another.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <T> the type mapped.
+ * @param <R> the type mapped to.
+ */
+public interface Mapper<T, R> {
+
+    /**
+     * Return what value maps to.
+     *
+     * @param value the value to map.
+     *
+     * @return what value maps to.
+     */
+    R map(T value);
+}
@@ -0,0 +1,724 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.flossware.common.Filter;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A lazy chain of operations over a collection. map, filter, flatMap and limit
+ * only describe a stage - nothing runs until a terminal operation (reduce,
+ * count, toList, into) is called. The stages are then fused: every value of
+ * the source is pushed through all of them in a single pass, no stage builds
+ * an intermediate collection, and limit stops the pass early.
+ *
+ * Calling parallel() opts in to splitting sources larger than a threshold
+ * across a fork-join pool - it, and sequential(), apply to the stage they are
+ * called on and to stages later chained from it, never to other branches
+ * sharing an upstream stage. Results keep the source order. Pipelines holding a
+ * limit, and reductions without a combiner, always run sequentially. Sources
+ * that are Chunked are split on chunk boundaries, others are first copied to
+ * an array.
+ *
+ * A pipeline is a description and may be run any number of times, each run
+ * seeing the source as it is then. Stages must not change the source.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type flowing out of this stage.
+ */
+public abstract class Pipeline<V> {
+
+    /**
+     * Below this many values a parallel pipeline does not split.
+     */
+    public static final int DEFAULT_THRESHOLD = 4_096;
+
+    /**
+     * Lazily creates the pool parallel pipelines share by default.
+     */
+    static final class DefaultPool {
+
+        /**
+         * The pool.
+         */
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * What every stage of a pipeline shares - its source.
+     */
+    static final class Source {
+
+        /**
+         * The values flowing in.
+         */
+        final Collection<?> collection;
+
+        Source(final Collection<?> collection) {
+            this.collection = collection;
+        }
+    }
+
+    /**
+     * Our source.
+     */
+    final Source source;
+
+    /**
+     * Runs us in parallel - null if sequential.
+     */
+    ForkJoinPool pool;
+
+    /**
+     * Below this many values we do not split.
+     */
+    int threshold;
+
+    /**
+     * True if we or a stage upstream is a limit - limits need the values in
+     * order, so those pipelines never split.
+     */
+    final boolean isLimited;
+
+    /**
+     * Sets our source, how to run and whether we are limited.
+     *
+     * @param source    our source.
+     * @param pool      runs us in parallel - null if sequential.
+     * @param threshold below this many values we do not split.
+     * @param isLimited true if we or a stage upstream is a limit.
+     */
+    Pipeline(final Source source, final ForkJoinPool pool, final int threshold, final boolean isLimited) {
+        this.source = source;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.isLimited = isLimited;
+    }
+
+    /**
+     * Return a pipeline over collection.
+     *
+     * @param <V> the type of value.
+     *
+     * @param collection the source.
+     *
+     * @return a pipeline over collection.
+     *
+     * @throws IllegalArgumentException if collection is null.
+     */
+    public static <V> Pipeline<V> of(final Collection<V> collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        return new Head<>(new Source(collection));
+    }
+
+    /**
+     * Return a sink taking source values, pushing them through every stage to
+     * and including self, then on to sink.
+     *
+     * @param sink receives our values.
+     *
+     * @return a sink taking source values.
+     */
+    abstract Sink<Object> wrapSink(Sink<? super V> sink);
+
+    /**
+     * Run us, and stages later chained from us, in parallel on pool,
+     * splitting sources until they hold threshold or fewer values.
+     *
+     * @param pool      runs the pipeline.
+     * @param threshold below this many values we do not split.
+     *
+     * @return self.
+     *
+     * @throws IllegalArgumentException if pool is null or threshold is less
+     *                                  than 1.
+     */
+    public Pipeline<V> parallel(final ForkJoinPool pool, final int threshold) {
+        this.pool = IntegrityUtil.ensure(pool, "Must have a pool!");
+        this.threshold = IntegrityUtil.ensure(threshold, 1, "Threshold must be positive!");
+
+        return this;
+    }
+
+    /**
+     * Run us, and stages later chained from us, in parallel, splitting
+     * sources until they hold threshold or fewer values.
+     *
+     * @param threshold below this many values we do not split.
+     *
+     * @return self.
+     *
+     * @throws IllegalArgumentException if threshold is less than 1.
+     */
+    public Pipeline<V> parallel(final int threshold) {
+        return parallel(DefaultPool.POOL, threshold);
+    }
+
+    /**
+     * Run us, and stages later chained from us, in parallel.
+     *
+     * @return self.
+     */
+    public Pipeline<V> parallel() {
+        return parallel(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Run us, and stages later chained from us, sequentially - the default.
+     *
+     * @return self.
+     */
+    public Pipeline<V> sequential() {
+        this.pool = null;
+
+        return this;
+    }
+
+    /**
+     * Return true if we run in parallel.
+     *
+     * @return true if we run in parallel.
+     */
+    public boolean isParallel() {
+        return null != pool;
+    }
+
+    /**
+     * Return a pipeline of our values mapped by mapper.
+     *
+     * @param <R> the type mapped to.
+     *
+     * @param mapper maps our values.
+     *
+     * @return a pipeline of our values mapped.
+     *
+     * @throws IllegalArgumentException if mapper is null.
+     */
+    public <R> Pipeline<R> map(final Mapper<? super V, ? extends R> mapper) {
+        IntegrityUtil.ensure(mapper, "Must have a mapper!");
+
+        return new Stage<V, R>(this) {
+            @Override
+            Sink<V> wrap(final Sink<? super R> sink) {
+                return new Sink<V>() {
+                    @Override
+                    public boolean accept(final V value) {
+                        return sink.accept(mapper.map(value));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Return a pipeline of our values filter accepts against value.
+     *
+     * @param <T> the type filtered against.
+     *
+     * @param filter decides which values to keep.
+     * @param value  handed to filter with each of our values.
+     *
+     * @return a pipeline of our values filter accepts.
+     *
+     * @throws IllegalArgumentException if filter is null.
+     */
+    public <T> Pipeline<V> filter(final Filter<? super V, T> filter, final T value) {
+        IntegrityUtil.ensure(filter, "Must have a filter!");
+
+        return new Stage<V, V>(this) {
+            @Override
+            Sink<V> wrap(final Sink<? super V> sink) {
+                return new Sink<V>() {
+                    @Override
+                    public boolean accept(final V toFilter) {
+                        return !filter.accept(toFilter, value) || sink.accept(toFilter);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Return a pipeline of the values of every iterable mapper maps our
+     * values to.
+     *
+     * @param <R> the type mapped to.
+     *
+     * @param mapper maps each of our values to any number of values.
+     *
+     * @return a pipeline of the values mapped to.
+     *
+     * @throws IllegalArgumentException if mapper is null.
+     */
+    public <R> Pipeline<R> flatMap(final Mapper<? super V, ? extends Iterable<? extends R>> mapper) {
+        IntegrityUtil.ensure(mapper, "Must have a mapper!");
+
+        return new Stage<V, R>(this) {
+            @Override
+            Sink<V> wrap(final Sink<? super R> sink) {
+                return new Sink<V>() {
+                    @Override
+                    public boolean accept(final V value) {
+                        for (final R mapped : mapper.map(value)) {
+                            if (!sink.accept(mapped)) {
+                                return false;
+                            }
+                        }
+
+                        return true;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Return a pipeline of at most our first max values - the pass stops
+     * once max values are taken.
+     *
+     * @param max how many values to take.
+     *
+     * @return a pipeline of at most our first max values.
+     *
+     * @throws IllegalArgumentException if max is negative.
+     */
+    public Pipeline<V> limit(final long max) {
+        IntegrityUtil.ensure(max, 0, "Limit cannot be negative!");
+
+        return new Stage<V, V>(this, true) {
+            @Override
+            Sink<V> wrap(final Sink<? super V> sink) {
+                return new Sink<V>() {
+                    long taken;
+
+                    @Override
+                    public boolean accept(final V value) {
+                        if (taken >= max) {
+                            return false;
+                        }
+
+                        return sink.accept(value) & ++taken < max;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Return the result of folding our values into identity - runs
+     * sequentially.
+     *
+     * @param <R> the result.
+     *
+     * @param identity the result should there be no values.
+     * @param reducer  folds in each value.
+     *
+     * @return the result.
+     *
+     * @throws IllegalArgumentException if reducer is null.
+     */
+    public <R> R reduce(final R identity, final Reducer<? super V, R> reducer) {
+        IntegrityUtil.ensure(reducer, "Must have a reducer!");
+
+        return evaluate(new ReduceOp<V, R>(identity, reducer, null));
+    }
+
+    /**
+     * Return the result of folding our values into identity. In parallel each
+     * run of values is folded into identity and the results combined in
+     * order, so identity must not be changed by reducer.
+     *
+     * @param <R> the result.
+     *
+     * @param identity the result should there be no values.
+     * @param reducer  folds in each value.
+     * @param combiner combines the results of adjacent runs.
+     *
+     * @return the result.
+     *
+     * @throws IllegalArgumentException if reducer or combiner is null.
+     */
+    public <R> R reduce(final R identity, final Reducer<? super V, R> reducer, final Combiner<R> combiner) {
+        IntegrityUtil.ensure(reducer, "Must have a reducer!");
+        IntegrityUtil.ensure(combiner, "Must have a combiner!");
+
+        return evaluate(new ReduceOp<V, R>(identity, reducer, combiner));
+    }
+
+    /**
+     * Return how many values flow out.
+     *
+     * @return how many values flow out.
+     */
+    public long count() {
+        return evaluate(new CountOp<V>());
+    }
+
+    /**
+     * Return our values in order.
+     *
+     * @return our values in order.
+     */
+    public List<V> toList() {
+        return evaluate(new ToListOp<V>());
+    }
+
+    /**
+     * Add our values to collection in order.
+     *
+     * @param <C> the type of collection.
+     *
+     * @param collection receives our values.
+     *
+     * @return collection.
+     *
+     * @throws IllegalArgumentException if collection is null.
+     */
+    public <C extends Collection<? super V>> C into(final C collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        if (isParallel()) {
+            collection.addAll(toList());
+
+            return collection;
+        }
+
+        evaluate(new ReduceOp<V, C>(collection, new Reducer<V, C>() {
+            @Override
+            public C reduce(final C result, final V value) {
+                result.add(value);
+
+                return result;
+            }
+        }, null));
+
+        return collection;
+    }
+
+    /**
+     * Run the pipeline, in parallel if we may.
+     *
+     * @param <R> the result.
+     *
+     * @param op the terminal operation.
+     *
+     * @return the result of op.
+     */
+    <R> R evaluate(final TerminalOp<V, R> op) {
+        final ForkJoinPool pool = this.pool;
+        final int threshold = this.threshold;
+
+        if (null != pool && !isLimited && op.isParallel() && source.collection.size() > threshold) {
+            if (source.collection instanceof Chunked) {
+                final Chunked chunked = (Chunked) source.collection;
+
+                return pool.invoke(new Task<>(this, op, chunked.chunks(), chunked.chunkBits(), 0, chunked.size(), threshold));
+            }
+
+            final Object[] values = source.collection.toArray();
+
+            return pool.invoke(new Task<>(this, op, new Object[][]{values}, 31, 0, values.length, threshold));
+        }
+
+        final TerminalSink<V, R> terminal = op.newSink();
+        final Sink<Object> sink = wrapSink(terminal);
+
+        for (final Object value : source.collection) {
+            if (!sink.accept(value)) {
+                break;
+            }
+        }
+
+        return terminal.result();
+    }
+
+    /**
+     * The first stage - the source values.
+     */
+    static final class Head<V> extends Pipeline<V> {
+
+        Head(final Source source) {
+            super(source, null, DEFAULT_THRESHOLD, false);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Sink<Object> wrapSink(final Sink<? super V> sink) {
+            return (Sink<Object>) sink;
+        }
+    }
+
+    /**
+     * A stage taking values of an upstream stage.
+     *
+     * @param <I> the type flowing in.
+     * @param <O> the type flowing out.
+     */
+    abstract static class Stage<I, O> extends Pipeline<O> {
+
+        /**
+         * Hands us our values.
+         */
+        final Pipeline<I> upstream;
+
+        Stage(final Pipeline<I> upstream, final boolean isLimit) {
+            super(upstream.source, upstream.pool, upstream.threshold, isLimit || upstream.isLimited);
+
+            this.upstream = upstream;
+        }
+
+        Stage(final Pipeline<I> upstream) {
+            this(upstream, false);
+        }
+
+        /**
+         * Return a sink taking our values in and handing what flows out to
+         * sink.
+         */
+        abstract Sink<I> wrap(Sink<? super O> sink);
+
+        @Override
+        Sink<Object> wrapSink(final Sink<? super O> sink) {
+            return upstream.wrapSink(wrap(sink));
+        }
+    }
+
+    /**
+     * The sink a pipeline ends in.
+     */
+    interface TerminalSink<V, R> extends Sink<V> {
+
+        /**
+         * Return the result.
+         */
+        R result();
+    }
+
+    /**
+     * What a pipeline ends in.
+     */
+    interface TerminalOp<V, R> {
+
+        /**
+         * Return a sink for one run of values.
+         */
+        TerminalSink<V, R> newSink();
+
+        /**
+         * Return true if the results of runs can be combined.
+         */
+        boolean isParallel();
+
+        /**
+         * Return the result of two adjacent runs.
+         */
+        R combine(R left, R right);
+    }
+
+    /**
+     * Folds values into a result.
+     */
+    static final class ReduceOp<V, R> implements TerminalOp<V, R> {
+
+        final R identity;
+        final Reducer<? super V, R> reducer;
+        final Combiner<R> combiner;
+
+        ReduceOp(final R identity, final Reducer<? super V, R> reducer, final Combiner<R> combiner) {
+            this.identity = identity;
+            this.reducer = reducer;
+            this.combiner = combiner;
+        }
+
+        @Override
+        public TerminalSink<V, R> newSink() {
+            return new TerminalSink<V, R>() {
+                R result = identity;
+
+                @Override
+                public boolean accept(final V value) {
+                    result = reducer.reduce(result, value);
+
+                    return true;
+                }
+
+                @Override
+                public R result() {
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public boolean isParallel() {
+            return null != combiner;
+        }
+
+        @Override
+        public R combine(final R left, final R right) {
+            return combiner.combine(left, right);
+        }
+    }
+
+    /**
+     * Counts values.
+     */
+    static final class CountOp<V> implements TerminalOp<V, Long> {
+
+        @Override
+        public TerminalSink<V, Long> newSink() {
+            return new TerminalSink<V, Long>() {
+                long count;
+
+                @Override
+                public boolean accept(final V value) {
+                    count++;
+
+                    return true;
+                }
+
+                @Override
+                public Long result() {
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public boolean isParallel() {
+            return true;
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+    }
+
+    /**
+     * Collects values into a list.
+     */
+    static final class ToListOp<V> implements TerminalOp<V, List<V>> {
+
+        @Override
+        public TerminalSink<V, List<V>> newSink() {
+            return new TerminalSink<V, List<V>>() {
+                final List<V> result = new ArrayList<>();
+
+                @Override
+                public boolean accept(final V value) {
+                    result.add(value);
+
+                    return true;
+                }
+
+                @Override
+                public List<V> result() {
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public boolean isParallel() {
+            return true;
+        }
+
+        @Override
+        public List<V> combine(final List<V> left, final List<V> right) {
+            left.addAll(right);
+
+            return left;
+        }
+    }
+
+    /**
+     * Runs a pipeline over a range of source values, splitting it in half -
+     * on a chunk boundary when it spans more than one - until it is no larger
+     * than the threshold.
+     */
+    static final class Task<V, R> extends RecursiveTask<R> {
+
+        /**
+         * Our serial version - RecursiveTask is Serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        final Pipeline<V> pipeline;
+        final TerminalOp<V, R> op;
+        final Object[][] chunks;
+        final int chunkBits;
+        final int from;
+        final int to;
+        final int threshold;
+
+        Task(final Pipeline<V> pipeline, final TerminalOp<V, R> op, final Object[][] chunks, final int chunkBits, final int from, final int to, final int threshold) {
+            this.pipeline = pipeline;
+            this.op = op;
+            this.chunks = chunks;
+            this.chunkBits = chunkBits;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected R compute() {
+            final int mask = (int) ((1L << chunkBits) - 1);
+
+            if (to - from <= threshold) {
+                final TerminalSink<V, R> terminal = op.newSink();
+                final Sink<Object> sink = pipeline.wrapSink(terminal);
+
+                for (int index = from; index < to;) {
+                    final Object[] chunk = chunks[index >>> chunkBits];
+                    final int offset = index & mask;
+                    final int end = offset + Math.min(to - index, chunk.length - offset);
+
+                    for (int value = offset; value < end; value++) {
+                        if (!sink.accept(chunk[value])) {
+                            return terminal.result();
+                        }
+                    }
+
+                    index += end - offset;
+                }
+
+                return terminal.result();
+            }
+
+            int middle = (from + to) >>> 1;
+            if ((middle & ~mask) > from) {
+                middle &= ~mask;
+            }
+
+            final Task<V, R> left = new Task<>(pipeline, op, chunks, chunkBits, from, middle, threshold);
+            left.fork();
+
+            final R right = new Task<>(pipeline, op, chunks, chunkBits, middle, to, threshold).compute();
+
+            return op.combine(left.join(), right);
+        }
+    }
+}
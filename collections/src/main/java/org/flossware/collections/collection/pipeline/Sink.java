@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection.pipeline;
+
+/**
+ * Receives the values flowing through a pipeline - one stage hands each value
+ * straight to the next, so no stage materializes its output.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type received.
+ */
+interface Sink<V> {
+
+    /**
+     * Receive value.
+     *
+     * @param value the value.
+     *
+     * @return false if no more values are wanted.
+     */
+    boolean accept(V value);
+}
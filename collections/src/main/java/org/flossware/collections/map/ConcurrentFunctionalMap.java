@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional map safe to share between threads without locking readers.
+ * By default it is backed by a ConcurrentHashMap, the Comparator constructor
+ * backs it with a ConcurrentSkipListMap for sorted keys. Iterators are weakly
+ * consistent - they never throw ConcurrentModificationException and reflect
+ * some, all or none of the changes made since they were created. putAllF is
+ * handed whole to the backing map, which sizes its table once for the batch
+ * rather than growing it while other threads write.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public class ConcurrentFunctionalMap<K, V> extends AbstractFunctionalMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * Our map.
+     */
+    private final ConcurrentMap<K, V> map;
+
+    /**
+     * Sets the concurrent map to use.
+     *
+     * @param map the concurrent map to use.
+     *
+     * @throws IllegalArgumentException if map is null.
+     */
+    public ConcurrentFunctionalMap(final ConcurrentMap<K, V> map) {
+        IntegrityUtil.ensure(map, 0, "Map cannot be null!");
+
+        this.map = map;
+    }
+
+    /**
+     * Makes a hash map sized to hold expectedSize keys.
+     *
+     * @param expectedSize how many keys we expect to hold.
+     *
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    public ConcurrentFunctionalMap(final int expectedSize) {
+        this(new ConcurrentHashMap<K, V>(IntegrityUtil.ensure(expectedSize, 0, "Expected size cannot be negative!")));
+    }
+
+    /**
+     * Makes a sorted map ordered by comparator.
+     *
+     * @param comparator orders our keys.
+     *
+     * @throws IllegalArgumentException if comparator is null.
+     */
+    public ConcurrentFunctionalMap(final Comparator<? super K> comparator) {
+        this(new ConcurrentSkipListMap<K, V>(IntegrityUtil.ensure(comparator, "Must have a comparator!")));
+    }
+
+    /**
+     * Default constructor - makes a hash map.
+     */
+    public ConcurrentFunctionalMap() {
+        this(new ConcurrentHashMap<K, V>());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ConcurrentMap<K, V> getMap() {
+        return map;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> toPut) {
+        // Putting our own mappings changes nothing.
+        if (this != toPut && map != toPut) {
+            map.putAll(toPut);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        return map.putIfAbsent(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        return map.remove(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean replace(final K key, final V oldValue, final V newValue) {
+        return map.replace(key, oldValue, newValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V replace(final K key, final V value) {
+        return map.replace(key, value);
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional map for data read far more often than it changes. Reads go
+ * through a single volatile reference to an immutable hash table - keys and
+ * values interleaved in one array, probed linearly - so they never wait, lock
+ * or allocate. Every change rebuilds the table and publishes it atomically;
+ * writers take turns, and putAll/putAllF rebuild once for the whole batch.
+ * Iterators walk the table current when they were created.
+ *
+ * Keys may not be null, values may.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public class CopyOnWriteFunctionalMap<K, V> extends AbstractMap<K, V> implements FunctionalMap<K, V>, ConcurrentMap<K, V> {
+
+    /**
+     * The fewest key slots a table has.
+     */
+    static final int MIN_CAPACITY = 4;
+
+    /**
+     * An immutable hash table once published.
+     */
+    static final class Table {
+
+        /**
+         * The empty table.
+         */
+        static final Table EMPTY = new Table(0);
+
+        /**
+         * Keys at even indexes, their values following - a null key marks an
+         * empty slot.
+         */
+        final Object[] array;
+
+        /**
+         * How many keys we hold.
+         */
+        int size;
+
+        /**
+         * Makes a table holding size keys with at most half its slots used.
+         */
+        Table(final int size) {
+            this.array = new Object[length(size)];
+        }
+
+        /**
+         * Return the array length of a table holding size keys.
+         */
+        static int length(final int size) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < size * 2L) {
+                capacity <<= 1;
+            }
+
+            return 2 * capacity;
+        }
+
+        /**
+         * Return the first slot to probe for key.
+         */
+        int home(final Object key) {
+            final int hash = key.hashCode();
+
+            return ((hash ^ (hash >>> 16)) & ((array.length >> 1) - 1)) << 1;
+        }
+
+        /**
+         * Return the slot of key or -1 if not held.
+         */
+        int indexOf(final Object key) {
+            for (int index = home(key);; index = (index + 2) & (array.length - 1)) {
+                final Object stored = array[index];
+
+                if (null == stored) {
+                    return -1;
+                }
+
+                if (stored == key || stored.equals(key)) {
+                    return index;
+                }
+            }
+        }
+
+        /**
+         * Map key to value - only while building.
+         */
+        void insert(final Object key, final Object value) {
+            int index = home(key);
+
+            for (; null != array[index]; index = (index + 2) & (array.length - 1)) {
+                if (array[index].equals(key)) {
+                    array[index + 1] = value;
+
+                    return;
+                }
+            }
+
+            array[index] = key;
+            array[index + 1] = value;
+            size++;
+        }
+
+        /**
+         * Return a table of size keys holding our mappings except for key.
+         */
+        Table copy(final int size, final Object key) {
+            final Table retVal = new Table(size);
+
+            for (int index = 0; index < array.length; index += 2) {
+                if (null != array[index] && !array[index].equals(key)) {
+                    retVal.insert(array[index], array[index + 1]);
+                }
+            }
+
+            return retVal;
+        }
+    }
+
+    /**
+     * The table readers use.
+     */
+    private volatile Table table;
+
+    /**
+     * Writers take turns holding this.
+     */
+    private final ReentrantLock writeLock;
+
+    /**
+     * Our entries.
+     */
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Default constructor.
+     */
+    public CopyOnWriteFunctionalMap() {
+        this.table = Table.EMPTY;
+        this.writeLock = new ReentrantLock();
+    }
+
+    /**
+     * Sets the mappings we start with.
+     *
+     * @param map the mappings we start with.
+     *
+     * @throws IllegalArgumentException if map is null or holds a null key.
+     */
+    public CopyOnWriteFunctionalMap(final Map<? extends K, ? extends V> map) {
+        this();
+
+        putAll(map);
+    }
+
+    /**
+     * Return the value of key in table - NOT_FOUND if not held.
+     */
+    static Object find(final Table table, final Object key) {
+        if (null == key) {
+            return HashTrie.NOT_FOUND;
+        }
+
+        final int index = table.indexOf(key);
+
+        return -1 == index ? HashTrie.NOT_FOUND : table.array[index + 1];
+    }
+
+    /**
+     * Publish a table of size keys holding the current mappings except for
+     * key - the caller holds the write lock.
+     */
+    void publish(final int size, final Object key) {
+        table = table.copy(size, key);
+    }
+
+    /**
+     * Publish a table of size keys holding the current mappings with key
+     * mapped to value - the caller holds the write lock.
+     */
+    void publish(final int size, final Object key, final Object value) {
+        final Table retVal = table.copy(size, key);
+        retVal.insert(key, value);
+
+        table = retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> putF(final K key, final V value) {
+        put(key, value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> putAllF(final Map<? extends K, ? extends V> map) {
+        putAll(map);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> removeF(final K key) {
+        remove(key);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return HashTrie.NOT_FOUND != find(table, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Object retVal = find(table, key);
+
+        return HashTrie.NOT_FOUND == retVal ? null : (V) retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (old == value) {
+                return (V) old;
+            }
+
+            publish(HashTrie.NOT_FOUND == old ? table.size + 1 : table.size, key, value);
+
+            return HashTrie.NOT_FOUND == old ? null : (V) old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if map is null or holds a null key.
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        IntegrityUtil.ensure(map, 0, "Must have a map!");
+
+        for (final K key : map.keySet()) {
+            IntegrityUtil.ensure(key, "Cannot have a null key!");
+        }
+
+        if (map.isEmpty()) {
+            return;
+        }
+
+        writeLock.lock();
+
+        try {
+            final Table current = table;
+            final Table retVal = current.copy(current.size + map.size(), null);
+
+            for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                retVal.insert(entry.getKey(), entry.getValue());
+            }
+
+            // Keys already held leave the table roomier than needed - compact it.
+            table = retVal.array.length > Table.length(retVal.size) ? retVal.copy(retVal.size, null) : retVal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (HashTrie.NOT_FOUND == old) {
+                return null;
+            }
+
+            publish(table.size - 1, key);
+
+            return (V) old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        writeLock.lock();
+
+        try {
+            table = Table.EMPTY;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (HashTrie.NOT_FOUND != old) {
+                return (V) old;
+            }
+
+            publish(table.size + 1, key, value);
+
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (HashTrie.NOT_FOUND == old || !Objects.equals(old, value)) {
+                return false;
+            }
+
+            publish(table.size - 1, key);
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean replace(final K key, final V oldValue, final V newValue) {
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (HashTrie.NOT_FOUND == old || !Objects.equals(old, oldValue)) {
+                return false;
+            }
+
+            publish(table.size, key, newValue);
+
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(final K key, final V value) {
+        writeLock.lock();
+
+        try {
+            final Object old = find(table, key);
+            if (HashTrie.NOT_FOUND == old) {
+                return null;
+            }
+
+            publish(table.size, key, value);
+
+            return (V) old;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (null == entrySet) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator(table);
+                }
+
+                @Override
+                public int size() {
+                    return table.size;
+                }
+
+                @Override
+                public boolean contains(final Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                    final Object value = find(table, entry.getKey());
+
+                    return HashTrie.NOT_FOUND != value && Objects.equals(value, entry.getValue());
+                }
+
+                @Override
+                public boolean remove(final Object o) {
+                    return o instanceof Map.Entry && CopyOnWriteFunctionalMap.this.remove(((Map.Entry<?, ?>) o).getKey(), ((Map.Entry<?, ?>) o).getValue());
+                }
+
+                @Override
+                public void clear() {
+                    CopyOnWriteFunctionalMap.this.clear();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    /**
+     * Walks a table - removal goes to the map.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        final Object[] array;
+        int next;
+        Object last;
+
+        EntryIterator(final Table table) {
+            this.array = table.array;
+            advance(0);
+        }
+
+        void advance(final int from) {
+            next = from;
+            while (next < array.length && null == array[next]) {
+                next += 2;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next >= array.length) {
+                throw new NoSuchElementException();
+            }
+
+            last = array[next];
+
+            final Map.Entry<K, V> retVal = new SimpleImmutableEntry<>((K) last, (V) array[next + 1]);
+            advance(next + 2);
+
+            return retVal;
+        }
+
+        @Override
+        public void remove() {
+            if (null == last) {
+                throw new IllegalStateException();
+            }
+
+            CopyOnWriteFunctionalMap.this.remove(last);
+            last = null;
+        }
+    }
+}
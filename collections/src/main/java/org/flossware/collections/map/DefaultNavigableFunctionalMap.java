@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Default implementation of a navigable functional map. By default it is
+ * backed by a ConcurrentSkipListMap, so it may be shared between threads and
+ * read while written. Range and prefix views wrap the backing map's own views
+ * - nothing is copied or sorted to answer them.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public class DefaultNavigableFunctionalMap<K, V> extends AbstractFunctionalMap<K, V> implements NavigableFunctionalMap<K, V> {
+
+    /**
+     * Our map.
+     */
+    private final NavigableMap<K, V> map;
+
+    /**
+     * Where keys beginning with a prefix end - null if we don't know.
+     */
+    private final PrefixRange<K> prefixRange;
+
+    /**
+     * Sets the map to use and how prefixes of its keys are ranged.
+     *
+     * @param map         the map to use.
+     * @param prefixRange where keys beginning with a prefix end in map's
+     *                    order.
+     *
+     * @throws IllegalArgumentException if map or prefixRange is null.
+     */
+    public DefaultNavigableFunctionalMap(final NavigableMap<K, V> map, final PrefixRange<K> prefixRange) {
+        IntegrityUtil.ensure(map, 0, "Map cannot be null!");
+
+        this.map = map;
+        this.prefixRange = IntegrityUtil.ensure(prefixRange, "Must have a prefix range!");
+    }
+
+    /**
+     * Sets the map to use - prefixMapF is not supported.
+     *
+     * @param map the map to use.
+     *
+     * @throws IllegalArgumentException if map is null.
+     */
+    public DefaultNavigableFunctionalMap(final NavigableMap<K, V> map) {
+        IntegrityUtil.ensure(map, 0, "Map cannot be null!");
+
+        this.map = map;
+        this.prefixRange = null;
+    }
+
+    /**
+     * Makes a skip list ordered by comparator - prefixMapF is not supported.
+     *
+     * @param comparator orders our keys.
+     *
+     * @throws IllegalArgumentException if comparator is null.
+     */
+    public DefaultNavigableFunctionalMap(final Comparator<? super K> comparator) {
+        this(new ConcurrentSkipListMap<K, V>(IntegrityUtil.ensure(comparator, "Must have a comparator!")));
+    }
+
+    /**
+     * Default constructor - makes a skip list of naturally ordered keys,
+     * prefixMapF is not supported.
+     */
+    public DefaultNavigableFunctionalMap() {
+        this(new ConcurrentSkipListMap<K, V>());
+    }
+
+    /**
+     * Return a skip list of naturally ordered string keys supporting
+     * prefixMapF.
+     *
+     * @param <V> the value.
+     *
+     * @return a skip list of string keys.
+     */
+    public static <V> DefaultNavigableFunctionalMap<String, V> strings() {
+        return new DefaultNavigableFunctionalMap<>(new ConcurrentSkipListMap<String, V>(), PrefixRange.STRING);
+    }
+
+    /**
+     * Return a view of map sharing our prefix range.
+     */
+    NavigableFunctionalMap<K, V> view(final NavigableMap<K, V> view) {
+        return null == prefixRange ? new DefaultNavigableFunctionalMap<>(view) : new DefaultNavigableFunctionalMap<>(view, prefixRange);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected NavigableMap<K, V> getMap() {
+        return map;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableFunctionalMap<K, V> subMapF(final K fromKey, final boolean fromInclusive, final K toKey, final boolean toInclusive) {
+        return view(map.subMap(fromKey, fromInclusive, toKey, toInclusive));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableFunctionalMap<K, V> headMapF(final K toKey, final boolean inclusive) {
+        return view(map.headMap(toKey, inclusive));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableFunctionalMap<K, V> tailMapF(final K fromKey, final boolean inclusive) {
+        return view(map.tailMap(fromKey, inclusive));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableFunctionalMap<K, V> prefixMapF(final K prefix) {
+        if (null == prefixRange) {
+            throw new UnsupportedOperationException("No prefix range for our keys!");
+        }
+
+        final K upperBound = prefixRange.upperBound(IntegrityUtil.ensure(prefix, "Must have a prefix!"));
+
+        return null == upperBound ? tailMapF(prefix, true) : subMapF(prefix, true, upperBound, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> lowerEntry(final K key) {
+        return getMap().lowerEntry(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K lowerKey(final K key) {
+        return getMap().lowerKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> floorEntry(final K key) {
+        return getMap().floorEntry(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K floorKey(final K key) {
+        return getMap().floorKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> ceilingEntry(final K key) {
+        return getMap().ceilingEntry(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K ceilingKey(final K key) {
+        return getMap().ceilingKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> higherEntry(final K key) {
+        return getMap().higherEntry(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K higherKey(final K key) {
+        return getMap().higherKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return getMap().firstEntry();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return getMap().lastEntry();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return getMap().pollFirstEntry();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return getMap().pollLastEntry();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return getMap().descendingMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return getMap().navigableKeySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return getMap().descendingKeySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K, V> subMap(final K fromKey, final boolean fromInclusive, final K toKey, final boolean toInclusive) {
+        return getMap().subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K, V> headMap(final K toKey, final boolean inclusive) {
+        return getMap().headMap(toKey, inclusive);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K, V> tailMap(final K fromKey, final boolean inclusive) {
+        return getMap().tailMap(fromKey, inclusive);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<K, V> subMap(final K fromKey, final K toKey) {
+        return getMap().subMap(fromKey, toKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<K, V> headMap(final K toKey) {
+        return getMap().headMap(toKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<K, V> tailMap(final K fromKey) {
+        return getMap().tailMap(fromKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Comparator<? super K> comparator() {
+        return getMap().comparator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K firstKey() {
+        return getMap().firstKey();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public K lastKey() {
+        return getMap().lastKey();
+    }
+}
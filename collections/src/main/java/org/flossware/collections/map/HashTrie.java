@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The nodes of a hash array mapped trie shared by PersistentFunctionalMap and
+ * TransientFunctionalMap. Each level consumes five bits of a key's hash: a
+ * bitmap says which of the 32 children exist and a compact array holds them
+ * as key/value pairs - a null key meaning the value is a child node. Keys
+ * whose hashes are equal share a collision node.
+ *
+ * Nodes are copied on write unless they are owned by the edit a transient
+ * map is making - those are changed in place.
+ *
+ * @author Scot P. Floess
+ */
+final class HashTrie {
+
+    /**
+     * How many hash bits each level consumes.
+     */
+    static final int BITS = 5;
+
+    /**
+     * The deepest a trie can be, including a collision node.
+     */
+    static final int MAX_DEPTH = 8;
+
+    /**
+     * Returned from find when a key is not held.
+     */
+    static final Object NOT_FOUND = new Object();
+
+    /**
+     * Not instantiable.
+     */
+    private HashTrie() {
+    }
+
+    /**
+     * Identifies the transient map allowed to change a node in place.
+     */
+    static final class Edit {
+    }
+
+    /**
+     * What an edit did.
+     */
+    static final class Change {
+
+        /**
+         * True if a key was added.
+         */
+        boolean added;
+
+        /**
+         * True if a key was removed.
+         */
+        boolean removed;
+
+        /**
+         * The value replaced or removed.
+         */
+        Object old;
+    }
+
+    /**
+     * Return the hash we use for key - spread so keys differing only in
+     * their upper bits do not pile into the same first level children.
+     */
+    static int hash(final Object key) {
+        final int hash = key.hashCode() * 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Return the bit for hash at shift.
+     */
+    static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * A node of the trie.
+     */
+    abstract static class Node {
+
+        /**
+         * The edit allowed to change us in place - null if none.
+         */
+        final Edit edit;
+
+        Node(final Edit edit) {
+            this.edit = edit;
+        }
+
+        /**
+         * Return true if edit may change us in place.
+         */
+        final boolean isEditable(final Edit edit) {
+            return null != edit && edit == this.edit;
+        }
+
+        /**
+         * Return the value of key or NOT_FOUND.
+         */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Return the node holding value for key - self if nothing changed.
+         */
+        abstract Node put(Edit edit, int shift, int hash, Object key, Object value, Change change);
+
+        /**
+         * Return the node no longer holding key - self if nothing changed,
+         * null if now empty.
+         */
+        abstract Node remove(Edit edit, int shift, int hash, Object key, Change change);
+
+        /**
+         * Return our key/value pairs.
+         */
+        abstract Object[] array();
+
+        /**
+         * Return how many array slots are in use.
+         */
+        abstract int length();
+    }
+
+    /**
+     * Return a node holding both keys - they have different keys.
+     */
+    static Node createNode(final Edit edit, final int shift, final Object key1, final Object value1, final int hash2, final Object key2, final Object value2) {
+        final int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(edit, hash1, new Object[]{key1, value1, key2, value2});
+        }
+
+        final Change change = new Change();
+
+        return new BitmapNode(edit, 0, new Object[0]).put(edit, shift, hash1, key1, value1, change).put(edit, shift, hash2, key2, value2, change);
+    }
+
+    /**
+     * Children located by a bitmap.
+     */
+    static final class BitmapNode extends Node {
+
+        /**
+         * Which children exist.
+         */
+        int bitmap;
+
+        /**
+         * Our key/value pairs - transient nodes may have spare room.
+         */
+        Object[] array;
+
+        BitmapNode(final Edit edit, final int bitmap, final Object[] array) {
+            super(edit);
+
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        /**
+         * Return the pair index of bit.
+         */
+        int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * Return self if editable, otherwise a copy we can change.
+         */
+        BitmapNode ensureEditable(final Edit edit) {
+            if (isEditable(edit)) {
+                return this;
+            }
+
+            final int count = Integer.bitCount(bitmap);
+            final Object[] copy = new Object[null == edit ? 2 * count : 2 * (count + 1)];
+            System.arraycopy(array, 0, copy, 0, 2 * count);
+
+            return new BitmapNode(edit, bitmap, copy);
+        }
+
+        /**
+         * Return a node with slot set to value.
+         */
+        BitmapNode set(final Edit edit, final int slot, final Object value) {
+            final BitmapNode retVal = ensureEditable(edit);
+            retVal.array[slot] = value;
+
+            return retVal;
+        }
+
+        /**
+         * Return a node with the pair at slot set.
+         */
+        BitmapNode set(final Edit edit, final int slot, final Object key, final Object value) {
+            final BitmapNode retVal = ensureEditable(edit);
+            retVal.array[slot] = key;
+            retVal.array[slot + 1] = value;
+
+            return retVal;
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key) {
+            final int bit = bit(hash, shift);
+            if (0 == (bitmap & bit)) {
+                return NOT_FOUND;
+            }
+
+            final int index = index(bit);
+            final Object storedKey = array[2 * index];
+            final Object storedValue = array[2 * index + 1];
+
+            if (null == storedKey) {
+                return ((Node) storedValue).find(shift + BITS, hash, key);
+            }
+
+            return key.equals(storedKey) ? storedValue : NOT_FOUND;
+        }
+
+        @Override
+        Node put(final Edit edit, final int shift, final int hash, final Object key, final Object value, final Change change) {
+            final int bit = bit(hash, shift);
+            final int index = index(bit);
+
+            if (0 != (bitmap & bit)) {
+                final Object storedKey = array[2 * index];
+                final Object storedValue = array[2 * index + 1];
+
+                if (null == storedKey) {
+                    final Node node = ((Node) storedValue).put(edit, shift + BITS, hash, key, value, change);
+
+                    return node == storedValue ? this : set(edit, 2 * index + 1, node);
+                }
+
+                if (key.equals(storedKey)) {
+                    change.old = storedValue;
+
+                    return value == storedValue ? this : set(edit, 2 * index + 1, value);
+                }
+
+                change.added = true;
+
+                return set(edit, 2 * index, null, createNode(edit, shift + BITS, storedKey, storedValue, hash, key, value));
+            }
+
+            change.added = true;
+
+            final int count = Integer.bitCount(bitmap);
+
+            if (isEditable(edit) && array.length >= 2 * (count + 1)) {
+                System.arraycopy(array, 2 * index, array, 2 * (index + 1), 2 * (count - index));
+                array[2 * index] = key;
+                array[2 * index + 1] = value;
+                bitmap |= bit;
+
+                return this;
+            }
+
+            // Transient nodes grow with room to spare so bulk loads rarely copy.
+            final Object[] copy = new Object[null == edit ? 2 * (count + 1) : 2 * Math.min(32, count + 4)];
+            System.arraycopy(array, 0, copy, 0, 2 * index);
+            copy[2 * index] = key;
+            copy[2 * index + 1] = value;
+            System.arraycopy(array, 2 * index, copy, 2 * (index + 1), 2 * (count - index));
+
+            if (isEditable(edit)) {
+                array = copy;
+                bitmap |= bit;
+
+                return this;
+            }
+
+            return new BitmapNode(edit, bitmap | bit, copy);
+        }
+
+        /**
+         * Return a node without the pair for bit - null if now empty.
+         */
+        Node removePair(final Edit edit, final int bit, final int index) {
+            if (bitmap == bit) {
+                return null;
+            }
+
+            final int count = Integer.bitCount(bitmap);
+
+            if (isEditable(edit)) {
+                System.arraycopy(array, 2 * (index + 1), array, 2 * index, 2 * (count - index - 1));
+                array[2 * count - 2] = null;
+                array[2 * count - 1] = null;
+                bitmap ^= bit;
+
+                return this;
+            }
+
+            final Object[] copy = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, copy, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), copy, 2 * index, 2 * (count - index - 1));
+
+            return new BitmapNode(edit, bitmap ^ bit, copy);
+        }
+
+        @Override
+        Node remove(final Edit edit, final int shift, final int hash, final Object key, final Change change) {
+            final int bit = bit(hash, shift);
+            if (0 == (bitmap & bit)) {
+                return this;
+            }
+
+            final int index = index(bit);
+            final Object storedKey = array[2 * index];
+            final Object storedValue = array[2 * index + 1];
+
+            if (null == storedKey) {
+                final Node node = ((Node) storedValue).remove(edit, shift + BITS, hash, key, change);
+
+                if (node == storedValue) {
+                    return this;
+                }
+
+                return null == node ? removePair(edit, bit, index) : set(edit, 2 * index + 1, node);
+            }
+
+            if (!key.equals(storedKey)) {
+                return this;
+            }
+
+            change.removed = true;
+            change.old = storedValue;
+
+            return removePair(edit, bit, index);
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return 2 * Integer.bitCount(bitmap);
+        }
+    }
+
+    /**
+     * Keys whose hashes are equal.
+     */
+    static final class CollisionNode extends Node {
+
+        /**
+         * The hash of every key.
+         */
+        final int hash;
+
+        /**
+         * Our key/value pairs.
+         */
+        Object[] array;
+
+        CollisionNode(final Edit edit, final int hash, final Object[] array) {
+            super(edit);
+
+            this.hash = hash;
+            this.array = array;
+        }
+
+        /**
+         * Return the slot of key or -1.
+         */
+        int indexOf(final Object key) {
+            for (int index = 0; index < array.length; index += 2) {
+                if (key.equals(array[index])) {
+                    return index;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Return a node using array.
+         */
+        CollisionNode with(final Edit edit, final Object[] array) {
+            if (isEditable(edit)) {
+                this.array = array;
+
+                return this;
+            }
+
+            return new CollisionNode(edit, hash, array);
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key) {
+            final int index = indexOf(key);
+
+            return -1 == index ? NOT_FOUND : array[index + 1];
+        }
+
+        @Override
+        Node put(final Edit edit, final int shift, final int hash, final Object key, final Object value, final Change change) {
+            if (hash != this.hash) {
+                return new BitmapNode(edit, bit(this.hash, shift), new Object[]{null, this}).put(edit, shift, hash, key, value, change);
+            }
+
+            final int index = indexOf(key);
+
+            if (-1 != index) {
+                change.old = array[index + 1];
+                if (value == array[index + 1]) {
+                    return this;
+                }
+
+                if (isEditable(edit)) {
+                    array[index + 1] = value;
+
+                    return this;
+                }
+
+                final Object[] copy = array.clone();
+                copy[index + 1] = value;
+
+                return new CollisionNode(edit, hash, copy);
+            }
+
+            change.added = true;
+
+            final Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+
+            return with(edit, copy);
+        }
+
+        @Override
+        Node remove(final Edit edit, final int shift, final int hash, final Object key, final Change change) {
+            final int index = indexOf(key);
+            if (-1 == index) {
+                return this;
+            }
+
+            change.removed = true;
+            change.old = array[index + 1];
+
+            if (2 == array.length) {
+                return null;
+            }
+
+            final Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+
+            return with(edit, copy);
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+    }
+
+    /**
+     * Return the value of key in root or NOT_FOUND.
+     */
+    static Object find(final Node root, final Object key) {
+        return null == root || null == key ? NOT_FOUND : root.find(0, hash(key), key);
+    }
+
+    /**
+     * Walks the entries of a trie depth first.
+     */
+    static class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        /**
+         * The arrays we are walking.
+         */
+        final Object[][] arrays = new Object[MAX_DEPTH][];
+
+        /**
+         * Where we are in each array.
+         */
+        final int[] positions = new int[MAX_DEPTH];
+
+        /**
+         * How much of each array is in use.
+         */
+        final int[] lengths = new int[MAX_DEPTH];
+
+        /**
+         * The array we are in - -1 once done.
+         */
+        int depth = -1;
+
+        /**
+         * The entry next returns - null if none.
+         */
+        Map.Entry<K, V> next;
+
+        EntryIterator(final Node root) {
+            if (null != root) {
+                push(root);
+                advance();
+            }
+        }
+
+        final void push(final Node node) {
+            depth++;
+            arrays[depth] = node.array();
+            positions[depth] = 0;
+            lengths[depth] = node.length();
+        }
+
+        @SuppressWarnings("unchecked")
+        final void advance() {
+            next = null;
+
+            while (depth >= 0) {
+                if (positions[depth] >= lengths[depth]) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+
+                final Object key = arrays[depth][positions[depth]];
+                final Object value = arrays[depth][positions[depth] + 1];
+                positions[depth] += 2;
+
+                if (null == key) {
+                    push((Node) value);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) key, (V) value);
+
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+
+            final Map.Entry<K, V> retVal = next;
+            advance();
+
+            return retVal;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Use the map to remove!");
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A functional map with int keys that does not box them. Keys and values
+ * are held in parallel arrays - an open addressing table probed linearly and,
+ * on removal, shifted back so no tombstones are needed. The int taking
+ * methods never box; the Map methods box as the contract requires.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value.
+ */
+public class IntObjectFunctionalMap<V> extends AbstractMap<Integer, V> implements FunctionalMap<Integer, V> {
+
+    /**
+     * The smallest table we use.
+     */
+    static final int MIN_CAPACITY = 8;
+
+    /**
+     * The largest table we use.
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The most keys we hold - our largest table at our load factor of 3/4.
+     */
+    static final int MAX_SIZE = MAX_CAPACITY / 4 * 3;
+
+    /**
+     * Stands in for null values - null marks an empty slot.
+     */
+    static final Object NULL = new Object();
+
+    /**
+     * Our keys.
+     */
+    private int[] keys;
+
+    /**
+     * Our values, masked - null where empty.
+     */
+    private Object[] values;
+
+    /**
+     * How many keys we hold.
+     */
+    private int size;
+
+    /**
+     * Counts changes adding or removing keys - iterators use it to fail fast.
+     */
+    private int modCount;
+
+    /**
+     * Our entries.
+     */
+    private Set<Map.Entry<Integer, V>> entrySet;
+
+    /**
+     * Return the table capacity holding expectedSize keys within our load
+     * factor of 3/4.
+     */
+    static int toCapacity(final int expectedSize) {
+        if (expectedSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Expected size cannot exceed " + MAX_SIZE + "!");
+        }
+
+        int retVal = MIN_CAPACITY;
+
+        while (retVal * 3L < expectedSize * 4L) {
+            retVal <<= 1;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Sets how many keys we expect to hold.
+     *
+     * @param expectedSize how many keys we expect to hold.
+     *
+     * @throws IllegalArgumentException if expectedSize is negative or more
+     *                                  than MAX_SIZE.
+     */
+    public IntObjectFunctionalMap(final int expectedSize) {
+        IntegrityUtil.ensure(expectedSize, 0, "Expected size cannot be negative!");
+
+        this.keys = new int[toCapacity(expectedSize)];
+        this.values = new Object[keys.length];
+    }
+
+    /**
+     * Default constructor.
+     */
+    public IntObjectFunctionalMap() {
+        this(0);
+    }
+
+    /**
+     * Return value with null masked.
+     */
+    static Object mask(final Object value) {
+        return null == value ? NULL : value;
+    }
+
+    /**
+     * Return a masked value unmasked.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> V unmask(final Object value) {
+        return NULL == value ? null : (V) value;
+    }
+
+    /**
+     * Where key would ideally sit.
+     */
+    int home(final int key) {
+        final int hash = key * 0x9E3779B9;
+
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Return where key sits or -1 if not held.
+     */
+    int indexOf(final int key) {
+        for (int index = home(key);; index = (index + 1) & (keys.length - 1)) {
+            if (null == values[index]) {
+                return -1;
+            }
+
+            if (keys[index] == key) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Double our table.
+     *
+     * @throws IllegalStateException if our table is already MAX_CAPACITY.
+     */
+    void resize() {
+        if (keys.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("Cannot hold more than " + MAX_SIZE + " keys!");
+        }
+
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (null != oldValues[index]) {
+                int slot = home(oldKeys[index]);
+                while (null != values[slot]) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+
+                keys[slot] = oldKeys[index];
+                values[slot] = oldValues[index];
+            }
+        }
+    }
+
+    /**
+     * Remove the key at index, shifting back keys that probed past it. Should
+     * iterating have reached cursor, walking down, keys shifted from below
+     * cursor to at or above it are added to wrapped so they are not missed.
+     */
+    void delete(final int index, final int cursor, final List<Integer> wrapped) {
+        size--;
+        modCount++;
+
+        int hole = index;
+        values[hole] = null;
+
+        for (int next = (hole + 1) & (keys.length - 1); null != values[next]; next = (next + 1) & (keys.length - 1)) {
+            final int home = home(keys[next]);
+
+            if (((next - home) & (keys.length - 1)) >= ((next - hole) & (keys.length - 1))) {
+                if (null != wrapped && next < cursor && hole >= cursor) {
+                    wrapped.add(keys[next]);
+                }
+
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = null;
+                hole = next;
+            }
+        }
+    }
+
+    /**
+     * Return true if we hold key.
+     *
+     * @param key the key.
+     *
+     * @return true if held.
+     */
+    public boolean containsKey(final int key) {
+        return -1 != indexOf(key);
+    }
+
+    /**
+     * Return the value for key.
+     *
+     * @param key the key.
+     *
+     * @return the value or null if none.
+     */
+    public V get(final int key) {
+        final int index = indexOf(key);
+
+        return -1 == index ? null : IntObjectFunctionalMap.<V>unmask(values[index]);
+    }
+
+    /**
+     * Associate value with key.
+     *
+     * @param key   the key.
+     * @param value the value.
+     *
+     * @return the previous value or null if none.
+     */
+    public V put(final int key, final V value) {
+        int index = home(key);
+
+        for (; null != values[index]; index = (index + 1) & (keys.length - 1)) {
+            if (keys[index] == key) {
+                final V retVal = unmask(values[index]);
+                values[index] = mask(value);
+
+                return retVal;
+            }
+        }
+
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+
+            return put(key, value);
+        }
+
+        keys[index] = key;
+        values[index] = mask(value);
+        size++;
+        modCount++;
+
+        return null;
+    }
+
+    /**
+     * Remove key.
+     *
+     * @param key the key.
+     *
+     * @return the value removed or null if none.
+     */
+    public V remove(final int key) {
+        final int index = indexOf(key);
+        if (-1 == index) {
+            return null;
+        }
+
+        final V retVal = unmask(values[index]);
+        delete(index, 0, null);
+
+        return retVal;
+    }
+
+    /**
+     * Associate value with key.
+     *
+     * @param key   the key.
+     * @param value the value.
+     *
+     * @return self.
+     */
+    public IntObjectFunctionalMap<V> putF(final int key, final V value) {
+        put(key, value);
+
+        return this;
+    }
+
+    /**
+     * Remove key.
+     *
+     * @param key the key.
+     *
+     * @return self.
+     */
+    public IntObjectFunctionalMap<V> removeF(final int key) {
+        remove(key);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<Integer, V> putF(final Integer key, final V value) {
+        put(key, value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<Integer, V> putAllF(final Map<? extends Integer, ? extends V> map) {
+        putAll(map);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<Integer, V> removeF(final Integer key) {
+        remove(key);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof Integer && containsKey(((Integer) key).intValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(final Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(final Integer key, final V value) {
+        return put(IntegrityUtil.ensure(key, "Cannot have a null key!").intValue(), value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove(final Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        if (null == entrySet) {
+            entrySet = new EntrySet();
+        }
+
+        return entrySet;
+    }
+
+    /**
+     * An entry whose value writes through to us.
+     */
+    final class MapEntry extends SimpleEntry<Integer, V> {
+
+        /**
+         * Our serial version - SimpleEntry is Serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        MapEntry(final int key, final V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            super.setValue(value);
+
+            return put(getKey(), value);
+        }
+    }
+
+    /**
+     * Walks our table from the top down, then any keys removal shifted past
+     * the walk.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+
+        final List<Integer> wrapped = new ArrayList<>();
+
+        int cursor = keys.length;
+        int next = -1;
+        int wrappedNext;
+        int lastKey;
+        int last = -2;
+        int expectedModCount = modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        void advance() {
+            next = cursor - 1;
+            while (next >= 0 && null == values[next]) {
+                next--;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0 || wrappedNext < wrapped.size();
+        }
+
+        @Override
+        public Map.Entry<Integer, V> next() {
+            checkModCount();
+
+            if (next >= 0) {
+                cursor = next;
+                last = next;
+                lastKey = keys[next];
+
+                final Map.Entry<Integer, V> retVal = new MapEntry(lastKey, IntObjectFunctionalMap.<V>unmask(values[next]));
+                advance();
+
+                return retVal;
+            }
+
+            if (wrappedNext < wrapped.size()) {
+                last = -1;
+                lastKey = wrapped.get(wrappedNext++);
+
+                return new MapEntry(lastKey, get(lastKey));
+            }
+
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            if (-2 == last) {
+                throw new IllegalStateException();
+            }
+
+            checkModCount();
+
+            if (-1 == last) {
+                IntObjectFunctionalMap.this.remove(lastKey);
+            } else {
+                delete(last, cursor, wrapped);
+                advance();
+            }
+
+            last = -2;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Our entries.
+     */
+    final class EntrySet extends AbstractSet<Map.Entry<Integer, V>> {
+
+        @Override
+        public Iterator<Map.Entry<Integer, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+
+            return containsKey(entry.getKey()) && Objects.equals(get(entry.getKey()), entry.getValue());
+        }
+
+        @Override
+        public boolean remove(final Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+
+            IntObjectFunctionalMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            IntObjectFunctionalMap.this.clear();
+        }
+    }
+}
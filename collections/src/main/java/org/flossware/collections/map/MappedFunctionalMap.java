@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A read-mostly functional map whose entries live in a memory mapped file
+ * written by MappedFunctionalMapBuilder, so tables far larger than the heap
+ * cost almost none of it. Opening maps the file and reads its header - the
+ * operating system pages entries in as they are looked up.
+ *
+ * The file is an open addressing hash table: a header, the entries as length
+ * prefixed encoded keys and values, then a table of slots each holding an
+ * entry's offset, the hash of its encoded key and the key's length. Lookups
+ * encode the key and compare bytes, so keys are never decoded - codecs must
+ * encode equal keys to equal bytes. Files may exceed 2GB: they are mapped in
+ * regions no entry or slot straddles.
+ *
+ * Changes are kept on the heap in front of the file and are lost when the map
+ * is discarded - rebuild the file to keep them. Reads may run concurrently
+ * with each other and with changes.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public class MappedFunctionalMap<K, V> extends AbstractMap<K, V> implements FunctionalMap<K, V> {
+
+    /**
+     * Identifies our files.
+     */
+    public static final int MAGIC = 0x464C4D4D;
+
+    /**
+     * The version of our file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes before the first entry.
+     */
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * Bytes per slot: entry offset, key hash and key length.
+     */
+    static final int SLOT_SIZE = 16;
+
+    /**
+     * Marks the padding before a region boundary.
+     */
+    static final int PADDING = -1;
+
+    /**
+     * The length of a null value - it has no bytes.
+     */
+    static final int NULL_LENGTH = -1;
+
+    /**
+     * Regions are 2^REGION_BITS bytes.
+     */
+    static final int REGION_BITS = 30;
+
+    /**
+     * Marks a key removed from the file.
+     */
+    static final Object REMOVED = new Object();
+
+    /**
+     * Stands in for null values in our changes.
+     */
+    static final Object NULL = new Object();
+
+    /**
+     * Encodes keys.
+     */
+    private final Codec<K> keyCodec;
+
+    /**
+     * Decodes values.
+     */
+    private final Codec<V> valueCodec;
+
+    /**
+     * The file mapped.
+     */
+    private final ByteBuffer[] regions;
+
+    /**
+     * Regions are 2^regionBits bytes.
+     */
+    private final int regionBits;
+
+    /**
+     * How many keys the file holds.
+     */
+    private final long fileSize;
+
+    /**
+     * How many slots the file has - a power of two.
+     */
+    private final long slots;
+
+    /**
+     * Where the slots start.
+     */
+    private final long slotTable;
+
+    /**
+     * Changes made since the file was opened.
+     */
+    private final ConcurrentHashMap<K, Object> changes;
+
+    /**
+     * Writers take turns holding this.
+     */
+    private final ReentrantLock writeLock;
+
+    /**
+     * True once clear() drops everything in the file.
+     */
+    private volatile boolean isFileCleared;
+
+    /**
+     * How many keys we hold.
+     */
+    private volatile int size;
+
+    /**
+     * Our entries.
+     */
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Maps file.
+     *
+     * @param file       the file written by MappedFunctionalMapBuilder.
+     * @param keyCodec   encodes keys.
+     * @param valueCodec decodes values.
+     *
+     * @throws IllegalArgumentException if any parameter is null or file is not
+     *                                  one of ours.
+     * @throws IllegalStateException    if file cannot be read.
+     */
+    public MappedFunctionalMap(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+        IntegrityUtil.ensure(file, "Must have a file!");
+
+        this.keyCodec = IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+        this.valueCodec = IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            if (randomAccessFile.length() < HEADER_SIZE || MAGIC != randomAccessFile.readInt()) {
+                throw new IllegalArgumentException("Not a mapped map [" + file + "]");
+            }
+
+            if (VERSION != randomAccessFile.readInt()) {
+                throw new IllegalArgumentException("Unsupported version of [" + file + "]");
+            }
+
+            this.regionBits = randomAccessFile.readInt();
+            randomAccessFile.readInt();
+            this.fileSize = randomAccessFile.readLong();
+            this.slots = randomAccessFile.readLong();
+            this.slotTable = randomAccessFile.readLong();
+
+            if (slotTable + slots * SLOT_SIZE != randomAccessFile.length()) {
+                throw new IllegalArgumentException("Truncated mapped map [" + file + "]");
+            }
+
+            this.regions = map(randomAccessFile.getChannel(), FileChannel.MapMode.READ_ONLY, randomAccessFile.length(), regionBits);
+        } catch (final IOException ioException) {
+            throw new IllegalStateException("Could not map [" + file + "]", ioException);
+        }
+
+        this.changes = new ConcurrentHashMap<>();
+        this.writeLock = new ReentrantLock();
+        this.size = (int) Math.min(Integer.MAX_VALUE, fileSize);
+    }
+
+    /**
+     * Map length bytes of channel in regions of 2^regionBits bytes.
+     */
+    static ByteBuffer[] map(final FileChannel channel, final FileChannel.MapMode mode, final long length, final int regionBits) throws IOException {
+        final long regionSize = 1L << regionBits;
+        final ByteBuffer[] retVal = new ByteBuffer[(int) ((length + regionSize - 1) >>> regionBits)];
+
+        for (int region = 0; region < retVal.length; region++) {
+            final long start = (long) region << regionBits;
+
+            retVal[region] = channel.map(mode, start, Math.min(regionSize, length - start));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the int at position.
+     */
+    static int getInt(final ByteBuffer[] regions, final int regionBits, final long position) {
+        return regions[(int) (position >>> regionBits)].getInt((int) (position & ((1L << regionBits) - 1)));
+    }
+
+    /**
+     * Return the long at position.
+     */
+    static long getLong(final ByteBuffer[] regions, final int regionBits, final long position) {
+        return regions[(int) (position >>> regionBits)].getLong((int) (position & ((1L << regionBits) - 1)));
+    }
+
+    /**
+     * Return the length bytes at position.
+     */
+    static byte[] getBytes(final ByteBuffer[] regions, final int regionBits, final long position, final int length) {
+        final ByteBuffer region = regions[(int) (position >>> regionBits)];
+        final int offset = (int) (position & ((1L << regionBits) - 1));
+        final byte[] retVal = new byte[length];
+
+        for (int index = 0; index < length; index++) {
+            retVal[index] = region.get(offset + index);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return true if the bytes at position are bytes.
+     */
+    static boolean equals(final ByteBuffer[] regions, final int regionBits, final long position, final byte[] bytes) {
+        final ByteBuffer region = regions[(int) (position >>> regionBits)];
+        final int offset = (int) (position & ((1L << regionBits) - 1));
+
+        for (int index = 0; index < bytes.length; index++) {
+            if (bytes[index] != region.get(offset + index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the hash of an encoded key.
+     */
+    static int hash(final byte[] bytes) {
+        int retVal = 0x811C9DC5;
+        for (final byte value : bytes) {
+            retVal = (retVal ^ value) * 0x01000193;
+        }
+
+        retVal ^= retVal >>> 16;
+        retVal *= 0x85EBCA6B;
+
+        return retVal ^ (retVal >>> 13);
+    }
+
+    /**
+     * Return the position of the entry holding key in the file - -1 if none.
+     */
+    long find(final byte[] key) {
+        if (isFileCleared) {
+            return -1;
+        }
+
+        final int hash = hash(key);
+
+        for (long slot = hash & (slots - 1);; slot = (slot + 1) & (slots - 1)) {
+            final long position = slotTable + slot * SLOT_SIZE;
+            final long entry = getLong(regions, regionBits, position);
+
+            if (0 == entry) {
+                return -1;
+            }
+
+            if (hash == getInt(regions, regionBits, position + 8) && key.length == getInt(regions, regionBits, position + 12) && equals(regions, regionBits, entry + 4, key)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Return the position of the entry holding key in the file - -1 if none
+     * or key is not one of ours.
+     */
+    @SuppressWarnings("unchecked")
+    long findKey(final Object key) {
+        final byte[] encoded;
+
+        try {
+            encoded = keyCodec.encode((K) key);
+        } catch (final ClassCastException classCastException) {
+            return -1;
+        }
+
+        return null == encoded ? -1 : find(encoded);
+    }
+
+    /**
+     * Return the key of the entry at position.
+     */
+    K decodeKey(final long entry) {
+        return keyCodec.decode(getBytes(regions, regionBits, entry + 4, getInt(regions, regionBits, entry)));
+    }
+
+    /**
+     * Return the value of the entry at position.
+     */
+    V decodeValue(final long entry) {
+        final long position = entry + 4 + getInt(regions, regionBits, entry);
+        final int length = getInt(regions, regionBits, position);
+
+        return NULL_LENGTH == length ? null : valueCodec.decode(getBytes(regions, regionBits, position + 4, length));
+    }
+
+    /**
+     * Return how many keys the file holds - changes aside.
+     *
+     * @return how many keys the file holds.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> putF(final K key, final V value) {
+        put(key, value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> putAllF(final Map<? extends K, ? extends V> map) {
+        putAll(map);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalMap<K, V> removeF(final K key) {
+        remove(key);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        if (null == key) {
+            return false;
+        }
+
+        final Object changed = changes.isEmpty() ? null : changes.get(key);
+        if (null != changed) {
+            return REMOVED != changed;
+        }
+
+        return -1 != findKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        if (null == key) {
+            return null;
+        }
+
+        final Object changed = changes.isEmpty() ? null : changes.get(key);
+        if (null != changed) {
+            return REMOVED == changed || NULL == changed ? null : (V) changed;
+        }
+
+        final long entry = findKey(key);
+
+        return -1 == entry ? null : decodeValue(entry);
+    }
+
+    /**
+     * Return true if we hold key - the caller holds the write lock.
+     */
+    boolean isHeld(final K key) {
+        final Object changed = changes.get(key);
+
+        return null == changed ? -1 != findKey(key) : REMOVED != changed;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    @Override
+    public V put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        writeLock.lock();
+
+        try {
+            final boolean isHeld = isHeld(key);
+            final V retVal = isHeld ? get(key) : null;
+
+            changes.put(key, null == value ? NULL : value);
+
+            if (!isHeld) {
+                size++;
+            }
+
+            return retVal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        if (null == key) {
+            return null;
+        }
+
+        writeLock.lock();
+
+        try {
+            if (!isHeld((K) key)) {
+                return null;
+            }
+
+            final V retVal = get(key);
+
+            if (-1 == findKey(key)) {
+                changes.remove(key);
+            } else {
+                changes.put((K) key, REMOVED);
+            }
+
+            size--;
+
+            return retVal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        writeLock.lock();
+
+        try {
+            isFileCleared = true;
+            changes.clear();
+            size = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (null == entrySet) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(final Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+
+                    return containsKey(entry.getKey()) && Objects.equals(get(entry.getKey()), entry.getValue());
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    /**
+     * Walks the file's slots skipping changed keys, then the changes.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        final Iterator<Map.Entry<K, Object>> changed = changes.entrySet().iterator();
+        long slot;
+        Map.Entry<K, V> next;
+        K last;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        void advance() {
+            next = null;
+
+            while (!isFileCleared && slot < slots) {
+                final long entry = getLong(regions, regionBits, slotTable + slot++ * SLOT_SIZE);
+
+                if (0 != entry) {
+                    final K key = decodeKey(entry);
+
+                    if (!changes.containsKey(key)) {
+                        next = new SimpleImmutableEntry<>(key, decodeValue(entry));
+
+                        return;
+                    }
+                }
+            }
+
+            while (changed.hasNext()) {
+                final Map.Entry<K, Object> entry = changed.next();
+
+                if (REMOVED != entry.getValue()) {
+                    next = new SimpleImmutableEntry<>(entry.getKey(), NULL == entry.getValue() ? null : (V) entry.getValue());
+
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+
+            final Map.Entry<K, V> retVal = next;
+            last = retVal.getKey();
+            advance();
+
+            return retVal;
+        }
+
+        @Override
+        public void remove() {
+            if (null == last) {
+                throw new IllegalStateException();
+            }
+
+            MappedFunctionalMap.this.remove(last);
+            last = null;
+        }
+    }
+}
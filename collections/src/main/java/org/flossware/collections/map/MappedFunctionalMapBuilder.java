@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import org.flossware.collections.cache.tier.Codec;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Writes the file a MappedFunctionalMap reads. Entries are streamed to disk as
+ * they are put, so building holds none of them on the heap; build() then maps
+ * the file and indexes the entries in place. The file is written beside and
+ * moved over the target, so readers never see part of one. Should a key be put
+ * more than once the last value wins.
+ *
+ * Not thread safe - build a file on one thread.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public class MappedFunctionalMapBuilder<K, V> {
+
+    /**
+     * The file to write.
+     */
+    private final File file;
+
+    /**
+     * The file written before it is moved over file.
+     */
+    private final File toWrite;
+
+    /**
+     * Encodes keys.
+     */
+    private final Codec<K> keyCodec;
+
+    /**
+     * Encodes values.
+     */
+    private final Codec<V> valueCodec;
+
+    /**
+     * Regions are 2^regionBits bytes.
+     */
+    private final int regionBits;
+
+    /**
+     * Where entries are written.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Where the next entry is written.
+     */
+    private long position;
+
+    /**
+     * How many entries were written.
+     */
+    private long entries;
+
+    /**
+     * True once built.
+     */
+    private boolean isBuilt;
+
+    /**
+     * Sets the file to write, the codecs to use and the size of the regions
+     * the file is mapped in.
+     */
+    MappedFunctionalMapBuilder(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec, final int regionBits) {
+        this.file = IntegrityUtil.ensure(file, "Must have a file!");
+        this.keyCodec = IntegrityUtil.ensure(keyCodec, "Must have a key codec!");
+        this.valueCodec = IntegrityUtil.ensure(valueCodec, "Must have a value codec!");
+        this.regionBits = regionBits;
+        this.toWrite = new File(file.getPath() + ".tmp");
+
+        try {
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(toWrite)));
+            this.output.write(new byte[MappedFunctionalMap.HEADER_SIZE]);
+        } catch (final IOException ioException) {
+            throw new IllegalStateException("Could not write [" + toWrite + "]", ioException);
+        }
+
+        this.position = MappedFunctionalMap.HEADER_SIZE;
+    }
+
+    /**
+     * Sets the file to write and the codecs to use.
+     *
+     * @param file       the file to write.
+     * @param keyCodec   encodes keys - equal keys must encode to equal bytes.
+     * @param valueCodec encodes values.
+     *
+     * @throws IllegalArgumentException if any parameter is null.
+     * @throws IllegalStateException    if the file cannot be written.
+     */
+    public MappedFunctionalMapBuilder(final File file, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+        this(file, keyCodec, valueCodec, MappedFunctionalMap.REGION_BITS);
+    }
+
+    /**
+     * Add an entry.
+     *
+     * @param key   the key.
+     * @param value the value.
+     *
+     * @return self.
+     *
+     * @throws IllegalArgumentException if key is null or the entry is larger
+     *                                  than a region.
+     * @throws IllegalStateException    if built or the file cannot be written.
+     */
+    public MappedFunctionalMapBuilder<K, V> put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        if (isBuilt) {
+            throw new IllegalStateException("Already built [" + file + "]");
+        }
+
+        final byte[] encodedKey = keyCodec.encode(key);
+        final byte[] encodedValue = null == value ? new byte[0] : valueCodec.encode(value);
+        final long length = (8L + encodedKey.length + encodedValue.length + 3) & ~3L;
+        final long regionSize = 1L << regionBits;
+
+        if (length > regionSize) {
+            throw new IllegalArgumentException("Entry for [" + key + "] is larger than a region!");
+        }
+
+        try {
+            final long remaining = regionSize - (position & (regionSize - 1));
+
+            if (length > remaining) {
+                output.writeInt(MappedFunctionalMap.PADDING);
+                output.write(new byte[(int) remaining - 4]);
+                position += remaining;
+            }
+
+            output.writeInt(encodedKey.length);
+            output.write(encodedKey);
+            output.writeInt(null == value ? MappedFunctionalMap.NULL_LENGTH : encodedValue.length);
+            output.write(encodedValue);
+            output.write(new byte[(int) (length - 8 - encodedKey.length - encodedValue.length)]);
+        } catch (final IOException ioException) {
+            throw new IllegalStateException("Could not write [" + toWrite + "]", ioException);
+        }
+
+        position += length;
+        entries++;
+
+        return this;
+    }
+
+    /**
+     * Add every entry of map.
+     *
+     * @param map the entries to add.
+     *
+     * @return self.
+     *
+     * @throws IllegalArgumentException if map is null or holds a null key.
+     * @throws IllegalStateException    if built or the file cannot be written.
+     */
+    public MappedFunctionalMapBuilder<K, V> putAll(final Map<? extends K, ? extends V> map) {
+        IntegrityUtil.ensure(map, 0, "Must have a map!");
+
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+
+        return this;
+    }
+
+    /**
+     * Index what was put, move the file into place and map it.
+     *
+     * @return the map read from the file.
+     *
+     * @throws IllegalStateException if built or the file cannot be written.
+     */
+    public MappedFunctionalMap<K, V> build() {
+        if (isBuilt) {
+            throw new IllegalStateException("Already built [" + file + "]");
+        }
+
+        isBuilt = true;
+
+        long slots = 8;
+        while (slots < entries * 2) {
+            slots <<= 1;
+        }
+
+        try {
+            output.close();
+
+            final long dataEnd = position;
+            final long slotTable = (dataEnd + MappedFunctionalMap.SLOT_SIZE - 1) & -MappedFunctionalMap.SLOT_SIZE;
+            long size = 0;
+
+            try (final RandomAccessFile randomAccessFile = new RandomAccessFile(toWrite, "rw")) {
+                randomAccessFile.setLength(slotTable + slots * MappedFunctionalMap.SLOT_SIZE);
+
+                final ByteBuffer[] regions = MappedFunctionalMap.map(randomAccessFile.getChannel(), FileChannel.MapMode.READ_WRITE, randomAccessFile.length(), regionBits);
+
+                for (long entry = MappedFunctionalMap.HEADER_SIZE; entry < dataEnd;) {
+                    final int keyLength = MappedFunctionalMap.getInt(regions, regionBits, entry);
+
+                    if (MappedFunctionalMap.PADDING == keyLength) {
+                        entry = ((entry >>> regionBits) + 1) << regionBits;
+
+                        continue;
+                    }
+
+                    if (index(regions, slotTable, slots, entry, keyLength)) {
+                        size++;
+                    }
+
+                    final int valueLength = MappedFunctionalMap.getInt(regions, regionBits, entry + 4 + keyLength);
+                    entry += (8L + keyLength + Math.max(0, valueLength) + 3) & ~3L;
+                }
+
+                final ByteBuffer header = regions[0];
+                header.putInt(0, MappedFunctionalMap.MAGIC);
+                header.putInt(4, MappedFunctionalMap.VERSION);
+                header.putInt(8, regionBits);
+                header.putLong(16, size);
+                header.putLong(24, slots);
+                header.putLong(32, slotTable);
+                header.putLong(40, System.currentTimeMillis());
+
+                for (final ByteBuffer region : regions) {
+                    ((MappedByteBuffer) region).force();
+                }
+            }
+
+            Files.move(toWrite.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException ioException) {
+            throw new IllegalStateException("Could not write [" + file + "]", ioException);
+        }
+
+        return new MappedFunctionalMap<>(file, keyCodec, valueCodec);
+    }
+
+    /**
+     * Put the entry at position into the slots - a later entry for the same
+     * key replaces an earlier one.
+     *
+     * @return true if the key was not already indexed.
+     */
+    boolean index(final ByteBuffer[] regions, final long slotTable, final long slots, final long entry, final int keyLength) {
+        final byte[] key = MappedFunctionalMap.getBytes(regions, regionBits, entry + 4, keyLength);
+        final int hash = MappedFunctionalMap.hash(key);
+
+        for (long slot = hash & (slots - 1);; slot = (slot + 1) & (slots - 1)) {
+            final long position = slotTable + slot * MappedFunctionalMap.SLOT_SIZE;
+            final ByteBuffer region = regions[(int) (position >>> regionBits)];
+            final int offset = (int) (position & ((1L << regionBits) - 1));
+            final long indexed = region.getLong(offset);
+
+            if (0 == indexed) {
+                region.putLong(offset, entry);
+                region.putInt(offset + 8, hash);
+                region.putInt(offset + 12, keyLength);
+
+                return true;
+            }
+
+            if (hash == region.getInt(offset + 8) && keyLength == region.getInt(offset + 12) && MappedFunctionalMap.equals(regions, regionBits, indexed + 4, key)) {
+                region.putLong(offset, entry);
+
+                return false;
+            }
+        }
+    }
+}
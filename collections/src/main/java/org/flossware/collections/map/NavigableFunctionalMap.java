@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.NavigableMap;
+
+/**
+ * A functional map whose keys are sorted. Ranges and prefixes are returned as
+ * views of the map rather than copies - finding where one starts costs a
+ * search, walking it costs only the entries in it, and changes through a view
+ * change the map.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public interface NavigableFunctionalMap<K, V> extends FunctionalMap<K, V>, NavigableMap<K, V> {
+
+    /**
+     * Return a view of the keys from fromKey to toKey.
+     *
+     * @param fromKey       the low end of the range.
+     * @param fromInclusive true if fromKey is in the range.
+     * @param toKey         the high end of the range.
+     * @param toInclusive   true if toKey is in the range.
+     *
+     * @return a view of the range.
+     */
+    NavigableFunctionalMap<K, V> subMapF(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive);
+
+    /**
+     * Return a view of the keys less than toKey.
+     *
+     * @param toKey     the high end of the range.
+     * @param inclusive true if toKey is in the range.
+     *
+     * @return a view of the range.
+     */
+    NavigableFunctionalMap<K, V> headMapF(K toKey, boolean inclusive);
+
+    /**
+     * Return a view of the keys greater than fromKey.
+     *
+     * @param fromKey   the low end of the range.
+     * @param inclusive true if fromKey is in the range.
+     *
+     * @return a view of the range.
+     */
+    NavigableFunctionalMap<K, V> tailMapF(K fromKey, boolean inclusive);
+
+    /**
+     * Return a view of the keys beginning with prefix.
+     *
+     * @param prefix the prefix.
+     *
+     * @return a view of the keys beginning with prefix.
+     *
+     * @throws IllegalArgumentException      if prefix is null or, when we are
+     *                                       a view, its keys lie outside our
+     *                                       range.
+     * @throws UnsupportedOperationException if we do not know how our keys
+     *                                       begin.
+     */
+    NavigableFunctionalMap<K, V> prefixMapF(K prefix);
+}
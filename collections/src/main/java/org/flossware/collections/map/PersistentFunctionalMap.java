@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * An immutable functional map backed by a hash array mapped trie. The
+ * functional methods return a new version sharing all but the path to the
+ * changed key with self, so a version is a free snapshot any number of
+ * threads may read while writers build the next. The Map mutators are not
+ * supported - use putF, putAllF and removeF, or asTransient() for bulk loads.
+ *
+ * Keys may not be null, values may.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public final class PersistentFunctionalMap<K, V> extends AbstractMap<K, V> implements FunctionalMap<K, V> {
+
+    /**
+     * The empty map.
+     */
+    private static final PersistentFunctionalMap<?, ?> EMPTY = new PersistentFunctionalMap<>(null, 0);
+
+    /**
+     * Our trie - null if empty.
+     */
+    private final HashTrie.Node root;
+
+    /**
+     * How many keys we hold.
+     */
+    private final int size;
+
+    /**
+     * Our entries.
+     */
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Sets our trie and how many keys it holds.
+     *
+     * @param root our trie.
+     * @param size how many keys root holds.
+     */
+    PersistentFunctionalMap(final HashTrie.Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Return the empty map.
+     *
+     * @param <K> the key.
+     * @param <V> the value.
+     *
+     * @return the empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentFunctionalMap<K, V> empty() {
+        return (PersistentFunctionalMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Return a map holding the mappings of map.
+     *
+     * @param <K> the key.
+     * @param <V> the value.
+     *
+     * @param map the mappings to hold.
+     *
+     * @return a map holding the mappings of map.
+     *
+     * @throws IllegalArgumentException if map is null or holds a null key.
+     */
+    public static <K, V> PersistentFunctionalMap<K, V> of(final Map<? extends K, ? extends V> map) {
+        return PersistentFunctionalMap.<K, V>empty().putAllF(map);
+    }
+
+    /**
+     * Return our trie.
+     */
+    HashTrie.Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Return a mutable copy of self for bulk changes - self is unaffected.
+     *
+     * @return a mutable copy of self.
+     */
+    public TransientFunctionalMap<K, V> asTransient() {
+        return new TransientFunctionalMap<>(this);
+    }
+
+    /**
+     * Return a version of self where key maps to value - self if key already
+     * mapped to value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     *
+     * @return a version where key maps to value.
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    @Override
+    public PersistentFunctionalMap<K, V> putF(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        final HashTrie.Change change = new HashTrie.Change();
+        final HashTrie.Node node = null == root
+                ? new HashTrie.BitmapNode(null, 0, new Object[0]).put(null, 0, HashTrie.hash(key), key, value, change)
+                : root.put(null, 0, HashTrie.hash(key), key, value, change);
+
+        return node == root ? this : new PersistentFunctionalMap<K, V>(node, change.added ? size + 1 : size);
+    }
+
+    /**
+     * Return a version of self also holding the mappings of map.
+     *
+     * @param map the mappings to add.
+     *
+     * @return a version also holding the mappings of map.
+     *
+     * @throws IllegalArgumentException if map is null or holds a null key.
+     */
+    @Override
+    public PersistentFunctionalMap<K, V> putAllF(final Map<? extends K, ? extends V> map) {
+        IntegrityUtil.ensure(map, 0, "Must have a map!");
+
+        if (map.isEmpty()) {
+            return this;
+        }
+
+        return asTransient().putAllF(map).persistent();
+    }
+
+    /**
+     * Return a version of self without key - self if key is not held.
+     *
+     * @param key the key to remove.
+     *
+     * @return a version without key.
+     */
+    @Override
+    public PersistentFunctionalMap<K, V> removeF(final K key) {
+        if (null == root || null == key) {
+            return this;
+        }
+
+        final HashTrie.Node node = root.remove(null, 0, HashTrie.hash(key), key, new HashTrie.Change());
+
+        return node == root ? this : new PersistentFunctionalMap<K, V>(node, size - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return HashTrie.NOT_FOUND != HashTrie.find(root, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Object retVal = HashTrie.find(root, key);
+
+        return HashTrie.NOT_FOUND == retVal ? null : (V) retVal;
+    }
+
+    /**
+     * Not supported - use putF.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public V put(final K key, final V value) {
+        throw new UnsupportedOperationException("Persistent maps are immutable - use putF!");
+    }
+
+    /**
+     * Not supported - use putAllF.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        throw new UnsupportedOperationException("Persistent maps are immutable - use putAllF!");
+    }
+
+    /**
+     * Not supported - use removeF.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public V remove(final Object key) {
+        throw new UnsupportedOperationException("Persistent maps are immutable - use removeF!");
+    }
+
+    /**
+     * Not supported - use empty().
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Persistent maps are immutable - use empty()!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (null == entrySet) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new HashTrie.EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(final Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                    final Object value = HashTrie.find(root, entry.getKey());
+
+                    return HashTrie.NOT_FOUND != value && Objects.equals(value, entry.getValue());
+                }
+            };
+        }
+
+        return entrySet;
+    }
+}
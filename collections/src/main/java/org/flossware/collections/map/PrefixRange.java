@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+/**
+ * Tells a NavigableFunctionalMap where the keys beginning with a prefix end.
+ * Those keys sort together starting at the prefix, so a prefix query is the
+ * range from the prefix to the upper bound returned here.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ */
+public interface PrefixRange<K> {
+
+    /**
+     * Prefixes of strings in their natural order.
+     */
+    PrefixRange<String> STRING = new PrefixRange<String>() {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String upperBound(final String prefix) {
+            int length = prefix.length();
+            while (length > 0 && Character.MAX_VALUE == prefix.charAt(length - 1)) {
+                length--;
+            }
+
+            return 0 == length ? null : prefix.substring(0, length - 1) + (char) (prefix.charAt(length - 1) + 1);
+        }
+    };
+
+    /**
+     * Return the least key greater than every key beginning with prefix.
+     *
+     * @param prefix the prefix.
+     *
+     * @return the least key greater than every key beginning with prefix or
+     *         null if there is none.
+     */
+    K upperBound(K prefix);
+}
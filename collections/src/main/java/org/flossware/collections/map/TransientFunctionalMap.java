@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A mutable view of a PersistentFunctionalMap for bulk loads. The first change
+ * to a node copies it, later changes are made in place, so loading n keys
+ * costs little more than n lookups. persistent() returns an immutable version
+ * in constant time; changes made afterwards copy again so that version is
+ * never affected.
+ *
+ * Not thread safe - confine a transient map to one thread. Its iterators do
+ * not support remove and must not be used across changes.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <K> the key.
+ * @param <V> the value.
+ */
+public final class TransientFunctionalMap<K, V> extends AbstractMap<K, V> implements FunctionalMap<K, V> {
+
+    /**
+     * The edit owning the nodes we may change in place.
+     */
+    private HashTrie.Edit edit;
+
+    /**
+     * Our trie - null if empty.
+     */
+    private HashTrie.Node root;
+
+    /**
+     * How many keys we hold.
+     */
+    private int size;
+
+    /**
+     * Sets the version we start from.
+     *
+     * @param map the version we start from.
+     *
+     * @throws IllegalArgumentException if map is null.
+     */
+    public TransientFunctionalMap(final PersistentFunctionalMap<K, V> map) {
+        IntegrityUtil.ensure(map, 0, "Must have a map!");
+
+        this.edit = new HashTrie.Edit();
+        this.root = map.getRoot();
+        this.size = map.size();
+    }
+
+    /**
+     * Default constructor - starts empty.
+     */
+    public TransientFunctionalMap() {
+        this(PersistentFunctionalMap.<K, V>empty());
+    }
+
+    /**
+     * Return an immutable version of what we hold.
+     *
+     * @return an immutable version of what we hold.
+     */
+    public PersistentFunctionalMap<K, V> persistent() {
+        edit = new HashTrie.Edit();
+
+        return new PersistentFunctionalMap<>(root, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransientFunctionalMap<K, V> putF(final K key, final V value) {
+        put(key, value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransientFunctionalMap<K, V> putAllF(final Map<? extends K, ? extends V> map) {
+        putAll(map);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransientFunctionalMap<K, V> removeF(final K key) {
+        remove(key);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return HashTrie.NOT_FOUND != HashTrie.find(root, key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Object retVal = HashTrie.find(root, key);
+
+        return HashTrie.NOT_FOUND == retVal ? null : (V) retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if key is null.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        IntegrityUtil.ensure(key, "Cannot have a null key!");
+
+        final HashTrie.Change change = new HashTrie.Change();
+
+        if (null == root) {
+            root = new HashTrie.BitmapNode(edit, 0, new Object[0]);
+        }
+
+        root = root.put(edit, 0, HashTrie.hash(key), key, value, change);
+
+        if (change.added) {
+            size++;
+        }
+
+        return (V) change.old;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if map holds a null key.
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        IntegrityUtil.ensure(map, 0, "Must have a map!");
+
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        if (null == root || null == key) {
+            return null;
+        }
+
+        final HashTrie.Change change = new HashTrie.Change();
+        root = root.remove(edit, 0, HashTrie.hash(key), key, change);
+
+        if (change.removed) {
+            size--;
+        }
+
+        return (V) change.old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new HashTrie.EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(final Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+
+                final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                final Object value = HashTrie.find(root, entry.getKey());
+
+                return HashTrie.NOT_FOUND != value && Objects.equals(value, entry.getValue());
+            }
+
+            @Override
+            public boolean remove(final Object o) {
+                if (!contains(o)) {
+                    return false;
+                }
+
+                TransientFunctionalMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                TransientFunctionalMap.this.clear();
+            }
+        };
+    }
+}
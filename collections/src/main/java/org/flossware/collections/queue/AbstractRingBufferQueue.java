@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.flossware.collections.collection.FunctionalCollection;
+import org.flossware.collections.collection.pipeline.Pipeline;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Abstract base class for bounded ring buffer queues. Values sit in a
+ * preallocated array indexed by two ever increasing counters - the producer's
+ * and the consumer's - so queueing allocates nothing and takes no lock. Each
+ * counter, with the copy its owner keeps of the other, sits on its own cache
+ * lines so producers and consumers do not slow each other through false
+ * sharing. Blocking operations wait using a WaitStrategy.
+ *
+ * Null values are not allowed. Here values can only be taken from the head:
+ * remove(Object), removeAll(), retainAll() and their functional forms throw
+ * UnsupportedOperationException, as removing from the middle would race the
+ * producers and the consumers - MpmcRingBufferQueue overrides them to remove
+ * values in place. Iterators walk a snapshot, so cannot remove, and peek may
+ * see a value a concurrent consumer is taking.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value queued.
+ */
+public abstract class AbstractRingBufferQueue<V> extends AbstractQueue<V> implements BlockingQueue<V>, FunctionalCollection<V> {
+
+    /**
+     * Longs between counters - 128 bytes keeps counters on separate cache
+     * lines even with adjacent line prefetching.
+     */
+    static final int PADDING = 16;
+
+    /**
+     * Where the next value will be put.
+     */
+    static final int PRODUCER = PADDING;
+
+    /**
+     * The producer's copy of the consumer counter.
+     */
+    static final int PRODUCER_LIMIT = PRODUCER + 1;
+
+    /**
+     * Where the next value will be taken.
+     */
+    static final int CONSUMER = 2 * PADDING;
+
+    /**
+     * The consumer's copy of the producer counter.
+     */
+    static final int CONSUMER_LIMIT = CONSUMER + 1;
+
+    /**
+     * The largest capacity we allow.
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Left in a slot whose value was removed in place - consumers skip it.
+     */
+    static final Object REMOVED = new Object();
+
+    /**
+     * How many values we hold - a power of two.
+     */
+    final int capacity;
+
+    /**
+     * Turns a counter into an index of buffer.
+     */
+    final int mask;
+
+    /**
+     * Our values.
+     */
+    final AtomicReferenceArray<V> buffer;
+
+    /**
+     * Our counters - only PRODUCER, PRODUCER_LIMIT, CONSUMER and
+     * CONSUMER_LIMIT are used.
+     */
+    final AtomicLongArray counters;
+
+    /**
+     * How we wait.
+     */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Sets our capacity and how we wait.
+     *
+     * @param capacity     how many values we hold - rounded up to a power of
+     *                     two.
+     * @param waitStrategy how blocking operations wait.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30, or waitStrategy is null.
+     */
+    protected AbstractRingBufferQueue(final int capacity, final WaitStrategy waitStrategy) {
+        if (IntegrityUtil.ensure(capacity, 2, "Capacity must be at least 2!") > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity cannot exceed " + MAX_CAPACITY + "!");
+        }
+
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.counters = new AtomicLongArray(3 * PADDING);
+        this.waitStrategy = IntegrityUtil.ensure(waitStrategy, "Must have a wait strategy!");
+    }
+
+    /**
+     * Return how blocking operations wait.
+     *
+     * @return our wait strategy.
+     */
+    protected WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Return the index of buffer for counter.
+     */
+    final int index(final long counter) {
+        return (int) counter & mask;
+    }
+
+    /**
+     * Ensure value is not null.
+     */
+    static <V> V ensureValue(final V value) {
+        return IntegrityUtil.ensure(value, "Cannot queue a null value!");
+    }
+
+    /**
+     * Ensure collection may be drained into.
+     */
+    final void ensureDrainable(final Collection<?> collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        if (this == collection) {
+            throw new IllegalArgumentException("Cannot drain to self!");
+        }
+    }
+
+    /**
+     * Return how many values we hold - a power of two.
+     *
+     * @return our capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Offer as many of the values in collection as there is room for, in
+     * order.
+     *
+     * @param collection the values to offer.
+     *
+     * @return how many values, from the first, were queued.
+     *
+     * @throws IllegalArgumentException if collection is null or holds null.
+     */
+    public int offerAll(final Collection<? extends V> collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        int retVal = 0;
+        for (final V value : collection) {
+            if (!offer(value)) {
+                break;
+            }
+
+            retVal++;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super V> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super V> collection, final int maxElements) {
+        ensureDrainable(collection);
+
+        int retVal = 0;
+        for (V value; retVal < maxElements && null != (value = poll()); retVal++) {
+            collection.add(value);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final V value) throws InterruptedException {
+        ensureValue(value);
+
+        for (int attempts = 0; !offer(value); attempts++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            waitStrategy.idle(attempts);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final V value, final long timeout, final TimeUnit unit) throws InterruptedException {
+        ensureValue(value);
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (int attempts = 0; !offer(value); attempts++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            waitStrategy.idle(attempts);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V take() throws InterruptedException {
+        V retVal;
+        for (int attempts = 0; null == (retVal = poll()); attempts++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            waitStrategy.idle(attempts);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        V retVal;
+        for (int attempts = 0; null == (retVal = poll()); attempts++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+
+            waitStrategy.idle(attempts);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V peek() {
+        final long producer = counters.get(PRODUCER);
+
+        for (long counter = counters.get(CONSUMER); counter < producer; counter++) {
+            final V value = buffer.get(index(counter));
+            if (REMOVED != value) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        while (true) {
+            final long consumer = counters.get(CONSUMER);
+            final long producer = counters.get(PRODUCER);
+
+            if (consumer == counters.get(CONSUMER)) {
+                return (int) Math.max(0, Math.min(capacity, producer - consumer));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return 0 == size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<V> iterator() {
+        final long consumer = counters.get(CONSUMER);
+        final long producer = counters.get(PRODUCER);
+        final List<V> retVal = new ArrayList<>();
+
+        for (long counter = Math.max(consumer, producer - capacity); counter < producer; counter++) {
+            final V value = buffer.get(index(counter));
+            if (null != value && REMOVED != value) {
+                retVal.add(value);
+            }
+        }
+
+        return Collections.unmodifiableList(retVal).iterator();
+    }
+
+    /**
+     * Not supported - values can only be taken from the head.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean remove(final Object value) {
+        throw new UnsupportedOperationException("Ring buffer queues can only remove from the head - cannot remove [" + value + "]");
+    }
+
+    /**
+     * Not supported - values can only be taken from the head.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        throw new UnsupportedOperationException("Ring buffer queues can only remove from the head - cannot remove " + collection);
+    }
+
+    /**
+     * Not supported - values can only be taken from the head.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        throw new UnsupportedOperationException("Ring buffer queues can only remove from the head - cannot retain " + collection);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> addF(final V value) {
+        add(value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> removeF(final V value) {
+        remove(value);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> addAllF(final Collection<? extends V> collection) {
+        addAll(collection);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalCollection<V> removeAllF(final Collection<?> collection) {
+        removeAll(collection);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pipeline<V> pipeline() {
+        return Pipeline.of(this);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A bounded ring buffer queue for any number of producing and consuming
+ * threads. Every slot carries a sequence saying whose turn it is - the
+ * producer of a lap or the consumer of it - so producers and consumers each
+ * claim a slot by compare-and-set of their counter, fill or empty it, and
+ * hand it on by advancing its sequence. A producer or consumer slower than
+ * its peers never blocks them from other slots.
+ *
+ * Values can be removed from anywhere, so we can back a ThreadPoolExecutor
+ * that removes or purges tasks: a removed value is swapped for a marker,
+ * which consumers skip. Until a consumer passes it, the marker holds its slot
+ * - so is counted by remainingCapacity() though not by size().
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value queued.
+ */
+public class MpmcRingBufferQueue<V> extends AbstractRingBufferQueue<V> {
+
+    /**
+     * The sequence of each slot - the producer counter that may fill it, or
+     * one more than the consumer counter that may empty it.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * How many removed values consumers have yet to skip.
+     */
+    private final AtomicLong removed;
+
+    /**
+     * Sets our capacity and how we wait.
+     *
+     * @param capacity     how many values we hold - rounded up to a power of
+     *                     two.
+     * @param waitStrategy how blocking operations wait.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30, or waitStrategy is null.
+     */
+    public MpmcRingBufferQueue(final int capacity, final WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+
+        this.removed = new AtomicLong();
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int index = 0; index < this.capacity; index++) {
+            sequences.lazySet(index, index);
+        }
+    }
+
+    /**
+     * Sets our capacity - blocking operations yield while waiting.
+     *
+     * @param capacity how many values we hold - rounded up to a power of two.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30.
+     */
+    public MpmcRingBufferQueue(final int capacity) {
+        this(capacity, new YieldWaitStrategy());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final V value) {
+        ensureValue(value);
+
+        while (true) {
+            final long producer = counters.get(PRODUCER);
+            final int index = index(producer);
+            final long sequence = sequences.get(index);
+
+            if (sequence == producer) {
+                if (counters.compareAndSet(PRODUCER, producer, producer + 1)) {
+                    buffer.lazySet(index, value);
+                    sequences.lazySet(index, producer + 1);
+
+                    return true;
+                }
+            } else if (sequence < producer) {
+                // The slot still holds the value from a lap ago.
+                return false;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V poll() {
+        while (true) {
+            final long consumer = counters.get(CONSUMER);
+            final int index = index(consumer);
+            final long sequence = sequences.get(index);
+
+            if (sequence == consumer + 1) {
+                if (counters.compareAndSet(CONSUMER, consumer, consumer + 1)) {
+                    // Taken atomically so a concurrent remove cannot also win.
+                    final V retVal = buffer.getAndSet(index, null);
+
+                    sequences.lazySet(index, consumer + capacity);
+
+                    if (REMOVED != retVal) {
+                        return retVal;
+                    }
+
+                    removed.decrementAndGet();
+                }
+            } else if (sequence < consumer + 1) {
+                // The slot has not been filled this lap.
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove values queued in collection - or not in it, should retain be
+     * true. Stop after the first unless all is true.
+     */
+    @SuppressWarnings("unchecked")
+    boolean removeValues(final Collection<?> collection, final boolean retain, final boolean all) {
+        final long producer = counters.get(PRODUCER);
+
+        boolean retVal = false;
+        for (long counter = counters.get(CONSUMER); counter < producer; counter++) {
+            final int index = index(counter);
+            if (sequences.get(index) != counter + 1) {
+                continue;
+            }
+
+            final V value = buffer.get(index);
+            if (null == value || REMOVED == value || retain == collection.contains(value)) {
+                continue;
+            }
+
+            if (buffer.compareAndSet(index, value, (V) REMOVED)) {
+                removed.incrementAndGet();
+
+                if (!all) {
+                    return true;
+                }
+
+                retVal = true;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final Object value) {
+        return null != value && removeValues(Collections.singleton(value), false, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        return removeValues(IntegrityUtil.ensure(collection, "Must have a collection!"), false, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        return removeValues(IntegrityUtil.ensure(collection, "Must have a collection!"), true, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return (int) Math.max(0, super.size() - removed.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int remainingCapacity() {
+        return capacity - super.size();
+    }
+}
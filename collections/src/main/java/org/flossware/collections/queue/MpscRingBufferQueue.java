@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.Collection;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A bounded ring buffer queue for any number of producing threads and one
+ * consuming thread - poll, take, drainTo and clear may only be called from
+ * the one. Producers claim slots by compare-and-set of the producer counter,
+ * offerAll claiming a whole batch at once, then fill them. The consumer never
+ * contends: it takes values in order, waiting briefly for a slot claimed but
+ * not yet filled, and drainTo publishes once for a batch.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value queued.
+ */
+public class MpscRingBufferQueue<V> extends AbstractRingBufferQueue<V> {
+
+    /**
+     * Sets our capacity and how we wait.
+     *
+     * @param capacity     how many values we hold - rounded up to a power of
+     *                     two.
+     * @param waitStrategy how blocking operations wait.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30, or waitStrategy is null.
+     */
+    public MpscRingBufferQueue(final int capacity, final WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    /**
+     * Sets our capacity - blocking operations yield while waiting.
+     *
+     * @param capacity how many values we hold - rounded up to a power of two.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30.
+     */
+    public MpscRingBufferQueue(final int capacity) {
+        this(capacity, new YieldWaitStrategy());
+    }
+
+    /**
+     * Claim up to wanted slots - return the first claimed, or -1 if there is
+     * no room. The count claimed is left in claimed[0].
+     */
+    long claim(final int wanted, final int[] claimed) {
+        while (true) {
+            final long producer = counters.get(PRODUCER);
+
+            // Producers share the copy of the consumer counter - a stale copy
+            // is only ever too low, which just means rereading the consumer.
+            if (producer + wanted - capacity > counters.get(PRODUCER_LIMIT)) {
+                counters.lazySet(PRODUCER_LIMIT, counters.get(CONSUMER));
+            }
+
+            final int room = (int) Math.min(wanted, capacity - (producer - counters.get(PRODUCER_LIMIT)));
+            if (room <= 0) {
+                return -1;
+            }
+
+            if (counters.compareAndSet(PRODUCER, producer, producer + room)) {
+                claimed[0] = room;
+
+                return producer;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final V value) {
+        ensureValue(value);
+
+        final long producer = claim(1, new int[1]);
+        if (-1 == producer) {
+            return false;
+        }
+
+        buffer.lazySet(index(producer), value);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int offerAll(final Collection<? extends V> collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        final Object[] values = collection.toArray();
+        for (final Object value : values) {
+            ensureValue(value);
+        }
+
+        if (0 == values.length) {
+            return 0;
+        }
+
+        final int[] claimed = new int[1];
+        final long producer = claim(values.length, claimed);
+        if (-1 == producer) {
+            return 0;
+        }
+
+        for (int value = 0; value < claimed[0]; value++) {
+            buffer.lazySet(index(producer + value), (V) values[value]);
+        }
+
+        return claimed[0];
+    }
+
+    /**
+     * Return the value at index once its producer has filled it - it has
+     * claimed the slot, so that is a matter of moments unless it was
+     * descheduled, so wait as our wait strategy says.
+     */
+    V await(final int index) {
+        V retVal;
+        for (int attempts = 0; null == (retVal = buffer.get(index)); attempts++) {
+            getWaitStrategy().idle(attempts);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V poll() {
+        final long consumer = counters.get(CONSUMER);
+        final int index = index(consumer);
+
+        V retVal = buffer.get(index);
+        if (null == retVal) {
+            if (consumer >= counters.get(PRODUCER)) {
+                return null;
+            }
+
+            retVal = await(index);
+        }
+
+        buffer.lazySet(index, null);
+        counters.lazySet(CONSUMER, consumer + 1);
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super V> collection, final int maxElements) {
+        ensureDrainable(collection);
+
+        final long consumer = counters.get(CONSUMER);
+        final int available = (int) Math.min(Math.max(0, maxElements), counters.get(PRODUCER) - consumer);
+
+        int retVal = 0;
+        try {
+            for (; retVal < available; retVal++) {
+                final int index = index(consumer + retVal);
+
+                collection.add(await(index));
+                buffer.lazySet(index, null);
+            }
+        } finally {
+            counters.lazySet(CONSUMER, consumer + retVal);
+        }
+
+        return retVal;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.concurrent.locks.LockSupport;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Spins, then yields, then parks between attempts - the cheapest to idle but
+ * the slowest to notice the queue change. Queues never wake parked threads, so
+ * a parked thread notices a change within parkNanos.
+ *
+ * @author Scot P. Floess
+ */
+public class ParkWaitStrategy implements WaitStrategy {
+
+    /**
+     * Attempts spun before yielding.
+     */
+    public static final int SPINS = 100;
+
+    /**
+     * Attempts yielded before parking.
+     */
+    public static final int YIELDS = 100;
+
+    /**
+     * Nanoseconds parked per attempt unless told otherwise.
+     */
+    public static final long DEFAULT_PARK_NANOS = 100000;
+
+    /**
+     * Nanoseconds parked per attempt.
+     */
+    private final long parkNanos;
+
+    /**
+     * Sets how long to park per attempt.
+     *
+     * @param parkNanos nanoseconds parked per attempt.
+     *
+     * @throws IllegalArgumentException if parkNanos is less than 1.
+     */
+    public ParkWaitStrategy(final long parkNanos) {
+        this.parkNanos = IntegrityUtil.ensure(parkNanos, 1, "Park nanos must be positive!");
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ParkWaitStrategy() {
+        this(DEFAULT_PARK_NANOS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void idle(final int attempts) {
+        if (attempts >= SPINS + YIELDS) {
+            LockSupport.parkNanos(parkNanos);
+        } else if (attempts >= SPINS) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.Collection;
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * A bounded ring buffer queue for exactly one producing thread and one
+ * consuming thread - offer, put and offerAll may only be called from the one,
+ * poll, take, drainTo and clear only from the other. Neither side ever
+ * writes the other's counter, so nothing is compare-and-set, and each side
+ * rereads the other's counter only when its copy says the queue is full or
+ * empty. offerAll and drainTo move a batch but publish once.
+ *
+ * @author Scot P. Floess
+ *
+ * @param <V> the type of value queued.
+ */
+public class SpscRingBufferQueue<V> extends AbstractRingBufferQueue<V> {
+
+    /**
+     * Sets our capacity and how we wait.
+     *
+     * @param capacity     how many values we hold - rounded up to a power of
+     *                     two.
+     * @param waitStrategy how blocking operations wait.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30, or waitStrategy is null.
+     */
+    public SpscRingBufferQueue(final int capacity, final WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    /**
+     * Sets our capacity - blocking operations yield while waiting.
+     *
+     * @param capacity how many values we hold - rounded up to a power of two.
+     *
+     * @throws IllegalArgumentException if capacity is less than 2 or more than
+     *                                  2^30.
+     */
+    public SpscRingBufferQueue(final int capacity) {
+        this(capacity, new YieldWaitStrategy());
+    }
+
+    /**
+     * Return how many values the producer may put from producer on.
+     */
+    int room(final long producer, final int wanted) {
+        if (producer + wanted - capacity > counters.get(PRODUCER_LIMIT)) {
+            counters.lazySet(PRODUCER_LIMIT, counters.get(CONSUMER));
+        }
+
+        return (int) Math.min(wanted, capacity - (producer - counters.get(PRODUCER_LIMIT)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final V value) {
+        ensureValue(value);
+
+        final long producer = counters.get(PRODUCER);
+
+        if (0 == room(producer, 1)) {
+            return false;
+        }
+
+        buffer.lazySet(index(producer), value);
+        counters.lazySet(PRODUCER, producer + 1);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int offerAll(final Collection<? extends V> collection) {
+        IntegrityUtil.ensure((Object) collection, "Must have a collection!");
+
+        final Object[] values = collection.toArray();
+        for (final Object value : values) {
+            ensureValue(value);
+        }
+
+        final long producer = counters.get(PRODUCER);
+        final int retVal = room(producer, values.length);
+
+        for (int value = 0; value < retVal; value++) {
+            buffer.lazySet(index(producer + value), (V) values[value]);
+        }
+
+        counters.lazySet(PRODUCER, producer + retVal);
+
+        return retVal;
+    }
+
+    /**
+     * Return how many values the consumer may take from consumer on.
+     */
+    int available(final long consumer, final int wanted) {
+        if (consumer + wanted > counters.get(CONSUMER_LIMIT)) {
+            counters.lazySet(CONSUMER_LIMIT, counters.get(PRODUCER));
+        }
+
+        return (int) Math.min(wanted, counters.get(CONSUMER_LIMIT) - consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V poll() {
+        final long consumer = counters.get(CONSUMER);
+
+        if (0 == available(consumer, 1)) {
+            return null;
+        }
+
+        final int index = index(consumer);
+        final V retVal = buffer.get(index);
+
+        buffer.lazySet(index, null);
+        counters.lazySet(CONSUMER, consumer + 1);
+
+        return retVal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super V> collection, final int maxElements) {
+        ensureDrainable(collection);
+
+        final long consumer = counters.get(CONSUMER);
+        final int available = available(consumer, Math.max(0, maxElements));
+
+        int retVal = 0;
+        try {
+            for (; retVal < available; retVal++) {
+                final int index = index(consumer + retVal);
+
+                collection.add(buffer.get(index));
+                buffer.lazySet(index, null);
+            }
+        } finally {
+            counters.lazySet(CONSUMER, consumer + retVal);
+        }
+
+        return retVal;
+    }
+}
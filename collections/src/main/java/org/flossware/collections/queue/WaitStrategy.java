@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+/**
+ * How a ring buffer queue waits when it is full to a producer or empty to a
+ * consumer - trading latency against the processor burnt waiting.
+ *
+ * @author Scot P. Floess
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait a little before trying again.
+     *
+     * @param attempts how many times we already waited for this operation.
+     */
+    void idle(int attempts);
+}
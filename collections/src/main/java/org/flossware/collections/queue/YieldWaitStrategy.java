@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import org.flossware.common.IntegrityUtil;
+
+/**
+ * Spins for a while, then yields the processor between attempts.
+ *
+ * @author Scot P. Floess
+ */
+public class YieldWaitStrategy implements WaitStrategy {
+
+    /**
+     * Attempts spun before yielding unless told otherwise.
+     */
+    public static final int DEFAULT_SPINS = 100;
+
+    /**
+     * Attempts spun before yielding.
+     */
+    private final int spins;
+
+    /**
+     * Sets how many attempts spin before yielding.
+     *
+     * @param spins attempts spun before yielding.
+     *
+     * @throws IllegalArgumentException if spins is negative.
+     */
+    public YieldWaitStrategy(final int spins) {
+        this.spins = IntegrityUtil.ensure(spins, 0, "Spins cannot be negative!");
+    }
+
+    /**
+     * Default constructor.
+     */
+    public YieldWaitStrategy() {
+        this(DEFAULT_SPINS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void idle(final int attempts) {
+        if (attempts >= spins) {
+            Thread.yield();
+        }
+    }
+}
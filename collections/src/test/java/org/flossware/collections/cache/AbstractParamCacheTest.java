@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.negative.ExpiringNegativeCache;
+import org.flossware.collections.cache.negative.NegativeCache;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the AbstractParamCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractParamCacheTest {
+
+    static final int THREADS = 32;
+
+    class StubParamCache extends AbstractParamCache<String, Object, String> {
+
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicInteger destroys = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        final Set<String> omitted = Collections.synchronizedSet(new HashSet<String>());
+
+        volatile CountDownLatch createGate = new CountDownLatch(0);
+        volatile boolean fail;
+
+        StubParamCache(final NegativeCache<String> negativeCache) {
+            super(new NullCachePolicy<String, Object>(), new NullStatsCounter(), negativeCache);
+        }
+
+        StubParamCache() {
+        }
+
+        @Override
+        protected Map<String, Object> createAll(final Set<String> keys, final String param) {
+            batches.incrementAndGet();
+
+            final Map<String, Object> retVal = super.createAll(keys, param);
+            retVal.keySet().removeAll(omitted);
+
+            return retVal;
+        }
+
+        @Override
+        protected Object create(final String key, final String param) {
+            creates.incrementAndGet();
+
+            try {
+                createGate.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (fail) {
+                throw new IllegalStateException("Cannot create [" + key + "]");
+            }
+
+            return new Object();
+        }
+
+        @Override
+        protected void destroy(final String key, final Object value) {
+            destroys.incrementAndGet();
+        }
+    }
+
+    private StubParamCache cache;
+
+    private ExecutorService executor;
+
+    /**
+     * Have every thread call get for key at the same time.
+     */
+    List<Future<Object>> contend(final String key) throws InterruptedException {
+        final CountDownLatch startGate = new CountDownLatch(1);
+        final List<Future<Object>> retVal = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            retVal.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    startGate.await();
+
+                    return cache.get(key, "param");
+                }
+            }));
+        }
+
+        startGate.countDown();
+
+        return retVal;
+    }
+
+    @Before
+    public void init() {
+        cache = new StubParamCache();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_get() {
+        final Object value = cache.get("key", "param");
+
+        Assert.assertSame("Should be cached", value, cache.get("key", "param"));
+        Assert.assertEquals("Should have created once", 1, cache.creates.get());
+    }
+
+    @Test
+    public void test_get_contention() throws Exception {
+        cache.createGate = new CountDownLatch(1);
+
+        final List<Future<Object>> results = contend("key");
+
+        Thread.sleep(100);
+        cache.createGate.countDown();
+
+        final Object value = results.get(0).get();
+        for (final Future<Object> result : results) {
+            Assert.assertSame("Should all share the same value", value, result.get());
+        }
+
+        Assert.assertEquals("Should have created exactly once", 1, cache.creates.get());
+        Assert.assertEquals("Should have destroyed nothing", 0, cache.destroys.get());
+    }
+
+    @Test
+    public void test_get_contention_manyKeys() throws Exception {
+        final List<Future<Object>> results = new ArrayList<>();
+
+        for (int key = 0; key < 10; key++) {
+            results.addAll(contend("key" + key));
+        }
+
+        for (final Future<Object> result : results) {
+            Assert.assertNotNull("Should have a value", result.get());
+        }
+
+        Assert.assertEquals("Should have created exactly once per key", 10, cache.creates.get());
+    }
+
+    @Test
+    public void test_get_contention_failure() throws Exception {
+        cache.createGate = new CountDownLatch(1);
+        cache.fail = true;
+
+        final List<Future<Object>> results = contend("key");
+
+        Thread.sleep(100);
+        cache.createGate.countDown();
+
+        for (final Future<Object> result : results) {
+            try {
+                result.get();
+                Assert.fail("Should have shared the failure");
+            } catch (final ExecutionException executionException) {
+                Assert.assertTrue("Should be the create failure", executionException.getCause() instanceof IllegalStateException);
+            }
+        }
+
+        Assert.assertEquals("Should have created exactly once", 1, cache.creates.get());
+
+        cache.fail = false;
+        Assert.assertNotNull("Should load again after a failure", cache.get("key", "param"));
+        Assert.assertEquals("Should have created again", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_remove() {
+        final Object value = cache.get("key", "param");
+
+        cache.remove("key");
+
+        Assert.assertEquals("Should have destroyed", 1, cache.destroys.get());
+        Assert.assertNotSame("Should be a new value", value, cache.get("key", "param"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_get_nullKey() {
+        cache.get(null, "param");
+    }
+
+    @Test
+    public void test_getAll() {
+        final Object cached = cache.get("a", "param");
+
+        final Map<String, Object> values = cache.getAll(Arrays.asList("c", "a", "b", "c"), "param");
+
+        Assert.assertEquals("Should be in the order asked for", Arrays.asList("c", "a", "b"), new ArrayList<>(values.keySet()));
+        Assert.assertSame("Should use the cached value", cached, values.get("a"));
+        Assert.assertEquals("Should have created only the missing keys", 3, cache.creates.get());
+        Assert.assertEquals("Should have created the missing keys together", 1, cache.batches.get());
+        Assert.assertSame("Should be cached", values.get("b"), cache.get("b", "param"));
+
+        cache.getAll(Arrays.asList("a", "b", "c"), "param");
+        Assert.assertEquals("Should not have created when all cached", 1, cache.batches.get());
+    }
+
+    @Test
+    public void test_getAll_omitted() {
+        cache.omitted.add("b");
+
+        final Map<String, Object> values = cache.getAll(Arrays.asList("a", "b"), "param");
+
+        Assert.assertNotNull("Should have created the omitted key on its own", values.get("b"));
+        Assert.assertEquals("Should have created the omitted key twice", 3, cache.creates.get());
+    }
+
+    @Test
+    public void test_getAll_contention() throws Exception {
+        cache.createGate = new CountDownLatch(1);
+
+        final Future<Map<String, Object>> batch = executor.submit(new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() {
+                return cache.getAll(Arrays.asList("a", "b"), "param");
+            }
+        });
+
+        while (0 == cache.creates.get()) {
+            Thread.sleep(10);
+        }
+
+        final List<Future<Object>> results = contend("b");
+
+        Thread.sleep(100);
+        cache.createGate.countDown();
+
+        final Object value = batch.get().get("b");
+        for (final Future<Object> result : results) {
+            Assert.assertSame("Should all share the batch's value", value, result.get());
+        }
+
+        Assert.assertEquals("Should have created exactly once per key", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_getAll_failure() {
+        cache.fail = true;
+
+        try {
+            cache.getAll(Arrays.asList("a", "b"), "param");
+            Assert.fail("Should have failed");
+        } catch (final IllegalStateException illegalStateException) {
+        }
+
+        cache.fail = false;
+
+        Assert.assertEquals("Should load again after a failure", 2, cache.getAll(Arrays.asList("a", "b"), "param").size());
+    }
+
+    @Test
+    public void test_negativeCache() {
+        final ExpiringNegativeCache<String> negativeCache = new ExpiringNegativeCache<>(1, TimeUnit.HOURS);
+
+        cache = new StubParamCache(negativeCache);
+        cache.fail = true;
+
+        IllegalStateException failure = null;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                cache.get("key", "param");
+                Assert.fail("Should have failed");
+            } catch (final IllegalStateException illegalStateException) {
+                Assert.assertTrue("Should be the remembered failure", null == failure || failure == illegalStateException);
+                failure = illegalStateException;
+            }
+        }
+
+        Assert.assertEquals("Should have created once", 1, cache.creates.get());
+
+        try {
+            cache.getAll(Arrays.asList("key", "other"), "param");
+            Assert.fail("Should have failed");
+        } catch (final IllegalStateException illegalStateException) {
+        }
+
+        Assert.assertEquals("Should only have tried the other key", 2, cache.creates.get());
+        Assert.assertNull("Should not remember a failed batch against its keys", negativeCache.get("other"));
+
+        cache.fail = false;
+        cache.remove("key");
+
+        Assert.assertNotNull("Should create once invalidated", cache.get("key", "param"));
+        Assert.assertEquals("Should have nothing remembered", 0, negativeCache.size());
+    }
+}
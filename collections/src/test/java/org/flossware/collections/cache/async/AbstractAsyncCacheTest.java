@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.async;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.Cache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the AbstractAsyncCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractAsyncCacheTest {
+
+    class StubAsyncCache extends AbstractAsyncCache<String, String> {
+
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicInteger destroys = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+
+        volatile CountDownLatch createGate = new CountDownLatch(0);
+        volatile boolean fail;
+        volatile boolean returnNull;
+
+        StubAsyncCache() {
+            super(executor);
+        }
+
+        @Override
+        protected String create(final String key) {
+            creates.incrementAndGet();
+
+            try {
+                createGate.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (fail) {
+                throw new IllegalStateException("Cannot create [" + key + "]");
+            }
+
+            return returnNull ? null : "value-" + key;
+        }
+
+        @Override
+        protected Map<String, String> createAll(final Set<String> keys) {
+            batches.incrementAndGet();
+
+            if (fail) {
+                throw new IllegalStateException("Cannot create " + keys);
+            }
+
+            final Map<String, String> retVal = new HashMap<>();
+            for (final String key : keys) {
+                retVal.put(key, "batch-" + key);
+            }
+
+            return retVal;
+        }
+
+        @Override
+        protected void destroy(final String key, final String value) {
+            destroys.incrementAndGet();
+        }
+    }
+
+    private ExecutorService executor;
+
+    private StubAsyncCache cache;
+
+    @Before
+    public void init() {
+        executor = Executors.newFixedThreadPool(4);
+        cache = new StubAsyncCache();
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_get_doesNotBlock() throws Exception {
+        cache.createGate = new CountDownLatch(1);
+
+        final CacheFuture<String> future = cache.get("key");
+
+        Assert.assertFalse("Should not have waited for the value", future.isDone());
+        Assert.assertSame("Should share the in flight load", future, cache.get("key"));
+
+        cache.createGate.countDown();
+
+        Assert.assertEquals("Should compute the value", "value-key", future.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should have created once", 1, cache.creates.get());
+    }
+
+    @Test
+    public void test_get_failure() throws Exception {
+        cache.fail = true;
+
+        final CacheFuture<String> future = cache.get("key");
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Should have failed");
+        } catch (final ExecutionException executionException) {
+            Assert.assertTrue("Should be the create failure", executionException.getCause() instanceof IllegalStateException);
+        }
+
+        Assert.assertTrue("Should be failed", future.isFailed());
+
+        cache.fail = false;
+
+        Assert.assertEquals("Failed future should have been removed", "value-key", cache.get("key").get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should have created again", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_get_null() throws Exception {
+        cache.returnNull = true;
+
+        final CacheFuture<String> future = cache.get("key");
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Should have failed");
+        } catch (final ExecutionException executionException) {
+            Assert.assertTrue("Should reject a null value", executionException.getCause() instanceof IllegalArgumentException);
+        }
+
+        cache.returnNull = false;
+
+        Assert.assertEquals("Null future should have been removed", "value-key", cache.get("key").get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should have created again", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_addListener() throws Exception {
+        final CountDownLatch notified = new CountDownLatch(2);
+        final Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                notified.countDown();
+            }
+        };
+
+        cache.createGate = new CountDownLatch(1);
+
+        final CacheFuture<String> future = cache.get("key");
+        future.addListener(listener);
+
+        cache.createGate.countDown();
+        future.get(5, TimeUnit.SECONDS);
+
+        future.addListener(listener, executor);
+
+        Assert.assertTrue("Should have notified both listeners", notified.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_synchronous() {
+        final Cache<String, String> synchronous = cache.synchronous();
+
+        Assert.assertEquals("Should wait for the value", "value-key", synchronous.get("key"));
+        Assert.assertTrue("Should share storage", cache.get("key").isDone());
+        Assert.assertEquals("Should have created once", 1, cache.creates.get());
+
+        synchronous.put("other", "explicit");
+        Assert.assertTrue("Should share storage", cache.get("other").isDone());
+        Assert.assertEquals("Should share storage", 1, cache.creates.get());
+    }
+
+    @Test
+    public void test_remove() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        cache.get("key").addListener(new Runnable() {
+            @Override
+            public void run() {
+                completed.countDown();
+            }
+        });
+
+        Assert.assertTrue("Should have completed", completed.await(5, TimeUnit.SECONDS));
+
+        cache.remove("key");
+
+        Assert.assertEquals("Should have destroyed the value", 1, cache.destroys.get());
+    }
+
+    @Test
+    public void test_getAll() throws Exception {
+        cache.get("a").get(5, TimeUnit.SECONDS);
+
+        final Map<String, CacheFuture<String>> futures = cache.getAll(Arrays.asList("a", "b", "c"));
+
+        Assert.assertEquals("Should use the cached value", "value-a", futures.get("a").get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should create in a batch", "batch-b", futures.get("b").get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should create in a batch", "batch-c", futures.get("c").get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Should have created the missing keys together", 1, cache.batches.get());
+        Assert.assertSame("Should be cached", futures.get("b"), cache.get("b"));
+        Assert.assertEquals("Should wait for the values", "batch-c", cache.synchronous().getAll(Arrays.asList("c")).get("c"));
+    }
+
+    @Test
+    public void test_getAll_failure() throws Exception {
+        cache.fail = true;
+
+        for (final CacheFuture<String> future : cache.getAll(Arrays.asList("a", "b")).values()) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("Should have failed");
+            } catch (final ExecutionException executionException) {
+                Assert.assertTrue("Should be the create failure", executionException.getCause() instanceof IllegalStateException);
+            }
+        }
+
+        cache.fail = false;
+
+        Assert.assertEquals("Failed futures should have been removed", "batch-a", cache.synchronous().getAll(Arrays.asList("a", "b")).get("a"));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.near;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.AbstractCache;
+import org.flossware.collections.cache.policy.Ticker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the NearCache class.
+ *
+ * @author Scot P. Floess
+ */
+public class NearCacheTest {
+
+    static class StubCache extends AbstractCache<String, Object> {
+
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicInteger gets = new AtomicInteger();
+
+        @Override
+        protected Object create(final String key) {
+            creates.incrementAndGet();
+
+            return new Object();
+        }
+
+        @Override
+        public Object get(final String key, final String param) {
+            gets.incrementAndGet();
+
+            return super.get(key, param);
+        }
+    }
+
+    static class StubTicker implements Ticker {
+
+        long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+    }
+
+    private StubCache cache;
+
+    private NearCache<String, Object> nearCache;
+
+    private ExecutorService executor;
+
+    Object getElsewhere(final String key) throws Exception {
+        return executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return nearCache.get(key);
+            }
+        }).get();
+    }
+
+    @Before
+    public void init() {
+        cache = new StubCache();
+        nearCache = new NearCache<>(cache, 4);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_get() {
+        final Object value = nearCache.get("key");
+
+        for (int count = 0; count < 10; count++) {
+            Assert.assertSame("Should be the same value", value, nearCache.get("key"));
+        }
+
+        Assert.assertEquals("Should only have asked the shared cache once", 1, cache.gets.get());
+    }
+
+    @Test
+    public void test_collision() {
+        for (int key = 0; key < 100; key++) {
+            Assert.assertSame("Should be the shared cache's value", cache.get("key" + key), nearCache.get("key" + key));
+        }
+    }
+
+    @Test
+    public void test_remove() throws Exception {
+        final Object value = nearCache.get("key");
+        final Object elsewhere = getElsewhere("key");
+
+        Assert.assertSame("Should share the value", value, elsewhere);
+
+        nearCache.remove("key");
+
+        final Object created = nearCache.get("key");
+
+        Assert.assertNotSame("Should be a new value", value, created);
+        Assert.assertSame("Should invalidate other threads", created, getElsewhere("key"));
+        Assert.assertEquals("Should have created twice", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_put() throws Exception {
+        getElsewhere("key");
+        cache.remove("key");
+
+        final Object value = new Object();
+        Assert.assertSame("Should put", value, nearCache.put("key", value));
+        Assert.assertSame("Should invalidate other threads", value, getElsewhere("key"));
+    }
+
+    @Test
+    public void test_cleanUp() {
+        final Object value = nearCache.get("key");
+
+        cache.remove("key");
+        Assert.assertSame("Should not see changes made elsewhere", value, nearCache.get("key"));
+
+        nearCache.cleanUp();
+        Assert.assertNotSame("Should see changes once cleaned up", value, nearCache.get("key"));
+    }
+
+    @Test
+    public void test_maxAge() {
+        final StubTicker ticker = new StubTicker();
+        final NearCache<String, Object> aging = new NearCache<>(cache, 4, 10, TimeUnit.NANOSECONDS, ticker);
+        final Object value = aging.get("key");
+
+        cache.remove("key");
+
+        ticker.time = 9;
+        Assert.assertSame("Should keep a young entry", value, aging.get("key"));
+
+        ticker.time = 10;
+        Assert.assertNotSame("Should read an old entry again", value, aging.get("key"));
+        Assert.assertEquals("Should have created twice", 2, cache.creates.get());
+    }
+}
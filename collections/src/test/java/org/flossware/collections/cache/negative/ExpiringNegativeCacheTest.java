@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.negative;
+
+import java.util.concurrent.TimeUnit;
+import org.flossware.collections.cache.policy.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the ExpiringNegativeCache class.
+ *
+ * @author Scot P. Floess
+ */
+public class ExpiringNegativeCacheTest {
+
+    static class StubTicker implements Ticker {
+
+        long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+    }
+
+    @Test
+    public void test_expiry() {
+        final StubTicker ticker = new StubTicker();
+        final ExpiringNegativeCache<String> negativeCache = new ExpiringNegativeCache<>(10, TimeUnit.NANOSECONDS, 100, ticker);
+        final RuntimeException failure = new IllegalStateException();
+
+        negativeCache.put("key", failure);
+        Assert.assertSame("Should remember the failure", failure, negativeCache.get("key"));
+
+        ticker.time = 9;
+        Assert.assertSame("Should still remember the failure", failure, negativeCache.get("key"));
+
+        ticker.time = 10;
+        Assert.assertNull("Should have expired", negativeCache.get("key"));
+        Assert.assertEquals("Should have forgotten", 0, negativeCache.size());
+    }
+
+    @Test
+    public void test_invalidate() {
+        final ExpiringNegativeCache<String> negativeCache = new ExpiringNegativeCache<>(1, TimeUnit.HOURS);
+
+        negativeCache.put("a", new IllegalStateException());
+        negativeCache.put("b", new IllegalStateException());
+
+        Assert.assertTrue("Should invalidate", negativeCache.invalidate("a"));
+        Assert.assertFalse("Should have nothing to invalidate", negativeCache.invalidate("a"));
+        Assert.assertNull("Should be forgotten", negativeCache.get("a"));
+
+        negativeCache.invalidateAll();
+        Assert.assertEquals("Should have forgotten all", 0, negativeCache.size());
+    }
+
+    @Test
+    public void test_maximumSize() {
+        final StubTicker ticker = new StubTicker();
+        final ExpiringNegativeCache<String> negativeCache = new ExpiringNegativeCache<>(10, TimeUnit.NANOSECONDS, 2, ticker);
+
+        negativeCache.put("a", new IllegalStateException());
+        negativeCache.put("b", new IllegalStateException());
+        negativeCache.put("c", new IllegalStateException());
+
+        Assert.assertNull("Should not remember when full", negativeCache.get("c"));
+        Assert.assertEquals("Should be bounded", 2, negativeCache.size());
+
+        ticker.time = 10;
+        negativeCache.put("c", new IllegalStateException());
+
+        Assert.assertNotNull("Should remember once expired failures are dropped", negativeCache.get("c"));
+        Assert.assertEquals("Should have dropped expired failures", 1, negativeCache.size());
+    }
+
+    @Test
+    public void test_replaced() {
+        final StubTicker ticker = new StubTicker();
+        final ExpiringNegativeCache<String> negativeCache = new ExpiringNegativeCache<>(10, TimeUnit.NANOSECONDS, 2, ticker);
+        final RuntimeException failure = new IllegalStateException();
+
+        negativeCache.put("a", new IllegalStateException());
+
+        ticker.time = 5;
+        negativeCache.put("a", failure);
+
+        ticker.time = 10;
+        negativeCache.cleanUp();
+        Assert.assertSame("Should keep the newer failure", failure, negativeCache.get("a"));
+
+        negativeCache.invalidate("a");
+        negativeCache.put("b", new IllegalStateException());
+        negativeCache.put("c", new IllegalStateException());
+
+        Assert.assertEquals("Should not count forgotten failures", 2, negativeCache.size());
+
+        ticker.time = 20;
+        negativeCache.cleanUp();
+        Assert.assertEquals("Should have dropped expired failures", 0, negativeCache.size());
+    }
+}
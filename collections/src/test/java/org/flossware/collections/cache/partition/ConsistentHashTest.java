@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the ConsistentHash class.
+ *
+ * @author Scot P. Floess
+ */
+public class ConsistentHashTest {
+
+    static final int KEYS = 100_000;
+
+    @Test
+    public void test_spread() {
+        final ConsistentHash<String> ring = new ConsistentHash<>(Arrays.asList("a", "b", "c", "d"));
+        final Map<String, Integer> counts = new HashMap<>();
+
+        for (int key = 0; key < KEYS; key++) {
+            final String node = ring.get("key-" + key);
+            counts.put(node, null == counts.get(node) ? 1 : counts.get(node) + 1);
+        }
+
+        for (final int count : counts.values()) {
+            Assert.assertTrue("Should spread keys evenly " + counts, Math.abs(count - KEYS / 4) < KEYS / 10);
+        }
+    }
+
+    @Test
+    public void test_removeNode() {
+        final List<String> nodes = new ArrayList<>(Arrays.asList("a", "b", "c", "d"));
+        final ConsistentHash<String> before = new ConsistentHash<>(nodes);
+
+        nodes.remove("d");
+
+        final ConsistentHash<String> after = new ConsistentHash<>(nodes);
+
+        for (int key = 0; key < KEYS; key++) {
+            final String owner = before.get(key);
+            if (!"d".equals(owner)) {
+                Assert.assertEquals("Should only move the removed node's keys", owner, after.get(key));
+            }
+        }
+    }
+}
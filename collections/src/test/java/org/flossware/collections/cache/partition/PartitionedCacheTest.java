@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.partition;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.AbstractCache;
+import org.flossware.collections.cache.CacheException;
+import org.flossware.collections.cache.CacheUtil;
+import org.flossware.collections.cache.policy.TinyLfuCachePolicy;
+import org.flossware.collections.cache.tier.SerializableCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the PartitionedCache class with several nodes on loopback.
+ *
+ * @author Scot P. Floess
+ */
+public class PartitionedCacheTest {
+
+    static final int NODES = 3;
+
+    class StubCache extends AbstractCache<String, String> {
+
+        @Override
+        protected String create(final String key) {
+            final int count = creates.incrementAndGet();
+
+            if (key.startsWith("bad")) {
+                throw new IllegalStateException("Cannot create [" + key + "]");
+            }
+
+            if (key.startsWith("slow")) {
+                try {
+                    Thread.sleep(500);
+                } catch (final InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return "value-" + key + "-" + count;
+        }
+    }
+
+    final AtomicInteger creates = new AtomicInteger();
+
+    final List<PartitionedCache<String, String>> caches = new ArrayList<>();
+
+    @Before
+    public void init() throws Exception {
+        final List<ServerSocket> serverSockets = new ArrayList<>();
+        final List<InetSocketAddress> nodes = new ArrayList<>();
+
+        for (int node = 0; node < NODES; node++) {
+            final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+            serverSockets.add(serverSocket);
+            nodes.add(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort()));
+        }
+
+        for (final ServerSocket serverSocket : serverSockets) {
+            caches.add(new PartitionedCache<>(new StubCache(), serverSocket, nodes, new SerializableCodec<String>(), new SerializableCodec<String>()));
+        }
+    }
+
+    @After
+    public void destroy() {
+        for (final PartitionedCache<String, String> cache : caches) {
+            cache.close();
+        }
+    }
+
+    /**
+     * Return a node not owning key.
+     */
+    PartitionedCache<String, String> getRemote(final String key) {
+        for (final PartitionedCache<String, String> cache : caches) {
+            if (!cache.isLocal(key)) {
+                return cache;
+            }
+        }
+
+        throw new IllegalStateException("No remote node!");
+    }
+
+    @Test
+    public void test_get() {
+        for (int key = 0; key < 50; key++) {
+            final String value = caches.get(0).get(String.valueOf(key));
+
+            for (final PartitionedCache<String, String> cache : caches) {
+                Assert.assertEquals("Should be the same everywhere", value, cache.get(String.valueOf(key)));
+            }
+        }
+
+        Assert.assertEquals("Should create once per cluster", 50, creates.get());
+    }
+
+    @Test
+    public void test_remove() {
+        for (final PartitionedCache<String, String> cache : caches) {
+            Assert.assertEquals("Should create once", "value-key-1", cache.get("key"));
+        }
+
+        getRemote("key").remove("key");
+
+        for (final PartitionedCache<String, String> cache : caches) {
+            Assert.assertEquals("Should forget every near copy", "value-key-2", cache.get("key"));
+        }
+
+        Assert.assertEquals("Should have invalidated every near copy", 2, creates.get());
+    }
+
+    @Test
+    public void test_put() {
+        final PartitionedCache<String, String> remote = getRemote("key");
+
+        for (final PartitionedCache<String, String> cache : caches) {
+            cache.get("other");
+        }
+
+        final String value = "put";
+        Assert.assertSame("Should cache through the owner", value, remote.put("key", value));
+        Assert.assertEquals("Should keep the owner's value", "put", remote.put("key", "ignored"));
+
+        for (final PartitionedCache<String, String> cache : caches) {
+            Assert.assertEquals("Should be the put value everywhere", "put", cache.get("key"));
+        }
+
+        Assert.assertEquals("Should only have created other", 1, creates.get());
+    }
+
+    @Test
+    public void test_failure() {
+        try {
+            getRemote("bad").get("bad");
+            Assert.fail("Should have failed");
+        } catch (final CacheException cacheException) {
+            Assert.assertTrue("Should carry the owner's failure", cacheException.getMessage().contains("Cannot create [bad]"));
+        }
+
+        Assert.assertEquals("Should still work after a failure", "value-key-2", getRemote("bad").get("key"));
+    }
+
+    @Test
+    public void test_slowOwner() throws Exception {
+        final List<ServerSocket> serverSockets = new ArrayList<>();
+        final List<InetSocketAddress> nodes = new ArrayList<>();
+
+        for (int node = 0; node < 2; node++) {
+            final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+            serverSockets.add(serverSocket);
+            nodes.add(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort()));
+        }
+
+        final List<PartitionedParamCache<String, String, String>> slow = new ArrayList<>();
+
+        try {
+            for (final ServerSocket serverSocket : serverSockets) {
+                slow.add(new PartitionedParamCache<>(new StubCache(), serverSocket, nodes, new SerializableCodec<String>(), new SerializableCodec<String>(), new SerializableCodec<String>(), new TinyLfuCachePolicy<String, String>(10), CacheUtil.createDefaultExecutor("PartitionServer"), 100));
+            }
+
+            final PartitionedParamCache<String, String, String> remote = slow.get(0).isLocal("slow") ? slow.get(1) : slow.get(0);
+
+            Assert.assertEquals("Should wait for an owner slower than the timeout", "value-slow-1", remote.get("slow", "slow"));
+        } finally {
+            for (final PartitionedParamCache<String, String, String> cache : slow) {
+                cache.close();
+            }
+        }
+    }
+
+    @Test
+    public void test_silentPeer() throws Exception {
+        try (final ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+                final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final List<InetSocketAddress> nodes = new ArrayList<>();
+            nodes.add(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort()));
+            nodes.add(new InetSocketAddress(silent.getInetAddress(), silent.getLocalPort()));
+
+            final PartitionedParamCache<String, String, String> cache = new PartitionedParamCache<>(new StubCache(), serverSocket, nodes, new SerializableCodec<String>(), new SerializableCodec<String>(), new SerializableCodec<String>(), new TinyLfuCachePolicy<String, String>(10), CacheUtil.createDefaultExecutor("PartitionServer"), 200, 200);
+
+            try {
+                String localKey = null;
+                String remoteKey = null;
+
+                for (int key = 0; null == localKey || null == remoteKey; key++) {
+                    if (cache.isLocal(String.valueOf(key))) {
+                        localKey = String.valueOf(key);
+                    } else {
+                        remoteKey = String.valueOf(key);
+                    }
+                }
+
+                final long start = System.currentTimeMillis();
+                cache.put(localKey, "put");
+                cache.remove(localKey);
+                Assert.assertTrue("Should not wait long on a silent peer", System.currentTimeMillis() - start < 2000);
+
+                try {
+                    cache.get(remoteKey, remoteKey);
+                    Assert.fail("Should have timed out");
+                } catch (final CacheException cacheException) {
+                    Assert.assertTrue("Should give up on a silent peer", System.currentTimeMillis() - start < 4000);
+                }
+            } finally {
+                cache.close();
+            }
+        }
+    }
+}
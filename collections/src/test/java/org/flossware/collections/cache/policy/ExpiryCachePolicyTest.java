@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.flossware.collections.cache.AbstractCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the ExpiryCachePolicy class.
+ *
+ * @author Scot P. Floess
+ */
+public class ExpiryCachePolicyTest {
+
+    static class StubTicker implements Ticker {
+
+        final AtomicLong time = new AtomicLong();
+
+        @Override
+        public long read() {
+            return time.get();
+        }
+
+        void advance(final long duration, final TimeUnit unit) {
+            time.addAndGet(unit.toNanos(duration));
+        }
+    }
+
+    static class StubCache extends AbstractCache<Integer, Object> {
+
+        int creates;
+        int destroys;
+
+        StubCache(final CachePolicy<Integer, Object> policy) {
+            super(policy);
+        }
+
+        @Override
+        protected Object create(final Integer key) {
+            creates++;
+
+            return new Object();
+        }
+
+        @Override
+        protected void destroy(final Integer key, final Object value) {
+            destroys++;
+        }
+
+        int size() {
+            return getMap().size();
+        }
+    }
+
+    private StubTicker ticker;
+
+    @Before
+    public void init() {
+        ticker = new StubTicker();
+    }
+
+    @Test
+    public void test_expireAfterWrite() {
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, Object>(10, ExpiryCachePolicy.NEVER, TimeUnit.SECONDS, ticker));
+
+        final Object value = cache.get(1);
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        Assert.assertSame("Should not have expired", value, cache.get(1));
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        Assert.assertNotSame("Should have expired", value, cache.get(1));
+        Assert.assertEquals("Should have destroyed the expired", 1, cache.destroys);
+        Assert.assertEquals("Should have created again", 2, cache.creates);
+    }
+
+    @Test
+    public void test_expireAfterAccess() {
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, Object>(ExpiryCachePolicy.NEVER, 10, TimeUnit.SECONDS, ticker));
+
+        final Object value = cache.get(1);
+
+        for (int count = 0; count < 5; count++) {
+            ticker.advance(8, TimeUnit.SECONDS);
+            Assert.assertSame("Should be kept alive by reads", value, cache.get(1));
+        }
+
+        ticker.advance(10, TimeUnit.SECONDS);
+        Assert.assertNotSame("Should have expired", value, cache.get(1));
+        Assert.assertEquals("Should have destroyed the expired", 1, cache.destroys);
+    }
+
+    @Test
+    public void test_expire_onWrite() {
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, Object>(1, ExpiryCachePolicy.NEVER, TimeUnit.MINUTES, ticker));
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        ticker.advance(2, TimeUnit.MINUTES);
+        cache.get(1_000);
+
+        Assert.assertEquals("Should have expired all but the newest", 1, cache.size());
+        Assert.assertEquals("Should have destroyed the expired", 100, cache.destroys);
+    }
+
+    @Test
+    public void test_cleanUp() {
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, Object>(1, ExpiryCachePolicy.NEVER, TimeUnit.HOURS, ticker));
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        ticker.advance(30, TimeUnit.MINUTES);
+        cache.cleanUp();
+        Assert.assertEquals("Should not have expired", 100, cache.size());
+
+        ticker.advance(31, TimeUnit.MINUTES);
+        cache.cleanUp();
+        Assert.assertEquals("Should have expired", 0, cache.size());
+        Assert.assertEquals("Should have destroyed the expired", 100, cache.destroys);
+    }
+
+    @Test
+    public void test_remove() {
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, Object>(1, ExpiryCachePolicy.NEVER, TimeUnit.SECONDS, ticker));
+
+        cache.get(1);
+        cache.remove(1);
+
+        ticker.advance(2, TimeUnit.SECONDS);
+        cache.cleanUp();
+
+        Assert.assertEquals("Should only destroy once", 1, cache.destroys);
+    }
+
+    @Test
+    public void test_composite() {
+        final TinyLfuCachePolicy<Integer, Object> bounded = new TinyLfuCachePolicy<>(10);
+        final StubCache cache = new StubCache(new CachePolicyComposite<>(bounded, new ExpiryCachePolicy<Integer, Object>(1, ExpiryCachePolicy.NEVER, TimeUnit.SECONDS, ticker)));
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertEquals("Should be bounded", 10, cache.size());
+
+        ticker.advance(2, TimeUnit.SECONDS);
+        cache.cleanUp();
+
+        Assert.assertEquals("Should have expired", 0, cache.size());
+        Assert.assertEquals("Bounded policy should know of the expiry", 0, bounded.getWeightedSize());
+        Assert.assertEquals("Should have destroyed everything once", 100, cache.destroys);
+    }
+
+    @Test
+    public void test_composite_evictors() {
+        final CachePolicyComposite<Integer, Object> composite = new CachePolicyComposite<>(new TinyLfuCachePolicy<Integer, Object>(10), new ExpiryCachePolicy<Integer, Object>(1, ExpiryCachePolicy.NEVER, TimeUnit.SECONDS, ticker));
+        final Evictor<Integer, Object> evictor = new Evictor<Integer, Object>() {
+            @Override
+            public boolean evict(final Integer key, final Object value) {
+                return true;
+            }
+
+            @Override
+            public boolean expire(final Integer key, final Object value) {
+                return true;
+            }
+        };
+
+        final List<Evictor<Integer, Object>> evictors = composite.getEvictors(evictor);
+
+        composite.recordWrite(1, "value", evictor);
+        composite.recordRead(1, "value", evictor);
+        composite.cleanUp(evictor);
+
+        Assert.assertSame("Should create evictors once", evictors, composite.getEvictors(evictor));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void test_composite_empty() {
+        new CachePolicyComposite<Integer, Object>();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void test_composite_nullPolicy() {
+        new CachePolicyComposite<>(new TinyLfuCachePolicy<Integer, Object>(10), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_never() {
+        new ExpiryCachePolicy<Integer, Object>(ExpiryCachePolicy.NEVER, ExpiryCachePolicy.NEVER, TimeUnit.SECONDS, ticker);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the FrequencySketch class.
+ *
+ * @author Scot P. Floess
+ */
+public class FrequencySketchTest {
+
+    @Test
+    public void test_increment() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+
+        for (int count = 1; count <= 15; count++) {
+            sketch.increment("key");
+
+            Assert.assertEquals("Should have counted", count, sketch.frequency("key"));
+        }
+
+        sketch.increment("key");
+        Assert.assertEquals("Should saturate at fifteen", 15, sketch.frequency("key"));
+        Assert.assertEquals("Should not have seen other key", 0, sketch.frequency("other"));
+    }
+
+    @Test
+    public void test_reset() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+
+        for (int count = 0; count < 10; count++) {
+            sketch.increment("hot");
+        }
+
+        for (int key = 0; key < 1000; key++) {
+            sketch.increment(key);
+        }
+
+        Assert.assertTrue("Should have aged", sketch.frequency("hot") < 10);
+    }
+
+    @Test
+    public void test_ensureCapacity() {
+        Assert.assertEquals("Should be a power of two", 1, FrequencySketch.ceilingPowerOfTwo(0));
+        Assert.assertEquals("Should be a power of two", 64, FrequencySketch.ceilingPowerOfTwo(64));
+        Assert.assertEquals("Should be a power of two", 128, FrequencySketch.ceilingPowerOfTwo(65));
+        Assert.assertEquals("Should be capped", FrequencySketch.MAXIMUM_CAPACITY, FrequencySketch.ceilingPowerOfTwo(Long.MAX_VALUE));
+    }
+}
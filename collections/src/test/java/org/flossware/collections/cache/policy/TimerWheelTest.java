@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the TimerWheel class.
+ *
+ * @author Scot P. Floess
+ */
+public class TimerWheelTest {
+
+    static class StubTimer extends TimerWheel.Timer {
+
+        long deadline;
+
+        StubTimer(final long deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    private TimerWheel<StubTimer> wheel;
+
+    @Before
+    public void init() {
+        wheel = new TimerWheel<>(0);
+    }
+
+    @Test
+    public void test_advance() {
+        final StubTimer timer = new StubTimer(TimeUnit.SECONDS.toNanos(5));
+
+        wheel.schedule(timer);
+
+        Assert.assertTrue("Should not be due yet", wheel.advance(TimeUnit.SECONDS.toNanos(4)).isEmpty());
+        Assert.assertTrue("Should still be scheduled", timer.isScheduled());
+
+        final List<StubTimer> expired = wheel.advance(TimeUnit.SECONDS.toNanos(7));
+
+        Assert.assertEquals("Should be due", 1, expired.size());
+        Assert.assertSame("Should be our timer", timer, expired.get(0));
+        Assert.assertFalse("Should no longer be scheduled", timer.isScheduled());
+    }
+
+    @Test
+    public void test_advance_cascade() {
+        final long[] deadlines = {
+            TimeUnit.SECONDS.toNanos(30),
+            TimeUnit.MINUTES.toNanos(30),
+            TimeUnit.HOURS.toNanos(30),
+            TimeUnit.DAYS.toNanos(30)
+        };
+
+        for (final long deadline : deadlines) {
+            wheel.schedule(new StubTimer(deadline));
+        }
+
+        for (final long deadline : deadlines) {
+            Assert.assertTrue("Should not be due before deadline", wheel.advance(deadline - TimeUnit.SECONDS.toNanos(2)).isEmpty());
+
+            final List<StubTimer> expired = wheel.advance(deadline + TimeUnit.SECONDS.toNanos(2));
+
+            Assert.assertEquals("Should be due after deadline", 1, expired.size());
+            Assert.assertEquals("Should be the timer due", deadline, expired.get(0).getDeadline());
+        }
+    }
+
+    @Test
+    public void test_advance_reschedule() {
+        final StubTimer timer = new StubTimer(TimeUnit.SECONDS.toNanos(5));
+
+        wheel.schedule(timer);
+        timer.deadline = TimeUnit.SECONDS.toNanos(20);
+
+        Assert.assertTrue("Should have been rescheduled", wheel.advance(TimeUnit.SECONDS.toNanos(10)).isEmpty());
+        Assert.assertTrue("Should still be scheduled", timer.isScheduled());
+        Assert.assertEquals("Should be due", 1, wheel.advance(TimeUnit.SECONDS.toNanos(22)).size());
+    }
+
+    @Test
+    public void test_deschedule() {
+        final StubTimer timer = new StubTimer(TimeUnit.SECONDS.toNanos(5));
+
+        wheel.schedule(timer);
+        wheel.deschedule(timer);
+
+        Assert.assertFalse("Should no longer be scheduled", timer.isScheduled());
+        Assert.assertTrue("Should never be due", wheel.advance(TimeUnit.SECONDS.toNanos(10)).isEmpty());
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.policy;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.flossware.collections.cache.AbstractCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the TinyLfuCachePolicy class, including hit rate comparisons against a
+ * plain LRU.
+ *
+ * @author Scot P. Floess
+ */
+public class TinyLfuCachePolicyTest {
+
+    static final int CACHE_SIZE = 500;
+    static final int UNIVERSE = 20_000;
+    static final int ACCESSES = 200_000;
+
+    class StubCache extends AbstractCache<Integer, String> {
+
+        int destroys;
+
+        StubCache(final CachePolicy<Integer, String> policy) {
+            super(policy);
+        }
+
+        @Override
+        protected String create(final Integer key) {
+            return "value" + key;
+        }
+
+        @Override
+        protected void destroy(final Integer key, final String value) {
+            destroys++;
+        }
+
+        int size() {
+            return getMap().size();
+        }
+
+        boolean contains(final Integer key) {
+            return getMap().containsKey(key);
+        }
+    }
+
+    /**
+     * A trace of keys drawn from a Zipf distribution.
+     */
+    static int[] zipf(final Random random, final int universe, final double exponent, final int length) {
+        final double[] cumulative = new double[universe];
+
+        double sum = 0;
+        for (int rank = 0; rank < universe; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+
+        final int[] retVal = new int[length];
+        for (int index = 0; index < length; index++) {
+            final int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+
+            retVal[index] = (rank >= 0 ? rank : -rank - 1);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * A Zipf trace periodically interrupted by scans of keys never seen again.
+     */
+    static int[] scan(final Random random) {
+        final int[] hot = zipf(random, UNIVERSE, 0.9, ACCESSES / 2);
+        final int[] retVal = new int[ACCESSES];
+
+        int hotIndex = 0;
+        int scanKey = UNIVERSE;
+        for (int index = 0; index < ACCESSES; index++) {
+            retVal[index] = ((index / 1_000) % 2 == 0 ? hot[hotIndex++] : scanKey++);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Replay trace against policy, returning the hit rate.
+     */
+    static double hitRate(final CachePolicy<Integer, Integer> policy, final int[] trace) {
+        final ConcurrentMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        final Evictor<Integer, Integer> evictor = new Evictor<Integer, Integer>() {
+            @Override
+            public boolean evict(final Integer key, final Integer value) {
+                return map.remove(key, value);
+            }
+
+            @Override
+            public boolean expire(final Integer key, final Integer value) {
+                return map.remove(key, value);
+            }
+        };
+
+        int hits = 0;
+        for (final int key : trace) {
+            final Integer value = map.get(key);
+            if (null != value) {
+                policy.recordRead(key, value, evictor);
+                hits++;
+            } else {
+                map.put(key, key);
+                policy.recordWrite(key, key, evictor);
+            }
+        }
+
+        Assert.assertTrue("Should be bounded", map.size() <= CACHE_SIZE);
+
+        return (double) hits / trace.length;
+    }
+
+    /**
+     * Replay trace against an LRU, returning the hit rate.
+     */
+    static double lruHitRate(final int[] trace) {
+        final Map<Integer, Integer> map = new LinkedHashMap<Integer, Integer>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, Integer> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        int hits = 0;
+        for (final int key : trace) {
+            if (null != map.get(key)) {
+                hits++;
+            } else {
+                map.put(key, key);
+            }
+        }
+
+        return (double) hits / trace.length;
+    }
+
+    static void report(final String trace, final double tinyLfu, final double lru) {
+        Logger.getLogger(TinyLfuCachePolicyTest.class.getName()).log(Level.INFO, "{0} trace hit rate - TinyLFU [{1}] LRU [{2}]", new Object[]{trace, tinyLfu, lru});
+    }
+
+    @Test
+    public void test_maximumSize() {
+        final TinyLfuCachePolicy<Integer, String> policy = new TinyLfuCachePolicy<>(100);
+        final StubCache cache = new StubCache(policy);
+
+        for (int key = 0; key < 1_000; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertEquals("Should be bounded", 100, cache.size());
+        Assert.assertEquals("Should track the size", 100, policy.getWeightedSize());
+        Assert.assertEquals("Should have destroyed the evicted", 900, cache.destroys);
+    }
+
+    @Test
+    public void test_maximumWeight() {
+        final TinyLfuCachePolicy<Integer, String> policy = new TinyLfuCachePolicy<>(1_000, new Weigher<Integer, String>() {
+            @Override
+            public int weigh(final Integer key, final String value) {
+                return value.length();
+            }
+        });
+        final StubCache cache = new StubCache(policy);
+
+        for (int key = 0; key < 1_000; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertTrue("Should be bounded by weight", policy.getWeightedSize() <= 1_000);
+        Assert.assertTrue("Should be using most of the weight", policy.getWeightedSize() > 900);
+    }
+
+    @Test
+    public void test_largeMaximumWeight() {
+        final TinyLfuCachePolicy<Integer, String> policy = new TinyLfuCachePolicy<>(512L << 20, new Weigher<Integer, String>() {
+            @Override
+            public int weigh(final Integer key, final String value) {
+                return 1_024;
+            }
+        });
+        final StubCache cache = new StubCache(policy);
+
+        for (int key = 0; key < 10_000; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertEquals("Should hold every entry", 10_000L * 1_024, policy.getWeightedSize());
+    }
+
+    @Test
+    public void test_remove() {
+        final TinyLfuCachePolicy<Integer, String> policy = new TinyLfuCachePolicy<>(100);
+        final StubCache cache = new StubCache(policy);
+
+        cache.get(1);
+        cache.get(2);
+        cache.remove(1);
+
+        Assert.assertEquals("Should no longer track removed", 1, policy.getWeightedSize());
+    }
+
+    @Test
+    public void test_frequentSurvives() {
+        final TinyLfuCachePolicy<Integer, String> policy = new TinyLfuCachePolicy<>(100);
+        final StubCache cache = new StubCache(policy);
+
+        for (int count = 0; count < 5; count++) {
+            cache.get(-1);
+        }
+
+        for (int key = 0; key < 1_000; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertTrue("Frequent key should survive a scan", cache.contains(-1));
+    }
+
+    @Test
+    public void test_zipfHitRate() {
+        final int[] trace = zipf(new Random(42), UNIVERSE, 0.9, ACCESSES);
+
+        final double tinyLfu = hitRate(new TinyLfuCachePolicy<Integer, Integer>(CACHE_SIZE), trace);
+        final double lru = lruHitRate(trace);
+
+        report("Zipf", tinyLfu, lru);
+
+        Assert.assertTrue("TinyLFU should beat LRU on Zipf", tinyLfu > lru);
+    }
+
+    @Test
+    public void test_scanHitRate() {
+        final int[] trace = scan(new Random(42));
+
+        final double tinyLfu = hitRate(new TinyLfuCachePolicy<Integer, Integer>(CACHE_SIZE), trace);
+        final double lru = lruHitRate(trace);
+
+        report("Scan", tinyLfu, lru);
+
+        Assert.assertTrue("TinyLFU should resist scans", tinyLfu > lru * 1.25);
+    }
+}
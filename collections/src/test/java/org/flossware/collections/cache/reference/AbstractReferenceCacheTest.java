@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.reference;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.stats.ConcurrentStatsCounter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the AbstractReferenceCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractReferenceCacheTest {
+
+    class StubReferenceCache extends AbstractReferenceCache<Object, Object> {
+
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicInteger destroys = new AtomicInteger();
+
+        StubReferenceCache(final ReferenceStrength keyStrength, final ReferenceStrength valueStrength) {
+            super(keyStrength, valueStrength, new ConcurrentStatsCounter());
+        }
+
+        @Override
+        protected Object create(final Object key) {
+            creates.incrementAndGet();
+
+            return new StringBuilder("value-").append(key);
+        }
+
+        @Override
+        protected void destroy(final Object key, final Object value) {
+            destroys.incrementAndGet();
+        }
+    }
+
+    /**
+     * Collect garbage until the cache has been emptied.
+     */
+    static void awaitEmpty(final StubReferenceCache cache) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && cache.size() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+
+            cache.cleanUp();
+        }
+
+        Assert.assertEquals("Should have removed collected entries", 0, cache.size());
+    }
+
+    @Test
+    public void test_weakKeys_identity() {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.WEAK, ReferenceStrength.STRONG);
+        final String key = new String("key");
+        final String equalKey = new String("key");
+
+        final Object value = cache.get(key);
+
+        Assert.assertSame("Should be cached", value, cache.get(key));
+        Assert.assertNotSame("Should compare keys by identity", value, cache.get(equalKey));
+        Assert.assertEquals("Should have created per key instance", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_weakKeys_collected() throws Exception {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.WEAK, ReferenceStrength.STRONG);
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(new Object());
+        }
+
+        awaitEmpty(cache);
+
+        Assert.assertEquals("Should count collected entries as evictions", 100, cache.stats().getEvictionCount());
+        Assert.assertEquals("Should not destroy collected entries", 0, cache.destroys.get());
+    }
+
+    @Test
+    public void test_weakValues_collected() throws Exception {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.STRONG, ReferenceStrength.WEAK);
+
+        Assert.assertEquals("Should create", "value-key", cache.get("key").toString());
+
+        awaitEmpty(cache);
+
+        Assert.assertEquals("Should create again once collected", "value-key", cache.get("key").toString());
+        Assert.assertEquals("Should have created twice", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_softValues() {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.WEAK, ReferenceStrength.SOFT);
+        final Object key = new Object();
+
+        final Object value = cache.get(key);
+
+        Assert.assertSame("Should be cached while memory allows", value, cache.get(key));
+
+        cache.remove(key);
+        Assert.assertEquals("Should destroy removed entries", 1, cache.destroys.get());
+    }
+
+    @Test
+    public void test_strongKeys_getAll() {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.STRONG, ReferenceStrength.SOFT);
+
+        final Object cached = cache.get("a");
+        final Map<Object, Object> values = cache.getAll(Arrays.<Object>asList("a", new String("b"), "b"));
+
+        Assert.assertEquals("Should compare keys using equals", 2, values.size());
+        Assert.assertSame("Should use the cached value", cached, values.get("a"));
+        Assert.assertEquals("Should have created each key once", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_softKeys() {
+        final StubReferenceCache cache = new StubReferenceCache(ReferenceStrength.SOFT, ReferenceStrength.STRONG);
+        final String key = new String("key");
+
+        final Object value = cache.get(key);
+
+        Assert.assertSame("Should be cached while memory allows", value, cache.get(key));
+        Assert.assertNotSame("Should compare keys by identity", value, cache.get(new String("key")));
+        Assert.assertEquals("Should count lookups of cached keys as hits", 1, cache.stats().getHitCount());
+
+        cache.remove(key);
+        Assert.assertEquals("Should destroy removed entries", 1, cache.destroys.get());
+        Assert.assertEquals("Should keep the other key", 1, cache.size());
+    }
+
+    @Test
+    public void test_lookupKey() {
+        final Object key = new Object();
+        final LookupKey<Object> lookupKey = new LookupKey<>(key);
+        final WeakKey<Object> weakKey = new WeakKey<>(key, null);
+        final SoftKey<Object> softKey = new SoftKey<>(key, null);
+
+        Assert.assertEquals("Should find a weak key", lookupKey, weakKey);
+        Assert.assertEquals("Should be found by a weak key", weakKey, lookupKey);
+        Assert.assertEquals("Should find a soft key", lookupKey, softKey);
+        Assert.assertEquals("Should hash like a weak key", weakKey.hashCode(), lookupKey.hashCode());
+        Assert.assertNotEquals("Should compare by identity", lookupKey, new LookupKey<>(new Object()));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.refresh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.policy.RefreshCachePolicy;
+import org.flossware.collections.cache.policy.Ticker;
+import org.flossware.collections.cache.stats.ConcurrentStatsCounter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the AbstractRefreshCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractRefreshCacheTest {
+
+    /**
+     * Queues tasks until told to run them.
+     */
+    static class StubExecutor implements Executor {
+
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable runnable) {
+            tasks.add(runnable);
+        }
+
+        void runAll() {
+            final List<Runnable> toRun = new ArrayList<>(tasks);
+
+            tasks.clear();
+
+            for (final Runnable task : toRun) {
+                task.run();
+            }
+        }
+    }
+
+    static class StubTicker implements Ticker {
+
+        long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+    }
+
+    class StubCache extends AbstractRefreshCache<String, String> {
+
+        int creates;
+        boolean fail;
+        boolean returnNull;
+        final List<String> destroyed = new ArrayList<>();
+
+        StubCache() {
+            super(new RefreshCachePolicy<String, String>(10, TimeUnit.SECONDS, ticker), executor, new NullCachePolicy<String, String>(), new ConcurrentStatsCounter());
+        }
+
+        @Override
+        protected String create(final String key) {
+            if (fail) {
+                throw new IllegalStateException("Cannot create [" + key + "]");
+            }
+
+            if (returnNull) {
+                return null;
+            }
+
+            return key + "-" + ++creates;
+        }
+
+        @Override
+        protected void destroy(final String key, final String value) {
+            destroyed.add(value);
+        }
+    }
+
+    private StubExecutor executor;
+
+    private StubTicker ticker;
+
+    private StubCache cache;
+
+    @Before
+    public void init() {
+        executor = new StubExecutor();
+        ticker = new StubTicker();
+        cache = new StubCache();
+    }
+
+    @Test
+    public void test_get_notDue() {
+        cache.get("key");
+
+        ticker.time = TimeUnit.SECONDS.toNanos(5);
+
+        Assert.assertEquals("Should be cached", "key-1", cache.get("key"));
+        Assert.assertTrue("Should not refresh", executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void test_refresh() {
+        cache.get("key");
+
+        ticker.time = TimeUnit.SECONDS.toNanos(11);
+
+        Assert.assertEquals("Should serve the stale value while refreshing", "key-1", cache.get("key"));
+        Assert.assertEquals("Should serve the stale value while refreshing", "key-1", cache.get("key"));
+        Assert.assertEquals("Should coalesce refreshes", 1, executor.tasks.size());
+        Assert.assertTrue("Should not destroy before the swap", cache.destroyed.isEmpty());
+
+        executor.runAll();
+
+        Assert.assertEquals("Should serve the refreshed value", "key-2", cache.get("key"));
+        Assert.assertEquals("Should destroy the old value after the swap", 1, cache.destroyed.size());
+        Assert.assertEquals("Should destroy the old value after the swap", "key-1", cache.destroyed.get(0));
+        Assert.assertTrue("Refreshed value should not be due", executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void test_refresh_null() {
+        cache.get("key");
+
+        ticker.time = TimeUnit.SECONDS.toNanos(11);
+        cache.returnNull = true;
+
+        cache.get("key");
+        executor.runAll();
+
+        Assert.assertEquals("Should keep serving the stale value", "key-1", cache.get("key"));
+        Assert.assertEquals("Should only count the first load a success", 1, cache.stats().getLoadSuccessCount());
+        Assert.assertEquals("Should count a null reload a failure", 1, cache.stats().getLoadFailureCount());
+    }
+
+    @Test
+    public void test_refresh_failure() {
+        cache.get("key");
+
+        ticker.time = TimeUnit.SECONDS.toNanos(11);
+        cache.fail = true;
+
+        cache.get("key");
+        executor.runAll();
+
+        Assert.assertEquals("Should keep serving the stale value", "key-1", cache.get("key"));
+        Assert.assertTrue("Should wait a full period before trying again", executor.tasks.isEmpty());
+        Assert.assertTrue("Should not destroy the stale value", cache.destroyed.isEmpty());
+
+        ticker.time = TimeUnit.SECONDS.toNanos(22);
+        cache.fail = false;
+
+        cache.get("key");
+        executor.runAll();
+
+        Assert.assertEquals("Should serve the refreshed value", "key-2", cache.get("key"));
+    }
+
+    @Test
+    public void test_refresh_removed() {
+        cache.get("key");
+
+        ticker.time = TimeUnit.SECONDS.toNanos(11);
+
+        cache.get("key");
+        cache.remove("key");
+        executor.runAll();
+
+        Assert.assertEquals("Should destroy the removed and the orphaned reload", 2, cache.destroyed.size());
+        Assert.assertEquals("Should create anew", "key-3", cache.get("key"));
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.removal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.AbstractCache;
+import org.flossware.collections.cache.negative.NullNegativeCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.ExpiryCachePolicy;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.policy.Ticker;
+import org.flossware.collections.cache.policy.TinyLfuCachePolicy;
+import org.flossware.collections.cache.stats.NullStatsCounter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the AsyncRemovalListener class and removals caches report.
+ *
+ * @author Scot P. Floess
+ */
+public class AsyncRemovalListenerTest {
+
+    static class StubTicker implements Ticker {
+
+        long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+    }
+
+    static class StubListener implements RemovalListener<Integer, String> {
+
+        final List<RemovalNotification<Integer, String>> notifications = Collections.synchronizedList(new ArrayList<RemovalNotification<Integer, String>>());
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        volatile CountDownLatch delivered = new CountDownLatch(0);
+
+        @Override
+        public void onRemoval(final RemovalNotification<Integer, String> notification) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            threads.add(Thread.currentThread().getName());
+            notifications.add(notification);
+            delivered.countDown();
+        }
+
+        RemovalCause getCause(final int index) {
+            return notifications.get(index).getCause();
+        }
+    }
+
+    static class StubCache extends AbstractCache<Integer, String> {
+
+        StubCache(final CachePolicy<Integer, String> policy, final RemovalListener<Integer, String> removalListener) {
+            super(policy, new NullStatsCounter(), new NullNegativeCache<Integer>(), removalListener);
+        }
+
+        @Override
+        protected String create(final Integer key) {
+            return "value-" + key;
+        }
+
+        boolean replace(final Integer key, final String newValue) {
+            return replace(key, getMap().get(key), newValue);
+        }
+    }
+
+    private StubListener listener;
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        listener = new StubListener();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_causes() {
+        final StubTicker ticker = new StubTicker();
+        final StubCache cache = new StubCache(new ExpiryCachePolicy<Integer, String>(10, 0, TimeUnit.NANOSECONDS, ticker), listener);
+
+        cache.get(1);
+        cache.remove(1);
+        Assert.assertEquals("Should be explicit", RemovalCause.EXPLICIT, listener.getCause(0));
+        Assert.assertEquals("Should be the removed value", "value-1", listener.notifications.get(0).getValue());
+
+        cache.get(2);
+        Assert.assertTrue("Should replace", cache.replace(2, "replaced"));
+        Assert.assertEquals("Should be replaced", RemovalCause.REPLACED, listener.getCause(1));
+        Assert.assertEquals("Should be the old value", "value-2", listener.notifications.get(1).getValue());
+
+        ticker.time = 20;
+        cache.get(2);
+        Assert.assertEquals("Should be expired", RemovalCause.EXPIRED, listener.getCause(2));
+
+        cache.remove(99);
+        Assert.assertEquals("Should not tell of what was not cached", 3, listener.notifications.size());
+    }
+
+    @Test
+    public void test_evicted() {
+        final StubCache cache = new StubCache(new TinyLfuCachePolicy<Integer, String>(10), listener);
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertFalse("Should have evicted", listener.notifications.isEmpty());
+        for (final RemovalNotification<Integer, String> notification : listener.notifications) {
+            Assert.assertEquals("Should be evicted", RemovalCause.EVICTED, notification.getCause());
+        }
+    }
+
+    @Test
+    public void test_async() throws Exception {
+        final AtomicInteger batches = new AtomicInteger();
+        final AsyncRemovalListener<Integer, String> asyncListener = new AsyncRemovalListener<>(listener, new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                batches.incrementAndGet();
+                executor.execute(command);
+            }
+        }, 4);
+        final StubCache cache = new StubCache(new NullCachePolicy<Integer, String>(), asyncListener);
+
+        listener.gate = new CountDownLatch(1);
+        listener.delivered = new CountDownLatch(10);
+
+        for (int key = 0; key < 10; key++) {
+            cache.get(key);
+            cache.remove(key);
+        }
+
+        Assert.assertTrue("Should not wait for the listener", listener.notifications.isEmpty());
+
+        listener.gate.countDown();
+        Assert.assertTrue("Should deliver all", listener.delivered.await(5, TimeUnit.SECONDS));
+
+        for (int key = 0; key < 10; key++) {
+            Assert.assertEquals("Should deliver in order", Integer.valueOf(key), listener.notifications.get(key).getKey());
+        }
+
+        Assert.assertFalse("Should deliver in the background", listener.threads.contains(Thread.currentThread().getName()));
+        Assert.assertTrue("Should deliver in batches", batches.get() < 10);
+        Assert.assertEquals("Should have nothing waiting", 0, asyncListener.getPending());
+    }
+
+    @Test
+    public void test_maxPending() throws Exception {
+        final AsyncRemovalListener<Integer, String> asyncListener = new AsyncRemovalListener<>(listener, executor, 2, 4);
+        final StubCache cache = new StubCache(new NullCachePolicy<Integer, String>(), asyncListener);
+
+        listener.gate = new CountDownLatch(1);
+
+        for (int key = 0; key < 4; key++) {
+            cache.get(key);
+            cache.remove(key);
+        }
+
+        Assert.assertTrue("Should wait no more than max pending", asyncListener.getPending() <= 4);
+
+        listener.gate.countDown();
+        asyncListener.close();
+
+        Assert.assertEquals("Should deliver all", 4, listener.notifications.size());
+        Assert.assertEquals("Should have nothing waiting", 0, asyncListener.getPending());
+    }
+
+    @Test
+    public void test_rejected() {
+        final AsyncRemovalListener<Integer, String> asyncListener = new AsyncRemovalListener<>(listener, new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException("Rejected");
+            }
+        });
+        final StubCache cache = new StubCache(new NullCachePolicy<Integer, String>(), asyncListener);
+
+        for (int key = 0; key < 10; key++) {
+            cache.get(key);
+            cache.remove(key);
+        }
+
+        Assert.assertEquals("Should deliver here when rejected", 10, listener.notifications.size());
+        Assert.assertEquals("Should strand nothing", 0, asyncListener.getPending());
+    }
+
+    @Test
+    public void test_flush() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final AsyncRemovalListener<Integer, String> asyncListener = new AsyncRemovalListener<>(listener, new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        });
+        final StubCache cache = new StubCache(new NullCachePolicy<Integer, String>(), asyncListener);
+
+        for (int key = 0; key < 10; key++) {
+            cache.get(key);
+            cache.remove(key);
+        }
+
+        Assert.assertEquals("Should wait for the executor", 10, asyncListener.getPending());
+
+        asyncListener.flush();
+
+        Assert.assertEquals("Should deliver all on flush", 10, listener.notifications.size());
+        Assert.assertEquals("Should have nothing waiting", 0, asyncListener.getPending());
+
+        asyncListener.close();
+        cache.get(10);
+        cache.remove(10);
+
+        Assert.assertEquals("Should deliver here once closed", 11, listener.notifications.size());
+    }
+
+    @Test
+    public void test_listenerFailure() {
+        final StubCache cache = new StubCache(new NullCachePolicy<Integer, String>(), new RemovalListener<Integer, String>() {
+            @Override
+            public void onRemoval(final RemovalNotification<Integer, String> notification) {
+                throw new IllegalStateException("Listener failed");
+            }
+        });
+
+        cache.get(1);
+        cache.remove(1);
+
+        Assert.assertEquals("Should create again", "value-1", cache.get(1));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.snapshot;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.flossware.collections.cache.tier.SerializableCodec;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the AbstractSnapshotCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractSnapshotCacheTest {
+
+    class StubSnapshotCache extends AbstractSnapshotCache<Integer, String> {
+
+        final AtomicInteger creates = new AtomicInteger();
+
+        StubSnapshotCache(final long maxAge) {
+            super(file, new SerializableCodec<Integer>(), new SerializableCodec<String>(), maxAge, TimeUnit.MILLISECONDS, new NullCachePolicy<Integer, String>());
+        }
+
+        @Override
+        protected String create(final Integer key) {
+            creates.incrementAndGet();
+
+            return "value-" + key;
+        }
+
+        @Override
+        protected boolean revalidate(final Integer key, final String value) {
+            return 13 != key;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "cache.snapshot");
+
+        final StubSnapshotCache cache = new StubSnapshotCache(60000);
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertEquals("Should save all entries", 100, cache.snapshot());
+        Assert.assertFalse("Should not leave a temporary file", new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void test_restore() {
+        final StubSnapshotCache cache = new StubSnapshotCache(60000);
+
+        Assert.assertEquals("Should restore all entries", 100, cache.restore());
+
+        for (int key = 0; key < 100; key++) {
+            Assert.assertEquals("Should be the same value", "value-" + key, cache.get(key));
+        }
+
+        Assert.assertEquals("Should only create what fails revalidation", 1, cache.creates.get());
+
+        cache.get(100);
+        Assert.assertEquals("Should create what was never saved", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_remove() {
+        final StubSnapshotCache cache = new StubSnapshotCache(60000);
+        cache.restore();
+
+        cache.remove(5);
+        cache.put(6, "put");
+
+        Assert.assertEquals("Should not restore removed entries", "value-5", cache.get(5));
+        Assert.assertEquals("Should create removed entries", 1, cache.creates.get());
+        Assert.assertEquals("Should keep put entries", "put", cache.get(6));
+    }
+
+    @Test
+    public void test_expired() throws Exception {
+        Thread.sleep(20);
+
+        final StubSnapshotCache cache = new StubSnapshotCache(10);
+
+        Assert.assertEquals("Should ignore old snapshots", 0, cache.restore());
+        cache.get(1);
+        Assert.assertEquals("Should create", 1, cache.creates.get());
+    }
+
+    @Test
+    public void test_expiredAfterRestore() throws Exception {
+        final StubSnapshotCache cache = new StubSnapshotCache(200);
+
+        Assert.assertEquals("Should restore all entries", 100, cache.restore());
+        Thread.sleep(250);
+
+        cache.get(1);
+        Assert.assertEquals("Should not use expired entries", 1, cache.creates.get());
+    }
+
+    @Test
+    public void test_restoredValuesExpire() throws Exception {
+        final StubSnapshotCache cache = new StubSnapshotCache(300);
+
+        Assert.assertEquals("Should restore all entries", 100, cache.restore());
+        Assert.assertEquals("Should use the restored value", "value-1", cache.get(1));
+        Assert.assertEquals("Should create what was never saved", "value-100", cache.get(100));
+        Assert.assertEquals("Should only create what was never saved", 1, cache.creates.get());
+
+        Thread.sleep(350);
+
+        Assert.assertEquals("Should create the value again", "value-1", cache.get(1));
+        Assert.assertEquals("Should expire restored values with their snapshot", 2, cache.creates.get());
+        cache.get(100);
+        Assert.assertEquals("Should not expire created values", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_corrupt() throws Exception {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(100);
+            randomAccessFile.write(randomAccessFile.read() ^ 0xFF);
+        }
+
+        final StubSnapshotCache cache = new StubSnapshotCache(60000);
+
+        Assert.assertEquals("Should ignore corrupt snapshots", 0, cache.restore());
+    }
+
+    @Test
+    public void test_version() throws Exception {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(4);
+            randomAccessFile.writeInt(CacheSnapshot.VERSION + 1);
+        }
+
+        final StubSnapshotCache cache = new StubSnapshotCache(60000);
+
+        Assert.assertEquals("Should ignore other versions", 0, cache.restore());
+    }
+
+    @Test
+    public void test_missing() {
+        Assert.assertTrue("Should delete", file.delete());
+
+        Assert.assertEquals("Should restore nothing", 0, new StubSnapshotCache(60000).restore());
+    }
+}
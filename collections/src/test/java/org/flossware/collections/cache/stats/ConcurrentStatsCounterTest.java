@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.stats;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.flossware.collections.cache.AbstractCache;
+import org.flossware.collections.cache.policy.CachePolicy;
+import org.flossware.collections.cache.policy.Evictor;
+import org.flossware.collections.cache.policy.NullCachePolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the ConcurrentStatsCounter class and statistics recorded by caches.
+ *
+ * @author Scot P. Floess
+ */
+public class ConcurrentStatsCounterTest {
+
+    class StubCache extends AbstractCache<String, String> {
+
+        StubCache(final CachePolicy<String, String> policy, final StatsCounter statsCounter) {
+            super(policy, statsCounter);
+        }
+
+        @Override
+        protected String create(final String key) {
+            if ("fail".equals(key)) {
+                throw new IllegalStateException("Cannot create " + key);
+            }
+
+            return "value" + key;
+        }
+    }
+
+    /**
+     * Rejects every read of "stale".
+     */
+    class StalePolicy extends NullCachePolicy<String, String> {
+
+        @Override
+        public boolean recordRead(final String key, final String value, final Evictor<String, String> evictor) {
+            return !"stale".equals(key);
+        }
+    }
+
+    /**
+     * Test striped counts survive concurrent updates.
+     */
+    @Test
+    public void test_stripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[8];
+
+        for (int index = 0; index < threads.length; index++) {
+            threads[index] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (final InterruptedException interruptedException) {
+                        return;
+                    }
+
+                    for (int count = 0; count < 10_000; count++) {
+                        counter.increment();
+                    }
+                }
+            });
+            threads[index].start();
+        }
+
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals("Should have every increment", 80_000, counter.sum());
+    }
+
+    /**
+     * Test hits, misses, loads and evictions are recorded.
+     */
+    @Test
+    public void test_stats() {
+        final StubCache cache = new StubCache(new StalePolicy(), new ConcurrentStatsCounter());
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("stale");
+        cache.get("stale");
+
+        try {
+            cache.get("fail");
+            Assert.fail("Should have failed to create");
+        } catch (final IllegalStateException illegalStateException) {
+        }
+
+        final CacheStats stats = cache.stats();
+
+        Assert.assertEquals("Should have hits", 2, stats.getHitCount());
+        Assert.assertEquals("Should have misses", 4, stats.getMissCount());
+        Assert.assertEquals("Should have loads", 3, stats.getLoadSuccessCount());
+        Assert.assertEquals("Should have a failure", 1, stats.getLoadFailureCount());
+        Assert.assertEquals("Should have an eviction", 1, stats.getEvictionCount());
+        Assert.assertTrue("Should have load time", stats.getTotalLoadTime() > 0);
+        Assert.assertEquals("Should be the hit rate", 2.0 / 6, stats.getHitRate(), 0.0001);
+
+        final CacheStats delta = cache.stats().minus(stats);
+        Assert.assertEquals("Should have no new requests", 0, delta.getRequestCount());
+    }
+
+    /**
+     * Test nothing is recorded by default.
+     */
+    @Test
+    public void test_noStats() {
+        final StubCache cache = new StubCache(new NullCachePolicy<String, String>(), new NullStatsCounter());
+
+        cache.get("a");
+        cache.get("a");
+
+        Assert.assertEquals("Should have no requests", 0, cache.stats().getRequestCount());
+    }
+
+    /**
+     * Test statistics are exposed over JMX.
+     */
+    @Test
+    public void test_mxBean() throws Exception {
+        final StubCache cache = new StubCache(new NullCachePolicy<String, String>(), new ConcurrentStatsCounter());
+        final DefaultCacheStatsMXBean mxBean = new DefaultCacheStatsMXBean("test", cache).register();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = mxBean.getObjectName();
+
+        try {
+            cache.get("a");
+            cache.get("a");
+
+            Assert.assertTrue("Should be registered", server.isRegistered(objectName));
+            Assert.assertEquals("Should have a hit", 1L, server.getAttribute(objectName, "HitCount"));
+            Assert.assertEquals("Should have a miss", 1L, server.getAttribute(objectName, "MissCount"));
+        } finally {
+            mxBean.unregister();
+        }
+
+        Assert.assertFalse("Should be unregistered", server.isRegistered(objectName));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.policy.TinyLfuCachePolicy;
+import org.flossware.collections.cache.removal.RemovalCause;
+import org.flossware.collections.cache.removal.RemovalListener;
+import org.flossware.collections.cache.removal.RemovalNotification;
+import org.flossware.collections.cache.stats.ConcurrentStatsCounter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the AbstractTieredCache base class.
+ *
+ * @author Scot P. Floess
+ */
+public class AbstractTieredCacheTest {
+
+    class StubTieredCache extends AbstractTieredCache<Integer, String> {
+
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicInteger destroys = new AtomicInteger();
+        volatile int valueSize;
+
+        StubTieredCache(final OffHeapStore<Integer, String> store, final int maximumSize) {
+            super(store, new TinyLfuCachePolicy<Integer, String>(maximumSize), new ConcurrentStatsCounter(), new RemovalListener<Integer, String>() {
+                @Override
+                public void onRemoval(final RemovalNotification<Integer, String> notification) {
+                    removals.add(notification);
+                }
+            });
+        }
+
+        @Override
+        protected String create(final Integer key) {
+            creates.incrementAndGet();
+
+            final StringBuilder retVal = new StringBuilder("value-" + key);
+            while (retVal.length() < valueSize) {
+                retVal.append('.');
+            }
+
+            return retVal.toString();
+        }
+
+        @Override
+        protected void destroy(final Integer key, final String value) {
+            destroys.incrementAndGet();
+        }
+
+        int size() {
+            return getMap().size();
+        }
+    }
+
+    final List<RemovalNotification<Integer, String>> removals = new CopyOnWriteArrayList<>();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    void assertTiers(final OffHeapStore<Integer, String> store) {
+        final StubTieredCache cache = new StubTieredCache(store, 10);
+
+        for (int key = 0; key < 100; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertTrue("Should bound the first tier", cache.size() <= 10);
+        Assert.assertEquals("Should move the rest to the second tier", 100, cache.size() + store.size());
+        Assert.assertEquals("Should not destroy what moves", 0, cache.destroys.get());
+
+        for (int key = 0; key < 100; key++) {
+            Assert.assertEquals("Should be the same value", "value-" + key, cache.get(key));
+        }
+
+        Assert.assertEquals("Should have found evicted entries in the second tier", 100, cache.creates.get());
+        Assert.assertEquals("Should have all values", 100, cache.getAll(Arrays.asList(1, 2, 3)).size() + 97);
+        Assert.assertEquals("Should still not create", 100, cache.creates.get());
+
+        cache.remove(5);
+        Assert.assertFalse("Should remove from both tiers", store.discard(5));
+        cache.get(5);
+        Assert.assertEquals("Should create again once removed", 101, cache.creates.get());
+    }
+
+    @Test
+    public void test_direct() {
+        assertTiers(new OffHeapStore<Integer, String>(new SerializableCodec<String>(), 1024 * 1024));
+    }
+
+    @Test
+    public void test_mapped() throws Exception {
+        final File directory = folder.newFolder();
+
+        assertTiers(new OffHeapStore<Integer, String>(new SerializableCodec<String>(), directory, 1024 * 1024));
+        Assert.assertTrue("Should have mapped a file", new File(directory, "region-0.dat").exists());
+    }
+
+    @Test
+    public void test_secondTierFull() {
+        final StubTieredCache cache = new StubTieredCache(new OffHeapStore<Integer, String>(new SerializableCodec<String>(), 4096), 10);
+
+        for (int key = 0; key < 1000; key++) {
+            cache.get(key);
+        }
+
+        Assert.assertTrue("Should have dropped from the second tier", cache.stats().getEvictionCount() > 0);
+        Assert.assertTrue("Should bound the second tier", cache.getStore().getLiveBytes() <= 4096);
+    }
+
+    @Test
+    public void test_evictRemapped() {
+        final OffHeapStore<Integer, String> store = new OffHeapStore<>(new SerializableCodec<String>(), 1024 * 1024);
+        final StubTieredCache cache = new StubTieredCache(store, 10);
+
+        cache.get(1);
+
+        Assert.assertFalse("Should not evict a remapped key", cache.evict(1, "stale"));
+        Assert.assertNull("Should not leave a copy in the second tier", store.get(1));
+        Assert.assertTrue("Should evict a mapped key", cache.evict(1, "value-1"));
+        Assert.assertEquals("Should move it to the second tier", "value-1", store.get(1));
+    }
+
+    @Test
+    public void test_expire() {
+        final OffHeapStore<Integer, String> store = new OffHeapStore<>(new SerializableCodec<String>(), 1024 * 1024);
+        final StubTieredCache cache = new StubTieredCache(store, 10);
+
+        cache.get(1);
+        store.put(1, "stale");
+
+        Assert.assertTrue("Should expire", cache.expire(1, "value-1"));
+        Assert.assertNull("Should discard any copy in the second tier", store.get(1));
+        Assert.assertEquals("Should create again", "value-1", cache.get(1));
+        Assert.assertEquals("Should have created twice", 2, cache.creates.get());
+    }
+
+    @Test
+    public void test_evictNotifies() {
+        final OffHeapStore<Integer, String> store = new OffHeapStore<>(new SerializableCodec<String>(), 1024 * 1024);
+        final StubTieredCache cache = new StubTieredCache(store, 10);
+
+        cache.get(1);
+
+        Assert.assertTrue("Should evict", cache.evict(1, "value-1"));
+        Assert.assertEquals("Should tell the listener of the demotion", 1, removals.size());
+        Assert.assertEquals("Should be evicted from the heap", RemovalCause.EVICTED, removals.get(0).getCause());
+        Assert.assertEquals("Should not destroy what moves", 0, cache.destroys.get());
+    }
+
+    @Test
+    public void test_evictTooLarge() {
+        final OffHeapStore<Integer, String> store = new OffHeapStore<>(new SerializableCodec<String>(), 4096);
+        final StubTieredCache cache = new StubTieredCache(store, 10);
+
+        cache.valueSize = 4096;
+        final String value = cache.get(1);
+
+        Assert.assertTrue("Should evict", cache.evict(1, value));
+        Assert.assertNull("Should not be stored", store.get(1));
+        Assert.assertEquals("Should destroy what cannot be stored", 1, cache.destroys.get());
+        Assert.assertEquals("Should count the eviction", 1, cache.stats().getEvictionCount());
+        Assert.assertEquals("Should tell the listener", RemovalCause.EVICTED, removals.get(0).getCause());
+    }
+}
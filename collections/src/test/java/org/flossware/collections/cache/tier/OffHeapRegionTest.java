@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.tier;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the OffHeapRegion class.
+ *
+ * @author Scot P. Floess
+ */
+public class OffHeapRegionTest {
+
+    static byte[] bytes(final int value, final int length) {
+        final byte[] retVal = new byte[length];
+        for (int index = 0; index < length; index++) {
+            retVal[index] = (byte) (value + index);
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void test_slot() {
+        final long slot = OffHeapRegion.slot(Integer.MAX_VALUE - 1, 123_456);
+
+        Assert.assertEquals("Should be the offset", Integer.MAX_VALUE - 1, OffHeapRegion.offset(slot));
+        Assert.assertEquals("Should be the length", 123_456, OffHeapRegion.length(slot));
+    }
+
+    @Test
+    public void test_putGetRemove() {
+        final OffHeapRegion<String> region = new OffHeapRegion<>(ByteBuffer.allocate(1024));
+
+        region.put("a", bytes(1, 10));
+        region.put("b", bytes(2, 20));
+
+        Assert.assertArrayEquals("Should be stored", bytes(1, 10), region.get("a"));
+        Assert.assertArrayEquals("Should be removed", bytes(2, 20), region.remove("b"));
+        Assert.assertNull("Should be gone", region.get("b"));
+        Assert.assertEquals("Should only count live bytes", 10, region.getLiveBytes());
+        Assert.assertFalse("Should be gone", region.discard("b"));
+    }
+
+    @Test
+    public void test_compact() {
+        final OffHeapRegion<Integer> region = new OffHeapRegion<>(ByteBuffer.allocateDirect(1000));
+
+        // Rewriting the same keys only leaves garbage behind - nothing is dropped.
+        for (int round = 0; round < 50; round++) {
+            for (int key = 0; key < 5; key++) {
+                Assert.assertEquals("Should not drop anything", 0, region.put(key, bytes(round + key, 100)));
+            }
+        }
+
+        Assert.assertEquals("Should have all keys", 5, region.size());
+        for (int key = 0; key < 5; key++) {
+            Assert.assertArrayEquals("Should survive compaction", bytes(49 + key, 100), region.get(key));
+        }
+    }
+
+    @Test
+    public void test_dropsEldest() {
+        final OffHeapRegion<Integer> region = new OffHeapRegion<>(ByteBuffer.allocate(1000));
+
+        int dropped = 0;
+        for (int key = 0; key < 20; key++) {
+            dropped += region.put(key, bytes(key, 100));
+        }
+
+        Assert.assertEquals("Should account for every key", 20, region.size() + dropped);
+        Assert.assertNull("Should have dropped the eldest", region.get(0));
+        Assert.assertArrayEquals("Should keep the newest", bytes(19, 100), region.get(19));
+        Assert.assertTrue("Should fit", region.getLiveBytes() <= 1000);
+    }
+
+    @Test
+    public void test_tooLarge() {
+        final OffHeapRegion<String> region = new OffHeapRegion<>(ByteBuffer.allocate(1000));
+
+        region.put("a", bytes(1, 10));
+        Assert.assertEquals("Should say it was not stored", OffHeapRegion.NOT_STORED, region.put("a", bytes(1, 900)));
+
+        Assert.assertNull("Should not store values too large", region.get("a"));
+    }
+
+    @Test
+    public void test_matchesMap() {
+        final OffHeapRegion<Integer> region = new OffHeapRegion<>(ByteBuffer.allocate(1 << 20));
+        final Map<Integer, byte[]> expected = new HashMap<>();
+        final Random random = new Random(7);
+
+        for (int operation = 0; operation < 100_000; operation++) {
+            final int key = random.nextInt(2_000);
+
+            if (random.nextInt(4) == 0) {
+                Assert.assertEquals("Should agree on removal", null != expected.remove(key), region.discard(key));
+            } else {
+                final byte[] value = bytes(operation, 1 + random.nextInt(200));
+
+                Assert.assertEquals("Should not need to drop", 0, region.put(key, value));
+                expected.put(key, value);
+            }
+        }
+
+        Assert.assertEquals("Should have the same keys", expected.size(), region.size());
+        for (final Map.Entry<Integer, byte[]> entry : expected.entrySet()) {
+            Assert.assertArrayEquals("Should have the same value", entry.getValue(), region.get(entry.getKey()));
+        }
+    }
+}
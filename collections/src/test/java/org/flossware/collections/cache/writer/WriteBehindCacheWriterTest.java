@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.cache.writer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.cache.AbstractCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the WriteBehindCacheWriter class.
+ *
+ * @author Scot P. Floess
+ */
+public class WriteBehindCacheWriterTest {
+
+    static class StubWriter extends AbstractCacheWriter<String, String> {
+
+        final Map<String, String> store = Collections.synchronizedMap(new HashMap<String, String>());
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch failed = new CountDownLatch(1);
+
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        volatile boolean error;
+
+        @Override
+        public void write(final String key, final String value) {
+            store.put(key, value);
+        }
+
+        @Override
+        public void writeAll(final Map<String, String> values) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (error) {
+                error = false;
+
+                throw new AssertionError("Cannot write " + values.keySet());
+            }
+
+            if (failures.getAndDecrement() > 0) {
+                failed.countDown();
+
+                throw new IllegalStateException("Cannot write " + values.keySet());
+            }
+
+            batches.add(values.size());
+            super.writeAll(values);
+        }
+
+        @Override
+        public void delete(final String key) {
+            store.remove(key);
+        }
+
+        @Override
+        public void deleteAll(final Collection<String> keys) {
+            batches.add(keys.size());
+            super.deleteAll(keys);
+        }
+    }
+
+    static class StubCache extends AbstractCache<String, String> {
+
+        @Override
+        protected String create(final String key) {
+            return "created-" + key;
+        }
+    }
+
+    private StubWriter writer;
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        writer = new StubWriter();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_coalesce() {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 10, 100, 1, TimeUnit.HOURS);
+
+        for (int count = 0; count < 100; count++) {
+            writeBehind.write("key", "value-" + count);
+        }
+
+        writeBehind.write("other", "value");
+        writeBehind.delete("other");
+
+        Assert.assertEquals("Should coalesce per key", 2, writeBehind.getPending());
+
+        writeBehind.flush();
+
+        Assert.assertEquals("Should write the latest value", "value-99", writer.store.get("key"));
+        Assert.assertFalse("Should have deleted", writer.store.containsKey("other"));
+        Assert.assertEquals("Should write and delete once per key", Arrays.asList(1, 1), writer.batches);
+
+        writeBehind.close();
+    }
+
+    @Test
+    public void test_error() {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 10, 100, 1, TimeUnit.HOURS, 5, 1, TimeUnit.MILLISECONDS);
+
+        writer.error = true;
+        writeBehind.write("key", "value");
+        writeBehind.flush();
+
+        Assert.assertEquals("Should retry after an error", "value", writer.store.get("key"));
+
+        writeBehind.write("key", "other");
+        writeBehind.flush();
+
+        Assert.assertEquals("Should keep flushing after an error", "other", writer.store.get("key"));
+
+        writeBehind.close();
+    }
+
+    @Test
+    public void test_batchSize() throws Exception {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 5, 100, 1, TimeUnit.HOURS);
+
+        for (int key = 0; key < 12; key++) {
+            writeBehind.write("key" + key, "value");
+        }
+
+        while (writer.batches.size() < 2) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals("Should write full batches", 5, (int) writer.batches.get(0));
+        Assert.assertEquals("Should write full batches", 5, (int) writer.batches.get(1));
+        Assert.assertEquals("Should hold the rest", 2, writeBehind.getPending());
+
+        writeBehind.close();
+
+        Assert.assertEquals("Should write the rest on close", 12, writer.store.size());
+    }
+
+    @Test
+    public void test_maxDelay() throws Exception {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 100, 100, 50, TimeUnit.MILLISECONDS);
+
+        writeBehind.write("key", "value");
+
+        final long start = System.nanoTime();
+        while (writer.store.isEmpty()) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertTrue("Should wait for the delay", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+
+        writeBehind.close();
+    }
+
+    @Test
+    public void test_backpressure() throws Exception {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 2, 2, 1, TimeUnit.MILLISECONDS);
+
+        writer.gate = new CountDownLatch(1);
+
+        writeBehind.write("a", "value");
+        writeBehind.write("b", "value");
+
+        while (0 != writeBehind.getPending()) {
+            Thread.sleep(10);
+        }
+
+        writeBehind.write("c", "value");
+        writeBehind.write("d", "value");
+
+        final Future<?> blocked = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                writeBehind.write("e", "value");
+            }
+        });
+
+        try {
+            blocked.get(100, TimeUnit.MILLISECONDS);
+            Assert.fail("Should block while full");
+        } catch (final TimeoutException timeoutException) {
+        }
+
+        writeBehind.write("c", "updated");
+
+        writer.gate.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        writeBehind.close();
+
+        Assert.assertEquals("Should write everything", 5, writer.store.size());
+        Assert.assertEquals("Should coalesce while full", "updated", writer.store.get("c"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_closed() {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer);
+
+        writeBehind.close();
+        writeBehind.write("key", "value");
+    }
+
+    @Test
+    public void test_writingCache() {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 10, 100, 1, TimeUnit.HOURS);
+        final WritingCache<String, String> cache = new WritingCache<>(new StubCache(), writeBehind);
+
+        Assert.assertEquals("Should read through", "created-a", cache.get("a"));
+        cache.put("b", "put");
+        cache.put("b", "ignored");
+        cache.remove("a");
+
+        writeBehind.close();
+
+        Assert.assertEquals("Should write put values", "put", writer.store.get("b"));
+        Assert.assertEquals("Should only write what was cached", 1, writer.store.size());
+        Assert.assertEquals("Should write then delete", 2, writer.batches.size());
+    }
+
+    @Test
+    public void test_retry() throws Exception {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 10, 100, 1, TimeUnit.HOURS, 3, 200, TimeUnit.MILLISECONDS);
+        writer.failures.set(1);
+
+        writeBehind.write("key", "value");
+        writeBehind.write("other", "stale");
+
+        final Future<?> flushed = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                writeBehind.flush();
+            }
+        });
+
+        Assert.assertTrue("Should have failed once", writer.failed.await(5, TimeUnit.SECONDS));
+        writeBehind.write("other", "newer");
+        flushed.get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals("Should retry a failed change", "value", writer.store.get("key"));
+        Assert.assertEquals("Should not retry over a newer change", "newer", writer.store.get("other"));
+        Assert.assertEquals("Should have written once retried", Arrays.asList(2), writer.batches);
+
+        writeBehind.close();
+    }
+
+    @Test
+    public void test_retryGivesUp() throws Exception {
+        final WriteBehindCacheWriter<String, String> writeBehind = new WriteBehindCacheWriter<>(writer, 10, 100, 1, TimeUnit.HOURS, 2, 1, TimeUnit.MILLISECONDS);
+        writer.failures.set(Integer.MAX_VALUE);
+
+        writeBehind.write("key", "value");
+        writeBehind.close();
+
+        Assert.assertTrue("Should give up after the maximum attempts", writer.store.isEmpty());
+        Assert.assertEquals("Should drop what keeps failing", 0, writeBehind.getPending());
+    }
+}
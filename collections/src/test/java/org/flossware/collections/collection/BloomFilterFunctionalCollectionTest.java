@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the BloomFilterFunctionalCollection class.
+ *
+ * @author Scot P. Floess
+ */
+public class BloomFilterFunctionalCollectionTest {
+
+    private BloomFilterFunctionalCollection<Integer> functionalCollection;
+
+    @Before
+    public void init() {
+        functionalCollection = new BloomFilterFunctionalCollection<>(new ArrayList<Integer>(), 100, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_nullCollection() {
+        new BloomFilterFunctionalCollection<>(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_badRate() {
+        new BloomFilterFunctionalCollection<>(new ArrayList<Integer>(), 100, 1.0);
+    }
+
+    @Test
+    public void test_constructor_existing() {
+        final BloomFilterFunctionalCollection<String> existing = new BloomFilterFunctionalCollection<>(new ArrayList<>(Arrays.asList("a", "b", null)));
+
+        Assert.assertTrue("Should have found the element", existing.contains("a"));
+        Assert.assertTrue("Should have found the element", existing.contains(null));
+        Assert.assertFalse("Should not have found the element", existing.contains("c"));
+    }
+
+    @Test
+    public void test_addF_contains() {
+        for (int value = 0; value < 10000; value++) {
+            functionalCollection.addF(value * 2);
+        }
+
+        for (int value = 0; value < 10000; value++) {
+            Assert.assertTrue("Should have found the element", functionalCollection.contains(value * 2));
+        }
+
+        for (int value = 0; value < 10000; value++) {
+            Assert.assertFalse("Should not have found the element", functionalCollection.contains(value * 2 + 1));
+        }
+
+        final BloomFilterStats stats = functionalCollection.stats();
+
+        Assert.assertEquals("Should have counted lookups", 20000, stats.getLookupCount());
+        Assert.assertEquals("Should have counted misses", 10000, stats.getDefiniteMissCount() + stats.getFalsePositiveCount());
+        Assert.assertTrue("Should have grown the filter", stats.getFilterCount() > 1);
+        Assert.assertTrue("Should stay near the false positive rate", stats.getFalsePositiveRate() < 0.02);
+        Assert.assertTrue("Should expect at most the false positive rate", stats.getExpectedFalsePositiveRate() <= 0.01);
+        Assert.assertTrue("Should report memory", stats.getMemoryBytes() > 0);
+    }
+
+    @Test
+    public void test_addAllF_containsAll() {
+        functionalCollection.addAllF(Arrays.asList(1, 2, 3));
+
+        Assert.assertTrue("Should have found the elements", functionalCollection.containsAll(Arrays.asList(3, 1)));
+        Assert.assertFalse("Should not have found the elements", functionalCollection.containsAll(Arrays.asList(3, 4)));
+    }
+
+    @Test
+    public void test_removeF_rebuild() {
+        for (int value = 0; value < 100; value++) {
+            functionalCollection.addF(value);
+        }
+
+        for (int value = 0; value < 60; value++) {
+            functionalCollection.removeF(value);
+        }
+
+        Assert.assertEquals("Should not have rebuilt yet", 0, functionalCollection.stats().getRebuildCount());
+        Assert.assertFalse("Should not have found the element", functionalCollection.contains(10));
+        Assert.assertTrue("Should have found the element", functionalCollection.contains(70));
+        Assert.assertEquals("Should have rebuilt", 1, functionalCollection.stats().getRebuildCount());
+    }
+
+    @Test
+    public void test_removeAllF_iterator() {
+        functionalCollection.addAllF(Arrays.asList(1, 2, 3, 4, 5, 6));
+        functionalCollection.removeAllF(Arrays.asList(1, 2));
+
+        for (final Iterator<Integer> iter = functionalCollection.iterator(); iter.hasNext();) {
+            if (iter.next() < 5) {
+                iter.remove();
+            }
+        }
+
+        Assert.assertEquals("Should be the remaining elements", Arrays.asList(5, 6), new ArrayList<>(functionalCollection));
+        Assert.assertFalse("Should not have found the element", functionalCollection.contains(3));
+        Assert.assertEquals("Should have rebuilt", 1, functionalCollection.stats().getRebuildCount());
+    }
+
+    @Test
+    public void test_clear() {
+        functionalCollection.addAllF(Arrays.asList(1, 2, 3)).clear();
+
+        Assert.assertTrue("Should be empty", functionalCollection.isEmpty());
+        Assert.assertFalse("Should not have found the element", functionalCollection.contains(1));
+        Assert.assertEquals("Should have answered from the filter", 1, functionalCollection.stats().getDefiniteMissCount());
+    }
+}
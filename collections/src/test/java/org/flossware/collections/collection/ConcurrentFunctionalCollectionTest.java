@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the ConcurrentFunctionalCollection class.
+ *
+ * @author Scot P. Floess
+ */
+public class ConcurrentFunctionalCollectionTest {
+
+    @Test
+    public void test_addF() {
+        final ConcurrentFunctionalCollection<String> collection = new ConcurrentFunctionalCollection<>();
+        collection.addF("9").addF("7").addF("6").addF("7");
+
+        Assert.assertEquals("Should have four elements", 4, collection.size());
+        Assert.assertTrue("Should have found the element", collection.remove("7"));
+        Assert.assertEquals("Should have three elements", 3, collection.size());
+    }
+
+    @Test
+    public void test_addAllF_self() {
+        final ConcurrentFunctionalCollection<String> collection = new ConcurrentFunctionalCollection<>();
+        collection.addAllF(Arrays.asList("1", "2")).addAllF(collection);
+
+        Assert.assertEquals("Should have doubled", 4, collection.size());
+    }
+
+    @Test
+    public void test_sorted() {
+        final ConcurrentFunctionalCollection<String> collection = new ConcurrentFunctionalCollection<>(Collections.<String>reverseOrder());
+        collection.addAllF(Arrays.asList("1", "3", "2", "3"));
+
+        Assert.assertEquals("Should be sorted", Arrays.asList("3", "2", "1"), new ArrayList<>(collection));
+    }
+
+    @Test
+    public void test_hashSet() {
+        final ConcurrentFunctionalCollection<String> collection = ConcurrentFunctionalCollection.hashSet();
+        collection.addF("1").addF("1").addF("2");
+
+        Assert.assertEquals("Should hold unique values", 2, collection.size());
+    }
+
+    @Test
+    public void test_weaklyConsistent() {
+        final ConcurrentFunctionalCollection<Integer> collection = new ConcurrentFunctionalCollection<>();
+        collection.addAllF(Arrays.asList(1, 2, 3));
+
+        final List<Integer> seen = new ArrayList<>();
+        for (final Iterator<Integer> iter = collection.iterator(); iter.hasNext();) {
+            final Integer value = iter.next();
+            seen.add(value);
+
+            if (value > 0) {
+                collection.removeF(value).addF(-value);
+            }
+        }
+
+        Assert.assertEquals("Should see values added while iterating", Arrays.asList(1, 2, 3, -1, -2, -3), seen);
+        Assert.assertEquals("Should hold what was added while iterating", Arrays.asList(-1, -2, -3), new ArrayList<>(collection));
+    }
+
+    @Test
+    public void test_concurrentAdds() throws Exception {
+        final ConcurrentFunctionalCollection<Integer> collection = new ConcurrentFunctionalCollection<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            final int base = thread * 10_000;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (final InterruptedException interruptedException) {
+                        return;
+                    }
+
+                    final List<Integer> batch = new ArrayList<>();
+                    for (int value = 0; value < 5_000; value++) {
+                        collection.addF(base + value);
+                        batch.add(base + 5_000 + value);
+                    }
+
+                    collection.addAllF(batch);
+                }
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals("Should hold every value", 40_000, collection.size());
+        Assert.assertEquals("Should hold every value once", 40_000, ConcurrentFunctionalCollection.<Integer>hashSet().addAllF(collection).size());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the SegmentedFunctionalCollection class.
+ *
+ * @author Scot P. Floess
+ */
+public class SegmentedFunctionalCollectionTest {
+
+    private SegmentedFunctionalCollection<Integer> functionalCollection;
+
+    private List<Integer> expected;
+
+    @Before
+    public void init() {
+        functionalCollection = new SegmentedFunctionalCollection<>(3);
+        expected = new ArrayList<>();
+
+        for (int value = 0; value < 50; value++) {
+            functionalCollection.addF(value);
+            expected.add(value);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_chunkBits() {
+        new SegmentedFunctionalCollection<Integer>(31);
+    }
+
+    @Test
+    public void test_addF() {
+        Assert.assertEquals("Should have all elements", 50, functionalCollection.size());
+        Assert.assertEquals("Should keep the order", expected, new ArrayList<>(functionalCollection));
+        Assert.assertEquals("Should be a full sized chunk", 8, functionalCollection.chunks()[6].length);
+        Assert.assertNull("Should only use seven chunks", functionalCollection.chunks()[7]);
+        Assert.assertEquals("Should be the element", Integer.valueOf(42), functionalCollection.get(42));
+        Assert.assertArrayEquals("Should be the elements", expected.toArray(), functionalCollection.toArray());
+        Assert.assertArrayEquals("Should be the elements", expected.toArray(new Integer[0]), functionalCollection.toArray(new Integer[0]));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_get_outOfRange() {
+        functionalCollection.get(50);
+    }
+
+    @Test
+    public void test_addAllF_self() {
+        functionalCollection.addAllF(functionalCollection);
+        expected.addAll(expected);
+
+        Assert.assertEquals("Should have doubled", expected, new ArrayList<>(functionalCollection));
+    }
+
+    @Test
+    public void test_removeF() {
+        functionalCollection.removeF(7).removeF(8).removeF(0).removeF(49).removeF(100);
+        expected.removeAll(Arrays.asList(7, 8, 0, 49));
+
+        Assert.assertEquals("Should have shifted the elements", expected, new ArrayList<>(functionalCollection));
+        Assert.assertNull("Should have released the last chunk", functionalCollection.chunks()[6]);
+    }
+
+    @Test
+    public void test_removeAllF_retainAll() {
+        functionalCollection.removeAllF(Arrays.asList(1, 2, 3, 20, 21, 45));
+        expected.removeAll(Arrays.asList(1, 2, 3, 20, 21, 45));
+        Assert.assertEquals("Should have removed the elements", expected, new ArrayList<>(functionalCollection));
+
+        Assert.assertTrue("Should have changed", functionalCollection.retainAll(Arrays.asList(4, 5, 30)));
+        Assert.assertEquals("Should have kept the elements", Arrays.asList(4, 5, 30), new ArrayList<>(functionalCollection));
+        Assert.assertNull("Should have released the chunk", functionalCollection.chunks()[1]);
+        Assert.assertNull("Should have cleared the slot", functionalCollection.chunks()[0][3]);
+        Assert.assertFalse("Should not have changed", functionalCollection.retainAll(Arrays.asList(4, 5, 30)));
+    }
+
+    @Test
+    public void test_iterator_remove() {
+        for (final Iterator<Integer> iter = functionalCollection.iterator(); iter.hasNext();) {
+            if (0 == iter.next() % 3) {
+                iter.remove();
+            }
+        }
+
+        for (final Iterator<Integer> iter = expected.iterator(); iter.hasNext();) {
+            if (0 == iter.next() % 3) {
+                iter.remove();
+            }
+        }
+
+        Assert.assertEquals("Should have removed the elements", expected, new ArrayList<>(functionalCollection));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void test_iterator_failFast() {
+        for (final Integer value : functionalCollection) {
+            functionalCollection.addF(value);
+        }
+    }
+
+    @Test
+    public void test_clear() {
+        functionalCollection.clear();
+
+        Assert.assertTrue("Should be no elements", functionalCollection.isEmpty());
+        Assert.assertNull("Should have released the chunks", functionalCollection.chunks()[0]);
+
+        functionalCollection.addF(1);
+        Assert.assertEquals("Should be the element", Arrays.asList(1), new ArrayList<>(functionalCollection));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.collection.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flossware.collections.collection.DefaultFunctionalCollection;
+import org.flossware.collections.collection.FunctionalCollection;
+import org.flossware.collections.collection.SegmentedFunctionalCollection;
+import org.flossware.common.Filter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Pipeline class.
+ *
+ * @author Scot P. Floess
+ */
+public class PipelineTest {
+
+    static final Filter<Integer, Integer> MULTIPLE = new Filter<Integer, Integer>() {
+        @Override
+        public boolean accept(final Integer toFilter, final Integer value) {
+            return toFilter % value == 0;
+        }
+    };
+
+    static final Mapper<Integer, Integer> SQUARE = new Mapper<Integer, Integer>() {
+        @Override
+        public Integer map(final Integer value) {
+            return value * value;
+        }
+    };
+
+    static final Reducer<Integer, Long> SUM = new Reducer<Integer, Long>() {
+        @Override
+        public Long reduce(final Long result, final Integer value) {
+            return result + value;
+        }
+    };
+
+    static final Combiner<Long> ADD = new Combiner<Long>() {
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+    };
+
+    private FunctionalCollection<Integer> collection;
+
+    @Before
+    public void init() {
+        collection = new DefaultFunctionalCollection<>(new ArrayList<Integer>());
+
+        for (int value = 0; value < 100_000; value++) {
+            collection.addF(value);
+        }
+    }
+
+    @Test
+    public void test_lazy() {
+        final AtomicInteger mapped = new AtomicInteger();
+        final Pipeline<Integer> pipeline = collection.pipeline().map(new Mapper<Integer, Integer>() {
+            @Override
+            public Integer map(final Integer value) {
+                mapped.incrementAndGet();
+
+                return value;
+            }
+        });
+
+        Assert.assertEquals("Should not run until a terminal operation", 0, mapped.get());
+        Assert.assertEquals("Should count every value", 100_000, pipeline.count());
+        Assert.assertEquals("Should have mapped every value once", 100_000, mapped.get());
+    }
+
+    @Test
+    public void test_filterMapReduce() {
+        long expected = 0;
+        for (int value = 0; value < 100_000; value += 3) {
+            expected += (long) value * value;
+        }
+
+        Assert.assertEquals("Should be the sum of squares", Long.valueOf(expected), collection.pipeline().filter(MULTIPLE, 3).map(new Mapper<Integer, Long>() {
+            @Override
+            public Long map(final Integer value) {
+                return (long) value * value;
+            }
+        }).reduce(0L, new Reducer<Long, Long>() {
+            @Override
+            public Long reduce(final Long result, final Long value) {
+                return result + value;
+            }
+        }));
+    }
+
+    @Test
+    public void test_limit() {
+        final AtomicInteger filtered = new AtomicInteger();
+        final List<Integer> values = collection.pipeline().filter(new Filter<Integer, Void>() {
+            @Override
+            public boolean accept(final Integer toFilter, final Void value) {
+                filtered.incrementAndGet();
+
+                return true;
+            }
+        }, null).map(SQUARE).limit(5).toList();
+
+        Assert.assertEquals("Should take the first five", Arrays.asList(0, 1, 4, 9, 16), values);
+        Assert.assertEquals("Should stop the pass once the limit is reached", 5, filtered.get());
+        Assert.assertTrue("Should be empty", collection.pipeline().limit(0).toList().isEmpty());
+    }
+
+    @Test
+    public void test_flatMap() {
+        final List<Integer> values = Pipeline.of(Arrays.asList(1, 2, 3)).flatMap(new Mapper<Integer, List<Integer>>() {
+            @Override
+            public List<Integer> map(final Integer value) {
+                return Arrays.asList(value, -value);
+            }
+        }).toList();
+
+        Assert.assertEquals("Should flatten in order", Arrays.asList(1, -1, 2, -2, 3, -3), values);
+        Assert.assertEquals("Should stop inside an iterable", Arrays.asList(1, -1, 2), Pipeline.of(Arrays.asList(1, 2, 3)).flatMap(new Mapper<Integer, List<Integer>>() {
+            @Override
+            public List<Integer> map(final Integer value) {
+                return Arrays.asList(value, -value);
+            }
+        }).limit(3).toList());
+    }
+
+    @Test
+    public void test_into() {
+        final Set<Integer> set = collection.pipeline().filter(MULTIPLE, 25_000).into(new LinkedHashSet<Integer>());
+
+        Assert.assertEquals("Should hold the multiples", new ArrayList<>(Arrays.asList(0, 25_000, 50_000, 75_000)), new ArrayList<>(set));
+    }
+
+    @Test
+    public void test_parallel() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            final Pipeline<Integer> sequential = collection.pipeline().filter(MULTIPLE, 7).map(SQUARE);
+            final Pipeline<Integer> parallel = collection.pipeline().filter(MULTIPLE, 7).map(SQUARE).parallel(pool, 1_000);
+
+            Assert.assertTrue("Should be parallel", parallel.isParallel());
+            Assert.assertEquals("Should keep the order", sequential.toList(), parallel.toList());
+            Assert.assertEquals("Should count the same", sequential.count(), parallel.count());
+            Assert.assertEquals("Should reduce the same", sequential.reduce(0L, SUM), parallel.reduce(0L, SUM, ADD));
+            Assert.assertEquals("Should limit in order", sequential.limit(10).toList(), parallel.limit(10).toList());
+            Assert.assertFalse("Should be sequential", parallel.sequential().isParallel());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_parallel_branches() {
+        final Pipeline<Integer> filtered = collection.pipeline().filter(MULTIPLE, 7);
+        final Pipeline<Integer> parallel = filtered.map(SQUARE).parallel();
+        final Pipeline<Integer> sibling = filtered.map(SQUARE);
+
+        Assert.assertTrue("Should be parallel", parallel.isParallel());
+        Assert.assertFalse("Should not change the upstream stage", filtered.isParallel());
+        Assert.assertFalse("Should not change a sibling branch", sibling.isParallel());
+        Assert.assertTrue("Should carry on to later stages", parallel.limit(10).isParallel());
+
+        final Pipeline<Integer> downstream = parallel.map(SQUARE);
+        parallel.sequential();
+        Assert.assertTrue("Should not change stages already chained", downstream.isParallel());
+    }
+
+    @Test
+    public void test_parallel_chunked() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            final SegmentedFunctionalCollection<Integer> chunked = new SegmentedFunctionalCollection<>(6);
+            chunked.addAllF(collection);
+
+            final Pipeline<Integer> sequential = collection.pipeline().filter(MULTIPLE, 7).map(SQUARE);
+            final Pipeline<Integer> parallel = chunked.pipeline().filter(MULTIPLE, 7).map(SQUARE).parallel(pool, 100);
+
+            Assert.assertEquals("Should keep the order", sequential.toList(), parallel.toList());
+            Assert.assertEquals("Should count the same", sequential.count(), parallel.count());
+            Assert.assertEquals("Should reduce the same", sequential.reduce(0L, SUM), parallel.reduce(0L, SUM, ADD));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_limit_negative() {
+        collection.pipeline().limit(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parallel_threshold() {
+        collection.pipeline().parallel(0);
+    }
+}
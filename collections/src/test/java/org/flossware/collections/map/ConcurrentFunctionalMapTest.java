@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the ConcurrentFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class ConcurrentFunctionalMapTest {
+
+    @Test
+    public void test_putF() {
+        final ConcurrentFunctionalMap<String, String> map = new ConcurrentFunctionalMap<>();
+        map.putF("key1", "val1").putF("key2", "val2").removeF("key1").putAllF(map);
+
+        Assert.assertEquals("Should have one element", 1, map.size());
+        Assert.assertEquals("Should have found the element", "val2", map.get("key2"));
+    }
+
+    @Test
+    public void test_atomicOperations() {
+        final ConcurrentFunctionalMap<String, String> map = new ConcurrentFunctionalMap<>(16);
+
+        Assert.assertNull("Should have been absent", map.putIfAbsent("key", "val1"));
+        Assert.assertEquals("Should be present", "val1", map.putIfAbsent("key", "val2"));
+        Assert.assertFalse("Should not replace", map.replace("key", "val2", "val3"));
+        Assert.assertTrue("Should replace", map.replace("key", "val1", "val3"));
+        Assert.assertEquals("Should replace", "val3", map.replace("key", "val4"));
+        Assert.assertFalse("Should not remove", map.remove("key", "val3"));
+        Assert.assertTrue("Should remove", map.remove("key", "val4"));
+        Assert.assertTrue("Should be no elements", map.isEmpty());
+    }
+
+    @Test
+    public void test_sorted() {
+        final ConcurrentFunctionalMap<String, String> map = new ConcurrentFunctionalMap<>(Collections.<String>reverseOrder());
+        map.putF("1", "a").putF("3", "c").putF("2", "b");
+
+        Assert.assertEquals("Should be sorted", Arrays.asList("3", "2", "1"), new ArrayList<>(map.keySet()));
+    }
+
+    @Test
+    public void test_concurrentPuts() throws Exception {
+        final ConcurrentFunctionalMap<Integer, Integer> map = new ConcurrentFunctionalMap<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            final int base = thread * 10_000;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    final Map<Integer, Integer> batch = new HashMap<>();
+                    for (int key = 0; key < 5_000; key++) {
+                        map.putF(base + key, key);
+                        batch.put(base + 5_000 + key, key);
+                    }
+
+                    map.putAllF(batch);
+                }
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        for (final Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            Assert.assertEquals("Should be consistent while writers run", entry.getKey() % 5_000, entry.getValue().intValue());
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals("Should hold every key", 40_000, map.size());
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the CopyOnWriteFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class CopyOnWriteFunctionalMapTest {
+
+    private CopyOnWriteFunctionalMap<String, String> functionalMap;
+
+    @Before
+    public void init() {
+        functionalMap = new CopyOnWriteFunctionalMap<>();
+    }
+
+    @Test
+    public void test_putF() {
+        functionalMap.putF("key1", "val1").putF("key2", "val2").putF("key3", "val3");
+
+        Assert.assertEquals("Should have three elements", 3, functionalMap.size());
+        Assert.assertEquals("Should have found the element", "val2", functionalMap.remove("key2"));
+        Assert.assertEquals("Should have found the element", "val1", functionalMap.remove("key1"));
+        Assert.assertEquals("Should have found the element", "val3", functionalMap.remove("key3"));
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+    }
+
+    @Test
+    public void test_removeF() {
+        functionalMap.putF("key1", "val1").putF("key2", "val2").putF("key3", "val3");
+        functionalMap.removeF("key1").removeF("key3").removeF("key2").removeF("9");
+
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+    }
+
+    @Test
+    public void test_putAllF() {
+        final TreeMap<String, String> map1 = new TreeMap<>();
+        map1.put("key1", "val1");
+        map1.put("key2", "val2");
+
+        final TreeMap<String, String> map2 = new TreeMap<>();
+        map2.put("key2", "new");
+        map2.put("key3", "val3");
+
+        functionalMap.putAllF(map1).putAllF(map2);
+
+        Assert.assertEquals("Should be elements", 3, functionalMap.size());
+        Assert.assertEquals("Should have replaced", "new", functionalMap.get("key2"));
+    }
+
+    @Test
+    public void test_nullValue() {
+        functionalMap.putF("key", null);
+
+        Assert.assertTrue("Should hold the key", functionalMap.containsKey("key"));
+        Assert.assertNull("Should be null", functionalMap.get("key"));
+        Assert.assertNull("Should not hold null keys", functionalMap.get(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nullKey() {
+        functionalMap.put(null, "val");
+    }
+
+    @Test
+    public void test_atomicOperations() {
+        Assert.assertNull("Should have been absent", functionalMap.putIfAbsent("key", "val1"));
+        Assert.assertEquals("Should be present", "val1", functionalMap.putIfAbsent("key", "val2"));
+        Assert.assertFalse("Should not replace", functionalMap.replace("key", "val2", "val3"));
+        Assert.assertTrue("Should replace", functionalMap.replace("key", "val1", "val3"));
+        Assert.assertEquals("Should replace", "val3", functionalMap.replace("key", "val4"));
+        Assert.assertNull("Should not replace absent keys", functionalMap.replace("other", "val"));
+        Assert.assertFalse("Should not remove", functionalMap.remove("key", "val3"));
+        Assert.assertTrue("Should remove", functionalMap.remove("key", "val4"));
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+    }
+
+    @Test
+    public void test_iteratorSnapshot() {
+        functionalMap.putF("key1", "val1").putF("key2", "val2");
+
+        int count = 0;
+        for (final Iterator<Map.Entry<String, String>> iter = functionalMap.entrySet().iterator(); iter.hasNext();) {
+            iter.next();
+            iter.remove();
+            functionalMap.putF("other" + count++, "val");
+        }
+
+        Assert.assertEquals("Should walk the snapshot", 2, count);
+        Assert.assertEquals("Should hold only what was added", 2, functionalMap.size());
+        Assert.assertFalse("Should have removed", functionalMap.containsKey("key1"));
+    }
+
+    @Test
+    public void test_againstHashMap() {
+        final Map<Integer, String> expected = new HashMap<>();
+        final CopyOnWriteFunctionalMap<Integer, String> map = new CopyOnWriteFunctionalMap<>();
+        final Random random = new Random(3);
+
+        for (int count = 0; count < 10_000; count++) {
+            final int key = random.nextInt(500);
+
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals("Should remove the same", expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals("Should replace the same", expected.put(key, "val" + count), map.put(key, "val" + count));
+            }
+        }
+
+        Assert.assertEquals("Should be equal", expected, map);
+        Assert.assertEquals("Should be equal", expected, new CopyOnWriteFunctionalMap<>(expected));
+    }
+
+    @Test
+    public void test_readersMoveForward() throws Exception {
+        final CopyOnWriteFunctionalMap<Integer, Integer> map = new CopyOnWriteFunctionalMap<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        final Thread reader = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    // Key 9 is read after key 0, so it can only be as new or newer.
+                    final Integer first = map.get(0);
+                    final Integer last = map.get(9);
+
+                    if (null != first && null != last && last < first) {
+                        failure.set("Saw generation " + last + " after " + first);
+                    }
+                }
+            }
+        };
+
+        reader.start();
+
+        for (int generation = 0; generation < 2_000; generation++) {
+            final Map<Integer, Integer> batch = new HashMap<>();
+            for (int key = 0; key < 10; key++) {
+                batch.put(key, generation);
+            }
+
+            map.putAllF(batch);
+        }
+
+        done.set(true);
+        reader.join();
+
+        Assert.assertNull(failure.get(), failure.get());
+        Assert.assertEquals("Should hold the batch", 10, map.size());
+    }
+}
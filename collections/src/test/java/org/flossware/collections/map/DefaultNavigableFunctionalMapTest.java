@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the DefaultNavigableFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class DefaultNavigableFunctionalMapTest {
+
+    private DefaultNavigableFunctionalMap<String, String> functionalMap;
+
+    @Before
+    public void init() {
+        functionalMap = DefaultNavigableFunctionalMap.strings();
+        functionalMap.putF("apple", "1").putF("apricot", "2").putF("banana", "3").putF("blueberry", "4").putF("cherry", "5");
+    }
+
+    @Test
+    public void test_putF_removeF() {
+        functionalMap.removeF("apple").removeF("cherry").putF("date", "6");
+
+        Assert.assertEquals("Should be sorted", Arrays.asList("apricot", "banana", "blueberry", "date"), new ArrayList<>(functionalMap.keySet()));
+        Assert.assertEquals("Should be first", "apricot", functionalMap.firstKey());
+        Assert.assertEquals("Should be last", "date", functionalMap.lastEntry().getKey());
+    }
+
+    @Test
+    public void test_subMapF() {
+        final NavigableFunctionalMap<String, String> view = functionalMap.subMapF("apricot", true, "blueberry", false);
+
+        Assert.assertEquals("Should be the range", Arrays.asList("apricot", "banana"), new ArrayList<>(view.keySet()));
+
+        functionalMap.putF("avocado", "7");
+        Assert.assertTrue("View should not be a copy", view.containsKey("avocado"));
+
+        view.removeF("banana");
+        Assert.assertFalse("Should have removed through the view", functionalMap.containsKey("banana"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_subMapF_outOfRange() {
+        functionalMap.subMapF("apricot", true, "blueberry", false).putF("cherry", "8");
+    }
+
+    @Test
+    public void test_headMapF_tailMapF() {
+        Assert.assertEquals("Should be the head", Arrays.asList("apple", "apricot", "banana"), new ArrayList<>(functionalMap.headMapF("banana", true).keySet()));
+        Assert.assertEquals("Should be the tail", Arrays.asList("blueberry", "cherry"), new ArrayList<>(functionalMap.tailMapF("banana", false).keySet()));
+        Assert.assertEquals("Should be the range", Arrays.asList("apricot"), new ArrayList<>(functionalMap.tailMapF("apple", false).headMapF("banana", false).keySet()));
+    }
+
+    @Test
+    public void test_prefixMapF() {
+        Assert.assertEquals("Should be the prefix", Arrays.asList("apple", "apricot"), new ArrayList<>(functionalMap.prefixMapF("ap").keySet()));
+        Assert.assertEquals("Should be the prefix", Arrays.asList("blueberry"), new ArrayList<>(functionalMap.prefixMapF("bl").keySet()));
+        Assert.assertTrue("Should be no keys", functionalMap.prefixMapF("z").isEmpty());
+        Assert.assertEquals("Should be all keys", 5, functionalMap.prefixMapF("").size());
+        Assert.assertEquals("Should be the prefix of a view", Arrays.asList("blueberry"), new ArrayList<>(functionalMap.tailMapF("apple", false).prefixMapF("bl").keySet()));
+
+        functionalMap.putF("b\uFFFF", "9").putF("b\uFFFFa", "10").putF("c", "11");
+        Assert.assertEquals("Should be the prefix", Arrays.asList("b\uFFFF", "b\uFFFFa"), new ArrayList<>(functionalMap.prefixMapF("b\uFFFF").keySet()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_prefixMapF_outOfRange() {
+        functionalMap.tailMapF("apple", false).prefixMapF("a");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_prefixMapF_unsupported() {
+        new DefaultNavigableFunctionalMap<String, String>(new TreeMap<String, String>()).prefixMapF("a");
+    }
+
+    @Test
+    public void test_navigation() {
+        Assert.assertEquals("Should be lower", "apricot", functionalMap.lowerKey("banana"));
+        Assert.assertEquals("Should be floor", "banana", functionalMap.floorKey("banana"));
+        Assert.assertEquals("Should be ceiling", "blueberry", functionalMap.ceilingKey("bb"));
+        Assert.assertEquals("Should be higher", "cherry", functionalMap.higherKey("blueberry"));
+        Assert.assertEquals("Should be descending", "cherry", functionalMap.descendingMap().firstKey());
+        Assert.assertEquals("Should be polled", "apple", functionalMap.pollFirstEntry().getKey());
+        Assert.assertEquals("Should have four elements", 4, functionalMap.size());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the LongObjectFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class LongObjectFunctionalMapTest {
+
+    private LongObjectFunctionalMap<String> functionalMap;
+
+    @Before
+    public void init() {
+        functionalMap = new LongObjectFunctionalMap<>();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_negative() {
+        new LongObjectFunctionalMap<>(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_tooLarge() {
+        new LongObjectFunctionalMap<>(LongObjectFunctionalMap.MAX_SIZE + 1);
+    }
+
+    @Test
+    public void test_toCapacity() {
+        Assert.assertEquals("Should fit the most keys", LongObjectFunctionalMap.MAX_CAPACITY, LongObjectFunctionalMap.toCapacity(LongObjectFunctionalMap.MAX_SIZE));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void test_iterator_concurrentModification() {
+        functionalMap.putF(1L, "val1").putF(2L, "val2");
+
+        final Iterator<Map.Entry<Long, String>> iter = functionalMap.entrySet().iterator();
+        iter.next();
+
+        functionalMap.remove(2L);
+        iter.next();
+    }
+
+    @Test
+    public void test_putF() {
+        functionalMap.putF(1L, "val1").putF(2L, "val2").putF(3L, "val3");
+
+        Assert.assertEquals("Should have three elements", 3, functionalMap.size());
+        Assert.assertEquals("Should have found the element", "val2", functionalMap.remove(2L));
+        Assert.assertEquals("Should have found the element", "val1", functionalMap.remove(Long.valueOf(1L)));
+        Assert.assertEquals("Should have found the element", "val3", functionalMap.remove(3L));
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+    }
+
+    @Test
+    public void test_removeF() {
+        functionalMap.putF(1L, "val1").putF(2L, "val2").putF(3L, "val3");
+        functionalMap.removeF(1L).removeF(3L).removeF(2L).removeF(9L);
+
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+    }
+
+    @Test
+    public void test_putAllF() {
+        final TreeMap<Long, String> map1 = new TreeMap<>();
+        map1.put(1L, "val1");
+        map1.put(2L, "val2");
+
+        final TreeMap<Long, String> map2 = new TreeMap<>();
+        map2.put(3L, "val3");
+        map2.put(4L, "val4");
+
+        functionalMap.putAllF(map1).putAllF(map2);
+        Assert.assertEquals("Should be elements", map1.size() + map2.size(), functionalMap.size());
+        Assert.assertEquals("Should be equal", new TreeMap<>(functionalMap), new TreeMap<Long, String>() {
+            {
+                putAll(map1);
+                putAll(map2);
+            }
+        });
+    }
+
+    @Test
+    public void test_nullValue() {
+        functionalMap.putF(7L, null);
+
+        Assert.assertTrue("Should hold the key", functionalMap.containsKey(7L));
+        Assert.assertNull("Should be null", functionalMap.get(7L));
+        Assert.assertEquals("Should have one element", 1, functionalMap.size());
+        Assert.assertFalse("Should not hold other types", functionalMap.containsKey("7"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nullKey() {
+        functionalMap.put((Long) null, "val");
+    }
+
+    @Test
+    public void test_againstHashMap() {
+        final Map<Long, String> expected = new HashMap<>();
+        final Random random = new Random(13);
+
+        for (int count = 0; count < 100_000; count++) {
+            final long key = random.nextInt(2_000) * 0x1_0000_0001L;
+
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals("Should remove the same", expected.remove(key), functionalMap.remove(key));
+            } else {
+                Assert.assertEquals("Should replace the same", expected.put(key, "val" + count), functionalMap.put(key, "val" + count));
+            }
+        }
+
+        Assert.assertEquals("Should be equal", expected, functionalMap);
+        Assert.assertEquals("Should be equal", functionalMap, expected);
+        Assert.assertEquals("Should hash the same", expected.hashCode(), functionalMap.hashCode());
+    }
+
+    @Test
+    public void test_iteratorRemove() {
+        final Random random = new Random(17);
+
+        for (int round = 0; round < 50; round++) {
+            functionalMap.clear();
+            final Map<Long, String> expected = new HashMap<>();
+
+            for (int count = 0; count < 1_000; count++) {
+                final long key = random.nextInt(100_000) * 0x1_0000_0001L;
+                functionalMap.put(key, "val" + key);
+                expected.put(key, "val" + key);
+            }
+
+            final int held = functionalMap.size();
+            final Map<Long, String> seen = new HashMap<>();
+            for (final Iterator<Map.Entry<Long, String>> iter = functionalMap.entrySet().iterator(); iter.hasNext();) {
+                final Map.Entry<Long, String> entry = iter.next();
+                Assert.assertNull("Should see each entry once", seen.put(entry.getKey(), entry.getValue()));
+
+                if (random.nextBoolean()) {
+                    iter.remove();
+                    expected.remove(entry.getKey());
+                }
+            }
+
+            Assert.assertEquals("Should have seen every entry", held, seen.size());
+            Assert.assertEquals("Should be equal", expected, functionalMap);
+        }
+    }
+
+    @Test
+    public void test_entrySetValue() {
+        functionalMap.putF(1L, "val1");
+        functionalMap.entrySet().iterator().next().setValue("val2");
+
+        Assert.assertEquals("Should write through", "val2", functionalMap.get(1L));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.flossware.collections.cache.tier.SerializableCodec;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the MappedFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class MappedFunctionalMapTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MappedFunctionalMapBuilder<String, String> builder(final int regionBits) throws Exception {
+        return new MappedFunctionalMapBuilder<>(new File(folder.getRoot(), "map"), new SerializableCodec<String>(), new SerializableCodec<String>(), regionBits);
+    }
+
+    MappedFunctionalMap<String, String> build(final int regionBits, final int total) throws Exception {
+        final MappedFunctionalMapBuilder<String, String> builder = builder(regionBits);
+        for (int index = 0; index < total; index++) {
+            builder.put("key" + index, "val" + index);
+        }
+
+        return builder.build();
+    }
+
+    @Test
+    public void test_build() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = build(MappedFunctionalMap.REGION_BITS, 1000);
+
+        Assert.assertEquals("Should have all elements", 1000, functionalMap.size());
+        for (int index = 0; index < 1000; index++) {
+            Assert.assertEquals("Should have found the element", "val" + index, functionalMap.get("key" + index));
+        }
+
+        Assert.assertNull("Should not have found the element", functionalMap.get("key1000"));
+        Assert.assertFalse("Should not have found the element", functionalMap.containsKey(5));
+        Assert.assertFalse("Should not have found the element", functionalMap.containsKey(null));
+    }
+
+    @Test
+    public void test_regions() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = build(8, 500);
+
+        Assert.assertEquals("Should have all elements", 500, functionalMap.size());
+        for (int index = 0; index < 500; index++) {
+            Assert.assertEquals("Should have found the element", "val" + index, functionalMap.get("key" + index));
+        }
+
+        Assert.assertEquals("Should be equal", build(MappedFunctionalMap.REGION_BITS, 500), functionalMap);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_put_tooLarge() throws Exception {
+        builder(8).put("key", new String(new char[300]));
+    }
+
+    @Test
+    public void test_duplicates() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = builder(MappedFunctionalMap.REGION_BITS).put("key1", "val1").put("key2", "val2").put("key1", "new").put("key3", null).build();
+
+        Assert.assertEquals("Should have three elements", 3, functionalMap.size());
+        Assert.assertEquals("Last value should win", "new", functionalMap.get("key1"));
+        Assert.assertTrue("Should have found the element", functionalMap.containsKey("key3"));
+        Assert.assertNull("Should have a null value", functionalMap.get("key3"));
+    }
+
+    @Test
+    public void test_putF_removeF() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = build(MappedFunctionalMap.REGION_BITS, 10);
+
+        functionalMap.putF("key1", "new").putF("key10", "val10").removeF("key2").removeF("key11");
+
+        Assert.assertEquals("Should have ten elements", 10, functionalMap.size());
+        Assert.assertEquals("Should have found the change", "new", functionalMap.get("key1"));
+        Assert.assertEquals("Should have found the addition", "val10", functionalMap.get("key10"));
+        Assert.assertFalse("Should have removed the element", functionalMap.containsKey("key2"));
+        Assert.assertEquals("Should have found the element", "val3", functionalMap.remove("key3"));
+        Assert.assertEquals("Should have found the element", "val10", functionalMap.remove("key10"));
+        Assert.assertNull("Should already be removed", functionalMap.remove("key3"));
+        Assert.assertEquals("Should have eight elements", 8, functionalMap.size());
+
+        functionalMap.put("key2", "back");
+        Assert.assertEquals("Should have found the element", "back", functionalMap.get("key2"));
+        Assert.assertEquals("Should have nine elements", 9, functionalMap.size());
+    }
+
+    @Test
+    public void test_iterator() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = build(8, 100);
+        functionalMap.putAllF(new HashMap<String, String>() {
+            {
+                put("key0", "new");
+                put("added", "val");
+            }
+        }).removeF("key1");
+
+        final Map<String, String> expected = new HashMap<>();
+        for (int index = 2; index < 100; index++) {
+            expected.put("key" + index, "val" + index);
+        }
+        expected.put("key0", "new");
+        expected.put("added", "val");
+
+        Assert.assertEquals("Should be equal", expected, new HashMap<>(functionalMap));
+
+        for (final Iterator<Map.Entry<String, String>> iter = functionalMap.entrySet().iterator(); iter.hasNext();) {
+            if (iter.next().getKey().endsWith("0")) {
+                iter.remove();
+            }
+        }
+
+        Assert.assertEquals("Should have removed ten elements", 90, functionalMap.size());
+        Assert.assertFalse("Should have removed the element", functionalMap.containsKey("key50"));
+    }
+
+    @Test
+    public void test_clear() throws Exception {
+        final MappedFunctionalMap<String, String> functionalMap = build(MappedFunctionalMap.REGION_BITS, 10);
+        functionalMap.clear();
+
+        Assert.assertTrue("Should be no elements", functionalMap.isEmpty());
+        Assert.assertFalse("Should not have found the element", functionalMap.containsKey("key1"));
+        Assert.assertFalse("Should be no elements", functionalMap.entrySet().iterator().hasNext());
+
+        functionalMap.put("key1", "new");
+        Assert.assertEquals("Should have one element", 1, functionalMap.size());
+        Assert.assertEquals("Should have found the element", "new", functionalMap.get("key1"));
+    }
+
+    @Test
+    public void test_reopen() throws Exception {
+        build(MappedFunctionalMap.REGION_BITS, 10).put("key1", "new");
+
+        final MappedFunctionalMap<String, String> functionalMap = new MappedFunctionalMap<>(new File(folder.getRoot(), "map"), new SerializableCodec<String>(), new SerializableCodec<String>());
+
+        Assert.assertEquals("Should have ten elements", 10, functionalMap.size());
+        Assert.assertEquals("Changes should not be written", "val1", functionalMap.get("key1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_notOurs() throws Exception {
+        final File file = folder.newFile();
+        try (final FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[128]);
+        }
+
+        new MappedFunctionalMap<>(file, new SerializableCodec<String>(), new SerializableCodec<String>());
+    }
+}
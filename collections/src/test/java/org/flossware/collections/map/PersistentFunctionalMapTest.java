@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the PersistentFunctionalMap class.
+ *
+ * @author Scot P. Floess
+ */
+public class PersistentFunctionalMapTest {
+
+    /**
+     * A key whose hash is chosen - to force collisions.
+     */
+    static final class Key {
+
+        final int hash;
+        final String name;
+
+        Key(final int hash, final String name) {
+            this.hash = hash;
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key && ((Key) o).name.equals(name);
+        }
+    }
+
+    @Test
+    public void test_putF() {
+        final PersistentFunctionalMap<String, String> empty = PersistentFunctionalMap.empty();
+        final PersistentFunctionalMap<String, String> map = empty.putF("key1", "val1").putF("key2", "val2").putF("key3", "val3");
+
+        Assert.assertTrue("Should be no elements", empty.isEmpty());
+        Assert.assertEquals("Should have three elements", 3, map.size());
+        Assert.assertEquals("Should have found the element", "val2", map.get("key2"));
+        Assert.assertSame("Should be unchanged", map, map.putF("key1", "val1"));
+        Assert.assertEquals("Should have replaced", "new", map.putF("key1", "new").get("key1"));
+        Assert.assertEquals("Should be unchanged", "val1", map.get("key1"));
+    }
+
+    @Test
+    public void test_removeF() {
+        final PersistentFunctionalMap<String, String> map = PersistentFunctionalMap.<String, String>empty().putF("key1", "val1").putF("key2", "val2").putF("key3", "val3");
+
+        Assert.assertTrue("Should be no elements", map.removeF("key1").removeF("key3").removeF("key2").removeF("9").isEmpty());
+        Assert.assertSame("Should be unchanged", map, map.removeF("9"));
+        Assert.assertEquals("Should have three elements", 3, map.size());
+    }
+
+    @Test
+    public void test_putAllF() {
+        final TreeMap<String, String> map1 = new TreeMap<>();
+        map1.put("key1", "val1");
+        map1.put("key2", "val2");
+
+        final TreeMap<String, String> map2 = new TreeMap<>();
+        map2.put("key3", "val3");
+        map2.put("key4", "val4");
+
+        final PersistentFunctionalMap<String, String> map = PersistentFunctionalMap.of(map1).putAllF(map2);
+
+        Assert.assertEquals("Should be elements", map1.size() + map2.size(), map.size());
+        Assert.assertEquals("Should be equal", new TreeMap<String, String>() {
+            {
+                putAll(map1);
+                putAll(map2);
+            }
+        }, map);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_put() {
+        PersistentFunctionalMap.<String, String>empty().put("key", "val");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_iteratorRemove() {
+        PersistentFunctionalMap.<String, String>empty().putF("key", "val").keySet().iterator().remove();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nullKey() {
+        PersistentFunctionalMap.<String, String>empty().putF(null, "val");
+    }
+
+    @Test
+    public void test_collisions() {
+        PersistentFunctionalMap<Key, Integer> map = PersistentFunctionalMap.empty();
+        final Map<Key, Integer> expected = new HashMap<>();
+
+        for (int count = 0; count < 200; count++) {
+            final Key key = new Key(count % 3, "key" + count);
+            map = map.putF(key, count);
+            expected.put(key, count);
+        }
+
+        Assert.assertEquals("Should be equal", expected, map);
+
+        for (int count = 0; count < 200; count += 2) {
+            map = map.removeF(new Key(count % 3, "key" + count));
+            expected.remove(new Key(count % 3, "key" + count));
+        }
+
+        Assert.assertEquals("Should be equal", expected, map);
+        Assert.assertNull("Should not be found", map.get(new Key(0, "missing")));
+    }
+
+    @Test
+    public void test_snapshots() {
+        final Random random = new Random(7);
+        final List<PersistentFunctionalMap<Integer, String>> versions = new ArrayList<>();
+        final List<Map<Integer, String>> expected = new ArrayList<>();
+
+        PersistentFunctionalMap<Integer, String> map = PersistentFunctionalMap.empty();
+        final Map<Integer, String> current = new HashMap<>();
+
+        for (int count = 0; count < 20_000; count++) {
+            final int key = random.nextInt(5_000);
+
+            if (random.nextInt(3) == 0) {
+                map = map.removeF(key);
+                current.remove(key);
+            } else {
+                map = map.putF(key, "val" + count);
+                current.put(key, "val" + count);
+            }
+
+            if (count % 1_000 == 0) {
+                versions.add(map);
+                expected.add(new HashMap<>(current));
+            }
+        }
+
+        Assert.assertEquals("Should be equal", current, map);
+        Assert.assertEquals("Should hash the same", current.hashCode(), map.hashCode());
+
+        for (int index = 0; index < versions.size(); index++) {
+            Assert.assertEquals("Older versions should be unchanged", expected.get(index), versions.get(index));
+        }
+    }
+
+    @Test
+    public void test_transient() {
+        final PersistentFunctionalMap<Integer, String> base = PersistentFunctionalMap.<Integer, String>empty().putF(-1, "base");
+        final TransientFunctionalMap<Integer, String> builder = base.asTransient();
+
+        for (int count = 0; count < 10_000; count++) {
+            builder.putF(count, "val" + count);
+        }
+
+        Assert.assertEquals("Should have replaced", "base", builder.put(-1, "new"));
+
+        final PersistentFunctionalMap<Integer, String> built = builder.persistent();
+
+        builder.removeF(0).putF(1, "changed").clear();
+
+        Assert.assertEquals("Base should be unchanged", 1, base.size());
+        Assert.assertEquals("Base should be unchanged", "base", base.get(-1));
+        Assert.assertEquals("Should hold every key", 10_001, built.size());
+        Assert.assertEquals("Should be unaffected by later changes", "val0", built.get(0));
+        Assert.assertEquals("Should be unaffected by later changes", "val1", built.get(1));
+        Assert.assertEquals("Should be unaffected by later changes", "new", built.get(-1));
+        Assert.assertTrue("Should be cleared", builder.isEmpty());
+    }
+
+    @Test
+    public void test_transientAgainstHashMap() {
+        final Random random = new Random(11);
+        final TransientFunctionalMap<Integer, String> map = new TransientFunctionalMap<>();
+        final Map<Integer, String> expected = new HashMap<>();
+
+        for (int count = 0; count < 50_000; count++) {
+            final int key = random.nextInt(3_000);
+
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals("Should remove the same", expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals("Should replace the same", expected.put(key, "val" + count), map.put(key, "val" + count));
+            }
+
+            if (count % 10_000 == 0) {
+                final PersistentFunctionalMap<Integer, String> snapshot = map.persistent();
+                final Map<Integer, String> copy = new HashMap<>(expected);
+
+                map.putF(-1, "after").removeF(-1);
+                Assert.assertEquals("Snapshot should be unaffected", copy, snapshot);
+            }
+        }
+
+        Assert.assertEquals("Should be equal", expected, map);
+        Assert.assertEquals("Should be equal", expected, map.persistent());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests common to every ring buffer queue - subclasses say which queue and
+ * test it with the threads it allows.
+ *
+ * @author Scot P. Floess
+ */
+public abstract class AbstractRingBufferQueueTest {
+
+    protected AbstractRingBufferQueue<Integer> queue;
+
+    /**
+     * Return the queue to test.
+     */
+    protected abstract AbstractRingBufferQueue<Integer> newQueue(int capacity, WaitStrategy waitStrategy);
+
+    @Before
+    public void init() {
+        queue = newQueue(6, new SpinWaitStrategy());
+    }
+
+    /**
+     * Run producers putting values from 1 to count between them and consumers
+     * taking them - return the sum taken.
+     */
+    protected long run(final int producers, final int consumers, final int count, final WaitStrategy waitStrategy) throws Exception {
+        final AbstractRingBufferQueue<Integer> shared = newQueue(64, waitStrategy);
+        final AtomicLong retVal = new AtomicLong();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int producer = 0; producer < producers; producer++) {
+            final int first = producer;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int value = first + 1; value <= count; value += producers) {
+                            shared.put(value);
+                        }
+                    } catch (final InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        for (int consumer = 0; consumer < consumers; consumer++) {
+            final int taken = count / consumers + (consumer < count % consumers ? 1 : 0);
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        long sum = 0;
+                        for (int value = 0; value < taken; value++) {
+                            sum += shared.take();
+                        }
+
+                        retVal.addAndGet(sum);
+                    } catch (final InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join(60000);
+        }
+
+        Assert.assertTrue("Should be drained", shared.isEmpty());
+
+        return retVal.get();
+    }
+
+    @Test
+    public void test_capacity() {
+        Assert.assertEquals("Should round up to a power of two", 8, queue.getCapacity());
+        Assert.assertEquals("Should have room", 8, queue.remainingCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_capacity_tooSmall() {
+        newQueue(1, new SpinWaitStrategy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_offer_null() {
+        queue.offer(null);
+    }
+
+    @Test
+    public void test_offer_poll() {
+        for (int value = 0; value < 8; value++) {
+            Assert.assertTrue("Should have room", queue.offer(value));
+        }
+
+        Assert.assertFalse("Should be full", queue.offer(8));
+        Assert.assertEquals("Should be full", 8, queue.size());
+        Assert.assertEquals("Should be the head", Integer.valueOf(0), queue.peek());
+
+        for (int lap = 0; lap < 20; lap++) {
+            Assert.assertEquals("Should be in order", Integer.valueOf(lap), queue.poll());
+            Assert.assertTrue("Should have room", queue.offer(lap + 8));
+        }
+
+        Assert.assertEquals("Should see the values", Arrays.asList(20, 21, 22, 23, 24, 25, 26, 27), new ArrayList<>(queue));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_addF_full() {
+        queue.addAllF(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7)).addF(8);
+    }
+
+    @Test
+    public void test_offerAll_drainTo() {
+        Assert.assertEquals("Should have offered all", 3, queue.offerAll(Arrays.asList(1, 2, 3)));
+        Assert.assertEquals("Should have offered what fits", 5, queue.offerAll(Arrays.asList(4, 5, 6, 7, 8, 9, 10)));
+        Assert.assertEquals("Should be full", 0, queue.offerAll(Arrays.asList(11)));
+
+        final List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals("Should have drained the most asked for", 2, queue.drainTo(drained, 2));
+        Assert.assertEquals("Should have drained the rest", 6, queue.drainTo(drained));
+        Assert.assertEquals("Should be in order", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), drained);
+        Assert.assertNull("Should be empty", queue.poll());
+        Assert.assertEquals("Should have offered all", 8, queue.offerAll(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_drainTo_self() {
+        queue.drainTo(queue);
+    }
+
+    @Test
+    public void test_timeouts() throws Exception {
+        Assert.assertNull("Should time out", queue.poll(1, TimeUnit.MILLISECONDS));
+
+        queue.addAllF(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7));
+        Assert.assertFalse("Should time out", queue.offer(8, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void test_take_interrupted() throws Exception {
+        Thread.currentThread().interrupt();
+
+        queue.take();
+    }
+
+    @Test
+    public void test_clear_pipeline() {
+        queue.addAllF(Arrays.asList(3, 1, 2));
+
+        Assert.assertEquals("Should count the values", 3, queue.pipeline().count());
+
+        queue.clear();
+        Assert.assertTrue("Should be empty", queue.isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_removeF() {
+        queue.addAllF(Collections.singletonList(1)).removeF(1);
+    }
+
+    @Test
+    public void test_removeFromMiddle() {
+        queue.addAllF(Arrays.asList(1, 2, 3));
+
+        try {
+            queue.removeAll(Collections.singletonList(2));
+            Assert.fail("Should not remove from the middle");
+        } catch (final UnsupportedOperationException unsupportedOperationException) {
+            Assert.assertTrue("Should say why", unsupportedOperationException.getMessage().contains("only remove from the head"));
+        }
+
+        try {
+            queue.retainAll(Collections.singletonList(2));
+            Assert.fail("Should not remove from the middle");
+        } catch (final UnsupportedOperationException unsupportedOperationException) {
+            Assert.assertTrue("Should say why", unsupportedOperationException.getMessage().contains("only remove from the head"));
+        }
+
+        Assert.assertEquals("Should be untouched", Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+    }
+
+    @Test
+    public void test_oneProducerOneConsumer() throws Exception {
+        Assert.assertEquals("Should take every value", 200000L * 200001 / 2, run(1, 1, 200000, new ParkWaitStrategy(10000)));
+    }
+}
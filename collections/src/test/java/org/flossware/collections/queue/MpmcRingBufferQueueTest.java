@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the MpmcRingBufferQueue class.
+ *
+ * @author Scot P. Floess
+ */
+public class MpmcRingBufferQueueTest extends AbstractRingBufferQueueTest {
+
+    @Override
+    protected AbstractRingBufferQueue<Integer> newQueue(final int capacity, final WaitStrategy waitStrategy) {
+        return new MpmcRingBufferQueue<>(capacity, waitStrategy);
+    }
+
+    @Test
+    public void test_manyProducersManyConsumers() throws Exception {
+        Assert.assertEquals("Should take every value", 200000L * 200001 / 2, run(4, 3, 200000, new YieldWaitStrategy()));
+    }
+
+    @Test
+    @Override
+    public void test_removeF() {
+        queue.addAllF(Arrays.asList(1, 2, 1)).removeF(1);
+
+        Assert.assertEquals("Should remove the first", Arrays.asList(2, 1), new ArrayList<>(queue));
+        Assert.assertFalse("Should not remove what is not queued", queue.remove(3));
+        Assert.assertEquals("Should skip removed values", Integer.valueOf(2), queue.peek());
+        Assert.assertEquals("Should skip removed values", Integer.valueOf(2), queue.poll());
+        Assert.assertEquals("Should skip removed values", Integer.valueOf(1), queue.poll());
+        Assert.assertNull("Should be empty", queue.poll());
+    }
+
+    @Test
+    @Override
+    public void test_removeFromMiddle() {
+        queue.addAllF(Arrays.asList(1, 2, 3, 4));
+
+        Assert.assertTrue("Should remove from the middle", queue.removeAll(Collections.singletonList(2)));
+        Assert.assertEquals("Should have removed", Arrays.asList(1, 3, 4), new ArrayList<>(queue));
+
+        Assert.assertTrue("Should retain", queue.retainAll(Arrays.asList(1, 4)));
+        Assert.assertEquals("Should have retained", Arrays.asList(1, 4), new ArrayList<>(queue));
+
+        for (int value = 5; queue.offer(value); value++) {
+            Assert.assertTrue("Should not pass capacity", value < 5 + queue.getCapacity());
+        }
+
+        Assert.assertEquals("Should take values in order", Integer.valueOf(1), queue.poll());
+        Assert.assertEquals("Should take values in order", Integer.valueOf(4), queue.poll());
+    }
+
+    @Test
+    public void test_threadPoolExecutor() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new MpmcRingBufferQueue<Runnable>(16));
+
+        try {
+            final Runnable blocker = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        gate.await();
+                    } catch (final InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            final Runnable queued = new Runnable() {
+                @Override
+                public void run() {
+                    Assert.fail("Should have been removed");
+                }
+            };
+
+            executor.execute(blocker);
+            executor.execute(queued);
+
+            Assert.assertTrue("Should remove a queued task", executor.remove(queued));
+            Assert.assertTrue("Should be empty", executor.getQueue().isEmpty());
+        } finally {
+            gate.countDown();
+            executor.shutdown();
+            Assert.assertTrue("Should stop", executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
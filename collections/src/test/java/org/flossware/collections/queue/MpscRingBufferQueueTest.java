@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015 Scot P. Floess
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.flossware.collections.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the MpscRingBufferQueue class.
+ *
+ * @author Scot P. Floess
+ */
+public class MpscRingBufferQueueTest extends AbstractRingBufferQueueTest {
+
+    @Override
+    protected AbstractRingBufferQueue<Integer> newQueue(final int capacity, final WaitStrategy waitStrategy) {
+        return new MpscRingBufferQueue<>(capacity, waitStrategy);
+    }
+
+    @Test
+    public void test_manyProducers() throws Exception {
+        Assert.assertEquals("Should take every value", 200000L * 200001 / 2, run(4, 1, 200000, new YieldWaitStrategy()));
+    }
+}